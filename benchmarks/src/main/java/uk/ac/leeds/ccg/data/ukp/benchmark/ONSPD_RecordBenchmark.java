@@ -0,0 +1,163 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.benchmark;
+
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.leeds.ccg.data.core.Data_Environment;
+import uk.ac.leeds.ccg.data.id.Data_RecordID;
+import uk.ac.leeds.ccg.data.ukp.core.UKP_Environment;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2008_02Feb;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2011_05May;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2012_08Nov;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2012_11Nov;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2013_02Feb;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2013_05May;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2013_08Aug;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2014_11Nov;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2015_05May;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2015_08Aug;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2016_02Feb;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_ONSPDGenerator;
+import uk.ac.leeds.ccg.generic.core.Generic_Environment;
+import uk.ac.leeds.ccg.generic.io.Generic_Defaults;
+
+/**
+ * Benchmarks of creating ONSPD records from lines for each layout. Each
+ * invocation creates {@link #N} records.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ONSPD_RecordBenchmark {
+
+    /**
+     * The number of lines.
+     */
+    static final int N = 1024;
+
+    /**
+     * The layout named as in the ONSPD_Record class names.
+     */
+    @Param({"2008_02Feb", "2011_05May", "2012_08Nov", "2012_11Nov",
+        "2013_02Feb", "2013_05May", "2013_08Aug", "2014_11Nov", "2015_05May",
+        "2015_08Aug", "2016_02Feb"})
+    String layout;
+
+    UKP_Environment env;
+
+    String[] lines;
+
+    /**
+     * For creating a record of the layout.
+     */
+    interface Factory {
+
+        ONSPD_Record create(UKP_Environment e, Data_RecordID i, String line);
+    }
+
+    Factory factory;
+
+    @Setup
+    public void setup() throws Exception {
+        env = new UKP_Environment(new Data_Environment(
+                new Generic_Environment(new Generic_Defaults())),
+                Files.createTempDirectory("ukp"));
+        String header;
+        switch (layout) {
+            case "2008_02Feb":
+                header = ONSPD_Record_2008_02Feb.HEADER;
+                factory = ONSPD_Record_2008_02Feb::new;
+                break;
+            case "2011_05May":
+                header = ONSPD_Record_2011_05May.HEADER;
+                factory = ONSPD_Record_2011_05May::new;
+                break;
+            case "2012_08Nov":
+                header = ONSPD_Record_2012_08Nov.HEADER;
+                factory = ONSPD_Record_2012_08Nov::new;
+                break;
+            case "2012_11Nov":
+                header = ONSPD_Record_2012_11Nov.HEADER;
+                factory = ONSPD_Record_2012_11Nov::new;
+                break;
+            case "2013_02Feb":
+                header = ONSPD_Record_2013_02Feb.HEADER;
+                factory = ONSPD_Record_2013_02Feb::new;
+                break;
+            case "2013_05May":
+                header = ONSPD_Record_2013_05May.HEADER;
+                factory = ONSPD_Record_2013_05May::new;
+                break;
+            case "2013_08Aug":
+                header = ONSPD_Record_2013_08Aug.HEADER;
+                factory = ONSPD_Record_2013_08Aug::new;
+                break;
+            case "2014_11Nov":
+                header = ONSPD_Record_2014_11Nov.HEADER;
+                factory = ONSPD_Record_2014_11Nov::new;
+                break;
+            case "2015_05May":
+                header = ONSPD_Record_2015_05May.HEADER;
+                factory = ONSPD_Record_2015_05May::new;
+                break;
+            case "2015_08Aug":
+                header = ONSPD_Record_2015_08Aug.HEADER;
+                factory = ONSPD_Record_2015_08Aug::new;
+                break;
+            case "2016_02Feb":
+                header = ONSPD_Record_2016_02Feb.HEADER;
+                factory = ONSPD_Record_2016_02Feb::new;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown layout " + layout);
+        }
+        StringWriter w = new StringWriter();
+        new UKP_ONSPDGenerator(header, 0).write(w, N);
+        String[] ls = w.toString().split("\n");
+        lines = new String[N];
+        System.arraycopy(ls, 1, lines, 0, N);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public void create(Blackhole bh) {
+        for (int i = 0; i < N; i++) {
+            bh.consume(factory.create(env, new Data_RecordID(i), lines[i]));
+        }
+    }
+}
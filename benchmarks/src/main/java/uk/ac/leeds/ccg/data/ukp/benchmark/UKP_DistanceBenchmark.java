@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.leeds.ccg.data.ukp.data.distance.UKP_DistanceKernel;
+import uk.ac.leeds.ccg.data.ukp.data.distance.UKP_DistanceKernels;
+
+/**
+ * Benchmarks of the distance kernels: distances from one point to
+ * {@link #N} points and assigning {@link #N} points to the nearest of
+ * {@link #centroids} centroids. The "default" kernel is that of
+ * {@link UKP_DistanceKernels#get()} which is the vector kernel if the vector
+ * module is on the class path and jdk.incubator.vector is added, otherwise it
+ * is the same as the "scalar" kernel.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UKP_DistanceBenchmark {
+
+    /**
+     * The number of points.
+     */
+    static final int N = 1 << 16;
+
+    @Param({"scalar", "default"})
+    String kernel;
+
+    /**
+     * The number of centroids, about the number of postcode sectors and
+     * districts in the UK.
+     */
+    @Param({"3000", "11000"})
+    int centroids;
+
+    UKP_DistanceKernel k;
+
+    int[] xs;
+
+    int[] ys;
+
+    int[] cxs;
+
+    int[] cys;
+
+    double[] r;
+
+    int[] assigned;
+
+    @Setup
+    public void setup() {
+        k = kernel.equals("scalar") ? UKP_DistanceKernels.getScalar()
+                : UKP_DistanceKernels.get();
+        Random rand = new Random(0);
+        xs = new int[N];
+        ys = new int[N];
+        for (int i = 0; i < N; i++) {
+            xs[i] = 100000 + rand.nextInt(550000);
+            ys[i] = 10000 + rand.nextInt(1200000);
+        }
+        cxs = new int[centroids];
+        cys = new int[centroids];
+        for (int i = 0; i < centroids; i++) {
+            cxs[i] = 100000 + rand.nextInt(550000);
+            cys[i] = 10000 + rand.nextInt(1200000);
+        }
+        r = new double[N];
+        assigned = new int[1024];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public double[] getDistances() {
+        k.getDistances(430000, 433000, xs, ys, N, r, 0);
+        return r;
+    }
+
+    /**
+     * Assigns the first 1024 points to their nearest centroid.
+     *
+     * @return The index of the nearest centroid of each point.
+     */
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public int[] assign() {
+        k.assign(xs, ys, 1024, cxs, cys, centroids, assigned);
+        return assigned;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.leeds.ccg.data.core.Data_Environment;
+import uk.ac.leeds.ccg.data.ukp.core.UKP_Environment;
+import uk.ac.leeds.ccg.data.ukp.data.UKP_Data;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_ArrayPointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_GridIndex;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_PointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2016_02Feb;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_ONSPDGenerator;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_YM3;
+import uk.ac.leeds.ccg.generic.core.Generic_Environment;
+import uk.ac.leeds.ccg.generic.io.Generic_Defaults;
+
+/**
+ * Benchmarks of reading postcode unit points from an ONSPD file, looking up
+ * points, finding the nearest unit to points and aggregating unit points into
+ * sector centroids. The file is
+ * generated by {@link UKP_ONSPDGenerator} with {@link #rows} lines.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class UKP_LookupBenchmark {
+
+    /**
+     * The number of postcodes looked up in each invocation of
+     * {@link #getPointFromPostcode(Blackhole)}.
+     */
+    static final int N = 1024;
+
+    /**
+     * The number of lines in the generated file.
+     */
+    @Param({"100000", "1000000"})
+    int rows;
+
+    UKP_Data data;
+
+    Path file;
+
+    UKP_ArrayPointLookup units;
+
+    UKP_YM3 ym3;
+
+    /**
+     * Postcodes to look up as they might be written in data. About one in
+     * eight are not in the lookup.
+     */
+    String[] queries;
+
+    UKP_GridIndex grid;
+
+    /**
+     * Points to find the nearest unit to. These are near units as GPS points
+     * would be.
+     */
+    int[] qxs;
+
+    int[] qys;
+
+    @Setup
+    public void setup() throws Exception {
+        Path dir = Files.createTempDirectory("ukp");
+        UKP_Environment env = new UKP_Environment(new Data_Environment(
+                new Generic_Environment(new Generic_Defaults())), dir);
+        data = new UKP_Data(env);
+        file = dir.resolve("ONSPD_FEB_2016_UK.csv");
+        new UKP_ONSPDGenerator(ONSPD_Record_2016_02Feb.HEADER, 0).write(file,
+                rows);
+        units = data.initPostcodeUnitPointLookup(file, true);
+        ym3 = new UKP_YM3(2016, 2);
+        TreeMap<UKP_YM3, UKP_PointLookup> m = new TreeMap<>();
+        m.put(ym3, units);
+        TreeMap<Integer, TreeMap<UKP_YM3, UKP_PointLookup>> ls = new TreeMap<>();
+        ls.put(UKP_Data.TYPE_UNIT, m);
+        env.setONSPDlookups(ls);
+        Random r = new Random(0);
+        queries = new String[N];
+        for (int i = 0; i < N; i++) {
+            String p = UKP_PostcodeKey.decode(units.getKey(r.nextInt(
+                    units.size())));
+            if (i % 8 == 0) {
+                p = p.substring(0, p.length() - 2) + "ZZ";
+            }
+            p = data.getPostcodePrintFormat(p);
+            queries[i] = i % 2 == 0 ? p : p.toLowerCase();
+        }
+        grid = new UKP_GridIndex(units);
+        qxs = new int[N];
+        qys = new int[N];
+        for (int i = 0; i < N; i++) {
+            int j = r.nextInt(units.size());
+            qxs[i] = units.getX(j) + r.nextInt(201) - 100;
+            qys[i] = units.getY(j) + r.nextInt(201) - 100;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void getPointFromPostcode(Blackhole bh) throws Exception {
+        for (String p : queries) {
+            bh.consume(data.getPointFromPostcode(ym3, UKP_Data.TYPE_UNIT, p));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void getNearest(Blackhole bh) {
+        for (int i = 0; i < N; i++) {
+            bh.consume(grid.getNearest(qxs[i], qys[i]));
+        }
+    }
+
+    @Benchmark
+    public UKP_GridIndex initGridIndex() {
+        return new UKP_GridIndex(units);
+    }
+
+    @Benchmark
+    public UKP_ArrayPointLookup initPostcodeUnitPointLookup() throws Exception {
+        return data.initPostcodeUnitPointLookup(file, true);
+    }
+
+    @Benchmark
+    public UKP_ArrayPointLookup initPostcodeSectorPointLookup() {
+        return data.initPostcodeSectorPointLookup(units, true);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.benchmark;
+
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.leeds.ccg.data.core.Data_Environment;
+import uk.ac.leeds.ccg.data.ukp.core.UKP_Environment;
+import uk.ac.leeds.ccg.data.ukp.data.UKP_Data;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2016_02Feb;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_ONSPDGenerator;
+import uk.ac.leeds.ccg.generic.core.Generic_Environment;
+import uk.ac.leeds.ccg.generic.io.Generic_Defaults;
+
+/**
+ * Benchmarks of formatting postcodes and getting the sector, district and
+ * area of a postcode. Each invocation processes {@link #N} postcodes written
+ * in a mixture of the ways postcodes are written in data to be mapped.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UKP_PostcodeBenchmark {
+
+    /**
+     * The number of postcodes.
+     */
+    static final int N = 1024;
+
+    UKP_Data data;
+
+    /**
+     * Postcodes as they might be written in data.
+     */
+    String[] unformatted;
+
+    /**
+     * Postcodes with a single space between the outward and inward codes.
+     */
+    String[] postcodes;
+
+    /**
+     * Formatted postcodes.
+     */
+    String[] formatted;
+
+    @Setup
+    public void setup() throws Exception {
+        data = new UKP_Data(new UKP_Environment(new Data_Environment(
+                new Generic_Environment(new Generic_Defaults())),
+                Files.createTempDirectory("ukp")));
+        String[] ps = new UKP_ONSPDGenerator(ONSPD_Record_2016_02Feb.HEADER, 0)
+                .getPostcodes(1 << 16);
+        Random r = new Random(0);
+        unformatted = new String[N];
+        postcodes = new String[N];
+        formatted = new String[N];
+        for (int i = 0; i < N; i++) {
+            String p = ps[r.nextInt(ps.length)];
+            postcodes[i] = p;
+            switch (i % 4) {
+                case 0:
+                    unformatted[i] = p;
+                    break;
+                case 1:
+                    unformatted[i] = p.toLowerCase();
+                    break;
+                case 2:
+                    unformatted[i] = " " + p.replace(' ', '-') + ".";
+                    break;
+                default:
+                    unformatted[i] = p.replace(" ", "");
+            }
+            formatted[i] = data.formatPostcode(p);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public void formatPostcode(Blackhole bh) {
+        for (String p : unformatted) {
+            bh.consume(data.formatPostcode(p));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public void getPostcodeSector(Blackhole bh) {
+        for (String p : postcodes) {
+            bh.consume(UKP_Data.getPostcodeSector(p));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public void getPostcodeSectorFormatted(Blackhole bh) {
+        for (String p : formatted) {
+            bh.consume(UKP_Data.getPostcodeSector(p));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public void getPostcodeDistrict(Blackhole bh) {
+        for (String p : postcodes) {
+            bh.consume(UKP_Data.getPostcodeDistrict(p));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public void getPostcodeArea(Blackhole bh) {
+        for (String p : formatted) {
+            bh.consume(UKP_Data.getPostcodeArea(p));
+        }
+    }
+}
@@ -20,12 +20,17 @@ import java.io.Serializable;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
 import uk.ac.leeds.ccg.data.core.Data_Environment;
 import uk.ac.leeds.ccg.generic.core.Generic_Environment;
 import uk.ac.leeds.ccg.generic.core.Generic_Strings;
-import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Point;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_CentroidLookup;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_GridIndex;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_PointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_PostcodeIndex;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_TemporalPointLookup;
 import uk.ac.leeds.ccg.data.ukp.data.UKP_Data;
 import uk.ac.leeds.ccg.data.ukp.io.UKP_Files;
 import uk.ac.leeds.ccg.data.ukp.util.UKP_YM3;
@@ -78,7 +83,7 @@ public class UKP_Environment extends Generic_MemoryManager
         /**
          * Init files.
          */
-        files = new UKP_Files(dataDir);
+        files = new UKP_Files(dataDir, env);
         //files = new UKP_Files(de.files.getDir());
     }
 
@@ -184,14 +189,53 @@ public class UKP_Environment extends Generic_MemoryManager
     protected ArrayList<Integer> levels;
     //protected ArrayList<String> levels;
     //private TreeMap<String, TreeMap<ONSPD_YM3, TreeMap<String, ONSPD_Point>>> ONSPDlookups;
-    private TreeMap<Integer, TreeMap<UKP_YM3, TreeMap<String, ONSPD_Point>>> ONSPDlookups;
 
-    //public TreeMap<String, TreeMap<ONSPD_YM3, TreeMap<String, ONSPD_Point>>> getONSPDlookups() {
-    public TreeMap<Integer, TreeMap<UKP_YM3, TreeMap<String, ONSPD_Point>>> getONSPDlookups() throws IOException, ClassNotFoundException {
-        if (ONSPDlookups == null) {
-            initONSPDLookups();
+    /**
+     * The current lookups. This is {@code null} until they are first asked
+     * for and is replaced, never changed, when they are reloaded.
+     */
+    private final transient AtomicReference<UKP_LookupRegistry> registry
+            = new AtomicReference<>();
+
+    /**
+     * For making sure lookups are only loaded by one thread at a time.
+     */
+    private final transient Object lock = new Object();
+
+    /**
+     * Readers that find the lookups loaded do not lock; only the first
+     * readers, which wait for the lookups to be loaded, do.
+     *
+     * @return The current lookups, loaded first (see
+     * {@link #initONSPDLookups()}) if they are not yet.
+     * @throws java.io.IOException If encountered.
+     * @throws java.lang.ClassNotFoundException If encountered.
+     */
+    public UKP_LookupRegistry getRegistry() throws IOException,
+            ClassNotFoundException {
+        UKP_LookupRegistry r = registry.get();
+        if (r == null) {
+            synchronized (lock) {
+                r = registry.get();
+                if (r == null) {
+                    initONSPDLookups();
+                    r = registry.get();
+                }
+            }
         }
-        return ONSPDlookups;
+        return r;
+    }
+
+    //public TreeMap<String, TreeMap<ONSPD_YM3, TreeMap<String, ONSPD_Point>>> getONSPDlookups() {
+    /**
+     * @return A copy of the current lookups for each level and release (see
+     * {@link #getRegistry()}). Changing this does not change the lookups, for
+     * that use {@link #setONSPDlookups(TreeMap)}.
+     * @throws java.io.IOException If encountered.
+     * @throws java.lang.ClassNotFoundException If encountered.
+     */
+    public TreeMap<Integer, TreeMap<UKP_YM3, UKP_PointLookup>> getONSPDlookups() throws IOException, ClassNotFoundException {
+        return getRegistry().getLookups();
     }
 
     protected void initPostcode_Handler() {
@@ -200,27 +244,221 @@ public class UKP_Environment extends Generic_MemoryManager
         }
     }
 
+    /**
+     * Loads postcode unit point lookups for each release and the centroids
+     * of the postcode sectors, districts and areas aggregated from them and
+     * replaces the current lookups with these. Readers using the current
+     * lookups carry on doing so until this is done.
+     *
+     * @throws java.io.IOException If encountered.
+     * @throws java.lang.ClassNotFoundException If encountered.
+     */
     public void initONSPDLookups() throws IOException, ClassNotFoundException {
-        initPostcode_Handler();
-        ONSPDlookups = new TreeMap<>();
-        levels = new ArrayList<>();
-        //levels.add("Unit");
-        levels.add(3);
-        //levels.add("Sector");
-        //levels.add("Area");
-        TreeMap<UKP_YM3, Path> ONSPDFiles = files.getInputONSPDFiles();
-        Iterator<Integer> ite2 = levels.iterator();
-        while (ite2.hasNext()) {
-            int level = ite2.next();
-            TreeMap<UKP_YM3, TreeMap<String, ONSPD_Point>> ONSPDlookup;
-            ONSPDlookup = handler.getPostcodeUnitPointLookups(true,
-                    ONSPDFiles, handler.getDefaultLookupFilename());
-            ONSPDlookups.put(level, ONSPDlookup);
+        synchronized (lock) {
+            initPostcode_Handler();
+            TreeMap<Integer, TreeMap<UKP_YM3, UKP_PointLookup>> ls
+                    = new TreeMap<>();
+            levels = new ArrayList<>();
+            levels.add(UKP_Data.TYPE_AREA);
+            levels.add(UKP_Data.TYPE_DISTRICT);
+            levels.add(UKP_Data.TYPE_SECTOR);
+            levels.add(UKP_Data.TYPE_UNIT);
+            for (int level : levels) {
+                ls.put(level, new TreeMap<>());
+            }
+            TreeMap<UKP_YM3, Path> ONSPDFiles = files.getInputONSPDFiles();
+            TreeMap<UKP_YM3, UKP_PointLookup> units;
+            units = handler.getPostcodeUnitPointLookups(true, ONSPDFiles,
+                    handler.getLookupFilename(),
+                    Runtime.getRuntime().availableProcessors());
+            ls.put(UKP_Data.TYPE_UNIT, units);
+            for (UKP_YM3 ym3 : units.keySet()) {
+                TreeMap<Integer, UKP_CentroidLookup> cs
+                        = handler.initPostcodeCentroidLookups(units.get(ym3),
+                                true);
+                for (int level : cs.keySet()) {
+                    ls.get(level).put(ym3, cs.get(level));
+                }
+            }
+            registry.set(new UKP_LookupRegistry(ls));
+            clearONSPDStores();
+        }
+    }
+
+    /**
+     * Adds lookups for any releases in {@link UKP_Files#getInputONSPDDir()}
+     * that are not yet loaded. The directory is looked in again (see
+     * {@link UKP_Files#refreshInputONSPDFiles()}), so releases unpacked into
+     * it since the lookups were loaded are found. The postcode unit point lookup of each new
+     * release is got by updating that of the release before it (see
+     * {@link UKP_Data#updatePostcodeUnitPointLookup(boolean, UKP_PointLookup, UKP_YM3, Path, String)}),
+     * so the lookups already loaded are not reloaded. The current lookups are
+     * replaced when this is done. If no lookups are loaded then this is the
+     * same as {@link #initONSPDLookups()}.
+     *
+     * @throws java.io.IOException If encountered.
+     * @throws java.lang.ClassNotFoundException If encountered.
+     */
+    public void updateONSPDLookups() throws IOException,
+            ClassNotFoundException {
+        synchronized (lock) {
+            UKP_LookupRegistry r = registry.get();
+            if (r == null) {
+                initONSPDLookups();
+                return;
+            }
+            TreeMap<Integer, TreeMap<UKP_YM3, UKP_PointLookup>> ls
+                    = r.getLookups();
+            TreeMap<UKP_YM3, Path> ONSPDFiles = files.refreshInputONSPDFiles();
+            TreeMap<UKP_YM3, UKP_PointLookup> units
+                    = ls.get(UKP_Data.TYPE_UNIT);
+            for (UKP_YM3 ym3 : ONSPDFiles.keySet()) {
+                if (units.containsKey(ym3)) {
+                    continue;
+                }
+                Map.Entry<UKP_YM3, UKP_PointLookup> prev
+                        = units.lowerEntry(ym3);
+                UKP_PointLookup l;
+                if (prev == null) {
+                    TreeMap<UKP_YM3, Path> fs = new TreeMap<>();
+                    fs.put(ym3, ONSPDFiles.get(ym3));
+                    l = handler.getPostcodeUnitPointLookups(true, fs,
+                            handler.getLookupFilename()).get(ym3);
+                } else {
+                    l = handler.updatePostcodeUnitPointLookup(true,
+                            prev.getValue(), ym3, ONSPDFiles.get(ym3),
+                            handler.getLookupFilename());
+                }
+                units.put(ym3, l);
+                TreeMap<Integer, UKP_CentroidLookup> cs
+                        = handler.initPostcodeCentroidLookups(l, true);
+                for (int level : cs.keySet()) {
+                    ls.computeIfAbsent(level, k -> new TreeMap<>())
+                            .put(ym3, cs.get(level));
+                }
+            }
+            registry.set(new UKP_LookupRegistry(ls));
+            clearONSPDStores();
+        }
+    }
+
+    /**
+     * For storing memory mapped postcode unit point lookups for each release.
+     */
+    private volatile TreeMap<UKP_YM3, UKP_PointLookup> ONSPDstores;
+
+    /**
+     * @return {@link #ONSPDstores} initialised first if it is {@code null}.
+     * Unlike {@link #getONSPDlookups()} this does not load the releases into
+     * the heap. The map is not changed once initialised, but is dropped
+     * (see {@link #clearONSPDStores()}) when the lookups are replaced or the
+     * filter is changed.
+     * @throws java.io.IOException If encountered.
+     * @throws java.lang.ClassNotFoundException If encountered.
+     */
+    public TreeMap<UKP_YM3, UKP_PointLookup> getONSPDStores()
+            throws IOException, ClassNotFoundException {
+        TreeMap<UKP_YM3, UKP_PointLookup> r = ONSPDstores;
+        if (r == null) {
+            synchronized (lock) {
+                r = ONSPDstores;
+                if (r == null) {
+                    initPostcode_Handler();
+                    r = handler.getPostcodeUnitPointStores(true,
+                            files.getInputONSPDFiles(),
+                            handler.getLookupFilename());
+                    ONSPDstores = r;
+                }
+            }
         }
+        return r;
     }
 
     //public void setONSPDlookups(TreeMap<String, TreeMap<ONSPD_YM3, TreeMap<String, ONSPD_Point>>> ONSPDlookups) {
-    public void setONSPDlookups(TreeMap<Integer, TreeMap<UKP_YM3, TreeMap<String, ONSPD_Point>>> ONSPDlookups) {
-        this.ONSPDlookups = ONSPDlookups;
+    /**
+     * Replaces the current lookups.
+     *
+     * @param ONSPDlookups The lookups for each level and release which are
+     * copied.
+     */
+    public void setONSPDlookups(TreeMap<Integer, TreeMap<UKP_YM3, UKP_PointLookup>> ONSPDlookups) {
+        synchronized (lock) {
+            registry.set(new UKP_LookupRegistry(ONSPDlookups));
+            clearONSPDStores();
+        }
+    }
+
+    /**
+     * Drops {@link #ONSPDstores} and {@link #temporalLookup} so they are
+     * initialised again when next asked for. This is done whenever the
+     * lookups are replaced and when the filter of {@link #handler} is changed
+     * (see {@link UKP_Data#setFilter(uk.ac.leeds.ccg.data.ukp.io.UKP_PostcodeFilter)}),
+     * as they were made from the releases and with the filter of the time.
+     */
+    public void clearONSPDStores() {
+        synchronized (lock) {
+            ONSPDstores = null;
+            temporalLookup = null;
+        }
+    }
+
+    /**
+     * @param ym3 The release.
+     * @return The hierarchical index of the postcode units of {@code ym3}
+     * which is created the first time it is asked for, or {@code null} if
+     * there is no postcode unit lookup for {@code ym3}.
+     * @throws java.io.IOException If encountered.
+     * @throws java.lang.ClassNotFoundException If encountered.
+     */
+    public UKP_PostcodeIndex getPostcodeIndex(UKP_YM3 ym3) throws IOException,
+            ClassNotFoundException {
+        return getRegistry().getPostcodeIndex(ym3);
+    }
+
+    /**
+     * @param ym3 The release.
+     * @return The spatial index of the postcode units of {@code ym3} which is
+     * created the first time it is asked for, or {@code null} if there is no
+     * postcode unit lookup for {@code ym3}.
+     * @throws java.io.IOException If encountered.
+     * @throws java.lang.ClassNotFoundException If encountered.
+     */
+    public UKP_GridIndex getGridIndex(UKP_YM3 ym3) throws IOException,
+            ClassNotFoundException {
+        return getRegistry().getGridIndex(ym3);
+    }
+
+    /**
+     * For storing the lookup of the postcode unit points of all releases.
+     */
+    private volatile UKP_TemporalPointLookup temporalLookup;
+
+    /**
+     * @return {@link #temporalLookup} initialised first if it is {@code null}.
+     * It is built by merging the memory mapped stores of the releases (see
+     * {@link #getONSPDStores()}), so the releases are not loaded into the
+     * heap and only the merged lookup is held. Like the stores it is not
+     * changed once initialised, but is dropped with them (see
+     * {@link #clearONSPDStores()}).
+     * @throws java.io.IOException If encountered.
+     * @throws java.lang.ClassNotFoundException If encountered.
+     */
+    public UKP_TemporalPointLookup getTemporalLookup() throws IOException,
+            ClassNotFoundException {
+        UKP_TemporalPointLookup r = temporalLookup;
+        if (r == null) {
+            synchronized (lock) {
+                r = temporalLookup;
+                if (r == null) {
+                    /**
+                     * The stores are got holding the lock so they cannot be
+                     * dropped before the temporal lookup is set.
+                     */
+                    r = new UKP_TemporalPointLookup(getONSPDStores());
+                    temporalLookup = r;
+                }
+            }
+        }
+        return r;
     }
 }
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.core;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import uk.ac.leeds.ccg.data.ukp.data.UKP_Data;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_GridIndex;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_PointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_PostcodeIndex;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_YM3;
+
+/**
+ * An immutable set of lookups for each level and release. The lookups are
+ * copied into arrays on construction, so getting a lookup is an array access
+ * and a binary search of the releases of a level with no locking. The
+ * indexes derived from the postcode unit lookups are created the first time
+ * they are asked for and are held by the registry, so they are always
+ * consistent with the lookups.
+ *
+ * A registry is replaced rather than changed (see
+ * {@link UKP_Environment#getRegistry()}), so readers holding one are not
+ * affected by a reload.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public final class UKP_LookupRegistry {
+
+    /**
+     * The levels in order, e.g. {@link UKP_Data#TYPE_UNIT}.
+     */
+    private final int[] levels;
+
+    /**
+     * The releases of each level in order.
+     */
+    private final UKP_YM3[][] releases;
+
+    /**
+     * The lookup of each release of each level.
+     */
+    private final UKP_PointLookup[][] lookups;
+
+    /**
+     * The postcode indexes created so far.
+     */
+    private final ConcurrentHashMap<UKP_YM3, UKP_PostcodeIndex> postcodeIndexes
+            = new ConcurrentHashMap<>();
+
+    /**
+     * The grid indexes created so far.
+     */
+    private final ConcurrentHashMap<UKP_YM3, UKP_GridIndex> gridIndexes
+            = new ConcurrentHashMap<>();
+
+    /**
+     * @param ls The lookups for each level and release which are copied.
+     */
+    public UKP_LookupRegistry(
+            TreeMap<Integer, TreeMap<UKP_YM3, UKP_PointLookup>> ls) {
+        int n = ls.size();
+        levels = new int[n];
+        releases = new UKP_YM3[n][];
+        lookups = new UKP_PointLookup[n][];
+        int i = 0;
+        for (Map.Entry<Integer, TreeMap<UKP_YM3, UKP_PointLookup>> e
+                : ls.entrySet()) {
+            levels[i] = e.getKey();
+            releases[i] = e.getValue().keySet().toArray(new UKP_YM3[0]);
+            lookups[i] = e.getValue().values().toArray(new UKP_PointLookup[0]);
+            i++;
+        }
+    }
+
+    /**
+     * @param level The level.
+     * @return The index of {@code level} in {@link #levels} or {@code -1}.
+     */
+    private int getLevel(int level) {
+        for (int i = 0; i < levels.length; i++) {
+            if (levels[i] == level) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param level The level, e.g. {@link UKP_Data#TYPE_UNIT}.
+     * @param ym3 The release.
+     * @return The lookup for {@code level} and {@code ym3} or {@code null} if
+     * there is none.
+     */
+    public UKP_PointLookup get(int level, UKP_YM3 ym3) {
+        int l = getLevel(level);
+        if (l < 0) {
+            return null;
+        }
+        int r = Arrays.binarySearch(releases[l], ym3);
+        if (r < 0) {
+            return null;
+        }
+        return lookups[l][r];
+    }
+
+    /**
+     * @param level The level, e.g. {@link UKP_Data#TYPE_UNIT}.
+     * @return The lookups for {@code level} (a new map each time).
+     */
+    public TreeMap<UKP_YM3, UKP_PointLookup> get(int level) {
+        TreeMap<UKP_YM3, UKP_PointLookup> r = new TreeMap<>();
+        int l = getLevel(level);
+        if (l >= 0) {
+            for (int i = 0; i < releases[l].length; i++) {
+                r.put(releases[l][i], lookups[l][i]);
+            }
+        }
+        return r;
+    }
+
+    /**
+     * @return The lookups for each level and release (new maps each time).
+     */
+    public TreeMap<Integer, TreeMap<UKP_YM3, UKP_PointLookup>> getLookups() {
+        TreeMap<Integer, TreeMap<UKP_YM3, UKP_PointLookup>> r
+                = new TreeMap<>();
+        for (int level : levels) {
+            r.put(level, get(level));
+        }
+        return r;
+    }
+
+    /**
+     * @param ym3 The release.
+     * @return The hierarchical index of the postcode units of {@code ym3}
+     * which is created the first time it is asked for, or {@code null} if
+     * there is no postcode unit lookup for {@code ym3}.
+     */
+    public UKP_PostcodeIndex getPostcodeIndex(UKP_YM3 ym3) {
+        UKP_PostcodeIndex r = postcodeIndexes.get(ym3);
+        if (r == null) {
+            UKP_PointLookup units = get(UKP_Data.TYPE_UNIT, ym3);
+            if (units == null) {
+                return null;
+            }
+            r = postcodeIndexes.computeIfAbsent(ym3,
+                    k -> new UKP_PostcodeIndex(units));
+        }
+        return r;
+    }
+
+    /**
+     * @param ym3 The release.
+     * @return The spatial index of the postcode units of {@code ym3} which is
+     * created the first time it is asked for, or {@code null} if there is no
+     * postcode unit lookup for {@code ym3}.
+     */
+    public UKP_GridIndex getGridIndex(UKP_YM3 ym3) {
+        UKP_GridIndex r = gridIndexes.get(ym3);
+        if (r == null) {
+            UKP_PointLookup units = get(UKP_Data.TYPE_UNIT, ym3);
+            if (units == null) {
+                return null;
+            }
+            r = gridIndexes.computeIfAbsent(ym3,
+                    k -> new UKP_GridIndex(units));
+        }
+        return r;
+    }
+}
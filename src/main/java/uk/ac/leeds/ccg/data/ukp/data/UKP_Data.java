@@ -21,29 +21,44 @@ import java.io.IOException;
 import java.io.StreamTokenizer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import uk.ac.leeds.ccg.data.id.Data_RecordID;
 import uk.ac.leeds.ccg.data.ukp.core.UKP_Environment;
+import uk.ac.leeds.ccg.data.ukp.core.UKP_LookupRegistry;
 import uk.ac.leeds.ccg.data.ukp.core.UKP_Object;
+import uk.ac.leeds.ccg.data.ukp.data.distance.UKP_DistanceMatrix;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_ArrayPointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_CentroidAggregator;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_CentroidLookup;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_CodeLookup;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_CodeStore;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_GridIndex;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_MappedPointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_PointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_PointTable;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_SegmentedPointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_TemporalPointLookup;
 import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Point;
-import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record;
-import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record0;
-import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record1;
-import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2008_02Feb;
-import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2011_05May;
-import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2012_11Nov;
-import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2013_02Feb;
-import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2013_05May;
-import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2013_08Aug;
-import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2014_11Nov;
-import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2015_05May;
-import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2015_08Aug;
-import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2016_02Feb;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Projection;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Schema;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_CSVScanner;
 import uk.ac.leeds.ccg.data.ukp.io.UKP_Files;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_Geocoder;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_PostcodeFilter;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_ReleaseDelta;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_ReleaseDiff;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_Snapshot;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeNormaliser;
 import uk.ac.leeds.ccg.data.ukp.util.UKP_YM3;
 import uk.ac.leeds.ccg.generic.io.Generic_IO;
 import uk.ac.leeds.ccg.ukpc.UKPC_Checker;
@@ -163,6 +178,109 @@ public class UKP_Data extends UKP_Object {
         return r;
     }
 
+    /**
+     * For calculating the distances between all of {@code ps0} and all of
+     * {@code ps1}. Each postcode is looked up once and postcodes that are not
+     * in the lookups are logged once in total rather than for each pair (see
+     * {@link UKP_DistanceMatrix}).
+     *
+     * @param yM30v The release to look up {@code ps0} in.
+     * @param yM31v The release to look up {@code ps1} in.
+     * @param ps0 The origin postcodes.
+     * @param ps1 The destination postcodes.
+     * @param pool The pool to calculate in or {@code null} to calculate in
+     * the calling thread.
+     * @return The distances in row major order, so the distance from
+     * {@code ps0[i]} to {@code ps1[j]} is at index {@code i * ps1.length + j}.
+     * Distances from or to postcodes not in the lookups are
+     * {@link Double#NaN}.
+     * @throws java.io.IOException If encountered.
+     * @throws java.lang.ClassNotFoundException If encountered.
+     */
+    public double[] getDistancesBetweenPostcodes(UKP_YM3 yM30v,
+            UKP_YM3 yM31v, String[] ps0, String[] ps1, ForkJoinPool pool)
+            throws IOException, ClassNotFoundException {
+        return UKP_DistanceMatrix.getDistances(resolve(yM30v, ps0),
+                resolve(yM31v, ps1), pool);
+    }
+
+    /**
+     * For calculating the distances between pairs of postcodes as in
+     * {@link #getDistancesBetweenPostcodes(UKP_YM3, UKP_YM3, String[], String[], ForkJoinPool)}
+     * but only for the pairs ({@code ps0[is[k]]}, {@code ps1[js[k]]}).
+     *
+     * @param yM30v The release to look up {@code ps0} in.
+     * @param yM31v The release to look up {@code ps1} in.
+     * @param ps0 The origin postcodes.
+     * @param ps1 The destination postcodes.
+     * @param is The index in {@code ps0} of the origin of each pair.
+     * @param js The index in {@code ps1} of the destination of each pair.
+     * @param pool The pool to calculate in or {@code null} to calculate in
+     * the calling thread.
+     * @return The distance for each pair.
+     * @throws java.io.IOException If encountered.
+     * @throws java.lang.ClassNotFoundException If encountered.
+     */
+    public double[] getDistancesBetweenPostcodes(UKP_YM3 yM30v,
+            UKP_YM3 yM31v, String[] ps0, String[] ps1, int[] is, int[] js,
+            ForkJoinPool pool) throws IOException, ClassNotFoundException {
+        return UKP_DistanceMatrix.getDistances(resolve(yM30v, ps0),
+                resolve(yM31v, ps1), is, js, pool);
+    }
+
+    /**
+     * @param ym3 The release.
+     * @param ps The postcodes.
+     * @return The points of {@code ps} in the postcode unit lookup of
+     * {@code ym3} (see {@link UKP_DistanceMatrix#resolve}).
+     * @throws java.io.IOException If encountered.
+     * @throws java.lang.ClassNotFoundException If encountered.
+     */
+    private UKP_PointTable resolve(UKP_YM3 ym3, String[] ps)
+            throws IOException, ClassNotFoundException {
+        UKP_PointLookup l = oe.getRegistry().get(TYPE_UNIT, ym3);
+        if (l == null) {
+            throw new IllegalArgumentException("No postcode unit lookup for "
+                    + ym3);
+        }
+        UKP_PointTable r = UKP_DistanceMatrix.resolve(l, ps);
+        int m = UKP_DistanceMatrix.countMissing(r);
+        if (m > 0) {
+            oe.env.log(m + " of " + ps.length + " postcodes are not in the "
+                    + ym3 + " lookup", true);
+        }
+        return r;
+    }
+
+    /**
+     * For calculating the distance between postcodes as of different dates
+     * using the lookup of all releases (see
+     * {@link #getPointFromPostcodeAsOf(UKP_YM3, String)}), so neither
+     * {@code yM30v} nor {@code yM31v} need be a release and the releases are
+     * not loaded into the heap.
+     *
+     * @param yM30v The date of the point of {@code postcode0}.
+     * @param yM31v The date of the point of {@code postcode1}.
+     * @param postcode0 The origin postcode.
+     * @param postcode1 The destination postcode.
+     * @return The distance or {@link Double#NaN} if either postcode was not
+     * in the release current at its date.
+     * @throws java.io.IOException If encountered.
+     * @throws java.lang.ClassNotFoundException If encountered.
+     */
+    public double getDistanceBetweenPostcodesAsOf(UKP_YM3 yM30v,
+            UKP_YM3 yM31v, String postcode0, String postcode1)
+            throws IOException, ClassNotFoundException {
+        ONSPD_Point a = getPointFromPostcodeAsOf(yM30v, postcode0);
+        ONSPD_Point b = getPointFromPostcodeAsOf(yM31v, postcode1);
+        if (a == null || b == null) {
+            oe.env.log("No point for " + (a == null ? postcode0 + " as of "
+                    + yM30v : postcode1 + " as of " + yM31v), true);
+            return Double.NaN;
+        }
+        return a.getDistance(b);
+    }
+
     /**
      * @param ym3 nearestYM3ForONSPDLookup.
      * @param level Expects either "Unit", "Sector" or "Area".
@@ -186,7 +304,88 @@ public class UKP_Data extends UKP_Object {
      */
     public ONSPD_Point getPointFromPostcodeNew(UKP_YM3 ym3, int level, String p)
             throws IOException, ClassNotFoundException {
-        return oe.getONSPDlookups().get(level).get(ym3).get(p);
+        return oe.getRegistry().get(level, ym3).getPoint(p);
+    }
+
+    /**
+     * As {@link #getPointFromPostcode(UKP_YM3, int, String)} for postcode
+     * units, but the point is got from the lookup of all releases (see
+     * {@link UKP_Environment#getTemporalLookup()}), so {@code ym3} need not
+     * be a release: the latest release not after it is used.
+     *
+     * @param ym3 The date of the point wanted.
+     * @param p postcode
+     * @return point or {@code null} if {@code p} was not in the release
+     * current at {@code ym3}.
+     * @throws java.io.IOException If encountered.
+     * @throws java.lang.ClassNotFoundException If encountered.
+     */
+    public ONSPD_Point getPointFromPostcodeAsOf(UKP_YM3 ym3, String p)
+            throws IOException, ClassNotFoundException {
+        UKP_TemporalPointLookup l = oe.getTemporalLookup();
+        int v = l.getVersion(UKP_PostcodeNormaliser.toKey(p), ym3);
+        if (v < 0) {
+            return null;
+        }
+        return new ONSPD_Point(l.getX(v), l.getY(v));
+    }
+
+    /**
+     * As {@link #getPointFromPostcode(UKP_YM3, int, String)} for postcode
+     * units, but the point is got from the memory mapped store of the release
+     * (see {@link UKP_Environment#getONSPDStores()}), so the releases do not
+     * have to be loaded into the heap first.
+     *
+     * @param ym3 nearestYM3ForONSPDLookup.
+     * @param p postcode
+     * @return point or {@code null} if there is no store for {@code ym3} or no
+     * point for {@code p} in it.
+     * @throws java.io.IOException If encountered.
+     * @throws java.lang.ClassNotFoundException If encountered.
+     */
+    public ONSPD_Point getPointFromPostcodeStore(UKP_YM3 ym3, String p)
+            throws IOException, ClassNotFoundException {
+        UKP_PointLookup l = oe.getONSPDStores().get(ym3);
+        if (l == null) {
+            return null;
+        }
+        int i = l.indexOf(UKP_PostcodeNormaliser.toKey(p));
+        if (i < 0) {
+            return null;
+        }
+        return new ONSPD_Point(l.getX(i), l.getY(i));
+    }
+
+    /**
+     * For reverse geocoding a point to the nearest postcode unit using the
+     * spatial index of the release (see
+     * {@link UKP_Environment#getGridIndex(UKP_YM3)}).
+     *
+     * @param ym3 nearestYM3ForONSPDLookup.
+     * @param x The x coordinate (easting).
+     * @param y The y coordinate (northing).
+     * @return The formatted postcode of the nearest unit to ({@code x},
+     * {@code y}) or {@code null} if there is no lookup for {@code ym3} or it
+     * has no points.
+     * @throws java.io.IOException If encountered.
+     * @throws java.lang.ClassNotFoundException If encountered.
+     */
+    public String getPostcodeFromPoint(UKP_YM3 ym3, int x, int y)
+            throws IOException, ClassNotFoundException {
+        /**
+         * The index and lookup must be from the same registry in case the
+         * lookups are reloaded.
+         */
+        UKP_LookupRegistry r = oe.getRegistry();
+        UKP_GridIndex g = r.getGridIndex(ym3);
+        if (g == null) {
+            return null;
+        }
+        int i = g.getNearest(x, y);
+        if (i < 0) {
+            return null;
+        }
+        return UKP_PostcodeKey.decode(r.get(TYPE_UNIT, ym3).getKey(i));
     }
 
     /**
@@ -265,15 +464,14 @@ public class UKP_Data extends UKP_Object {
     }
 
     /**
+     * Anything that is not a Roman letter or a digit is removed and letters are
+     * made upper case (see {@link UKP_PostcodeNormaliser}).
+     *
      * @param up unformattedUnitPostcode
      * @return A better format of the unformattedUnitPostcode
      */
     public String formatPostcode(String up) {
-        if (up == null) {
-            return "";
-        } else {
-            return up.replaceAll("[^A-Za-z0-9]", "");
-        }
+        return UKP_PostcodeNormaliser.normalise(up);
 //        String result;
 //        String postcodeNoSpaces;
 //        if (unformattedUnitPostcode == null) {
@@ -325,7 +523,9 @@ public class UKP_Data extends UKP_Object {
      * to be returned as ONSPD_Points.
      * @param yM3v The ym3.
      * @return Map with keys as in input and values that are points. If no look
-     * up is found for a postcode then it is not added.
+     * up is found for a postcode then it is not added and the number of these
+     * is logged. For files too big to hold in a map use
+     * {@link #geocode(Path, Path, char, String, UKP_YM3, UKP_CodeLookup, ForkJoinPool, String...)}.
      * @throws java.io.IOException If encountered.
      * @throws java.lang.ClassNotFoundException If encountered.
      */
@@ -333,17 +533,54 @@ public class UKP_Data extends UKP_Object {
             TreeMap<String, String> input, UKP_YM3 yM3v) throws IOException,
             ClassNotFoundException {
         TreeMap<String, ONSPD_Point> r = new TreeMap<>();
+        int m = 0;
         Iterator<String> ite = input.keySet().iterator();
         while (ite.hasNext()) {
             String key = ite.next();
             String postcode = input.get(key);
             ONSPD_Point p = getPointFromPostcode(yM3v, TYPE_UNIT, postcode);
             if (p == null) {
-                System.out.println("No point for postcode " + postcode);
+                m++;
             } else {
                 r.put(key, p);
             }
         }
+        if (m > 0) {
+            oe.env.log("No point for " + m + " of " + input.size()
+                    + " postcodes", true);
+        }
+        return r;
+    }
+
+    /**
+     * Geocodes the delimited file {@code in} using the postcode unit lookup of
+     * {@code ym3} writing {@code out} (see {@link UKP_Geocoder}).
+     *
+     * @param in The input file which has a header line.
+     * @param out The output file.
+     * @param d The delimiter, e.g. ',' or '\t'.
+     * @param column The name of the postcode column of {@code in}.
+     * @param ym3 The release.
+     * @param codes The area codes of postcodes (may be {@code null} if
+     * {@code names} is empty).
+     * @param pool The pool to geocode in.
+     * @param names The names of the code columns in {@code codes} to append.
+     * @return The numbers of lines geocoded.
+     * @throws java.io.IOException If encountered.
+     * @throws java.lang.ClassNotFoundException If encountered.
+     */
+    public UKP_Geocoder.Summary geocode(Path in, Path out, char d,
+            String column, UKP_YM3 ym3, UKP_CodeLookup codes,
+            ForkJoinPool pool, String... names) throws IOException,
+            ClassNotFoundException {
+        UKP_PointLookup l = oe.getRegistry().get(TYPE_UNIT, ym3);
+        if (l == null) {
+            throw new IllegalArgumentException("No postcode unit lookup for "
+                    + ym3);
+        }
+        UKP_Geocoder.Summary r = new UKP_Geocoder(l, codes, names).geocode(in,
+                out, d, column, pool);
+        oe.env.log(r + " of " + in, true);
         return r;
     }
 
@@ -393,6 +630,54 @@ public class UKP_Data extends UKP_Object {
         checker = new UKPC_Checker();
     }
 
+    /**
+     * For selecting which postcodes are in postcode unit point lookups. This
+     * is {@link UKP_PostcodeFilter#DEFAULT} unless set otherwise. For
+     * lookups of the whole UK set it to {@link UKP_PostcodeFilter#ALL} (see
+     * {@link UKP_ArrayPointLookup} for how much memory these need).
+     */
+    protected UKP_PostcodeFilter filter = UKP_PostcodeFilter.DEFAULT;
+
+    /**
+     * @return {@link #filter}
+     */
+    public UKP_PostcodeFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Lookups are cached in files named with the identity of the filter (see
+     * {@link #getLookupFilename()}), so lookups made with a different filter
+     * are not reused. If the filter is changed then the memory mapped stores
+     * of the environment are dropped (see
+     * {@link UKP_Environment#clearONSPDStores()}).
+     *
+     * @param filter What to set {@link #filter} to.
+     */
+    public void setFilter(UKP_PostcodeFilter filter) {
+        if (!filter.equals(this.filter)) {
+            this.filter = filter;
+            oe.clearONSPDStores();
+        }
+    }
+
+    /**
+     * @return The processed filename for lookups made with {@link #filter}.
+     * For {@link UKP_PostcodeFilter#DEFAULT} this is
+     * {@link #getDefaultLookupFilename()} so existing caches are reused.
+     */
+    public String getLookupFilename() {
+        if (filter.equals(UKP_PostcodeFilter.DEFAULT)) {
+            return getDefaultLookupFilename();
+        }
+        return "PostcodeLookUp_" + filter.getId() + ".dat";
+    }
+
+    /**
+     * @return The processed filename of lookups of the
+     * {@link UKP_PostcodeFilter#DEFAULT} postcodes.
+     * @deprecated Use {@link #getLookupFilename()}.
+     */
     @Deprecated
     public String getDefaultLookupFilename() {
         String selection = "LS";
@@ -417,35 +702,193 @@ public class UKP_Data extends UKP_Object {
      * @param oFs ONSPDFiles
      * @param pf processedFilename
      * @return TreeMap with keys that are {@link UKP_YM3} and values which are
-     * {@code TreeMap<String, ONSPD_Point>} where the keys are Postcode Units
-     * and the values are ONSPD_Points.
+     * lookups from Postcode Units to ONSPD_Points.
+     * @throws java.io.IOException If encountered.
+     * @throws java.lang.ClassNotFoundException If encountered.
+     */
+    public TreeMap<UKP_YM3, UKP_PointLookup> getPostcodeUnitPointLookups(
+            boolean ignorePointsAtOrigin, TreeMap<UKP_YM3, Path> oFs,
+            String pf) throws IOException, ClassNotFoundException {
+        return getPostcodeUnitPointLookups(ignorePointsAtOrigin, oFs, pf, 1);
+    }
+
+    /**
+     * As {@link #getPostcodeUnitPointLookups(boolean, TreeMap, String)}, but
+     * if {@code parallelism > 1} then releases are loaded concurrently and
+     * each release that has to be formatted is split into {@code parallelism}
+     * ranges that are parsed concurrently. All this work is done in a
+     * {@link ForkJoinPool} with {@code parallelism} threads.
+     *
+     * @param ignorePointsAtOrigin If {@code true} then those postcodes with
+     * eastings and northings at the origin are ignored (these are most likely
+     * not at that location).
+     * @param oFs ONSPDFiles
+     * @param pf processedFilename
+     * @param parallelism The number of threads to use, e.g.
+     * {@code Runtime.getRuntime().availableProcessors()}.
+     * @return TreeMap with keys that are {@link UKP_YM3} and values which are
+     * lookups from Postcode Units to ONSPD_Points.
+     * @throws java.io.IOException If encountered.
+     * @throws java.lang.ClassNotFoundException If encountered.
+     */
+    public TreeMap<UKP_YM3, UKP_PointLookup> getPostcodeUnitPointLookups(
+            boolean ignorePointsAtOrigin, TreeMap<UKP_YM3, Path> oFs,
+            String pf, int parallelism) throws IOException,
+            ClassNotFoundException {
+        TreeMap<UKP_YM3, UKP_PointLookup> r = new TreeMap<>();
+        if (parallelism < 2) {
+            Iterator<UKP_YM3> ite = oFs.keySet().iterator();
+            while (ite.hasNext()) {
+                UKP_YM3 YM3 = ite.next();
+                r.put(YM3, getPostcodeUnitPointLookup(ignorePointsAtOrigin,
+                        YM3, oFs.get(YM3), pf, null, 1));
+            }
+            return r;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<UKP_YM3> ym3s = new ArrayList<>(oFs.keySet());
+            List<ForkJoinTask<UKP_PointLookup>> tasks
+                    = new ArrayList<>();
+            for (UKP_YM3 YM3 : ym3s) {
+                Path f = oFs.get(YM3);
+                tasks.add(ForkJoinTask.adapt(() -> {
+                    try {
+                        return getPostcodeUnitPointLookup(ignorePointsAtOrigin,
+                                YM3, f, pf, pool, parallelism);
+                    } catch (ClassNotFoundException e) {
+                        throw new IOException(e);
+                    }
+                }));
+            }
+            List<UKP_PointLookup> ls = invokeAll(pool, tasks);
+            for (int i = 0; i < ym3s.size(); i++) {
+                r.put(ym3s.get(i), ls.get(i));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return r;
+    }
+
+    /**
+     * For getting read only lookups for each release in {@code oFs} that are
+     * served from memory mapped snapshots (see {@link UKP_MappedPointLookup}).
+     * Any snapshots that do not exist are created first as in
+     * {@link #getPostcodeUnitPointLookups(boolean, TreeMap, String)}.
+     *
+     * @param ignorePointsAtOrigin If {@code true} then those postcodes with
+     * eastings and northings at the origin are ignored (these are most likely
+     * not at that location).
+     * @param oFs ONSPDFiles
+     * @param pf processedFilename
+     * @return TreeMap with keys that are {@link UKP_YM3} and values which are
+     * the lookups for those releases.
      * @throws java.io.IOException If encountered.
      * @throws java.lang.ClassNotFoundException If encountered.
      */
-    public TreeMap<UKP_YM3, TreeMap<String, ONSPD_Point>> getPostcodeUnitPointLookups(
+    public TreeMap<UKP_YM3, UKP_PointLookup> getPostcodeUnitPointStores(
             boolean ignorePointsAtOrigin, TreeMap<UKP_YM3, Path> oFs,
             String pf) throws IOException, ClassNotFoundException {
-        TreeMap<UKP_YM3, TreeMap<String, ONSPD_Point>> r = new TreeMap<>();
+        TreeMap<UKP_YM3, UKP_PointLookup> r = new TreeMap<>();
         Iterator<UKP_YM3> ite = oFs.keySet().iterator();
         while (ite.hasNext()) {
             UKP_YM3 YM3 = ite.next();
-            Path outDir = Paths.get(files.getGeneratedONSPDDir().toString(), YM3.toString());
-            Path outFile = Paths.get(outDir.toString(), pf);
-            TreeMap<String, ONSPD_Point> postcodeUnitPointLookup;
-            if (Files.exists(outFile)) {
-                oe.env.log("Load " + outFile, true);
-                postcodeUnitPointLookup = (TreeMap<String, ONSPD_Point>) Generic_IO.readObject(outFile);
+            Path outFile = Paths.get(files.getGeneratedONSPDDir().toString(),
+                    YM3.toString(), UKP_Snapshot.getName(pf));
+            if (!Files.exists(outFile)) {
+                getPostcodeUnitPointLookup(ignorePointsAtOrigin, YM3,
+                        oFs.get(YM3), pf, null, 1);
+            }
+            oe.env.log("Map " + outFile, true);
+            r.put(YM3, new UKP_MappedPointLookup(outFile));
+        }
+        return r;
+    }
+
+    /**
+     * Loads the postcode unit point lookup for a release from the generated
+     * snapshot if it exists, otherwise formats it from {@code f} and writes
+     * the snapshot (see {@link UKP_Snapshot}).
+     *
+     * @param ignorePointsAtOrigin If {@code true} then those postcodes with
+     * eastings and northings at the origin are ignored.
+     * @param YM3 The release.
+     * @param f The input file for the release.
+     * @param pf processedFilename
+     * @param pool If not {@code null} then {@code f} is parsed in
+     * {@code n} ranges in this pool.
+     * @param n The number of ranges to parse {@code f} in.
+     * @return The postcode unit point lookup.
+     * @throws java.io.IOException If encountered.
+     * @throws java.lang.ClassNotFoundException If encountered.
+     */
+    private UKP_ArrayPointLookup getPostcodeUnitPointLookup(
+            boolean ignorePointsAtOrigin, UKP_YM3 YM3, Path f, String pf,
+            ForkJoinPool pool, int n) throws IOException,
+            ClassNotFoundException {
+        Path outDir = Paths.get(files.getGeneratedONSPDDir().toString(), YM3.toString());
+        Path outFile = Paths.get(outDir.toString(), UKP_Snapshot.getName(pf));
+        Path oldFile = Paths.get(outDir.toString(), pf);
+        UKP_ArrayPointLookup r;
+        if (Files.exists(outFile)) {
+            oe.env.log("Load " + outFile, true);
+            return UKP_Snapshot.read(outFile);
+        } else if (Files.exists(oldFile)) {
+            // A cache from before snapshots.
+            oe.env.log("Load " + oldFile, true);
+            r = UKP_ArrayPointLookup.of((TreeMap<String, ONSPD_Point>) Generic_IO.readObject(oldFile));
+        } else {
+            oe.env.log("Format " + f, true);
+            if (pool == null) {
+                r = initPostcodeUnitPointLookup(f, ignorePointsAtOrigin);
             } else {
-                Path f;
-                f = oFs.get(YM3);
-                oe.env.log("Format " + f, true);
-                postcodeUnitPointLookup = initPostcodeUnitPointLookup(
-                        f, ignorePointsAtOrigin);
-                Files.createDirectories(outDir);
-                Generic_IO.writeObject(postcodeUnitPointLookup, outFile);
+                r = initPostcodeUnitPointLookup(f, ignorePointsAtOrigin, pool,
+                        n);
             }
-            r.put(YM3, postcodeUnitPointLookup);
+            Files.createDirectories(outDir);
+        }
+        UKP_Snapshot.write(r, outFile);
+        return r;
+    }
+
+    /**
+     * For updating to a new release. If there is a snapshot for {@code YM3}
+     * then it is loaded, otherwise the changes from {@code l0} to {@code f}
+     * are applied to {@code l0} copy-on-write (see
+     * {@link UKP_SegmentedPointLookup}) and a snapshot of the result is
+     * written. So the new lookup shares the memory of all the parts of
+     * {@code l0} that have not changed and only {@code f} is read.
+     *
+     * @param ignorePointsAtOrigin As for {@code l0}.
+     * @param l0 The postcode unit point lookup of the previous release.
+     * @param YM3 The new release.
+     * @param f The input file for the new release.
+     * @param pf processedFilename
+     * @return The postcode unit point lookup for {@code YM3}.
+     * @throws java.io.IOException If encountered.
+     */
+    public UKP_PointLookup updatePostcodeUnitPointLookup(
+            boolean ignorePointsAtOrigin, UKP_PointLookup l0, UKP_YM3 YM3,
+            Path f, String pf) throws IOException {
+        Path outDir = Paths.get(files.getGeneratedONSPDDir().toString(),
+                YM3.toString());
+        Path outFile = Paths.get(outDir.toString(), UKP_Snapshot.getName(pf));
+        if (Files.exists(outFile)) {
+            oe.env.log("Load " + outFile, true);
+            return UKP_Snapshot.read(outFile);
         }
+        oe.env.log("Update from " + f, true);
+        UKP_ReleaseDelta d = new UKP_ReleaseDelta();
+        new UKP_ReleaseDiff(ignorePointsAtOrigin, 0d, filter)
+                .diff(l0, f, d);
+        UKP_SegmentedPointLookup l0s = UKP_SegmentedPointLookup.of(l0);
+        UKP_SegmentedPointLookup r = d.apply(l0s);
+        oe.env.log("Applied " + d + " sharing "
+                + r.getSharedSegmentCount(l0s) + " of "
+                + r.getSegmentCount() + " segments", true);
+        Files.createDirectories(outDir);
+        UKP_Snapshot.write(r, outFile);
         return r;
     }
 
@@ -516,7 +959,7 @@ public class UKP_Data extends UKP_Object {
         String processedFilename = getDefaultLookupFilename();
         boolean ignorePointsAtOrigin = true;
         TreeMap<UKP_YM3, Path> InputONSPDFiles = files.getInputONSPDFiles();
-        TreeMap<UKP_YM3, TreeMap<String, ONSPD_Point>> l;
+        TreeMap<UKP_YM3, UKP_PointLookup> l;
         l = getPostcodeUnitPointLookups(ignorePointsAtOrigin, InputONSPDFiles,
                 processedFilename);
     }
@@ -653,61 +1096,16 @@ public class UKP_Data extends UKP_Object {
      * premises or business. Examples of postcode units include "SW1W 0NY",
      * "PO16 7GZ", "GU16 7HF", or "L1 8JQ".
      *
-     * @param file
-     * @param postcodeUnitPointLookup
-     * @return
+     * @param postcodeUnitPointLookup The postcode unit points.
+     * @param ignorePointsAtOrigin If {@code true} then units at the origin are
+     * not included.
+     * @return The postcode sector centroids.
      */
-    private TreeMap<String, ONSPD_Point> initPostcodeSectorPointLookup(
-            TreeMap<String, ONSPD_Point> postcodeUnitPointLookup,
+    public UKP_CentroidLookup initPostcodeSectorPointLookup(
+            UKP_PointLookup postcodeUnitPointLookup,
             boolean ignorePointsAtOrigin) {
-        TreeMap<String, ONSPD_Point> result;
-        result = new TreeMap<>();
-        // Aggregate by postcode
-        // Create postcodeSector to unitPostcodes look up
-        TreeMap<String, HashSet<String>> postcodeSectorsAndUnitPostcodes;
-        postcodeSectorsAndUnitPostcodes = new TreeMap<>();
-        Iterator<String> ite;
-        ite = postcodeUnitPointLookup.keySet().iterator();
-        while (ite.hasNext()) {
-            String unitPostcode = ite.next();
-            String postcodeSector = getPostcodeSector(unitPostcode);
-            if (postcodeSectorsAndUnitPostcodes.containsKey(postcodeSector)) {
-                postcodeSectorsAndUnitPostcodes.get(postcodeSector).add(
-                        unitPostcode);
-            } else {
-                postcodeSectorsAndUnitPostcodes.put(
-                        postcodeSector, new HashSet<>());
-            }
-        }
-        // Average points to get postcode sector centroids
-        ite = postcodeSectorsAndUnitPostcodes.keySet().iterator();
-        while (ite.hasNext()) {
-            String postcodeSector = ite.next();
-            HashSet<String> postcodes = postcodeSectorsAndUnitPostcodes.get(
-                    postcodeSector);
-            double sumx = 0;
-            double sumy = 0;
-            double n = postcodes.size();
-            Iterator<String> ite2;
-            ite2 = postcodes.iterator();
-            while (ite2.hasNext()) {
-                String unitPostcode = ite2.next();
-                ONSPD_Point p = postcodeUnitPointLookup.get(unitPostcode);
-                sumx += p.getX();
-                sumy += p.getY();
-            }
-            int x = (int) (sumx / n);
-            int y = (int) (sumy / n);
-            ONSPD_Point postcodeSectorPoint = new ONSPD_Point(x, y);
-            if (ignorePointsAtOrigin) {
-                if (!(x < 1 || y < 1)) {
-                    result.put(postcodeSector, postcodeSectorPoint);
-                }
-            } else {
-                result.put(postcodeSector, postcodeSectorPoint);
-            }
-        }
-        return result;
+        return initCentroidLookup(postcodeUnitPointLookup, TYPE_SECTOR,
+                ignorePointsAtOrigin);
     }
 
     /**
@@ -741,61 +1139,75 @@ public class UKP_Data extends UKP_Object {
      * premises or business. Examples of postcode units include "SW1W 0NY",
      * "PO16 7GZ", "GU16 7HF", or "L1 8JQ".
      *
-     * @param file
-     * @param postcodeUnitPointLookup
-     * @return
+     * @param postcodeUnitPointLookup The postcode unit points.
+     * @param ignorePointsAtOrigin If {@code true} then units at the origin are
+     * not included.
+     * @return The postcode area centroids.
      */
-    private TreeMap<String, ONSPD_Point> initPostcodeAreaPointLookup(
-            TreeMap<String, ONSPD_Point> postcodeUnitPointLookup,
+    public UKP_CentroidLookup initPostcodeAreaPointLookup(
+            UKP_PointLookup postcodeUnitPointLookup,
             boolean ignorePointsAtOrigin) {
-        TreeMap<String, ONSPD_Point> result;
-        result = new TreeMap<>();
-        // Aggregate by postcode
-        // Create postcodeSector to unitPostcodes look up
-        TreeMap<String, HashSet<String>> postcodeAreasAndUnitPostcodes;
-        postcodeAreasAndUnitPostcodes = new TreeMap<>();
-        Iterator<String> ite;
-        ite = postcodeUnitPointLookup.keySet().iterator();
-        while (ite.hasNext()) {
-            String unitPostcode = ite.next();
-            String postcodeArea = getPostcodeArea(unitPostcode);
-            if (postcodeAreasAndUnitPostcodes.containsKey(postcodeArea)) {
-                postcodeAreasAndUnitPostcodes.get(postcodeArea).add(
-                        unitPostcode);
-            } else {
-                postcodeAreasAndUnitPostcodes.put(
-                        postcodeArea, new HashSet<>());
-            }
-        }
-        // Average points to get postcode sector centroids
-        ite = postcodeAreasAndUnitPostcodes.keySet().iterator();
-        while (ite.hasNext()) {
-            String postcodeSector = ite.next();
-            HashSet<String> postcodes = postcodeAreasAndUnitPostcodes.get(
-                    postcodeSector);
-            double sumx = 0;
-            double sumy = 0;
-            double n = postcodes.size();
-            Iterator<String> ite2;
-            ite2 = postcodes.iterator();
-            while (ite2.hasNext()) {
-                String unitPostcode = ite2.next();
-                ONSPD_Point p = postcodeUnitPointLookup.get(unitPostcode);
-                sumx += p.getX();
-                sumy += p.getY();
-            }
-            int x = (int) (sumx / n);
-            int y = (int) (sumy / n);
-            ONSPD_Point postcodeAreaPoint = new ONSPD_Point(x, y);
-            if (ignorePointsAtOrigin) {
-                if (!(x < 1 || y < 1)) {
-                    result.put(postcodeSector, postcodeAreaPoint);
-                }
-            } else {
-                result.put(postcodeSector, postcodeAreaPoint);
-            }
-        }
-        return result;
+        return initCentroidLookup(postcodeUnitPointLookup, TYPE_AREA,
+                ignorePointsAtOrigin);
+    }
+
+    /**
+     * For Unit Postcode "LS2 9JT": Postcode District = "LS2" (see
+     * {@link #initPostcodeAreaPointLookup(UKP_PointLookup, boolean)}).
+     *
+     * @param postcodeUnitPointLookup The postcode unit points.
+     * @param ignorePointsAtOrigin If {@code true} then units at the origin are
+     * not included.
+     * @return The postcode district centroids.
+     */
+    public UKP_CentroidLookup initPostcodeDistrictPointLookup(
+            UKP_PointLookup postcodeUnitPointLookup,
+            boolean ignorePointsAtOrigin) {
+        return initCentroidLookup(postcodeUnitPointLookup, TYPE_DISTRICT,
+                ignorePointsAtOrigin);
+    }
+
+    /**
+     * Aggregates the points of postcode units into the centroids of the
+     * postcode sectors, districts and areas that contain them in a single
+     * pass.
+     *
+     * @param units The postcode unit points.
+     * @param ignorePointsAtOrigin If {@code true} then units at the origin are
+     * not included.
+     * @return The centroids keyed by {@link #TYPE_AREA},
+     * {@link #TYPE_DISTRICT} and {@link #TYPE_SECTOR}.
+     */
+    public TreeMap<Integer, UKP_CentroidLookup> initPostcodeCentroidLookups(
+            UKP_PointLookup units, boolean ignorePointsAtOrigin) {
+        UKP_CentroidAggregator a = new UKP_CentroidAggregator(
+                ignorePointsAtOrigin);
+        a.addAll(units);
+        TreeMap<Integer, UKP_CentroidLookup> r = new TreeMap<>();
+        r.put(TYPE_AREA, a.build(TYPE_AREA));
+        r.put(TYPE_DISTRICT, a.build(TYPE_DISTRICT));
+        r.put(TYPE_SECTOR, a.build(TYPE_SECTOR));
+        return r;
+    }
+
+    /**
+     * Aggregates the points of postcode units into centroids for the postcode
+     * sectors, districts or areas that contain them (see
+     * {@link UKP_CentroidAggregator}).
+     *
+     * @param units The postcode unit points.
+     * @param level One of {@link #TYPE_SECTOR}, {@link #TYPE_DISTRICT} or
+     * {@link #TYPE_AREA}.
+     * @param ignorePointsAtOrigin If {@code true} then units at the origin are
+     * not included.
+     * @return The centroids.
+     */
+    private UKP_CentroidLookup initCentroidLookup(UKP_PointLookup units,
+            int level, boolean ignorePointsAtOrigin) {
+        UKP_CentroidAggregator a = new UKP_CentroidAggregator(
+                ignorePointsAtOrigin);
+        a.addAll(units);
+        return a.build(level);
     }
 
 //    public String formatPostcodeForMapping(String postcode) {
@@ -837,13 +1249,12 @@ public class UKP_Data extends UKP_Object {
             return false;
         }
         if (p.length() > 5) {
-            TreeMap<String, ONSPD_Point> l = oe.getONSPDlookups().get(TYPE_UNIT)
-                    .get(ym3);
+            UKP_PointLookup l = oe.getRegistry().get(TYPE_UNIT, ym3);
             if (l == null) {
                 System.err.println("yM3UnitPostcodeONSPDLookupsONS == null for "
                         + "NearestYM3ForONSPDLookup " + ym3);
             }
-            return l.containsKey(p);
+            return l.indexOf(UKP_PostcodeKey.encode(p)) >= 0;
         }
         return false;
     }
@@ -905,82 +1316,307 @@ public class UKP_Data extends UKP_Object {
     }
 
     /**
-     * This is currently only including postcodes beginning with LS, BD, HG, CR,
-     * W, NP, BL, HX, HD. This almost certainly should be superseded with a
-     * method that returns a map with keys that are faster to look up.
+     * Only postcodes selected by {@link #getFilter()} are included.
      *
      * @param f The file.
      * @param ignorePointsAtOrigin If true then postcodes that are at the origin
      * are ignored. These tend to be postcodes that are not geolocated.
-     * @return A map of lookups from a postcode to a point.
+     * @return A lookup from postcode to point.
      * @throws FileNotFoundException If encountered.
      * @throws IOException If encountered.
      */
-    public TreeMap<String, ONSPD_Point> initPostcodeUnitPointLookup(Path f,
+    public UKP_ArrayPointLookup initPostcodeUnitPointLookup(Path f,
             boolean ignorePointsAtOrigin) throws FileNotFoundException,
             IOException {
-        TreeMap<String, ONSPD_Point> r = new TreeMap<>();
-        int lineCounter = 0;
-        long rID = 0;
-        try (BufferedReader br = Generic_IO.getBufferedReader(f)) {
-            StreamTokenizer st = getStreamTokeniser(br);
-            String line = "";
-            //Skip the first line
-            int tokenType;
-            br.readLine();
-            tokenType = st.nextToken();
-            while (tokenType != StreamTokenizer.TT_EOF) {
-                switch (tokenType) {
-                    case StreamTokenizer.TT_EOL:
-                        ONSPD_Record rec = new ONSPD_Record(oe,
-                                new Data_RecordID(rID), line);
-                        rID++;
-                        int easting = rec.getOseast1m();
-                        int northing = rec.getOsnrth1m();
-                        ONSPD_Point point = new ONSPD_Point(easting, northing);
-                        String PostcodeF = rec.getPostcodeF();
-                        if (ignorePointsAtOrigin) {
-                            if (easting < 1 || northing < 1) {
-                                /**
-                                 * Postcodes ending ZZ are usually at origin,
-                                 * but some others are too.
-                                 */
-                                int debug = 1;
-                            } else if (PostcodeF.startsWith("LS")
-                                    || PostcodeF.startsWith("BD")
-                                    || PostcodeF.startsWith("HG")
-                                    || PostcodeF.startsWith("CR")
-                                    || PostcodeF.startsWith("W")
-                                    || PostcodeF.startsWith("NP")
-                                    || PostcodeF.startsWith("BL")
-                                    || PostcodeF.startsWith("HX")
-                                    || PostcodeF.startsWith("HD")) {
-                                r.put(PostcodeF, point);
-                            }
-                        } else if (PostcodeF.startsWith("LS")
-                                || PostcodeF.startsWith("BD")
-                                || PostcodeF.startsWith("HG")
-                                || PostcodeF.startsWith("CR")
-                                || PostcodeF.startsWith("W")
-                                || PostcodeF.startsWith("NP")
-                                || PostcodeF.startsWith("BL")
-                                || PostcodeF.startsWith("HX")
-                                || PostcodeF.startsWith("HD")) {
-                            r.put(PostcodeF, point);
-                        }
-                        lineCounter++;
-                        if (lineCounter % 100000 == 0) {
-                            System.out.println("Read " + lineCounter
-                                    + " lines out of something like 2560000");
-                        }
-                        break;
-                    case StreamTokenizer.TT_WORD:
-                        line = st.sval;
-                        break;
+        UKP_ArrayPointLookup.Builder r = new UKP_ArrayPointLookup.Builder(
+                1 << 16);
+        UKP_PostcodeFilter pf = filter;
+        try (UKP_CSVScanner s = new UKP_CSVScanner(f)) {
+            ONSPD_Projection p = getPointProjection(s, f, pf);
+            addPostcodeUnitPoints(s, p, pf, ignorePointsAtOrigin, r, true);
+        }
+        return r.build();
+    }
+
+    /**
+     * As {@link #initPostcodeUnitPointLookup(Path, boolean)}, but {@code f} is
+     * split into {@code n} newline aligned ranges that are parsed as separate
+     * tasks in {@code pool} and the results merged in order. If called from a
+     * task running in {@code pool} then the calling thread helps with the
+     * work rather than blocking.
+     *
+     * @param f The file.
+     * @param ignorePointsAtOrigin If true then postcodes that are at the origin
+     * are ignored. These tend to be postcodes that are not geolocated.
+     * @param pool The pool to parse ranges in.
+     * @param n The number of ranges to split {@code f} into.
+     * @return A lookup from postcode to point.
+     * @throws IOException If encountered.
+     */
+    public UKP_ArrayPointLookup initPostcodeUnitPointLookup(Path f,
+            boolean ignorePointsAtOrigin, ForkJoinPool pool, int n)
+            throws IOException {
+        List<UKP_ArrayPointLookup.Builder> bs = readPostcodeUnitPoints(f,
+                ignorePointsAtOrigin, pool, n);
+        int nr = bs.size();
+        UKP_ArrayPointLookup.Builder r = UKP_ArrayPointLookup.Builder.merge(bs);
+        oe.env.log("Read " + r.size() + " postcodes from " + f + " in "
+                + nr + " ranges", true);
+        return r.build();
+    }
+
+    /**
+     * For parsing {@code f} in {@code n} newline aligned ranges in
+     * {@code pool} (see
+     * {@link #initPostcodeUnitPointLookup(Path, boolean, ForkJoinPool, int)}).
+     * The builder of each range starts small for small ranges and grows as
+     * needed, so the builders returned have at most about half as much again
+     * capacity as they need.
+     *
+     * @param f The file.
+     * @param ignorePointsAtOrigin If true then postcodes that are at the origin
+     * are ignored.
+     * @param pool The pool to parse ranges in.
+     * @param n The number of ranges to split {@code f} into.
+     * @return The builders of the ranges in order.
+     * @throws IOException If encountered.
+     */
+    protected List<UKP_ArrayPointLookup.Builder> readPostcodeUnitPoints(Path f,
+            boolean ignorePointsAtOrigin, ForkJoinPool pool, int n)
+            throws IOException {
+        UKP_PostcodeFilter pf = filter;
+        ONSPD_Projection p;
+        long start;
+        try (UKP_CSVScanner s = new UKP_CSVScanner(f)) {
+            p = getPointProjection(s, f, pf);
+            start = s.getPosition();
+        }
+        long[] ranges = UKP_CSVScanner.split(f, start, n);
+        List<ForkJoinTask<UKP_ArrayPointLookup.Builder>> tasks
+                = new ArrayList<>();
+        for (int i = 0; i < ranges.length - 1; i++) {
+            long rs = ranges[i];
+            long re = ranges[i + 1];
+            tasks.add(ForkJoinTask.adapt(() -> {
+                /**
+                 * Lines of releases are hundreds of bytes long, so this does
+                 * not give small ranges builders much bigger than needed.
+                 */
+                UKP_ArrayPointLookup.Builder r
+                        = new UKP_ArrayPointLookup.Builder(
+                                (int) Math.min(1 << 16, (re - rs) / 256 + 1));
+                try (UKP_CSVScanner s = new UKP_CSVScanner(f,
+                        StandardCharsets.UTF_8, UKP_CSVScanner.DEFAULT_WINDOW,
+                        rs, re)) {
+                    addPostcodeUnitPoints(s, p, pf, ignorePointsAtOrigin, r,
+                            false);
                 }
-                tokenType = st.nextToken();
+                return r;
+            }));
+        }
+        List<UKP_ArrayPointLookup.Builder> r = invokeAll(pool, tasks);
+        /**
+         * The completed tasks hold the builders, so are dropped to let the
+         * builders be garbage collected as they are merged.
+         */
+        tasks.clear();
+        return r;
+    }
+
+    /**
+     * Runs {@code tasks} in {@code pool} and waits for them to complete.
+     *
+     * @param <T> The type of result.
+     * @param pool The pool.
+     * @param tasks The tasks.
+     * @return The results of {@code tasks} in order.
+     * @throws IOException If any task throws one.
+     */
+    private static <T> List<T> invokeAll(ForkJoinPool pool,
+            List<ForkJoinTask<T>> tasks) throws IOException {
+        if (ForkJoinTask.getPool() == pool) {
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            for (ForkJoinTask<T> t : tasks) {
+                pool.execute(t);
+            }
+        }
+        List<T> r = new ArrayList<>(tasks.size());
+        try {
+            for (ForkJoinTask<T> t : tasks) {
+                r.add(t.join());
+            }
+        } catch (RuntimeException e) {
+            Throwable c = e;
+            while (c.getCause() != null && !(c instanceof IOException)) {
+                c = c.getCause();
+            }
+            if (c instanceof IOException) {
+                throw new IOException(c.getMessage(), c);
+            }
+            throw e;
+        }
+        return r;
+    }
+
+    /**
+     * Only pcd, oseast1m and osnrth1m are needed for points and ctry for
+     * filtering. In ONSPD releases the first three are the first, tenth and
+     * eleventh fields, but they are elsewhere in NSPL releases so are resolved
+     * from the header.
+     *
+     * @param s A scanner at the start of {@code f}.
+     * @param f The file (for error reporting).
+     * @param pf The filter.
+     * @return The projection of pcd, oseast1m, osnrth1m and ctry.
+     * @throws IOException If encountered or if {@code pf} has countries and
+     * there is no ctry column.
+     */
+    private ONSPD_Projection getPointProjection(UKP_CSVScanner s, Path f,
+            UKP_PostcodeFilter pf) throws IOException {
+        return getPointProjection(ONSPD_Schema.read(s, f), f, pf);
+    }
+
+    /**
+     * @param schema The schema of {@code f}.
+     * @param f The file (for error reporting).
+     * @param pf The filter.
+     * @return The projection of pcd, oseast1m, osnrth1m and ctry.
+     * @throws IOException If {@code pf} has countries and there is no ctry
+     * column.
+     */
+    private ONSPD_Projection getPointProjection(ONSPD_Schema schema, Path f,
+            UKP_PostcodeFilter pf) throws IOException {
+        ONSPD_Projection r = schema.getProjection("pcd", "oseast1m",
+                "osnrth1m", "ctry");
+        if (pf.hasCountries() && !r.isAvailable(3)) {
+            throw new IOException("No ctry column to filter " + f + " with "
+                    + pf);
+        }
+        return r;
+    }
+
+    /**
+     * Adds the points of the remaining lines of {@code s} to {@code r}.
+     *
+     * @param s The scanner.
+     * @param p The projection from {@link #getPointProjection}.
+     * @param f The filter for which postcodes to add.
+     * @param ignorePointsAtOrigin If true then postcodes that are at the origin
+     * are ignored.
+     * @param r The map to add to.
+     * @param log If {@code true} then progress is reported.
+     * @throws IOException If encountered.
+     */
+    private void addPostcodeUnitPoints(UKP_CSVScanner s, ONSPD_Projection p,
+            UKP_PostcodeFilter f, boolean ignorePointsAtOrigin,
+            UKP_ArrayPointLookup.Builder r, boolean log) throws IOException {
+        int ctry = p.getIndex(3);
+        while (s.next()) {
+            /**
+             * The postcode is tested first so no other fields of lines that
+             * are not selected are parsed.
+             */
+            long k = p.getPostcodeKey(s, 0);
+            if (f.test(k)) {
+                int easting = p.getInt(s, 1, -1);
+                int northing = p.getInt(s, 2, -1);
+                /**
+                 * Postcodes ending ZZ are usually at origin, but some others
+                 * are too.
+                 */
+                if ((!ignorePointsAtOrigin || (easting > 0 && northing > 0))
+                        && f.test(easting, northing)
+                        && f.testCountry(s, ctry)) {
+                    r.add(k, easting, northing);
+                }
+            }
+            if (log && s.getLineCount() % 100000 == 0) {
+                System.out.println("Read " + s.getLineCount()
+                        + " lines out of something like 2560000");
+            }
+        }
+    }
+
+    /**
+     * Reads the area codes of the postcodes of {@code f} into a store in one
+     * pass (see {@link UKP_CodeStore}). Only postcodes selected by
+     * {@link #getFilter()} are included.
+     *
+     * @param f The file.
+     * @param names The names of the code columns to read, or all the area code
+     * columns of {@code f} (see {@link ONSPD_Schema#getAreaCodeColumns()}) if
+     * there are none. Columns that {@code f} does not have are included with
+     * no codes.
+     * @return A store of the area codes of the postcodes of {@code f}.
+     * @throws IOException If encountered.
+     */
+    public UKP_CodeStore initCodeStore(Path f, String... names)
+            throws IOException {
+        UKP_PostcodeFilter pf = filter;
+        try (UKP_CSVScanner s = new UKP_CSVScanner(f)) {
+            ONSPD_Schema schema = ONSPD_Schema.read(s, f);
+            ONSPD_Projection p = getPointProjection(schema, f, pf);
+            String[] ns = names.length == 0 ? schema.getAreaCodeColumns()
+                    : names;
+            int[] fields = new int[ns.length];
+            for (int c = 0; c < ns.length; c++) {
+                fields[c] = schema.getIndex(ns[c]);
             }
+            int ctry = p.getIndex(3);
+            UKP_CodeStore.Builder r = new UKP_CodeStore.Builder(ns, 1 << 16);
+            while (s.next()) {
+                long k = p.getPostcodeKey(s, 0);
+                if (pf.test(k) && pf.test(p.getInt(s, 1, -1),
+                        p.getInt(s, 2, -1)) && pf.testCountry(s, ctry)) {
+                    r.add(k, s, fields);
+                }
+            }
+            oe.env.log("Read " + r.size() + " postcodes with " + ns.length
+                    + " code columns from " + f, true);
+            return r.build();
         }
+    }
+
+    /**
+     * Compares the releases {@code f0} and {@code f1} reporting differences to
+     * {@code l} (see {@link UKP_ReleaseDiff}). Only the postcodes that are
+     * selected by {@link #getFilter()} are compared.
+     *
+     * @param f0 The old release.
+     * @param f1 The new release.
+     * @param ignorePointsAtOrigin If true then postcodes that are at the origin
+     * are treated as having no point.
+     * @param threshold The distance in metres a point has to move by to be
+     * reported as moved.
+     * @param l The listener.
+     * @param codes The names of the code columns to compare.
+     * @throws IOException If encountered.
+     */
+    public void diffReleases(Path f0, Path f1, boolean ignorePointsAtOrigin,
+            double threshold, UKP_ReleaseDiff.Listener l, String... codes)
+            throws IOException {
+        new UKP_ReleaseDiff(ignorePointsAtOrigin, threshold,
+                filter, codes).diff(f0, f1, l);
+    }
+
+    /**
+     * For updating a unit point lookup of release {@code f0} to one of
+     * release {@code f1}: apply the result (see
+     * {@link UKP_ReleaseDelta#apply(UKP_PointLookup)}) to a lookup from
+     * {@link #initPostcodeUnitPointLookup(Path, boolean)}.
+     *
+     * @param f0 The old release.
+     * @param f1 The new release.
+     * @param ignorePointsAtOrigin As for the lookup the delta is applied to.
+     * @return The point changes from {@code f0} to {@code f1}.
+     * @throws IOException If encountered.
+     */
+    public UKP_ReleaseDelta getReleaseDelta(Path f0, Path f1,
+            boolean ignorePointsAtOrigin) throws IOException {
+        UKP_ReleaseDelta r = new UKP_ReleaseDelta();
+        diffReleases(f0, f1, ignorePointsAtOrigin, 0d, r);
+        oe.env.log("Diff of " + f0 + " and " + f1 + ": " + r, true);
         return r;
     }
 
@@ -1073,152 +1709,95 @@ public class UKP_Data extends UKP_Object {
 //        }
 //        return result;
 //    }
+
+    /**
+     * For getting the name of the ONSPD column that has codes for
+     * {@code level}. Early ONSPD releases have 2001 census codes in columns
+     * named oacode, soa1 and soa2 rather than oa01, lsoa01 and msoa01, but
+     * these are resolved as aliases by {@link ONSPD_Schema}.
+     *
+     * @param level The level, e.g. {@link #TYPE_LSOA}.
+     * @param censusYear Either 2001 or 2011 or ignored if level is not a
+     * census level.
+     * @return The name of the column with codes for {@code level} or
+     * {@code null} if the codes are not in a column, but derived from the
+     * postcode (or there are none).
+     */
+    public static String getColumnName(int level, int censusYear) {
+        switch (level) {
+            case TYPE_OA:
+                if (censusYear == 2001) {
+                    return "oa01";
+                } else if (censusYear == 2011) {
+                    return "oa11";
+                }
+                break;
+            case TYPE_LSOA:
+                if (censusYear == 2001) {
+                    return "lsoa01";
+                } else if (censusYear == 2011) {
+                    return "lsoa11";
+                }
+                break;
+            case TYPE_MSOA:
+                if (censusYear == 2001) {
+                    return "msoa01";
+                } else if (censusYear == 2011) {
+                    return "msoa11";
+                }
+                break;
+            case TYPE_ParliamentaryConstituency:
+                return "pcon";
+            case TYPE_StatisticalWard:
+                return "statsward";
+        }
+        return null;
+    }
+
     /**
+     * The columns are resolved from the header line of {@code file}, so any
+     * ONSPD or NSPL release can be read. Only the pcd column and the column
+     * for {@code level} are read from each line.
+     *
      * @param file The file.
      * @param level The level
      * @param censusYear Either 2001 or 2011 or ignored if level is not a census
      * level.
      * @param YM3NearestFormat YM3NearestFormat
-     * @return Map with postcode keys and level related values.
+     * @return Map with postcode keys and level related values. Values are
+     * {@code null} if the release does not have a column for {@code level}.
+     * To get the codes of several levels read the file once with
+     * {@link #initCodeStore(Path, String...)} instead.
      * @throws java.io.FileNotFoundException If encountered.
      */
     public TreeMap<String, String> readONSPDIntoTreeMapPostcodeString(
             Path file, int level, int censusYear, UKP_YM3 YM3NearestFormat)
             throws FileNotFoundException, IOException {
-        int year = YM3NearestFormat.getYear();
-        int month = YM3NearestFormat.getMonth();
-        oe.env.log("year " + year + " month " + month, true);
+        String name = getColumnName(level, censusYear);
         TreeMap<String, String> result = new TreeMap<>();
-        int lineCounter = 0;
-        long rID = 0;
-        try (BufferedReader br = Generic_IO.getBufferedReader(file)) {
-            StreamTokenizer st = getStreamTokeniser(br);
-            String line = "";
-            //Skip the first line
-            int tokenType;
-            br.readLine();
-            tokenType = st.nextToken();
-            while (tokenType != StreamTokenizer.TT_EOF) {
-                switch (tokenType) {
-                    case StreamTokenizer.TT_EOL:
-                        ONSPD_Record0 rec;
-                        Data_RecordID ID = new Data_RecordID(rID);
-                        rID++;
-                        if (year < 2011 || (year == 2011 && month < 4)) {
-                            rec = new ONSPD_Record_2008_02Feb(oe, ID, line);
-                        } else if (year < 2012 || (year == 2012 && month < 8)) {
-                            rec = new ONSPD_Record_2011_05May(oe, ID, line);
-                        } else if (year == 2012 && month < 11) {
-                            rec = new ONSPD_Record_2011_05May(oe, ID, line);
-                            //rec = new ONSPD_Record_2012_08Nov(oe, ID, line);
-                        } else if (year < 2013 || (year == 2013 && month < 2)) {
-                            rec = new ONSPD_Record_2012_11Nov(oe, ID, line);
-                        } else if (year == 2013 && month < 5) {
-                            rec = new ONSPD_Record_2013_02Feb(oe, ID, line);
-                        } else if (year == 2013 && month < 8) {
-                            rec = new ONSPD_Record_2013_05May(oe, ID, line);
-                        } else if (year < 2014 || (year == 2014 && month < 11)) {
-                            rec = new ONSPD_Record_2013_08Aug(oe, ID, line);
-                        } else if (year < 2015 || (year == 2015 && month < 5)) {
-                            rec = new ONSPD_Record_2014_11Nov(oe, ID, line);
-                        } else if (year == 2015 && month < 8) {
-                            rec = new ONSPD_Record_2015_05May(oe, ID, line);
-                        } else if (year < 2016 || (year == 2016 && month < 2)) {
-                            rec = new ONSPD_Record_2015_08Aug(oe, ID, line);
-                        } else {
-                            rec = new ONSPD_Record_2016_02Feb(oe, ID, line);
-                        }
-//                        if (YM3NearestFormat.equalsIgnoreCase("2016_Feb")) {
-//                            rec = new ONSPD_Record_2016_02Feb(oe, ID, line);
-//                        } else if (YM3NearestFormat.equalsIgnoreCase("2015_Aug")) {
-//                            rec = new ONSPD_Record_2015_08Aug(oe, ID, line);
-//                        } else if (YM3NearestFormat.equalsIgnoreCase("2015_May")) {
-//                            rec = new ONSPD_Record_2015_05May(oe, ID, line);
-//                        } else if (YM3NearestFormat.equalsIgnoreCase("2014_Nov")) {
-//                            rec = new ONSPD_Record_2014_11Nov(oe, ID, line);
-//                        } else {
-//                            rec = new ONSPD_Record_2013_08Aug(oe, ID, line);
-//                        }
-                        String value = "";
-                        if (level == TYPE_OA) {
-                            if (censusYear == 2001) {
-                                if (rec instanceof ONSPD_Record1) {
-                                    value = ((ONSPD_Record1) rec).getOa01();
-                                } else {
-                                    value = null;
-                                }
-                            }
-                            if (censusYear == 2011) {
-                                if (rec instanceof ONSPD_Record1) {
-                                    value = ((ONSPD_Record1) rec).getOa11();
-                                } else if (rec instanceof ONSPD_Record_2011_05May) {
-                                    value = ((ONSPD_Record_2011_05May) rec).getOacode();
-                                } else {
-                                    value = null;
-                                }
-                            }
-                        }
-                        if (level == TYPE_LSOA) {
-                            if (censusYear == 2001) {
-                                if (rec instanceof ONSPD_Record1) {
-                                    value = ((ONSPD_Record1) rec).getLsoa01();
-                                } else {
-                                    value = null;
-                                }
-                            }
-                            if (censusYear == 2011) {
-                                if (rec instanceof ONSPD_Record1) {
-                                    value = ((ONSPD_Record1) rec).getLsoa11();
-                                } else if (rec instanceof ONSPD_Record_2011_05May) {
-                                    value = null;
-                                }
-                            }
-                        }
-                        if (level == TYPE_MSOA) {
-                            if (censusYear == 2001) {
-                                if (rec instanceof ONSPD_Record1) {
-                                    value = ((ONSPD_Record1) rec).getMsoa01();
-                                } else {
-                                    value = null;
-                                }
-                            }
-                            if (censusYear == 2011) {
-                                if (rec instanceof ONSPD_Record1) {
-                                    value = ((ONSPD_Record1) rec).getMsoa11();
-                                } else if (rec instanceof ONSPD_Record_2011_05May) {
-                                    value = null;
-                                }
-                            }
-                        }
-                        String postcode = rec.getPcd();
-                        //String PostcodeF = rec.getPostcodeF();
-                        if (level == TYPE_UNIT) {
-                            value = postcode;
-                        }
-                        if (level == TYPE_SECTOR) {
-                            value = getPostcodeSector(postcode);
-                        }
-                        if (level == TYPE_DISTRICT) {
-                            value = getPostcodeDistrict(postcode);
-                        }
-                        if (level == TYPE_ParliamentaryConstituency) {
-                            value = rec.getPcon();
-                        }
-                        if (level == TYPE_StatisticalWard) {
-                            value = rec.getStatsward();
-                        }
-                        result.put(rec.getPostcodeF(), value);
-                        lineCounter++;
-                        if (lineCounter % 100000 == 0) {
-                            System.out.println("Read " + lineCounter + " lines "
-                                    + "out of something like 2560000");
-                        }
-                        break;
-                    case StreamTokenizer.TT_WORD:
-                        line = st.sval;
-                        break;
+        try (UKP_CSVScanner s = new UKP_CSVScanner(file)) {
+            ONSPD_Schema schema = ONSPD_Schema.read(s, file);
+            ONSPD_Projection p = schema.getProjection("pcd",
+                    name == null ? "" : name);
+            while (s.next()) {
+                String postcode = p.getString(s, 0);
+                String value;
+                if (level == TYPE_UNIT) {
+                    value = postcode;
+                } else if (level == TYPE_SECTOR) {
+                    value = getPostcodeSector(postcode);
+                } else if (level == TYPE_DISTRICT) {
+                    value = getPostcodeDistrict(postcode);
+                } else if (name == null) {
+                    value = "";
+                } else {
+                    value = p.getString(s, 1);
+                }
+                result.put(formatPostcode(postcode), value);
+                if (s.getLineCount() % 100000 == 0) {
+                    System.out.println("Read " + s.getLineCount() + " lines "
+                            + "out of something like 2560000");
                 }
-                tokenType = st.nextToken();
             }
         }
         return result;
@@ -1235,39 +1814,20 @@ public class UKP_Data extends UKP_Object {
     public TreeMap<String, String[]> readONSPDIntoTreeMapPostcodeStrings2(
             Path file) throws IOException {
         TreeMap<String, String[]> r = new TreeMap<>();
-        int lineCounter = 0;
-        long rID = 0;
-        try (BufferedReader br = Generic_IO.getBufferedReader(file)) {
-            StreamTokenizer st = getStreamTokeniser(br);
-            String line = "";
-            //Skip the first line
-            int tokenType;
-            br.readLine();
-            tokenType = st.nextToken();
-            while (tokenType != StreamTokenizer.TT_EOF) {
-                switch (tokenType) {
-                    case StreamTokenizer.TT_EOL:
-                        ONSPD_Record_2013_08Aug rec
-                                = new ONSPD_Record_2013_08Aug(oe,
-                                        new Data_RecordID(rID), line);
-                        rID++;
-                        String[] values = new String[4];
-                        values[0] = rec.getOa01();
-                        values[1] = rec.getLsoa01();
-                        values[2] = rec.getOa11();
-                        values[3] = rec.getLsoa11();
-                        r.put(rec.getPcd(), values);
-                        lineCounter++;
-                        if (lineCounter % 100000 == 0) {
-                            System.out.println("Read " + lineCounter + " lines "
-                                    + "out of something like 2560000");
-                        }
-                        break;
-                    case StreamTokenizer.TT_WORD:
-                        line = st.sval;
-                        break;
+        try (UKP_CSVScanner s = new UKP_CSVScanner(file)) {
+            ONSPD_Projection p = ONSPD_Schema.read(s, file).getProjection(
+                    "oa01", "lsoa01", "oa11", "lsoa11", "pcd");
+            while (s.next()) {
+                String[] values = new String[4];
+                values[0] = p.getString(s, 0);
+                values[1] = p.getString(s, 1);
+                values[2] = p.getString(s, 2);
+                values[3] = p.getString(s, 3);
+                r.put(p.getString(s, 4), values);
+                if (s.getLineCount() % 100000 == 0) {
+                    System.out.println("Read " + s.getLineCount() + " lines "
+                            + "out of something like 2560000");
                 }
-                tokenType = st.nextToken();
             }
         }
         return r;
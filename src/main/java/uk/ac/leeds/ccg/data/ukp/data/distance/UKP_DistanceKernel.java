@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.distance;
+
+/**
+ * For calculating distances over columns of int coordinates (eastings and
+ * northings). Implementations must give exactly the same results as
+ * {@link UKP_ScalarDistanceKernel}: coordinate differences, their squares and
+ * sums are exact in double precision for coordinates on the British National
+ * Grid and the square root is correctly rounded, so this only requires that
+ * the square and add are not fused.
+ *
+ * Use {@link UKP_DistanceKernels#get()} to get the fastest kernel available.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public interface UKP_DistanceKernel {
+
+    /**
+     * Calculates the distances from ({@code x}, {@code y}) to the first
+     * {@code n} points in ({@code xs}, {@code ys}).
+     *
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @param xs The x coordinates.
+     * @param ys The y coordinates.
+     * @param n The number of points.
+     * @param r The array to write the distances into.
+     * @param o The index in {@code r} to write the first distance to.
+     */
+    void getDistances(int x, int y, int[] xs, int[] ys, int n, double[] r,
+            int o);
+
+    /**
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @param xs The x coordinates.
+     * @param ys The y coordinates.
+     * @param n The number of points.
+     * @return The index of the nearest of the first {@code n} points in
+     * ({@code xs}, {@code ys}) to ({@code x}, {@code y}), the lowest index
+     * if there is a tie, or {@code -1} if {@code n} is 0.
+     */
+    int getNearest(int x, int y, int[] xs, int[] ys, int n);
+
+    /**
+     * Calculates the distances from each of the first {@code na} points in
+     * ({@code axs}, {@code ays}) to each of the first {@code nb} points in
+     * ({@code bxs}, {@code bys}) in row major order.
+     *
+     * @param axs The x coordinates of the origins.
+     * @param ays The y coordinates of the origins.
+     * @param na The number of origins.
+     * @param bxs The x coordinates of the destinations.
+     * @param bys The y coordinates of the destinations.
+     * @param nb The number of destinations.
+     * @param r The array to write the distances into.
+     */
+    default void getDistances(int[] axs, int[] ays, int na, int[] bxs,
+            int[] bys, int nb, double[] r) {
+        for (int i = 0; i < na; i++) {
+            getDistances(axs[i], ays[i], bxs, bys, nb, r, i * nb);
+        }
+    }
+
+    /**
+     * Assigns each of the first {@code n} points in ({@code xs}, {@code ys})
+     * to the nearest of the first {@code nc} centroids in ({@code cxs},
+     * {@code cys}).
+     *
+     * @param xs The x coordinates of the points.
+     * @param ys The y coordinates of the points.
+     * @param n The number of points.
+     * @param cxs The x coordinates of the centroids.
+     * @param cys The y coordinates of the centroids.
+     * @param nc The number of centroids.
+     * @param r The array to write the index of the nearest centroid of each
+     * point into.
+     */
+    default void assign(int[] xs, int[] ys, int n, int[] cxs, int[] cys,
+            int nc, int[] r) {
+        for (int i = 0; i < n; i++) {
+            r[i] = getNearest(xs[i], ys[i], cxs, cys, nc);
+        }
+    }
+}
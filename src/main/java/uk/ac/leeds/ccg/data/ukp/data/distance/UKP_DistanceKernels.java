@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.distance;
+
+/**
+ * For getting the {@link UKP_DistanceKernel} to use. The vector kernel
+ * ({@link #VECTOR_KERNEL}) is in the optional vector module which needs Java
+ * 16 or later run with {@code --add-modules jdk.incubator.vector}. If it is
+ * on the class path and can be loaded it is used, otherwise a
+ * {@link UKP_ScalarDistanceKernel} is used. Setting the system property
+ * {@link #PROPERTY} to "scalar" forces the scalar kernel.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_DistanceKernels {
+
+    /**
+     * The name of the system property for choosing the kernel.
+     */
+    public static final String PROPERTY = "uk.ac.leeds.ccg.data.ukp.kernel";
+
+    /**
+     * The name of the vector kernel class.
+     */
+    public static final String VECTOR_KERNEL
+            = "uk.ac.leeds.ccg.data.ukp.data.distance.UKP_VectorDistanceKernel";
+
+    /**
+     * The kernel, loaded when this class is initialised.
+     */
+    private static final UKP_DistanceKernel KERNEL = load();
+
+    private UKP_DistanceKernels() {
+    }
+
+    /**
+     * @return The kernel to use.
+     */
+    public static UKP_DistanceKernel get() {
+        return KERNEL;
+    }
+
+    /**
+     * @return A new scalar kernel.
+     */
+    public static UKP_DistanceKernel getScalar() {
+        return new UKP_ScalarDistanceKernel();
+    }
+
+    /**
+     * @return The vector kernel if it can be loaded, otherwise the scalar
+     * kernel.
+     */
+    private static UKP_DistanceKernel load() {
+        if ("scalar".equals(System.getProperty(PROPERTY))) {
+            return getScalar();
+        }
+        try {
+            return (UKP_DistanceKernel) Class.forName(VECTOR_KERNEL)
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError
+                | RuntimeException e) {
+            return getScalar();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.distance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_PointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_PointTable;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeNormaliser;
+
+/**
+ * For calculating the distances between many postcodes at once. Postcodes are
+ * first resolved to a {@link UKP_PointTable} of coordinates (see
+ * {@link #resolve(UKP_PointLookup, String[])}), once for each postcode, and
+ * then distances are calculated with loops over the coordinate arrays, either
+ * for every origin and destination pair (a full matrix) or for given pairs (a
+ * sparse matrix). Work is split into blocks of origins or pairs and done in a
+ * {@link ForkJoinPool} supplied by the caller, or in the calling thread if the
+ * pool is {@code null}. Full matrices and nearest centroid assignment use the
+ * kernel from {@link UKP_DistanceKernels#get()}.
+ *
+ * Distances are Euclidean in the units of the coordinates (metres) as for
+ * {@link uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Point#getDistance}. The
+ * distance from or to a postcode that could not be resolved is
+ * {@link Double#NaN}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_DistanceMatrix {
+
+    /**
+     * The coordinate of postcodes that could not be resolved.
+     */
+    public static final int MISSING = Integer.MIN_VALUE;
+
+    /**
+     * The number of origins or pairs in a block of work. Blocks are only
+     * split between threads, not within them.
+     */
+    static final int BLOCK = 1 << 12;
+
+    private UKP_DistanceMatrix() {
+    }
+
+    /**
+     * @param l The lookup.
+     * @param ps The postcodes which need not be formatted.
+     * @return The points of {@code ps} in order with coordinates
+     * {@link #MISSING} for any postcode not in {@code l}.
+     */
+    public static UKP_PointTable resolve(UKP_PointLookup l, String[] ps) {
+        int[] xs = new int[ps.length];
+        int[] ys = new int[ps.length];
+        for (int i = 0; i < ps.length; i++) {
+            int j = l.indexOf(UKP_PostcodeNormaliser.toKey(ps[i]));
+            if (j < 0) {
+                xs[i] = MISSING;
+                ys[i] = MISSING;
+            } else {
+                xs[i] = l.getX(j);
+                ys[i] = l.getY(j);
+            }
+        }
+        return new UKP_PointTable(xs, ys);
+    }
+
+    /**
+     * @param t The points.
+     * @return The number of points in {@code t} that are {@link #MISSING}.
+     */
+    public static int countMissing(UKP_PointTable t) {
+        int r = 0;
+        for (int i = 0; i < t.size(); i++) {
+            if (t.getX(i) == MISSING) {
+                r++;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * @param a The origins.
+     * @param b The destinations.
+     * @param pool The pool to run in or {@code null} to run in the calling
+     * thread.
+     * @return The distances from each origin to each destination in row
+     * major order, so the distance from origin {@code i} to destination
+     * {@code j} is at index {@code i * b.size() + j}.
+     */
+    public static double[] getDistances(UKP_PointTable a, UKP_PointTable b,
+            ForkJoinPool pool) {
+        int na = a.size();
+        int nb = b.size();
+        if ((long) na * nb > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("A " + na + " by " + nb
+                    + " matrix is too large, use sparse pairs or blocks of "
+                    + "origins.");
+        }
+        double[] r = new double[na * nb];
+        int[] bxs = b.getXs();
+        int[] bys = b.getYs();
+        int nm = 0;
+        int[] missing = new int[nb];
+        for (int j = 0; j < nb; j++) {
+            if (bxs[j] == MISSING) {
+                missing[nm] = j;
+                nm++;
+            }
+        }
+        int m = nm;
+        UKP_DistanceKernel kernel = UKP_DistanceKernels.get();
+        run(na, Math.max(1, BLOCK / Math.max(1, nb)), pool,
+                (s, e) -> {
+                    for (int i = s; i < e; i++) {
+                        int o = i * nb;
+                        if (a.getX(i) == MISSING) {
+                            Arrays.fill(r, o, o + nb, Double.NaN);
+                        } else {
+                            kernel.getDistances(a.getX(i), a.getY(i), bxs,
+                                    bys, nb, r, o);
+                            for (int k = 0; k < m; k++) {
+                                r[o + missing[k]] = Double.NaN;
+                            }
+                        }
+                    }
+                });
+        return r;
+    }
+
+    /**
+     * @param a The origins.
+     * @param b The destinations.
+     * @param is The origin of each pair.
+     * @param js The destination of each pair.
+     * @param pool The pool to run in or {@code null} to run in the calling
+     * thread.
+     * @return The distance for each pair.
+     */
+    public static double[] getDistances(UKP_PointTable a, UKP_PointTable b,
+            int[] is, int[] js, ForkJoinPool pool) {
+        if (is.length != js.length) {
+            throw new IllegalArgumentException("Array lengths differ.");
+        }
+        double[] r = new double[is.length];
+        run(is.length, BLOCK, pool, (s, e) -> {
+            for (int k = s; k < e; k++) {
+                int ax = a.getX(is[k]);
+                int bx = b.getX(js[k]);
+                if (ax == MISSING || bx == MISSING) {
+                    r[k] = Double.NaN;
+                } else {
+                    double dx = (double) bx - ax;
+                    double dy = (double) b.getY(js[k]) - a.getY(is[k]);
+                    r[k] = Math.sqrt(dx * dx + dy * dy);
+                }
+            }
+        });
+        return r;
+    }
+
+    /**
+     * @param a The points.
+     * @param c The centroids.
+     * @param pool The pool to run in or {@code null} to run in the calling
+     * thread.
+     * @return The index of the nearest centroid to each point, or {@code -1}
+     * for points that are {@link #MISSING}.
+     */
+    public static int[] getNearest(UKP_PointTable a, UKP_PointTable c,
+            ForkJoinPool pool) {
+        int na = a.size();
+        int nc = c.size();
+        int[] r = new int[na];
+        int[] cxs = c.getXs();
+        int[] cys = c.getYs();
+        for (int j = 0; j < nc; j++) {
+            if (cxs[j] == MISSING) {
+                throw new IllegalArgumentException("Centroid " + j
+                        + " is missing.");
+            }
+        }
+        UKP_DistanceKernel kernel = UKP_DistanceKernels.get();
+        run(na, Math.max(1, BLOCK / Math.max(1, nc)), pool,
+                (s, e) -> {
+                    for (int i = s; i < e; i++) {
+                        r[i] = a.getX(i) == MISSING ? -1
+                                : kernel.getNearest(a.getX(i), a.getY(i),
+                                        cxs, cys, nc);
+                    }
+                });
+        return r;
+    }
+
+    /**
+     * For a block of work from {@code s} inclusive to {@code e} exclusive.
+     */
+    interface Block {
+
+        void run(int s, int e);
+    }
+
+    /**
+     * Runs {@code block} over the range from 0 to {@code n} in blocks of
+     * {@code size} as tasks in {@code pool}. If called from a task running in
+     * {@code pool} then the calling thread helps with the work rather than
+     * blocking.
+     *
+     * @param n The size of the range.
+     * @param size The size of a block.
+     * @param pool The pool to run in or {@code null} to run in the calling
+     * thread.
+     * @param block The block of work.
+     */
+    static void run(int n, int size, ForkJoinPool pool, Block block) {
+        if (pool == null || n <= size) {
+            block.run(0, n);
+            return;
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int s = 0; s < n; s += size) {
+            int bs = s;
+            int be = (int) Math.min(n, (long) s + size);
+            tasks.add(ForkJoinTask.adapt(() -> block.run(bs, be)));
+        }
+        if (ForkJoinTask.getPool() == pool) {
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            for (ForkJoinTask<?> t : tasks) {
+                pool.execute(t);
+            }
+            for (ForkJoinTask<?> t : tasks) {
+                t.join();
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.distance;
+
+/**
+ * A {@link UKP_DistanceKernel} of plain loops, which the JIT compiler may
+ * still vectorise.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_ScalarDistanceKernel implements UKP_DistanceKernel {
+
+    @Override
+    public void getDistances(int x, int y, int[] xs, int[] ys, int n,
+            double[] r, int o) {
+        double px = x;
+        double py = y;
+        for (int j = 0; j < n; j++) {
+            double dx = xs[j] - px;
+            double dy = ys[j] - py;
+            r[o + j] = Math.sqrt(dx * dx + dy * dy);
+        }
+    }
+
+    @Override
+    public int getNearest(int x, int y, int[] xs, int[] ys, int n) {
+        double px = x;
+        double py = y;
+        int r = -1;
+        double min = Double.POSITIVE_INFINITY;
+        for (int j = 0; j < n; j++) {
+            double dx = xs[j] - px;
+            double dy = ys[j] - py;
+            double d2 = dx * dx + dy * dy;
+            if (d2 < min) {
+                min = d2;
+                r = j;
+            }
+        }
+        return r;
+    }
+
+    @Override
+    public String toString() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.lookup;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Point;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+
+/**
+ * A {@link UKP_PointLookup} held in arrays: a sorted array of postcode keys
+ * and a {@link UKP_PointTable} of points in the same order, so the ordinal of
+ * a point in the table is the index of its postcode.
+ *
+ * A lookup holds {@link #BYTES_PER_POSTCODE} bytes per postcode (an 8 byte
+ * key and two 4 byte coordinates) plus a few array headers, so a lookup of
+ * all of the 2.6 million or so postcodes of a release with points is about
+ * 42MB. Building one with a {@link Builder} needs at most 48 bytes per
+ * postcode while it runs: up to 24 for what has been added (allowing for
+ * growth), 8 for the sort order and 16 for the lookup.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_ArrayPointLookup implements UKP_PointLookup, Serializable {
+
+    /**
+     * The number of bytes of array data held for each postcode.
+     */
+    public static final int BYTES_PER_POSTCODE = Long.BYTES
+            + 2 * Integer.BYTES;
+
+    /**
+     * The sorted postcode keys.
+     */
+    protected final long[] keys;
+
+    /**
+     * The points in the same order as {@link #keys}.
+     */
+    protected final UKP_PointTable points;
+
+    /**
+     * @param keys The postcode keys which must be sorted and distinct.
+     * @param xs The x coordinates in the same order as {@code keys}.
+     * @param ys The y coordinates in the same order as {@code keys}.
+     */
+    public UKP_ArrayPointLookup(long[] keys, int[] xs, int[] ys) {
+        this(keys, new UKP_PointTable(xs, ys));
+    }
+
+    /**
+     * @param keys The postcode keys which must be sorted and distinct.
+     * @param points The points in the same order as {@code keys}.
+     */
+    public UKP_ArrayPointLookup(long[] keys, UKP_PointTable points) {
+        if (points.size() != keys.length) {
+            throw new IllegalArgumentException("Array lengths differ.");
+        }
+        this.keys = keys;
+        this.points = points;
+    }
+
+    /**
+     * @param m The map to create the lookup from. Postcodes that cannot be
+     * encoded as keys are skipped.
+     * @return A lookup with the entries of {@code m}.
+     */
+    public static UKP_ArrayPointLookup of(SortedMap<String, ONSPD_Point> m) {
+        int n = m.size();
+        long[] keys = new long[n];
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        int i = 0;
+        Iterator<Map.Entry<String, ONSPD_Point>> ite = m.entrySet().iterator();
+        while (ite.hasNext()) {
+            Map.Entry<String, ONSPD_Point> e = ite.next();
+            long k = UKP_PostcodeKey.encode(e.getKey());
+            if (k != UKP_PostcodeKey.NONE) {
+                keys[i] = k;
+                xs[i] = e.getValue().getX();
+                ys[i] = e.getValue().getY();
+                i++;
+            }
+        }
+        if (i < n) {
+            keys = Arrays.copyOf(keys, i);
+            xs = Arrays.copyOf(xs, i);
+            ys = Arrays.copyOf(ys, i);
+        }
+        return new UKP_ArrayPointLookup(keys, xs, ys);
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public int indexOf(long k) {
+        return Arrays.binarySearch(keys, k);
+    }
+
+    @Override
+    public long getKey(int i) {
+        return keys[i];
+    }
+
+    @Override
+    public int getX(int i) {
+        return points.xs[i];
+    }
+
+    @Override
+    public int getY(int i) {
+        return points.ys[i];
+    }
+
+    /**
+     * @return An estimate of the number of bytes of memory used by this
+     * lookup.
+     */
+    public long getMemoryBytes() {
+        /**
+         * 16 bytes for each array header and object.
+         */
+        return (long) keys.length * BYTES_PER_POSTCODE + 16 * 5;
+    }
+
+    /**
+     * @return {@link #points}
+     */
+    public UKP_PointTable getPoints() {
+        return points;
+    }
+
+    @Override
+    public ONSPD_Point getPoint(String p) {
+        long k = UKP_PostcodeKey.encode(p);
+        if (k == UKP_PostcodeKey.NONE) {
+            return null;
+        }
+        int i = indexOf(k);
+        if (i < 0) {
+            return null;
+        }
+        return points.getPoint(i);
+    }
+
+    /**
+     * @return A map with postcode keys and point values.
+     */
+    public TreeMap<String, ONSPD_Point> toTreeMap() {
+        TreeMap<String, ONSPD_Point> r = new TreeMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            r.put(UKP_PostcodeKey.decode(keys[i]), points.getPoint(i));
+        }
+        return r;
+    }
+
+    /**
+     * For building a lookup from points added in any order. Keys and points
+     * are held in columns as they are added and are sorted by key when the
+     * lookup is built. If a key is added more than once then the last point
+     * added for it is used.
+     */
+    public static class Builder {
+
+        /**
+         * The keys in the order added.
+         */
+        protected long[] keys;
+
+        /**
+         * The points in the order added.
+         */
+        protected final UKP_PointTable points;
+
+        /**
+         * @param capacity The initial capacity.
+         */
+        public Builder(int capacity) {
+            keys = new long[Math.max(capacity, 1)];
+            points = new UKP_PointTable(capacity);
+        }
+
+        /**
+         * @param k The postcode key.
+         * @param x The x coordinate.
+         * @param y The y coordinate.
+         */
+        public void add(long k, int x, int y) {
+            int i = points.add(x, y);
+            if (i == keys.length) {
+                keys = Arrays.copyOf(keys, points.xs.length);
+            }
+            keys[i] = k;
+        }
+
+        /**
+         * Adds everything added to {@code b} (after everything added to this).
+         *
+         * @param b The builder to add.
+         */
+        public void addAll(Builder b) {
+            for (int i = 0; i < b.size(); i++) {
+                add(b.keys[i], b.points.xs[i], b.points.ys[i]);
+            }
+        }
+
+        /**
+         * Merges builders in order into a new builder that has exactly the
+         * capacity needed, so there is no growth. Each entry of {@code bs} is
+         * set to {@code null} once it is added so it can be garbage collected
+         * before the merge is complete.
+         *
+         * @param bs The builders to merge.
+         * @return A builder with everything added to {@code bs} in order.
+         */
+        public static Builder merge(List<Builder> bs) {
+            long n = 0;
+            for (Builder b : bs) {
+                n += b.size();
+            }
+            if (n > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Too many points " + n);
+            }
+            Builder r = new Builder((int) n);
+            for (int i = 0; i < bs.size(); i++) {
+                r.addAll(bs.get(i));
+                bs.set(i, null);
+            }
+            return r;
+        }
+
+        /**
+         * @return The number of points added.
+         */
+        public int size() {
+            return points.size();
+        }
+
+        /**
+         * @return The number of bytes of the arrays of this builder. This is
+         * more than {@link #size()} times {@link #BYTES_PER_POSTCODE} if there
+         * is spare capacity.
+         */
+        public long getMemoryBytes() {
+            return (long) keys.length * Long.BYTES
+                    + 2L * points.xs.length * Integer.BYTES;
+        }
+
+        /**
+         * @return A lookup of what has been added.
+         */
+        public UKP_ArrayPointLookup build() {
+            int n = points.size();
+            int[] order = getOrder(keys, n);
+            long[] rk = new long[n];
+            int[] rx = new int[n];
+            int[] ry = new int[n];
+            int m = 0;
+            for (int i = 0; i < n; i++) {
+                int o = order[i];
+                if (m > 0 && rk[m - 1] == keys[o]) {
+                    // Stable sort so this was added later.
+                    m--;
+                }
+                rk[m] = keys[o];
+                rx[m] = points.xs[o];
+                ry[m] = points.ys[o];
+                m++;
+            }
+            if (m < n) {
+                rk = Arrays.copyOf(rk, m);
+                rx = Arrays.copyOf(rx, m);
+                ry = Arrays.copyOf(ry, m);
+            }
+            return new UKP_ArrayPointLookup(rk, rx, ry);
+        }
+    }
+
+    /**
+     * @param keys The keys.
+     * @param n The number of keys to order.
+     * @return The indexes of the first {@code n} of {@code keys} in key order.
+     * Indexes of equal keys are in index order.
+     */
+    static int[] getOrder(long[] keys, int n) {
+        int[] r = new int[n];
+        for (int i = 0; i < n; i++) {
+            r[i] = i;
+        }
+        sort(keys, r, new int[n], 0, n);
+        return r;
+    }
+
+    /**
+     * A stable merge sort of {@code a} from {@code lo} (inclusive) to
+     * {@code hi} (exclusive) by {@code keys}.
+     *
+     * @param keys The keys.
+     * @param a The indexes to sort.
+     * @param t Temporary storage of the same length as {@code a}.
+     * @param lo The start.
+     * @param hi The end.
+     */
+    private static void sort(long[] keys, int[] a, int[] t, int lo, int hi) {
+        if (hi - lo < 2) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        sort(keys, a, t, lo, mid);
+        sort(keys, a, t, mid, hi);
+        if (keys[a[mid - 1]] <= keys[a[mid]]) {
+            // Already in order which is usual for ONSPD files.
+            return;
+        }
+        System.arraycopy(a, lo, t, lo, hi - lo);
+        int i = lo;
+        int j = mid;
+        for (int k = lo; k < hi; k++) {
+            if (j >= hi || (i < mid && keys[t[i]] <= keys[t[j]])) {
+                a[k] = t[i++];
+            } else {
+                a[k] = t[j++];
+            }
+        }
+    }
+}
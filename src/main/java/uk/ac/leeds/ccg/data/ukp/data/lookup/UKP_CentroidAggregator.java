@@ -0,0 +1,237 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.lookup;
+
+import java.util.Arrays;
+import uk.ac.leeds.ccg.data.ukp.data.UKP_Data;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_LongIntMap;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+
+/**
+ * For aggregating postcode unit points into the centroids of the postcode
+ * sectors, districts and areas that contain them in a single pass. For each
+ * unit the keys of its sector, district and area are got by truncating its
+ * key (see {@link UKP_PostcodeKey#getSector(long)}) and running sums, counts
+ * and bounding boxes are kept in columns indexed by the ordinal of each
+ * group, so no Strings or other objects are created per unit.
+ *
+ * Levels are identified by {@link UKP_Data#TYPE_AREA},
+ * {@link UKP_Data#TYPE_DISTRICT} and {@link UKP_Data#TYPE_SECTOR}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_CentroidAggregator {
+
+    /**
+     * If {@code true} then units at the origin are not added.
+     */
+    protected final boolean ignorePointsAtOrigin;
+
+    /**
+     * The groups for each level.
+     */
+    protected final Groups[] groups;
+
+    /**
+     * @param ignorePointsAtOrigin If {@code true} then units at the origin
+     * are not added.
+     */
+    public UKP_CentroidAggregator(boolean ignorePointsAtOrigin) {
+        this.ignorePointsAtOrigin = ignorePointsAtOrigin;
+        groups = new Groups[3];
+        groups[UKP_Data.TYPE_AREA] = new Groups(256);
+        groups[UKP_Data.TYPE_DISTRICT] = new Groups(4096);
+        groups[UKP_Data.TYPE_SECTOR] = new Groups(16384);
+    }
+
+    /**
+     * Adds a unit.
+     *
+     * @param k The key of the unit postcode.
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     */
+    public void add(long k, int x, int y) {
+        if (ignorePointsAtOrigin && (x < 1 || y < 1)) {
+            return;
+        }
+        if (k == UKP_PostcodeKey.NONE) {
+            return;
+        }
+        int l = UKP_PostcodeKey.getLength(k);
+        if (l < 5) {
+            return;
+        }
+        groups[UKP_Data.TYPE_SECTOR].add(UKP_PostcodeKey.truncate(k, l - 2),
+                x, y);
+        groups[UKP_Data.TYPE_DISTRICT].add(UKP_PostcodeKey.truncate(k, l - 3),
+                x, y);
+        long a = UKP_PostcodeKey.getArea(k);
+        if (a != UKP_PostcodeKey.NONE) {
+            groups[UKP_Data.TYPE_AREA].add(a, x, y);
+        }
+    }
+
+    /**
+     * Adds all the units in {@code units}.
+     *
+     * @param units The postcode unit points.
+     */
+    public void addAll(UKP_PointLookup units) {
+        for (int i = 0; i < units.size(); i++) {
+            add(units.getKey(i), units.getX(i), units.getY(i));
+        }
+    }
+
+    /**
+     * @param level The level.
+     * @return The centroids of the groups at {@code level}.
+     */
+    public UKP_CentroidLookup build(int level) {
+        return groups[level].build();
+    }
+
+    /**
+     * The running sums, counts and bounding boxes of the groups of a level.
+     */
+    protected static class Groups {
+
+        /**
+         * For getting the ordinal of a group from its key.
+         */
+        final UKP_LongIntMap ordinals;
+
+        /**
+         * The key of the group last added to.
+         */
+        long lastKey = UKP_PostcodeKey.NONE;
+
+        /**
+         * The ordinal of the group last added to.
+         */
+        int last;
+
+        long[] keys;
+        long[] sumxs;
+        long[] sumys;
+        int[] counts;
+        int[] minxs;
+        int[] minys;
+        int[] maxxs;
+        int[] maxys;
+
+        /**
+         * @param capacity The expected number of groups.
+         */
+        Groups(int capacity) {
+            ordinals = new UKP_LongIntMap(capacity);
+            keys = new long[capacity];
+            sumxs = new long[capacity];
+            sumys = new long[capacity];
+            counts = new int[capacity];
+            minxs = new int[capacity];
+            minys = new int[capacity];
+            maxxs = new int[capacity];
+            maxys = new int[capacity];
+        }
+
+        /**
+         * @param k The key of the group.
+         * @param x The x coordinate.
+         * @param y The y coordinate.
+         */
+        void add(long k, int x, int y) {
+            int o;
+            if (k == lastKey) {
+                // Units are usually added in order so this is common.
+                o = last;
+            } else {
+                o = ordinals.get(k);
+                if (o == UKP_LongIntMap.MISSING) {
+                    o = ordinals.size();
+                    ordinals.put(k, o);
+                    if (o == keys.length) {
+                        grow();
+                    }
+                    keys[o] = k;
+                    minxs[o] = x;
+                    minys[o] = y;
+                    maxxs[o] = x;
+                    maxys[o] = y;
+                }
+                lastKey = k;
+                last = o;
+            }
+            sumxs[o] += x;
+            sumys[o] += y;
+            counts[o]++;
+            if (x < minxs[o]) {
+                minxs[o] = x;
+            } else if (x > maxxs[o]) {
+                maxxs[o] = x;
+            }
+            if (y < minys[o]) {
+                minys[o] = y;
+            } else if (y > maxys[o]) {
+                maxys[o] = y;
+            }
+        }
+
+        /**
+         * Increases the capacity by half.
+         */
+        private void grow() {
+            int l = keys.length + (keys.length >> 1) + 1;
+            keys = Arrays.copyOf(keys, l);
+            sumxs = Arrays.copyOf(sumxs, l);
+            sumys = Arrays.copyOf(sumys, l);
+            counts = Arrays.copyOf(counts, l);
+            minxs = Arrays.copyOf(minxs, l);
+            minys = Arrays.copyOf(minys, l);
+            maxxs = Arrays.copyOf(maxxs, l);
+            maxys = Arrays.copyOf(maxys, l);
+        }
+
+        /**
+         * @return The centroids in the order of their keys.
+         */
+        UKP_CentroidLookup build() {
+            int n = ordinals.size();
+            long[] rk = Arrays.copyOf(keys, n);
+            Arrays.sort(rk);
+            int[] rx = new int[n];
+            int[] ry = new int[n];
+            int[] rc = new int[n];
+            int[] rminx = new int[n];
+            int[] rminy = new int[n];
+            int[] rmaxx = new int[n];
+            int[] rmaxy = new int[n];
+            for (int i = 0; i < n; i++) {
+                int o = ordinals.get(rk[i]);
+                rx[i] = (int) (sumxs[o] / counts[o]);
+                ry[i] = (int) (sumys[o] / counts[o]);
+                rc[i] = counts[o];
+                rminx[i] = minxs[o];
+                rminy[i] = minys[o];
+                rmaxx[i] = maxxs[o];
+                rmaxy[i] = maxys[o];
+            }
+            return new UKP_CentroidLookup(rk, rx, ry, rc, rminx, rminy, rmaxx,
+                    rmaxy);
+        }
+    }
+}
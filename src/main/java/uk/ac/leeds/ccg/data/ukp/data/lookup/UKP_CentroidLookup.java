@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.lookup;
+
+/**
+ * A lookup of the centroids of groups of postcode units (sectors, districts or
+ * areas) which also has the number of units in each group and the bounding
+ * box of their points. All are held in columns in the order of the keys.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_CentroidLookup extends UKP_ArrayPointLookup {
+
+    /**
+     * The numbers of units.
+     */
+    protected final int[] counts;
+
+    /**
+     * The minimum x coordinates.
+     */
+    protected final int[] minxs;
+
+    /**
+     * The minimum y coordinates.
+     */
+    protected final int[] minys;
+
+    /**
+     * The maximum x coordinates.
+     */
+    protected final int[] maxxs;
+
+    /**
+     * The maximum y coordinates.
+     */
+    protected final int[] maxys;
+
+    /**
+     * @param keys The group keys which must be sorted and distinct.
+     * @param xs The centroid x coordinates.
+     * @param ys The centroid y coordinates.
+     * @param counts The numbers of units.
+     * @param minxs The minimum x coordinates.
+     * @param minys The minimum y coordinates.
+     * @param maxxs The maximum x coordinates.
+     * @param maxys The maximum y coordinates.
+     */
+    public UKP_CentroidLookup(long[] keys, int[] xs, int[] ys, int[] counts,
+            int[] minxs, int[] minys, int[] maxxs, int[] maxys) {
+        super(keys, xs, ys);
+        this.counts = counts;
+        this.minxs = minxs;
+        this.minys = minys;
+        this.maxxs = maxxs;
+        this.maxys = maxys;
+    }
+
+    /**
+     * @param i The index.
+     * @return The number of units in group {@code i}.
+     */
+    public int getCount(int i) {
+        return counts[i];
+    }
+
+    /**
+     * @param i The index.
+     * @return The minimum x coordinate of the units in group {@code i}.
+     */
+    public int getMinX(int i) {
+        return minxs[i];
+    }
+
+    /**
+     * @param i The index.
+     * @return The minimum y coordinate of the units in group {@code i}.
+     */
+    public int getMinY(int i) {
+        return minys[i];
+    }
+
+    /**
+     * @param i The index.
+     * @return The maximum x coordinate of the units in group {@code i}.
+     */
+    public int getMaxX(int i) {
+        return maxxs[i];
+    }
+
+    /**
+     * @param i The index.
+     * @return The maximum y coordinate of the units in group {@code i}.
+     */
+    public int getMaxY(int i) {
+        return maxys[i];
+    }
+}
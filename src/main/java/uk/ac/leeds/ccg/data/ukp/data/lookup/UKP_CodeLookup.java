@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.lookup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+
+/**
+ * For looking up the area codes of a postcode, e.g. the oslaua or lsoa11 code.
+ * Each code column has a name and an index in the range
+ * {@code [0, getNames().length)}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public interface UKP_CodeLookup {
+
+    /**
+     * @return The names of the code columns in order.
+     */
+    String[] getNames();
+
+    /**
+     * @param name The name of a code column.
+     * @return The index of the column called {@code name} or {@code -1} if
+     * there is no such column.
+     */
+    default int getColumnIndex(String name) {
+        String[] ns = getNames();
+        for (int i = 0; i < ns.length; i++) {
+            if (ns[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param k The key of a postcode, see {@link UKP_PostcodeKey}.
+     * @param c The index of the code column.
+     * @return The code of the postcode with key {@code k} in column {@code c}
+     * or {@code null} if there is no such postcode or it has no code.
+     */
+    String getCode(long k, int c);
+
+    /**
+     * For using maps such as those from
+     * {@link uk.ac.leeds.ccg.data.ukp.data.UKP_Data#getPostcodeUnitCensusCodeLookup}
+     * as a code lookup.
+     *
+     * @param ms The maps from formatted postcode to code, keyed by the name of
+     * the code column. These are not copied.
+     * @return A code lookup with a column for each map in {@code ms} in the
+     * iteration order of {@code ms}.
+     */
+    static UKP_CodeLookup of(Map<String, ? extends Map<String, String>> ms) {
+        String[] names = ms.keySet().toArray(new String[0]);
+        List<Map<String, String>> maps = new ArrayList<>(ms.values());
+        return new UKP_CodeLookup() {
+
+            @Override
+            public String[] getNames() {
+                return names.clone();
+            }
+
+            @Override
+            public String getCode(long k, int c) {
+                if (k == UKP_PostcodeKey.NONE) {
+                    return null;
+                }
+                return maps.get(c).get(UKP_PostcodeKey.decode(k));
+            }
+        };
+    }
+}
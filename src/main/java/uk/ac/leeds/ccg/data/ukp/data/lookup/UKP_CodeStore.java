@@ -0,0 +1,410 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.lookup;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_CSVScanner;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_CodeDictionary;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+
+/**
+ * A {@link UKP_CodeLookup} of many code columns held in columns: a sorted
+ * array of postcode keys and, for each code column, a dictionary of the
+ * distinct codes and the id of the code of each postcode in the same order
+ * as the keys. So getting any code of a postcode is a binary search of the
+ * keys and two array accesses.
+ *
+ * The ids of a column are held in a byte for each postcode if there are no
+ * more than 256 distinct codes in the column, in a char if there are no more
+ * than 65536, and otherwise in an int. ONS codes repeat a lot, e.g. there are
+ * a few hundred local authorities, so most columns need a byte or two per
+ * postcode and all the area codes of a release take much less memory than
+ * maps of postcode to code Strings would.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_CodeStore implements UKP_CodeLookup, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The sorted postcode keys.
+     */
+    protected final long[] keys;
+
+    /**
+     * The names of the code columns.
+     */
+    protected final String[] names;
+
+    /**
+     * For each code column, the codes in id order.
+     */
+    protected final String[][] dictionaries;
+
+    /**
+     * For each code column, the code ids in the same order as {@link #keys}.
+     */
+    protected final Ids[] ids;
+
+    /**
+     * @param keys The sorted postcode keys.
+     * @param names The names of the code columns.
+     * @param dictionaries For each code column, the codes in id order.
+     * @param ids For each code column, the code ids in the same order as
+     * {@code keys}.
+     */
+    protected UKP_CodeStore(long[] keys, String[] names,
+            String[][] dictionaries, Ids[] ids) {
+        this.keys = keys;
+        this.names = names;
+        this.dictionaries = dictionaries;
+        this.ids = ids;
+    }
+
+    /**
+     * @return The number of postcodes.
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * @param k The key of a postcode, see {@link UKP_PostcodeKey}.
+     * @return The index of the postcode with key {@code k} or a negative
+     * number if there is no such postcode.
+     */
+    public int indexOf(long k) {
+        return Arrays.binarySearch(keys, k);
+    }
+
+    /**
+     * @param i The index.
+     * @return The key of the postcode at index {@code i}.
+     */
+    public long getKey(int i) {
+        return keys[i];
+    }
+
+    @Override
+    public String[] getNames() {
+        return names.clone();
+    }
+
+    /**
+     * @param i The index of a postcode.
+     * @param c The index of the code column.
+     * @return The id of the code of the postcode at index {@code i} in column
+     * {@code c}.
+     */
+    public int getId(int i, int c) {
+        return ids[c].get(i);
+    }
+
+    /**
+     * @param i The index of a postcode.
+     * @param c The index of the code column.
+     * @return The code of the postcode at index {@code i} in column {@code c}
+     * or {@code null} if it has none.
+     */
+    public String getCode(int i, int c) {
+        int id = ids[c].get(i);
+        return id == UKP_CodeDictionary.EMPTY ? null : dictionaries[c][id];
+    }
+
+    @Override
+    public String getCode(long k, int c) {
+        int i = indexOf(k);
+        if (i < 0) {
+            return null;
+        }
+        return getCode(i, c);
+    }
+
+    /**
+     * @param c The index of the code column.
+     * @return The codes of column {@code c} in id order (a copy).
+     */
+    public String[] getDictionary(int c) {
+        return dictionaries[c].clone();
+    }
+
+    /**
+     * @return An estimate of the number of bytes of memory used by this store
+     * excluding the dictionaries.
+     */
+    public long getMemoryBytes() {
+        long r = (long) keys.length * Long.BYTES;
+        for (Ids x : ids) {
+            r += x.getMemoryBytes();
+        }
+        return r;
+    }
+
+    /**
+     * The ids of a code column in the narrowest of a byte, char or int array
+     * that can hold them.
+     */
+    protected static final class Ids implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        byte[] b;
+
+        char[] c;
+
+        int[] i;
+
+        /**
+         * @param capacity The initial capacity.
+         */
+        Ids(int capacity) {
+            b = new byte[capacity];
+        }
+
+        /**
+         * @param r The row.
+         * @return The id at {@code r}.
+         */
+        int get(int r) {
+            if (b != null) {
+                return b[r] & 0xFF;
+            } else if (c != null) {
+                return c[r];
+            }
+            return i[r];
+        }
+
+        /**
+         * Sets the id at {@code r} widening the array if {@code id} does not
+         * fit.
+         *
+         * @param r The row.
+         * @param id The id.
+         */
+        void set(int r, int id) {
+            if (b != null) {
+                if (id <= 0xFF) {
+                    b[r] = (byte) id;
+                    return;
+                }
+                c = new char[b.length];
+                for (int j = 0; j < b.length; j++) {
+                    c[j] = (char) (b[j] & 0xFF);
+                }
+                b = null;
+            }
+            if (c != null) {
+                if (id <= 0xFFFF) {
+                    c[r] = (char) id;
+                    return;
+                }
+                i = new int[c.length];
+                for (int j = 0; j < c.length; j++) {
+                    i[j] = c[j];
+                }
+                c = null;
+            }
+            i[r] = id;
+        }
+
+        /**
+         * @param capacity The new capacity.
+         */
+        void grow(int capacity) {
+            if (b != null) {
+                b = Arrays.copyOf(b, capacity);
+            } else if (c != null) {
+                c = Arrays.copyOf(c, capacity);
+            } else {
+                i = Arrays.copyOf(i, capacity);
+            }
+        }
+
+        /**
+         * @param rows The rows to select.
+         * @param m The number of rows to select.
+         * @return The ids at the first {@code m} of {@code rows} in the same
+         * width array.
+         */
+        Ids select(int[] rows, int m) {
+            Ids r = new Ids(0);
+            if (b != null) {
+                r.b = new byte[m];
+                for (int j = 0; j < m; j++) {
+                    r.b[j] = b[rows[j]];
+                }
+            } else if (c != null) {
+                r.b = null;
+                r.c = new char[m];
+                for (int j = 0; j < m; j++) {
+                    r.c[j] = c[rows[j]];
+                }
+            } else {
+                r.b = null;
+                r.i = new int[m];
+                for (int j = 0; j < m; j++) {
+                    r.i[j] = i[rows[j]];
+                }
+            }
+            return r;
+        }
+
+        /**
+         * @return The number of bytes of the array.
+         */
+        long getMemoryBytes() {
+            if (b != null) {
+                return b.length;
+            } else if (c != null) {
+                return (long) c.length * Character.BYTES;
+            }
+            return (long) i.length * Integer.BYTES;
+        }
+    }
+
+    /**
+     * For building a store from postcodes added in any order. If a key is
+     * added more than once then the codes last added for it are used.
+     */
+    public static class Builder {
+
+        /**
+         * The names of the code columns.
+         */
+        protected final String[] names;
+
+        /**
+         * The dictionary of each code column.
+         */
+        protected final UKP_CodeDictionary[] dictionaries;
+
+        /**
+         * The keys in the order added.
+         */
+        protected long[] keys;
+
+        /**
+         * The code ids of each column in the order added.
+         */
+        protected final Ids[] ids;
+
+        /**
+         * The number of postcodes added.
+         */
+        protected int n;
+
+        /**
+         * @param names The names of the code columns.
+         * @param capacity The initial capacity.
+         */
+        public Builder(String[] names, int capacity) {
+            this.names = names.clone();
+            int l = Math.max(capacity, 1);
+            keys = new long[l];
+            dictionaries = new UKP_CodeDictionary[names.length];
+            ids = new Ids[names.length];
+            for (int c = 0; c < names.length; c++) {
+                dictionaries[c] = new UKP_CodeDictionary();
+                ids[c] = new Ids(l);
+            }
+        }
+
+        /**
+         * @return The index the next postcode is added at.
+         */
+        private int next() {
+            if (n == keys.length) {
+                int l = n + (n >> 1) + 1;
+                keys = Arrays.copyOf(keys, l);
+                for (Ids x : ids) {
+                    x.grow(l);
+                }
+            }
+            return n++;
+        }
+
+        /**
+         * Adds a postcode with the codes in fields of the line {@code s} is
+         * at. No Strings are created unless a code is new.
+         *
+         * @param k The postcode key.
+         * @param s The scanner positioned at a line.
+         * @param fields For each code column, the index of the field to get
+         * the code from or {@code -1} for none.
+         */
+        public void add(long k, UKP_CSVScanner s, int[] fields) {
+            int r = next();
+            keys[r] = k;
+            for (int c = 0; c < ids.length; c++) {
+                ids[c].set(r, fields[c] < 0 ? UKP_CodeDictionary.EMPTY
+                        : dictionaries[c].getId(s, fields[c]));
+            }
+        }
+
+        /**
+         * @param k The postcode key.
+         * @param codes The code of each code column ({@code null} for none).
+         */
+        public void add(long k, String... codes) {
+            int r = next();
+            keys[r] = k;
+            for (int c = 0; c < ids.length; c++) {
+                ids[c].set(r, dictionaries[c].getId(codes[c]));
+            }
+        }
+
+        /**
+         * @return The number of postcodes added.
+         */
+        public int size() {
+            return n;
+        }
+
+        /**
+         * @return A store of what has been added.
+         */
+        public UKP_CodeStore build() {
+            int[] order = UKP_ArrayPointLookup.getOrder(keys, n);
+            long[] rk = new long[n];
+            int m = 0;
+            for (int j = 0; j < n; j++) {
+                int o = order[j];
+                if (m > 0 && rk[m - 1] == keys[o]) {
+                    /**
+                     * The sort is stable so this was added later.
+                     */
+                    m--;
+                }
+                rk[m] = keys[o];
+                order[m] = o;
+                m++;
+            }
+            if (m < n) {
+                rk = Arrays.copyOf(rk, m);
+            }
+            String[][] ds = new String[names.length][];
+            Ids[] r = new Ids[names.length];
+            for (int c = 0; c < names.length; c++) {
+                ds[c] = dictionaries[c].toArray();
+                r[c] = ids[c].select(order, m);
+            }
+            return new UKP_CodeStore(rk, names.clone(), ds, r);
+        }
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.lookup;
+
+import java.io.Serializable;
+import java.util.function.IntConsumer;
+
+/**
+ * A spatial index of the points of a {@link UKP_PointLookup} on a uniform
+ * grid of square cells aligned with the British National Grid. The points of
+ * each cell are held contiguously (x and y coordinates and the index of the
+ * unit in the lookup) so a query reads a few short runs of memory.
+ *
+ * Nearest neighbour queries search outwards from the cell of the query point
+ * ring by ring and stop once no point in a further ring can be nearer than
+ * those found, so the time of a query depends on the density of points near
+ * it rather than the number of points indexed. Distances are compared as
+ * squared distances in whole metres.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_GridIndex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The default width and height of a cell in metres. There are about 7
+     * postcode units per square kilometre across Great Britain and many more
+     * in towns and cities.
+     */
+    public static final int DEFAULT_CELL_SIZE = 1000;
+
+    /**
+     * The width and height of a cell.
+     */
+    protected final int cellSize;
+
+    /**
+     * The minimum x coordinate of the grid.
+     */
+    protected final int x0;
+
+    /**
+     * The minimum y coordinate of the grid.
+     */
+    protected final int y0;
+
+    /**
+     * The number of columns.
+     */
+    protected final int ncols;
+
+    /**
+     * The number of rows.
+     */
+    protected final int nrows;
+
+    /**
+     * The first position of the points of each cell (indexed by
+     * {@code row * ncols + col}) with an extra element at the end for the
+     * number of points.
+     */
+    protected final int[] cellStarts;
+
+    /**
+     * The unit indexes of the points in cell order.
+     */
+    protected final int[] ids;
+
+    /**
+     * The x coordinates of the points in cell order.
+     */
+    protected final int[] xs;
+
+    /**
+     * The y coordinates of the points in cell order.
+     */
+    protected final int[] ys;
+
+    /**
+     * Creates an index with cells of {@link #DEFAULT_CELL_SIZE} that does not
+     * index points at the origin.
+     *
+     * @param units The points to index.
+     */
+    public UKP_GridIndex(UKP_PointLookup units) {
+        this(units, DEFAULT_CELL_SIZE, true);
+    }
+
+    /**
+     * @param units The points to index.
+     * @param cellSize The width and height of a cell.
+     * @param ignorePointsAtOrigin If {@code true} then points with a
+     * coordinate less than 1 (which is how points without coordinates are
+     * held) are not indexed.
+     */
+    public UKP_GridIndex(UKP_PointLookup units, int cellSize,
+            boolean ignorePointsAtOrigin) {
+        if (cellSize < 1) {
+            throw new IllegalArgumentException("cellSize " + cellSize
+                    + " < 1");
+        }
+        this.cellSize = cellSize;
+        int n = units.size();
+        int minx = Integer.MAX_VALUE;
+        int miny = Integer.MAX_VALUE;
+        int maxx = Integer.MIN_VALUE;
+        int maxy = Integer.MIN_VALUE;
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            int x = units.getX(i);
+            int y = units.getY(i);
+            if (ignorePointsAtOrigin && (x < 1 || y < 1)) {
+                continue;
+            }
+            minx = Math.min(minx, x);
+            miny = Math.min(miny, y);
+            maxx = Math.max(maxx, x);
+            maxy = Math.max(maxy, y);
+            m++;
+        }
+        if (m == 0) {
+            minx = 0;
+            miny = 0;
+            maxx = 0;
+            maxy = 0;
+        }
+        x0 = minx;
+        y0 = miny;
+        ncols = (int) (((long) maxx - minx) / cellSize) + 1;
+        nrows = (int) (((long) maxy - miny) / cellSize) + 1;
+        if ((long) ncols * nrows >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("cellSize " + cellSize
+                    + " is too small for the extent of the points.");
+        }
+        /**
+         * Counting sort the points by cell.
+         */
+        int nc = ncols * nrows;
+        cellStarts = new int[nc + 1];
+        int[] cells = new int[n];
+        for (int i = 0; i < n; i++) {
+            int x = units.getX(i);
+            int y = units.getY(i);
+            if (ignorePointsAtOrigin && (x < 1 || y < 1)) {
+                cells[i] = -1;
+            } else {
+                int c = (y - y0) / cellSize * ncols + (x - x0) / cellSize;
+                cells[i] = c;
+                cellStarts[c + 1]++;
+            }
+        }
+        for (int c = 0; c < nc; c++) {
+            cellStarts[c + 1] += cellStarts[c];
+        }
+        ids = new int[m];
+        xs = new int[m];
+        ys = new int[m];
+        int[] next = new int[nc];
+        System.arraycopy(cellStarts, 0, next, 0, nc);
+        for (int i = 0; i < n; i++) {
+            int c = cells[i];
+            if (c >= 0) {
+                int p = next[c]++;
+                ids[p] = i;
+                xs[p] = units.getX(i);
+                ys[p] = units.getY(i);
+            }
+        }
+    }
+
+    /**
+     * @return The number of points indexed.
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @param x The x coordinate.
+     * @return The column of {@code x} clamped to the grid.
+     */
+    private int col(int x) {
+        return (int) Math.max(0, Math.min(ncols - 1,
+                Math.floorDiv((long) x - x0, cellSize)));
+    }
+
+    /**
+     * @param y The y coordinate.
+     * @return The row of {@code y} clamped to the grid.
+     */
+    private int row(int y) {
+        return (int) Math.max(0, Math.min(nrows - 1,
+                Math.floorDiv((long) y - y0, cellSize)));
+    }
+
+    /**
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @return The unit index of the nearest point to ({@code x}, {@code y})
+     * or {@code -1} if there are no points. Ties are broken by unit index.
+     */
+    public int getNearest(int x, int y) {
+        int[] r = new int[1];
+        if (getNearest(x, y, r, new long[1]) == 0) {
+            return -1;
+        }
+        return r[0];
+    }
+
+    /**
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @param r The array to put the unit indexes of the nearest points into
+     * in order of distance. Its length is the number of points looked for.
+     * @return The number of points put into {@code r} which is less than its
+     * length only if there are fewer points indexed.
+     */
+    public int getNearest(int x, int y, int[] r) {
+        return getNearest(x, y, r, new long[r.length]);
+    }
+
+    /**
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @param r The array to put the unit indexes of the nearest points into
+     * in order of distance. Its length is the number of points looked for.
+     * @param d2s An array at least as long as {@code r} to put the squared
+     * distances of the points into.
+     * @return The number of points put into {@code r} which is less than its
+     * length only if there are fewer points indexed.
+     */
+    public int getNearest(int x, int y, int[] r, long[] d2s) {
+        int k = r.length;
+        if (k == 0 || ids.length == 0) {
+            return 0;
+        }
+        int cx = col(x);
+        int cy = row(y);
+        int found = 0;
+        for (int ring = 0;; ring++) {
+            int c0 = cx - ring;
+            int c1 = cx + ring;
+            int r0 = cy - ring;
+            int r1 = cy + ring;
+            if (c0 < 0 && r0 < 0 && c1 >= ncols && r1 >= nrows) {
+                return found;
+            }
+            for (int row = Math.max(r0, 0); row <= Math.min(r1, nrows - 1);
+                    row++) {
+                if (row == r0 || row == r1) {
+                    for (int col = Math.max(c0, 0);
+                            col <= Math.min(c1, ncols - 1); col++) {
+                        found = scan(row * ncols + col, x, y, r, d2s, found);
+                    }
+                } else {
+                    if (c0 >= 0) {
+                        found = scan(row * ncols + c0, x, y, r, d2s, found);
+                    }
+                    if (c1 < ncols && c1 != c0) {
+                        found = scan(row * ncols + c1, x, y, r, d2s, found);
+                    }
+                }
+            }
+            if (found == k) {
+                /**
+                 * Points in cells not yet searched are further from (x, y)
+                 * than b, ignoring sides where there are no more cells.
+                 */
+                long b = Long.MAX_VALUE;
+                if (c0 > 0) {
+                    b = Math.min(b, (long) x - x0 - (long) c0 * cellSize);
+                }
+                if (c1 < ncols - 1) {
+                    b = Math.min(b, (long) x0 + (long) (c1 + 1) * cellSize - x);
+                }
+                if (r0 > 0) {
+                    b = Math.min(b, (long) y - y0 - (long) r0 * cellSize);
+                }
+                if (r1 < nrows - 1) {
+                    b = Math.min(b, (long) y0 + (long) (r1 + 1) * cellSize - y);
+                }
+                if (b == Long.MAX_VALUE || d2s[k - 1] <= b * b) {
+                    return found;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the points of a cell nearer than those in {@code r}.
+     *
+     * @param c The cell.
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @param r The unit indexes of the nearest points found so far.
+     * @param d2s The squared distances of the points in {@code r}.
+     * @param found The number of points in {@code r}.
+     * @return The number of points in {@code r}.
+     */
+    private int scan(int c, int x, int y, int[] r, long[] d2s, int found) {
+        int k = r.length;
+        for (int p = cellStarts[c]; p < cellStarts[c + 1]; p++) {
+            long dx = xs[p] - (long) x;
+            long dy = ys[p] - (long) y;
+            long d2 = dx * dx + dy * dy;
+            int id = ids[p];
+            if (found == k && (d2 > d2s[k - 1]
+                    || (d2 == d2s[k - 1] && id > r[k - 1]))) {
+                continue;
+            }
+            int j = found == k ? k - 1 : found++;
+            while (j > 0 && (d2s[j - 1] > d2
+                    || (d2s[j - 1] == d2 && r[j - 1] > id))) {
+                d2s[j] = d2s[j - 1];
+                r[j] = r[j - 1];
+                j--;
+            }
+            d2s[j] = d2;
+            r[j] = id;
+        }
+        return found;
+    }
+
+    /**
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @param d The distance.
+     * @param c The consumer of the unit indexes of the points within
+     * distance {@code d} of ({@code x}, {@code y}) inclusive.
+     * @return The number of points given to {@code c}.
+     */
+    public int forEachWithinDistance(int x, int y, int d, IntConsumer c) {
+        long d2 = (long) d * d;
+        int r = 0;
+        int cmin = col(x - d);
+        int cmax = col(x + d);
+        for (int row = row(y - d); row <= row(y + d); row++) {
+            for (int p = cellStarts[row * ncols + cmin];
+                    p < cellStarts[row * ncols + cmax + 1]; p++) {
+                long dx = xs[p] - (long) x;
+                long dy = ys[p] - (long) y;
+                if (dx * dx + dy * dy <= d2) {
+                    c.accept(ids[p]);
+                    r++;
+                }
+            }
+        }
+        return r;
+    }
+
+    /**
+     * @param minx The minimum x coordinate.
+     * @param miny The minimum y coordinate.
+     * @param maxx The maximum x coordinate.
+     * @param maxy The maximum y coordinate.
+     * @param c The consumer of the unit indexes of the points within the
+     * bounds inclusive.
+     * @return The number of points given to {@code c}.
+     */
+    public int forEachWithinBounds(int minx, int miny, int maxx, int maxy,
+            IntConsumer c) {
+        int r = 0;
+        int cmin = col(minx);
+        int cmax = col(maxx);
+        for (int row = row(miny); row <= row(maxy); row++) {
+            for (int p = cellStarts[row * ncols + cmin];
+                    p < cellStarts[row * ncols + cmax + 1]; p++) {
+                if (xs[p] >= minx && xs[p] <= maxx && ys[p] >= miny
+                        && ys[p] <= maxy) {
+                    c.accept(ids[p]);
+                    r++;
+                }
+            }
+        }
+        return r;
+    }
+}
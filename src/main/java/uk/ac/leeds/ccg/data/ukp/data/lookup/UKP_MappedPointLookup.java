@@ -0,0 +1,166 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.lookup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Point;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_Snapshot;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+
+/**
+ * A read only {@link UKP_PointLookup} that serves queries directly from a
+ * memory mapped snapshot file (see {@link UKP_Snapshot}). Nothing but the
+ * mapping is held in the heap, and postcodes are found by binary search on the
+ * mapped keys. Pages of the file are loaded by the operating system as they
+ * are needed and are shared by all processes on the host that map the same
+ * file, so opening many releases is quick and cheap.
+ *
+ * Queries only use absolute reads of the mapping, so an instance can be
+ * queried concurrently by different threads. The file channel is closed once
+ * the file is mapped and the mapping is released when the instance is garbage
+ * collected.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_MappedPointLookup implements UKP_PointLookup {
+
+    /**
+     * The snapshot file.
+     */
+    protected final Path file;
+
+    /**
+     * The mapped snapshot.
+     */
+    protected final MappedByteBuffer buf;
+
+    /**
+     * The number of postcodes.
+     */
+    protected final int n;
+
+    /**
+     * The offset of the x coordinates.
+     */
+    protected final int xOffset;
+
+    /**
+     * The offset of the y coordinates.
+     */
+    protected final int yOffset;
+
+    /**
+     * Opens {@code f} without verifying the checksum.
+     *
+     * @param f The snapshot file.
+     * @throws IOException If encountered or if {@code f} is not a valid
+     * snapshot.
+     */
+    public UKP_MappedPointLookup(Path f) throws IOException {
+        this(f, false);
+    }
+
+    /**
+     * @param f The snapshot file.
+     * @param verify If {@code true} then the checksum is verified which means
+     * that the whole file is read.
+     * @throws IOException If encountered or if {@code f} is not a valid
+     * snapshot.
+     */
+    public UKP_MappedPointLookup(Path f, boolean verify) throws IOException {
+        this.file = f;
+        try (FileChannel fc = FileChannel.open(f, StandardOpenOption.READ)) {
+            buf = fc.map(FileChannel.MapMode.READ_ONLY, 0L, fc.size());
+        }
+        n = UKP_Snapshot.checkHeader(buf, f);
+        xOffset = UKP_Snapshot.HEADER_SIZE + n * 8;
+        yOffset = xOffset + n * 4;
+        if (verify) {
+            CRC32 crc = new CRC32();
+            ByteBuffer b = buf.duplicate();
+            b.position(UKP_Snapshot.HEADER_SIZE);
+            crc.update(b);
+            if ((int) crc.getValue() != buf.getInt(20)) {
+                throw new IOException("Checksum mismatch in snapshot " + f);
+            }
+        }
+    }
+
+    /**
+     * @return {@link #file}
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public int indexOf(long k) {
+        int lo = 0;
+        int hi = n - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long v = getKey(mid);
+            if (v < k) {
+                lo = mid + 1;
+            } else if (v > k) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+
+    @Override
+    public long getKey(int i) {
+        return buf.getLong(UKP_Snapshot.HEADER_SIZE + i * 8);
+    }
+
+    @Override
+    public int getX(int i) {
+        return buf.getInt(xOffset + i * 4);
+    }
+
+    @Override
+    public int getY(int i) {
+        return buf.getInt(yOffset + i * 4);
+    }
+
+    @Override
+    public ONSPD_Point getPoint(String p) {
+        long k = UKP_PostcodeKey.encode(p);
+        if (k == UKP_PostcodeKey.NONE) {
+            return null;
+        }
+        int i = indexOf(k);
+        if (i < 0) {
+            return null;
+        }
+        return new ONSPD_Point(getX(i), getY(i));
+    }
+}
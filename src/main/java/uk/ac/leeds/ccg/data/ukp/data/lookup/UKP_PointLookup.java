@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.lookup;
+
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Point;
+
+/**
+ * For looking up the point of a postcode. Postcodes are as formatted by
+ * {@link uk.ac.leeds.ccg.data.ukp.data.UKP_Data#formatPostcode(java.lang.String)}
+ * and are held sorted, so each postcode has an index in the range
+ * {@code [0, size())}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public interface UKP_PointLookup {
+
+    /**
+     * @return The number of postcodes.
+     */
+    int size();
+
+    /**
+     * @param k The key of a postcode, see
+     * {@link uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey}.
+     * @return The index of the postcode with key {@code k} or a negative
+     * number if there is no such postcode.
+     */
+    int indexOf(long k);
+
+    /**
+     * @param i The index.
+     * @return The key of the postcode at index {@code i}.
+     */
+    long getKey(int i);
+
+    /**
+     * @param i The index.
+     * @return The x coordinate (easting) of the postcode at index {@code i}.
+     */
+    int getX(int i);
+
+    /**
+     * @param i The index.
+     * @return The y coordinate (northing) of the postcode at index {@code i}.
+     */
+    int getY(int i);
+
+    /**
+     * @param p The postcode.
+     * @return The point of {@code p} or {@code null} if {@code p} is not in
+     * this lookup.
+     */
+    ONSPD_Point getPoint(String p);
+}
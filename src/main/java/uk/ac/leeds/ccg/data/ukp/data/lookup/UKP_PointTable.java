@@ -0,0 +1,162 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.lookup;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Point;
+
+/**
+ * A table of points stored as columns: an int array of x coordinates
+ * (eastings) and an int array of y coordinates (northings), both indexed by the
+ * ordinal of the point. This takes 8 bytes per point rather than the 30 or so
+ * bytes of an {@link ONSPD_Point} and a reference to it.
+ *
+ * Points can be accessed without creating objects using the ordinal based
+ * methods.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_PointTable implements Serializable {
+
+    /**
+     * The x coordinates.
+     */
+    protected int[] xs;
+
+    /**
+     * The y coordinates.
+     */
+    protected int[] ys;
+
+    /**
+     * The number of points.
+     */
+    protected int n;
+
+    /**
+     * Creates an empty table.
+     *
+     * @param capacity The initial capacity.
+     */
+    public UKP_PointTable(int capacity) {
+        xs = new int[Math.max(capacity, 1)];
+        ys = new int[Math.max(capacity, 1)];
+        n = 0;
+    }
+
+    /**
+     * Creates a table using {@code xs} and {@code ys} which are not copied.
+     *
+     * @param xs The x coordinates.
+     * @param ys The y coordinates.
+     */
+    public UKP_PointTable(int[] xs, int[] ys) {
+        if (xs.length != ys.length) {
+            throw new IllegalArgumentException("Array lengths differ.");
+        }
+        this.xs = xs;
+        this.ys = ys;
+        this.n = xs.length;
+    }
+
+    /**
+     * Adds a point.
+     *
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @return The ordinal of the point added.
+     */
+    public int add(int x, int y) {
+        if (n == xs.length) {
+            int l = n + (n >> 1) + 1;
+            xs = Arrays.copyOf(xs, l);
+            ys = Arrays.copyOf(ys, l);
+        }
+        xs[n] = x;
+        ys[n] = y;
+        return n++;
+    }
+
+    /**
+     * Trims the capacity of the table to its size.
+     */
+    public void trim() {
+        if (n < xs.length) {
+            xs = Arrays.copyOf(xs, n);
+            ys = Arrays.copyOf(ys, n);
+        }
+    }
+
+    /**
+     * @return The number of points.
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * @return {@link #xs} (not a copy) which may be longer than
+     * {@link #size()}.
+     */
+    public int[] getXs() {
+        return xs;
+    }
+
+    /**
+     * @return {@link #ys} (not a copy) which may be longer than
+     * {@link #size()}.
+     */
+    public int[] getYs() {
+        return ys;
+    }
+
+    /**
+     * @param i The ordinal of the point.
+     * @return The x coordinate of point {@code i}.
+     */
+    public int getX(int i) {
+        return xs[i];
+    }
+
+    /**
+     * @param i The ordinal of the point.
+     * @return The y coordinate of point {@code i}.
+     */
+    public int getY(int i) {
+        return ys[i];
+    }
+
+    /**
+     * @param i The ordinal of a point.
+     * @param j The ordinal of another point.
+     * @return The distance between point {@code i} and point {@code j}.
+     */
+    public double getDistance(int i, int j) {
+        double xdiff = (double) (xs[i] - xs[j]);
+        double ydiff = (double) (ys[i] - ys[j]);
+        return Math.sqrt((xdiff * xdiff) + (ydiff * ydiff));
+    }
+
+    /**
+     * @param i The ordinal of the point.
+     * @return A new ONSPD_Point for point {@code i}.
+     */
+    public ONSPD_Point getPoint(int i) {
+        return new ONSPD_Point(xs[i], ys[i]);
+    }
+}
@@ -0,0 +1,394 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.lookup;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import uk.ac.leeds.ccg.data.ukp.data.UKP_Data;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+
+/**
+ * A hierarchical index of the units of a {@link UKP_PointLookup} by postcode
+ * area, district and sector. Each group has an ordinal at its level and each
+ * unit knows the ordinal of its sector, each sector its district and each
+ * district its area, so going up the hierarchy is array access.
+ *
+ * The units are also put in hierarchical order (by district, then by inward
+ * code), so the units of any area, district or sector are a contiguous range
+ * of positions. Positions are not the same as unit indexes, which are in the
+ * order of the unit keys: in that order the units of district "LS2" are
+ * interleaved with those of districts "LS20" to "LS29". Use
+ * {@link #getUnit(int)} to get the unit index at a position.
+ *
+ * Sectors are ordered by district and then by the digit of the sector, so
+ * their order differs from the order of their keys, but districts and areas
+ * are in the order of their keys.
+ *
+ * Units with postcodes shorter than 5 characters or that do not start with a
+ * letter are not indexed.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_PostcodeIndex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * For each unit index, the sector ordinal or {@code -1} if the unit is
+     * not indexed.
+     */
+    protected final int[] unitSectors;
+
+    /**
+     * The unit indexes in hierarchical order.
+     */
+    protected final int[] order;
+
+    /**
+     * The sector keys in hierarchical order.
+     */
+    protected final long[] sectorKeys;
+
+    /**
+     * The first position of the units of each sector with an extra element
+     * at the end for the number of positions.
+     */
+    protected final int[] sectorStarts;
+
+    /**
+     * The district ordinal of each sector.
+     */
+    protected final int[] sectorDistricts;
+
+    /**
+     * The sorted district keys.
+     */
+    protected final long[] districtKeys;
+
+    /**
+     * The first sector ordinal of each district with an extra element at the
+     * end for the number of sectors.
+     */
+    protected final int[] districtStarts;
+
+    /**
+     * The area ordinal of each district.
+     */
+    protected final int[] districtAreas;
+
+    /**
+     * The sorted area keys.
+     */
+    protected final long[] areaKeys;
+
+    /**
+     * The first district ordinal of each area with an extra element at the
+     * end for the number of districts.
+     */
+    protected final int[] areaStarts;
+
+    /**
+     * @param units The units to index.
+     */
+    public UKP_PostcodeIndex(UKP_PointLookup units) {
+        int n = units.size();
+        /**
+         * Get the district of each unit and the sorted distinct districts.
+         */
+        long[] uds = new long[n];
+        long[] ds = new long[n];
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            long k = units.getKey(i);
+            uds[i] = UKP_PostcodeKey.NONE;
+            if (UKP_PostcodeKey.getArea(k) != UKP_PostcodeKey.NONE) {
+                long d = UKP_PostcodeKey.getDistrict(k);
+                if (d != UKP_PostcodeKey.NONE) {
+                    uds[i] = d;
+                    ds[m] = d;
+                    m++;
+                }
+            }
+        }
+        ds = Arrays.copyOf(ds, m);
+        Arrays.sort(ds);
+        int nd = 0;
+        for (int i = 0; i < m; i++) {
+            if (nd == 0 || ds[i] != ds[nd - 1]) {
+                ds[nd] = ds[i];
+                nd++;
+            }
+        }
+        districtKeys = Arrays.copyOf(ds, nd);
+        /**
+         * Counting sort the units by district. Within a district the units
+         * are in key order which is the order of their inward codes, so the
+         * units of each sector are then contiguous.
+         */
+        int[] uDistricts = new int[n];
+        int[] dStarts = new int[nd + 1];
+        for (int i = 0; i < n; i++) {
+            if (uds[i] == UKP_PostcodeKey.NONE) {
+                uDistricts[i] = -1;
+            } else {
+                int d = Arrays.binarySearch(districtKeys, uds[i]);
+                uDistricts[i] = d;
+                dStarts[d + 1]++;
+            }
+        }
+        for (int d = 0; d < nd; d++) {
+            dStarts[d + 1] += dStarts[d];
+        }
+        order = new int[m];
+        int[] next = Arrays.copyOf(dStarts, nd);
+        for (int i = 0; i < n; i++) {
+            int d = uDistricts[i];
+            if (d >= 0) {
+                order[next[d]] = i;
+                next[d]++;
+            }
+        }
+        /**
+         * Sectors.
+         */
+        unitSectors = new int[n];
+        Arrays.fill(unitSectors, -1);
+        long[] sks = new long[Math.max(nd, 16)];
+        int[] sss = new int[sks.length + 1];
+        int[] sds = new int[sks.length];
+        districtStarts = new int[nd + 1];
+        int ns = 0;
+        long last = UKP_PostcodeKey.NONE;
+        for (int p = 0; p < m; p++) {
+            int i = order[p];
+            long s = UKP_PostcodeKey.getSector(units.getKey(i));
+            if (s != last) {
+                if (ns == sks.length) {
+                    int l = ns + (ns >> 1);
+                    sks = Arrays.copyOf(sks, l);
+                    sss = Arrays.copyOf(sss, l + 1);
+                    sds = Arrays.copyOf(sds, l);
+                }
+                sks[ns] = s;
+                sss[ns] = p;
+                sds[ns] = uDistricts[i];
+                ns++;
+                last = s;
+            }
+            unitSectors[i] = ns - 1;
+        }
+        sss[ns] = m;
+        sectorKeys = Arrays.copyOf(sks, ns);
+        sectorStarts = Arrays.copyOf(sss, ns + 1);
+        sectorDistricts = Arrays.copyOf(sds, ns);
+        for (int s = ns - 1; s >= 0; s--) {
+            districtStarts[sectorDistricts[s]] = s;
+        }
+        districtStarts[nd] = ns;
+        /**
+         * Areas. Districts in key order have the districts of each area
+         * contiguous as the area is the leading letters and the next
+         * character of a district is a digit.
+         */
+        long[] as = new long[Math.max(nd, 1)];
+        int[] ass = new int[as.length + 1];
+        districtAreas = new int[nd];
+        int na = 0;
+        for (int d = 0; d < nd; d++) {
+            long a = UKP_PostcodeKey.getArea(districtKeys[d]);
+            if (na == 0 || a != as[na - 1]) {
+                as[na] = a;
+                ass[na] = d;
+                na++;
+            }
+            districtAreas[d] = na - 1;
+        }
+        ass[na] = nd;
+        areaKeys = Arrays.copyOf(as, na);
+        areaStarts = Arrays.copyOf(ass, na + 1);
+    }
+
+    /**
+     * @return The number of units indexed.
+     */
+    public int getUnitCount() {
+        return order.length;
+    }
+
+    /**
+     * @return The number of sectors.
+     */
+    public int getSectorCount() {
+        return sectorKeys.length;
+    }
+
+    /**
+     * @return The number of districts.
+     */
+    public int getDistrictCount() {
+        return districtKeys.length;
+    }
+
+    /**
+     * @return The number of areas.
+     */
+    public int getAreaCount() {
+        return areaKeys.length;
+    }
+
+    /**
+     * @param p The position.
+     * @return The index of the unit at position {@code p}.
+     */
+    public int getUnit(int p) {
+        return order[p];
+    }
+
+    /**
+     * @param u The unit index.
+     * @return The sector ordinal of unit {@code u} or {@code -1} if the unit
+     * is not indexed.
+     */
+    public int getSector(int u) {
+        return unitSectors[u];
+    }
+
+    /**
+     * @param u The unit index.
+     * @return The district ordinal of unit {@code u} or {@code -1} if the
+     * unit is not indexed.
+     */
+    public int getDistrict(int u) {
+        int s = unitSectors[u];
+        return s < 0 ? -1 : sectorDistricts[s];
+    }
+
+    /**
+     * @param u The unit index.
+     * @return The area ordinal of unit {@code u} or {@code -1} if the unit is
+     * not indexed.
+     */
+    public int getArea(int u) {
+        int s = unitSectors[u];
+        return s < 0 ? -1 : districtAreas[sectorDistricts[s]];
+    }
+
+    /**
+     * @param s The sector ordinal.
+     * @return The district ordinal of sector {@code s}.
+     */
+    public int getDistrictOfSector(int s) {
+        return sectorDistricts[s];
+    }
+
+    /**
+     * @param d The district ordinal.
+     * @return The area ordinal of district {@code d}.
+     */
+    public int getAreaOfDistrict(int d) {
+        return districtAreas[d];
+    }
+
+    /**
+     * @param level One of {@link UKP_Data#TYPE_AREA},
+     * {@link UKP_Data#TYPE_DISTRICT} or {@link UKP_Data#TYPE_SECTOR}.
+     * @param g The ordinal of the group.
+     * @return The key of group {@code g} at {@code level}.
+     */
+    public long getKey(int level, int g) {
+        switch (level) {
+            case UKP_Data.TYPE_AREA:
+                return areaKeys[g];
+            case UKP_Data.TYPE_DISTRICT:
+                return districtKeys[g];
+            case UKP_Data.TYPE_SECTOR:
+                return sectorKeys[g];
+            default:
+                throw new IllegalArgumentException("Level " + level
+                        + " is not indexed.");
+        }
+    }
+
+    /**
+     * @param level One of {@link UKP_Data#TYPE_AREA},
+     * {@link UKP_Data#TYPE_DISTRICT} or {@link UKP_Data#TYPE_SECTOR}.
+     * @param k The key of a group, for example the key of "LS29" for the
+     * sector "LS2 9".
+     * @return The ordinal of the group with key {@code k} at {@code level} or
+     * {@code -1} if there is no such group.
+     */
+    public int indexOf(int level, long k) {
+        if (k == UKP_PostcodeKey.NONE) {
+            return -1;
+        }
+        switch (level) {
+            case UKP_Data.TYPE_AREA:
+                return Math.max(-1, Arrays.binarySearch(areaKeys, k));
+            case UKP_Data.TYPE_DISTRICT:
+                return Math.max(-1, Arrays.binarySearch(districtKeys, k));
+            case UKP_Data.TYPE_SECTOR:
+                int l = UKP_PostcodeKey.getLength(k);
+                int d = indexOf(UKP_Data.TYPE_DISTRICT,
+                        UKP_PostcodeKey.truncate(k, l - 1));
+                if (d < 0) {
+                    return -1;
+                }
+                for (int s = districtStarts[d]; s < districtStarts[d + 1];
+                        s++) {
+                    if (sectorKeys[s] == k) {
+                        return s;
+                    }
+                }
+                return -1;
+            default:
+                throw new IllegalArgumentException("Level " + level
+                        + " is not indexed.");
+        }
+    }
+
+    /**
+     * @param level One of {@link UKP_Data#TYPE_AREA},
+     * {@link UKP_Data#TYPE_DISTRICT} or {@link UKP_Data#TYPE_SECTOR}.
+     * @param g The ordinal of the group.
+     * @return The position of the first unit of group {@code g} at
+     * {@code level}.
+     */
+    public int getStart(int level, int g) {
+        switch (level) {
+            case UKP_Data.TYPE_AREA:
+                return sectorStarts[districtStarts[areaStarts[g]]];
+            case UKP_Data.TYPE_DISTRICT:
+                return sectorStarts[districtStarts[g]];
+            case UKP_Data.TYPE_SECTOR:
+                return sectorStarts[g];
+            default:
+                throw new IllegalArgumentException("Level " + level
+                        + " is not indexed.");
+        }
+    }
+
+    /**
+     * @param level One of {@link UKP_Data#TYPE_AREA},
+     * {@link UKP_Data#TYPE_DISTRICT} or {@link UKP_Data#TYPE_SECTOR}.
+     * @param g The ordinal of the group.
+     * @return The position after the last unit of group {@code g} at
+     * {@code level}.
+     */
+    public int getEnd(int level, int g) {
+        return getStart(level, g + 1);
+    }
+}
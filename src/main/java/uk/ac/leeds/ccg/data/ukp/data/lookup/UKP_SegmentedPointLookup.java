@@ -0,0 +1,361 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.lookup;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Point;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+
+/**
+ * A lookup held as a sequence of immutable segments each of which is a range
+ * of sorted keys and their points. Changes are applied copy-on-write: a new
+ * lookup is created that shares all the segments of this one that are not
+ * changed, so updating a lookup of one release to one of the next costs time
+ * and memory in proportion to the number of segments with changes rather
+ * than the number of postcodes.
+ *
+ * Segments can be views of the arrays of a {@link UKP_ArrayPointLookup}, so
+ * a lookup loaded from a snapshot can be segmented without copying.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_SegmentedPointLookup implements UKP_PointLookup, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The number of postcodes in a new segment. Changed segments that grow to
+     * more than twice this are split.
+     */
+    public static final int SEGMENT_SIZE = 4096;
+
+    /**
+     * A range of sorted keys and their points. Segments are never changed
+     * once created so they can be shared between lookups.
+     */
+    static final class Segment implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        final long[] keys;
+
+        final int[] xs;
+
+        final int[] ys;
+
+        /**
+         * The index of the first element.
+         */
+        final int start;
+
+        /**
+         * The index after the last element.
+         */
+        final int end;
+
+        Segment(long[] keys, int[] xs, int[] ys, int start, int end) {
+            this.keys = keys;
+            this.xs = xs;
+            this.ys = ys;
+            this.start = start;
+            this.end = end;
+        }
+
+        int size() {
+            return end - start;
+        }
+    }
+
+    /**
+     * The segments in key order, none of which are empty.
+     */
+    protected final Segment[] segments;
+
+    /**
+     * The index of the first postcode of each segment with an extra element
+     * at the end for the number of postcodes.
+     */
+    protected final int[] starts;
+
+    /**
+     * The first key of each segment.
+     */
+    protected final long[] firstKeys;
+
+    /**
+     * @param segments The segments which must be in key order and not empty.
+     */
+    protected UKP_SegmentedPointLookup(Segment[] segments) {
+        this.segments = segments;
+        starts = new int[segments.length + 1];
+        firstKeys = new long[segments.length];
+        for (int s = 0; s < segments.length; s++) {
+            starts[s + 1] = starts[s] + segments[s].size();
+            firstKeys[s] = segments[s].keys[segments[s].start];
+        }
+    }
+
+    /**
+     * @param l The lookup to segment. If this is a {@link UKP_ArrayPointLookup}
+     * then the segments are views of its arrays, otherwise it is copied.
+     * @return A segmented lookup of the same postcodes and points as
+     * {@code l}.
+     */
+    public static UKP_SegmentedPointLookup of(UKP_PointLookup l) {
+        if (l instanceof UKP_SegmentedPointLookup) {
+            return (UKP_SegmentedPointLookup) l;
+        }
+        UKP_ArrayPointLookup a;
+        if (l instanceof UKP_ArrayPointLookup) {
+            a = (UKP_ArrayPointLookup) l;
+        } else {
+            int n = l.size();
+            long[] ks = new long[n];
+            int[] xs = new int[n];
+            int[] ys = new int[n];
+            for (int i = 0; i < n; i++) {
+                ks[i] = l.getKey(i);
+                xs[i] = l.getX(i);
+                ys[i] = l.getY(i);
+            }
+            a = new UKP_ArrayPointLookup(ks, xs, ys);
+        }
+        return new UKP_SegmentedPointLookup(split(a.keys, a.points.xs,
+                a.points.ys, 0, a.size()));
+    }
+
+    /**
+     * @param ks The keys.
+     * @param xs The x coordinates.
+     * @param ys The y coordinates.
+     * @param start The index of the first element.
+     * @param end The index after the last element.
+     * @return Segments of at most {@link #SEGMENT_SIZE} elements that are
+     * views of the range from {@code start} to {@code end}.
+     */
+    private static Segment[] split(long[] ks, int[] xs, int[] ys, int start,
+            int end) {
+        int n = (end - start + SEGMENT_SIZE - 1) / SEGMENT_SIZE;
+        Segment[] r = new Segment[n];
+        for (int s = 0; s < n; s++) {
+            int i = start + s * SEGMENT_SIZE;
+            r[s] = new Segment(ks, xs, ys, i, Math.min(i + SEGMENT_SIZE, end));
+        }
+        return r;
+    }
+
+    /**
+     * Applies changes copy-on-write. Segments with no changes are shared with
+     * the result, those with changes are copied with the changes merged in.
+     *
+     * @param uks The sorted keys of postcodes to add or move.
+     * @param uxs The x coordinates of the postcodes to add or move.
+     * @param uys The y coordinates of the postcodes to add or move.
+     * @param un The number of postcodes to add or move.
+     * @param rks The sorted keys of postcodes to remove.
+     * @param rn The number of postcodes to remove.
+     * @return A lookup with the changes applied.
+     */
+    public UKP_SegmentedPointLookup apply(long[] uks, int[] uxs, int[] uys,
+            int un, long[] rks, int rn) {
+        Segment[] r = new Segment[segments.length + un / SEGMENT_SIZE + 1];
+        int nr = 0;
+        int u = 0;
+        int d = 0;
+        for (int s = 0; s < segments.length || u < un; s++) {
+            long bound = s + 1 < segments.length ? firstKeys[s + 1]
+                    : Long.MAX_VALUE;
+            int u1 = u;
+            while (u1 < un && uks[u1] < bound) {
+                u1++;
+            }
+            int d1 = d;
+            while (d1 < rn && rks[d1] < bound) {
+                d1++;
+            }
+            Segment[] ss;
+            if (s >= segments.length) {
+                // Only when this lookup is empty.
+                ss = merge(null, uks, uxs, uys, u, u1, rks, d, d1);
+            } else if (u1 == u && d1 == d) {
+                ss = new Segment[]{segments[s]};
+            } else {
+                ss = merge(segments[s], uks, uxs, uys, u, u1, rks, d, d1);
+            }
+            if (nr + ss.length > r.length) {
+                r = Arrays.copyOf(r, Math.max(r.length * 2, nr + ss.length));
+            }
+            System.arraycopy(ss, 0, r, nr, ss.length);
+            nr += ss.length;
+            u = u1;
+            d = d1;
+        }
+        return new UKP_SegmentedPointLookup(Arrays.copyOf(r, nr));
+    }
+
+    /**
+     * @param g The segment or {@code null}.
+     * @param uks The sorted keys of postcodes to add or move.
+     * @param uxs The x coordinates of the postcodes to add or move.
+     * @param uys The y coordinates of the postcodes to add or move.
+     * @param u0 The index of the first upsert for {@code g}.
+     * @param u1 The index after the last upsert for {@code g}.
+     * @param rks The sorted keys of postcodes to remove.
+     * @param d0 The index of the first removal for {@code g}.
+     * @param d1 The index after the last removal for {@code g}.
+     * @return The segments of {@code g} with the changes merged in.
+     */
+    private static Segment[] merge(Segment g, long[] uks, int[] uxs,
+            int[] uys, int u0, int u1, long[] rks, int d0, int d1) {
+        int gs = g == null ? 0 : g.start;
+        int ge = g == null ? 0 : g.end;
+        int n = ge - gs + u1 - u0;
+        long[] ks = new long[n];
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        int m = 0;
+        int i = gs;
+        int u = u0;
+        int d = d0;
+        while (i < ge || u < u1) {
+            long a = i < ge ? g.keys[i] : Long.MAX_VALUE;
+            long b = u < u1 ? uks[u] : Long.MAX_VALUE;
+            if (b <= a) {
+                ks[m] = b;
+                xs[m] = uxs[u];
+                ys[m] = uys[u];
+                m++;
+                u++;
+                if (a == b) {
+                    i++;
+                }
+            } else {
+                while (d < d1 && rks[d] < a) {
+                    d++;
+                }
+                if (d == d1 || rks[d] != a) {
+                    ks[m] = a;
+                    xs[m] = g.xs[i];
+                    ys[m] = g.ys[i];
+                    m++;
+                }
+                i++;
+            }
+        }
+        if (m == 0) {
+            return new Segment[0];
+        }
+        if (m <= 2 * SEGMENT_SIZE) {
+            return new Segment[]{new Segment(ks, xs, ys, 0, m)};
+        }
+        return split(ks, xs, ys, 0, m);
+    }
+
+    /**
+     * @return The number of segments.
+     */
+    public int getSegmentCount() {
+        return segments.length;
+    }
+
+    /**
+     * @param l Another lookup.
+     * @return The number of segments of this lookup that are shared with
+     * {@code l}.
+     */
+    public int getSharedSegmentCount(UKP_SegmentedPointLookup l) {
+        int r = 0;
+        int j = 0;
+        for (Segment g : segments) {
+            while (j < l.segments.length && l.firstKeys[j]
+                    < g.keys[g.start]) {
+                j++;
+            }
+            if (j < l.segments.length && l.segments[j] == g) {
+                r++;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * @param i The index of a postcode.
+     * @return The index of the segment of the postcode at index {@code i}.
+     */
+    private int getSegment(int i) {
+        int s = Arrays.binarySearch(starts, 0, segments.length, i);
+        return s >= 0 ? s : -s - 2;
+    }
+
+    @Override
+    public int size() {
+        return starts[segments.length];
+    }
+
+    @Override
+    public int indexOf(long k) {
+        int s = Arrays.binarySearch(firstKeys, k);
+        if (s >= 0) {
+            return starts[s];
+        }
+        s = -s - 2;
+        if (s < 0) {
+            return -1;
+        }
+        Segment g = segments[s];
+        int i = Arrays.binarySearch(g.keys, g.start, g.end, k);
+        if (i >= 0) {
+            return starts[s] + i - g.start;
+        }
+        return -(starts[s] + (-i - 1) - g.start) - 1;
+    }
+
+    @Override
+    public long getKey(int i) {
+        int s = getSegment(i);
+        Segment g = segments[s];
+        return g.keys[g.start + i - starts[s]];
+    }
+
+    @Override
+    public int getX(int i) {
+        int s = getSegment(i);
+        Segment g = segments[s];
+        return g.xs[g.start + i - starts[s]];
+    }
+
+    @Override
+    public int getY(int i) {
+        int s = getSegment(i);
+        Segment g = segments[s];
+        return g.ys[g.start + i - starts[s]];
+    }
+
+    @Override
+    public ONSPD_Point getPoint(String p) {
+        long k = UKP_PostcodeKey.encode(p);
+        if (k == UKP_PostcodeKey.NONE) {
+            return null;
+        }
+        int i = indexOf(k);
+        if (i < 0) {
+            return null;
+        }
+        return new ONSPD_Point(getX(i), getY(i));
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.lookup;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Point;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_YM3;
+
+/**
+ * A lookup of the points of postcodes over many releases. Rather than a copy
+ * of every postcode for each release, each postcode has a short list of
+ * versions, each of which is the release from which it is valid and the
+ * point, so a postcode that does not move is held once. A postcode that is
+ * in one release and not in a later one has a version that is
+ * {@link #ABSENT} from that later release.
+ *
+ * The point of a postcode as of a release is got with a binary search for the
+ * postcode, a binary search of the releases and a linear scan of the versions
+ * of the postcode, of which there are usually only one or two. The release need not be one
+ * of those the lookup was built from: the latest release not after it is
+ * used.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_TemporalPointLookup implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The x coordinate of versions that mark postcodes that are no longer in
+     * a release.
+     */
+    public static final int ABSENT = Integer.MIN_VALUE;
+
+    /**
+     * The releases in order.
+     */
+    protected final UKP_YM3[] releases;
+
+    /**
+     * The sorted keys of all postcodes in any release.
+     */
+    protected final long[] keys;
+
+    /**
+     * The first version of each postcode with an extra element at the end
+     * for the number of versions.
+     */
+    protected final int[] starts;
+
+    /**
+     * The index in {@link #releases} from which each version is valid.
+     */
+    protected final short[] froms;
+
+    /**
+     * The x coordinate of each version or {@link #ABSENT}.
+     */
+    protected final int[] xs;
+
+    /**
+     * The y coordinate of each version.
+     */
+    protected final int[] ys;
+
+    /**
+     * Creates a lookup by merging the lookups of each release. The lookups
+     * are read in key order and are not referenced once this is created, so
+     * memory mapped lookups (see {@link UKP_MappedPointLookup}) can be merged
+     * without loading the releases into the heap.
+     *
+     * @param ls The postcode unit lookups of each release.
+     */
+    public UKP_TemporalPointLookup(TreeMap<UKP_YM3, UKP_PointLookup> ls) {
+        int nr = ls.size();
+        if (nr > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many releases " + nr);
+        }
+        releases = new UKP_YM3[nr];
+        UKP_PointLookup[] rls = new UKP_PointLookup[nr];
+        int n = 0;
+        int r = 0;
+        for (Map.Entry<UKP_YM3, UKP_PointLookup> e : ls.entrySet()) {
+            releases[r] = e.getKey();
+            rls[r] = e.getValue();
+            n = Math.max(n, rls[r].size());
+            r++;
+        }
+        /**
+         * Merge the releases which are each sorted by key.
+         */
+        int[] cursors = new int[nr];
+        long[] ks = new long[Math.max(n, 16)];
+        int[] ss = new int[ks.length + 1];
+        short[] fs = new short[ks.length];
+        int[] vxs = new int[ks.length];
+        int[] vys = new int[ks.length];
+        int nk = 0;
+        int nv = 0;
+        while (true) {
+            long k = Long.MAX_VALUE;
+            for (r = 0; r < nr; r++) {
+                if (cursors[r] < rls[r].size()) {
+                    k = Math.min(k, rls[r].getKey(cursors[r]));
+                }
+            }
+            if (k == Long.MAX_VALUE) {
+                break;
+            }
+            if (nk == ks.length) {
+                int l = nk + (nk >> 1);
+                ks = Arrays.copyOf(ks, l);
+                ss = Arrays.copyOf(ss, l + 1);
+            }
+            ks[nk] = k;
+            ss[nk] = nv;
+            nk++;
+            int x = ABSENT;
+            int y = ABSENT;
+            for (r = 0; r < nr; r++) {
+                int px = ABSENT;
+                int py = ABSENT;
+                int c = cursors[r];
+                if (c < rls[r].size() && rls[r].getKey(c) == k) {
+                    px = rls[r].getX(c);
+                    py = rls[r].getY(c);
+                    cursors[r]++;
+                }
+                if (px != x || py != y) {
+                    if (nv == fs.length) {
+                        int l = nv + (nv >> 1);
+                        fs = Arrays.copyOf(fs, l);
+                        vxs = Arrays.copyOf(vxs, l);
+                        vys = Arrays.copyOf(vys, l);
+                    }
+                    fs[nv] = (short) r;
+                    vxs[nv] = px;
+                    vys[nv] = py;
+                    nv++;
+                    x = px;
+                    y = py;
+                }
+            }
+        }
+        ss[nk] = nv;
+        keys = Arrays.copyOf(ks, nk);
+        starts = Arrays.copyOf(ss, nk + 1);
+        froms = Arrays.copyOf(fs, nv);
+        xs = Arrays.copyOf(vxs, nv);
+        ys = Arrays.copyOf(vys, nv);
+    }
+
+    /**
+     * @return The number of postcodes in any release.
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * @return The total number of versions.
+     */
+    public int getVersionCount() {
+        return xs.length;
+    }
+
+    /**
+     * @return A copy of {@link #releases}.
+     */
+    public UKP_YM3[] getReleases() {
+        return releases.clone();
+    }
+
+    /**
+     * @param ym3 The release.
+     * @return The index of the latest release not after {@code ym3} or
+     * {@code -1} if {@code ym3} is before all the releases.
+     */
+    public int getRelease(UKP_YM3 ym3) {
+        int r = Arrays.binarySearch(releases, ym3);
+        return r >= 0 ? r : -r - 2;
+    }
+
+    /**
+     * @param k The key of a postcode.
+     * @return The index of the postcode or a negative number if it is not in
+     * any release.
+     */
+    public int indexOf(long k) {
+        return Arrays.binarySearch(keys, k);
+    }
+
+    /**
+     * @param i The index of a postcode.
+     * @return The key of the postcode at index {@code i}.
+     */
+    public long getKey(int i) {
+        return keys[i];
+    }
+
+    /**
+     * @param i The index of a postcode.
+     * @param r The index of a release.
+     * @return The version of postcode {@code i} valid in release {@code r}
+     * or {@code -1} if the postcode is not in release {@code r}.
+     */
+    public int getVersion(int i, int r) {
+        int v = -1;
+        for (int j = starts[i]; j < starts[i + 1] && froms[j] <= r; j++) {
+            v = j;
+        }
+        if (v < 0 || xs[v] == ABSENT) {
+            return -1;
+        }
+        return v;
+    }
+
+    /**
+     * @param i The index of a postcode.
+     * @return The number of versions of postcode {@code i}.
+     */
+    public int getVersionCount(int i) {
+        return starts[i + 1] - starts[i];
+    }
+
+    /**
+     * @param v The version.
+     * @return The x coordinate of version {@code v}.
+     */
+    public int getX(int v) {
+        return xs[v];
+    }
+
+    /**
+     * @param v The version.
+     * @return The y coordinate of version {@code v}.
+     */
+    public int getY(int v) {
+        return ys[v];
+    }
+
+    /**
+     * @param k The key of a postcode.
+     * @param ym3 The release.
+     * @return The version of the postcode with key {@code k} valid as of
+     * {@code ym3} or {@code -1} if there is none.
+     */
+    public int getVersion(long k, UKP_YM3 ym3) {
+        int i = indexOf(k);
+        if (i < 0) {
+            return -1;
+        }
+        int r = getRelease(ym3);
+        if (r < 0) {
+            return -1;
+        }
+        return getVersion(i, r);
+    }
+
+    /**
+     * @param p The postcode as formatted by
+     * {@link uk.ac.leeds.ccg.data.ukp.data.UKP_Data#formatPostcode(java.lang.String)}.
+     * @param ym3 The release.
+     * @return The point of {@code p} as of {@code ym3} or {@code null} if
+     * there is none.
+     */
+    public ONSPD_Point getPoint(String p, UKP_YM3 ym3) {
+        int v = getVersion(UKP_PostcodeKey.encode(p), ym3);
+        if (v < 0) {
+            return null;
+        }
+        return new ONSPD_Point(xs[v], ys[v]);
+    }
+}
@@ -22,7 +22,15 @@ package uk.ac.leeds.ccg.data.ukp.data.nspl;
  */
 public class NSPL_Record_2019_11Nov {
 
-    
+    /**
+     * The header of NSPL files with this layout (e.g. NSPL_NOV_2019_UK.csv).
+     */
+    public static final String HEADER = "pcd,pcd2,pcds,dointr,doterm,"
+            + "usertype,oseast1m,osnrth1m,osgrdind,oa11,cty,ced,laua,ward,"
+            + "hlthau,nhser,ctry,rgn,pcon,eer,teclec,ttwa,pct,nuts,park,lsoa11,"
+            + "msoa11,wz11,ccg,bua11,buasd11,ru11ind,oac11,lat,long,lep1,lep2,"
+            + "pfa,imd,calncv,stp";
+
 //    String pcd;
 //    String pcd2;
 //    String pcds;
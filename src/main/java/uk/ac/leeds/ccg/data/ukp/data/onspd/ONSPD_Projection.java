@@ -0,0 +1,196 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.onspd;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_CSVScanner;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+
+/**
+ * A column projection for ONSPD records. A projection is for a specific
+ * release layout and a set of requested columns. It is for extracting just the
+ * requested columns from each line read with a {@link UKP_CSVScanner} rather
+ * than constructing an ONSPD_Record which splits the whole line and creates a
+ * String for every field.
+ *
+ * Column names are matched ignoring case, so "OACODE" and "oacode" are the
+ * same column. Projections are normally got from an {@link ONSPD_Schema} which
+ * also resolves aliases. A requested column that is not in the layout has an index of
+ * {@code -1} and its value is always {@code null}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class ONSPD_Projection implements Serializable {
+
+    /**
+     * The requested column names (in lower case).
+     */
+    protected final String[] names;
+
+    /**
+     * The indexes in the release layout of the requested columns.
+     */
+    protected final int[] indexes;
+
+    /**
+     * @param header The header of the release layout, e.g.
+     * {@link ONSPD_Record_2016_02Feb#HEADER}.
+     * @param names The names of the columns to project.
+     */
+    public ONSPD_Projection(String header, String... names) {
+        this(ONSPD_Schema.get(header), names);
+    }
+
+    /**
+     * @param schema The schema of the release layout.
+     * @param names The names of the columns to project. Names are resolved
+     * using {@link ONSPD_Schema#getIndex(java.lang.String)}, so aliases work.
+     */
+    public ONSPD_Projection(ONSPD_Schema schema, String... names) {
+        this.names = new String[names.length];
+        this.indexes = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            this.names[i] = names[i].toLowerCase();
+            indexes[i] = schema.getIndex(names[i]);
+        }
+    }
+
+    /**
+     * @param columns The column names of the release layout.
+     * @param names The names of the columns to project.
+     */
+    public ONSPD_Projection(String[] columns, String... names) {
+        this.names = new String[names.length];
+        this.indexes = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            this.names[i] = names[i].toLowerCase();
+            indexes[i] = getIndex(columns, names[i]);
+        }
+    }
+
+    /**
+     * @param columns The column names of a release layout.
+     * @param name The column name to find.
+     * @return The index of {@code name} in {@code columns} (ignoring case) or
+     * {@code -1} if it is not there.
+     */
+    public static int getIndex(String[] columns, String name) {
+        for (int c = 0; c < columns.length; c++) {
+            if (columns[c].trim().equalsIgnoreCase(name)) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The number of columns in the projection.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @param i The index of the column in the projection.
+     * @return The name of the column.
+     */
+    public String getName(int i) {
+        return names[i];
+    }
+
+    /**
+     * @param i The index of the column in the projection.
+     * @return The index of the column in the release layout or {@code -1} if
+     * the column is not in the layout.
+     */
+    public int getIndex(int i) {
+        return indexes[i];
+    }
+
+    /**
+     * @param i The index of the column in the projection.
+     * @return {@code true} if the column is in the release layout.
+     */
+    public boolean isAvailable(int i) {
+        return indexes[i] >= 0;
+    }
+
+    /**
+     * @param s The scanner positioned at a record.
+     * @param i The index of the column in the projection.
+     * @return The value of the column for the current record of {@code s} or
+     * {@code null} if the column is not in the release layout.
+     */
+    public String getString(UKP_CSVScanner s, int i) {
+        int c = indexes[i];
+        if (c < 0) {
+            return null;
+        }
+        return s.getString(c);
+    }
+
+    /**
+     * @param s The scanner positioned at a record.
+     * @param i The index of the column in the projection.
+     * @param d The value to return if the column is empty or not in the
+     * release layout.
+     * @return The int value of the column for the current record of {@code s}
+     * or {@code d}.
+     */
+    public int getInt(UKP_CSVScanner s, int i, int d) {
+        int c = indexes[i];
+        if (c < 0) {
+            return d;
+        }
+        return s.getInt(c, d);
+    }
+
+    /**
+     * @param s The scanner positioned at a record.
+     * @param i The index of the column in the projection.
+     * @return The postcode key of the column for the current record of
+     * {@code s} (see {@link UKP_CSVScanner#getPostcodeKey(int)}) or
+     * {@link UKP_PostcodeKey#NONE} if the column is not in the release layout.
+     */
+    public long getPostcodeKey(UKP_CSVScanner s, int i) {
+        int c = indexes[i];
+        if (c < 0) {
+            return UKP_PostcodeKey.NONE;
+        }
+        return s.getPostcodeKey(c);
+    }
+
+    /**
+     * @param s The scanner positioned at a record.
+     * @return The values of all the columns in the projection for the current
+     * record of {@code s}.
+     */
+    public String[] getStrings(UKP_CSVScanner s) {
+        String[] r = new String[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            r[i] = getString(s, i);
+        }
+        return r;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(names=" + Arrays.toString(names)
+                + ", indexes=" + Arrays.toString(indexes) + ")";
+    }
+}
@@ -35,7 +35,11 @@ public class ONSPD_Record extends Data_Record {
 
     
     public ONSPD_Record(UKP_Environment e, Data_RecordID i){
-        this(e, i, "");
+        super(i);
+        this.oe = e;
+        PostcodeF = "";
+        oseast1m = -1;
+        osnrth1m = -1;
     }
     
     /**
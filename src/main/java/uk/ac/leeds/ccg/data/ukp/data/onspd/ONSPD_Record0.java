@@ -17,8 +17,20 @@ package uk.ac.leeds.ccg.data.ukp.data.onspd;
 
 import uk.ac.leeds.ccg.data.id.Data_RecordID;
 import uk.ac.leeds.ccg.data.ukp.core.UKP_Environment;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_CodeDictionary;
 
 /**
+ * The codes of a record (the String fields other than the postcodes and the
+ * latitude and longitude) can be canonicalised with a
+ * {@link UKP_CodeDictionary} given when the record is parsed, so records
+ * parsed with the same dictionary share one String for each distinct code
+ * rather than holding millions of copies of a few thousand codes. The int id
+ * of a code is got with {@link #getCodeId(String)}, e.g.
+ * {@code getCodeId(getOslaua())}.
+ *
+ * A dictionary is not thread safe, so records parsed concurrently need a
+ * dictionary for each thread. The dictionary is serialized with a record;
+ * records written to the same stream share it, so it is written once.
  *
  * @author Andy Turner
  * @version 1.0.0
@@ -61,6 +73,12 @@ public abstract class ONSPD_Record0 extends ONSPD_Record {
     protected String park;
     protected String casward;
 
+    /**
+     * The dictionary the codes of this record are canonicalised with or
+     * {@code null}.
+     */
+    protected final UKP_CodeDictionary codes;
+
     // 2008_FEB pcd,pcd2,pcds,dointr,doterm,oscty,oslaua,osward,usertype,oseast1m,osnrth1m,osgrdind,oshlthau,hro,ctry,GENIND,pafind,gor,streg,pcon,eer,teclec,ttwa,pct,nuts,psed,cened,edind,ADDRCT,DPCT,MOCT,SMLBUSCT,oshaprev,lea,oldha,wardc91,wardo91,ward98,statsward,oacode,oaind,casward,park,soa1,dzone1,soa2,urindew,urindsc,urindni,dzone2,soa1ni,oac,oldpct
     // 2008_AUG pcd,pcd2,pcds,dointr,doterm,oscty,oslaua,osward,usertype,oseast1m,osnrth1m,osgrdind,oshlthau,hro,ctry,GENIND,pafind,gor,streg,pcon,eer,teclec,ttwa,pct,nuts,psed,cened,edind,ADDRCT,DPCT,MOCT,SMLBUSCT,oshaprev,lea,oldha,wardc91,wardo91,ward98,statsward,oacode,oaind,casward,park,soa1,dzone1,soa2,urindew,urindsc,urindni,dzone2,soa1ni,oac,oldpct
     // 2011_MAY pcd,pcd2,pcds,dointr,doterm,oscty,oslaua,osward,usertype,oseast1m,osnrth1m,osgrdind,oshlthau,hro,ctry,pafind,gor,streg,pcon,eer,teclec,ttwa,pct,nuts,psed,cened,edind,oshaprev,lea,oldha,wardc91,wardo91,ward98,statsward,oacode,oaind,casward,park,soa1,dzone1,soa2,urindew,urindsc,urindni,dzone2,soa1ni,oac,oldpct
@@ -125,7 +143,19 @@ public abstract class ONSPD_Record0 extends ONSPD_Record {
     // 2016_NOV pcd,pcd2,pcds,dointr,doterm,oscty,oslaua,osward,usertype,oseast1m,osnrth1m,osgrdind,oshlthau,hro,ctry,gor,streg,pcon,eer,teclec,ttwa,pct,nuts,psed,cened,edind,oshaprev,lea,oldha,wardc91,wardo91,ward98,statsward,oa01,casward,park,lsoa01,msoa01,ur01ind,oac01,oldpct,oa11,lsoa11,msoa11,parish,wz11,ccg,bua11,buasd11,ru11ind,oac11,lat,long,lep1,lep2,pfa,imd
     // 2016_NOV "AB1 0AA","AB1  0AA","AB1 0AA","198001","199606","S99999999","S12000033","S13002484","0","385386","0801193","1","S08000020","S99999999","S92000003","S99999999","0","S14000002","S15000001","S09000001","S22000047","S03000012","S31000935","99ZZ0099","ZZ0099","9","SN9","QA","SN9","72UB43","72UB43","00QA36","99ZZ00","S00001364","01C30","S99999999","S01000011","S02000007","6","3C2","X98","S00090303","S01006514","S02001237","S99999999","S34002990","S03000012","S99999999","S99999999","3","1C3",57.101474,-2.242851,"S99999999","S99999999","S23000009",6808
     public ONSPD_Record0(UKP_Environment e, Data_RecordID i) {
+        this(e, i, null);
+    }
+
+    /**
+     * @param e UKP_Environment
+     * @param i Data_RecordID
+     * @param codes The dictionary to canonicalise the codes with, or
+     * {@code null} to leave them as they are.
+     */
+    public ONSPD_Record0(UKP_Environment e, Data_RecordID i,
+            UKP_CodeDictionary codes) {
         super(e, i);
+        this.codes = codes;
         PostcodeF = "";
         pcd = "";
         pcd2 = "";
@@ -318,6 +348,38 @@ public abstract class ONSPD_Record0 extends ONSPD_Record {
         return casward;
     }
 
+    /**
+     * @param v A code.
+     * @return The instance of {@code v} held in {@link #codes}, or {@code v}
+     * if {@link #codes} is {@code null}.
+     */
+    protected final String code(String v) {
+        if (codes == null) {
+            return v;
+        }
+        return codes.intern(v);
+    }
+
+    /**
+     * @return {@link #codes}
+     */
+    public UKP_CodeDictionary getCodeDictionary() {
+        return codes;
+    }
+
+    /**
+     * @param v A code of this record, e.g. {@link #getOslaua()}.
+     * @return The id of {@code v} in {@link #codes} or {@code -1} if
+     * {@link #codes} is {@code null}. The empty code has id
+     * {@link UKP_CodeDictionary#EMPTY}.
+     */
+    public int getCodeId(String v) {
+        if (codes == null) {
+            return -1;
+        }
+        return codes.getId(v);
+    }
+
     protected final int initPart1(String[] fields) {
         /*
          * 11
@@ -344,13 +406,13 @@ public abstract class ONSPD_Record0 extends ONSPD_Record {
             doterm = Integer.valueOf(fields[n]);
         }
         n++;
-        oscty = fields[n];
+        oscty = code(fields[n]);
         n++;
-        oslaua = fields[n];
+        oslaua = code(fields[n]);
         n++;
-        osward = fields[n];
+        osward = code(fields[n]);
         n++;
-        usertype = fields[n];
+        usertype = code(fields[n]);
         n++;
         if (fields[n].isEmpty()) {
             oseast1m = -1;
@@ -375,11 +437,11 @@ public abstract class ONSPD_Record0 extends ONSPD_Record {
          */
         osgrdind = Integer.valueOf(fields[n]);
         n++;
-        oshlthau = fields[n];
+        oshlthau = code(fields[n]);
         n++;
-        hro = fields[n];
+        hro = code(fields[n]);
         n++;
-        ctry = fields[n];
+        ctry = code(fields[n]);
         n++;
         return n;
     }
@@ -389,23 +451,23 @@ public abstract class ONSPD_Record0 extends ONSPD_Record {
          * pcon,eer,teclec,ttwa,pct,nuts,psed,cened,edind,
          * "802","11","S08","248","012","UKM1001","99ZZ0099","ZZ0099","9",
          */
-        pcon = fields[n];
+        pcon = code(fields[n]);
         n++;
-        eer = fields[n];
+        eer = code(fields[n]);
         n++;
-        teclec = fields[n];
+        teclec = code(fields[n]);
         n++;
-        ttwa = fields[n];
+        ttwa = code(fields[n]);
         n++;
-        pct = fields[n];
+        pct = code(fields[n]);
         n++;
-        nuts = fields[n];
+        nuts = code(fields[n]);
         n++;
-        psed = fields[n];
+        psed = code(fields[n]);
         n++;
-        cened = fields[n];
+        cened = code(fields[n]);
         n++;
-        edind = fields[n];
+        edind = code(fields[n]);
         n++;
         return n;
     }
@@ -415,27 +477,27 @@ public abstract class ONSPD_Record0 extends ONSPD_Record {
          * oshaprev,lea,oldha,wardc91,wardo91,ward98,statsward,oacode,oaind,casward,park,soa1,dzone1,soa2,urindew,urindsc,urindni,dzone2,soa1ni,oac,oldpct
          * "2","QA","SN9","72UB43","72UB43","00QA36","99ZZ00","60QA001270","7","01C31","99","Z99999999","S01000011","Z99999999","9","6","Z","S02000007","99ZZ99Z9","4B3","X98"
          */
-        oshaprev = fields[n];
+        oshaprev = code(fields[n]);
         n++;
-        lea = fields[n];
+        lea = code(fields[n]);
         n++;
-        oldha = fields[n];
+        oldha = code(fields[n]);
         n++;
-        wardc91 = fields[n];
+        wardc91 = code(fields[n]);
         n++;
-        wardo91 = fields[n];
+        wardo91 = code(fields[n]);
         n++;
-        ward98 = fields[n];
+        ward98 = code(fields[n]);
         n++;
-        statsward = fields[n];
+        statsward = code(fields[n]);
         n++;
         return n;
     }
 
     protected final int initPart6(int n, String[] fields) {
-        casward = fields[n];
+        casward = code(fields[n]);
         n++;
-        park = fields[n];
+        park = code(fields[n]);
         n++;
         return n;
     }
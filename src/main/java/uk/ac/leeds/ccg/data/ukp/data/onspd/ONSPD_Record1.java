@@ -17,6 +17,7 @@ package uk.ac.leeds.ccg.data.ukp.data.onspd;
 
 import uk.ac.leeds.ccg.data.id.Data_RecordID;
 import uk.ac.leeds.ccg.data.ukp.core.UKP_Environment;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_CodeDictionary;
 
 /**
  *
@@ -77,7 +78,18 @@ public abstract class ONSPD_Record1 extends ONSPD_Record0 {
     // 2016_NOV pcd,pcd2,pcds,dointr,doterm,oscty,oslaua,osward,usertype,oseast1m,osnrth1m,osgrdind,oshlthau,hro,ctry,gor,streg,pcon,eer,teclec,ttwa,pct,nuts,psed,cened,edind,oshaprev,lea,oldha,wardc91,wardo91,ward98,statsward,oa01,casward,park,lsoa01,msoa01,ur01ind,oac01,oldpct,oa11,lsoa11,msoa11,parish,wz11,ccg,bua11,buasd11,ru11ind,oac11,lat,long,lep1,lep2,pfa,imd
     // 2016_NOV "AB1 0AA","AB1  0AA","AB1 0AA","198001","199606","S99999999","S12000033","S13002484","0","385386","0801193","1","S08000020","S99999999","S92000003","S99999999","0","S14000002","S15000001","S09000001","S22000047","S03000012","S31000935","99ZZ0099","ZZ0099","9","SN9","QA","SN9","72UB43","72UB43","00QA36","99ZZ00","S00001364","01C30","S99999999","S01000011","S02000007","6","3C2","X98","S00090303","S01006514","S02001237","S99999999","S34002990","S03000012","S99999999","S99999999","3","1C3",57.101474,-2.242851,"S99999999","S99999999","S23000009",6808
     public ONSPD_Record1(UKP_Environment e, Data_RecordID i) {
-        super(e, i);
+        this(e, i, null);
+    }
+
+    /**
+     * @param e UKP_Environment
+     * @param i Data_RecordID
+     * @param codes The dictionary to canonicalise the codes with, or
+     * {@code null} to leave them as they are.
+     */
+    public ONSPD_Record1(UKP_Environment e, Data_RecordID i,
+            UKP_CodeDictionary codes) {
+        super(e, i, codes);
         oa01 = "";
         casward = "";
         park = "";
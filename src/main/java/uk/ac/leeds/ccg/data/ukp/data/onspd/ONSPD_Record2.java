@@ -17,6 +17,7 @@ package uk.ac.leeds.ccg.data.ukp.data.onspd;
 
 import uk.ac.leeds.ccg.data.id.Data_RecordID;
 import uk.ac.leeds.ccg.data.ukp.core.UKP_Environment;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_CodeDictionary;
 
 /**
  *
@@ -65,7 +66,18 @@ public abstract class ONSPD_Record2 extends ONSPD_Record0 {
     // 2012_AUG pcd,pcd2,pcds,dointr,doterm,oscty,oslaua,osward,usertype,oseast1m,osnrth1m,osgrdind,oshlthau,hro,ctry,GENIND,PAFIND,gor,streg,pcon,eer,teclec,ttwa,pct,nuts,psed,cened,edind,ADDRCT,DPCT,MOCT,SMLBUSCT,oshaprev,lea,oldha,wardc91,wardo91,ward98,statsward,OACODE,OAIND,oa01,casward,park,soa1,dzone1,soa2,urindew,urindsc,urindni,dzone2,soa1ni,oac,oldpct
     
     public ONSPD_Record2(UKP_Environment e, Data_RecordID i) {
-        super(e, i);
+        this(e, i, null);
+    }
+
+    /**
+     * @param e UKP_Environment
+     * @param i Data_RecordID
+     * @param codes The dictionary to canonicalise the codes with, or
+     * {@code null} to leave them as they are.
+     */
+    public ONSPD_Record2(UKP_Environment e, Data_RecordID i,
+            UKP_CodeDictionary codes) {
+        super(e, i, codes);
         genind = "";
         pafind = "";
         addrct = "";
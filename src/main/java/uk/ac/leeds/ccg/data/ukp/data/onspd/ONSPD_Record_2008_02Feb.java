@@ -17,6 +17,7 @@ package uk.ac.leeds.ccg.data.ukp.data.onspd;
 
 import uk.ac.leeds.ccg.data.id.Data_RecordID;
 import uk.ac.leeds.ccg.data.ukp.core.UKP_Environment;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_CodeDictionary;
 
 /**
  *
@@ -25,11 +26,32 @@ import uk.ac.leeds.ccg.data.ukp.core.UKP_Environment;
  */
 public class ONSPD_Record_2008_02Feb extends ONSPD_Record2 {
 
+    /**
+     * The header of ONSPD files with this layout (e.g. NSPDF_FEB_2008_UK_1M.csv).
+     */
+    public static final String HEADER = "pcd,pcd2,pcds,dointr,doterm,oscty,"
+            + "oslaua,osward,usertype,oseast1m,osnrth1m,osgrdind,oshlthau,hro,"
+            + "ctry,GENIND,pafind,gor,streg,pcon,eer,teclec,ttwa,pct,nuts,psed,"
+            + "cened,edind,ADDRCT,DPCT,MOCT,SMLBUSCT,oshaprev,lea,oldha,"
+            + "wardc91,wardo91,ward98,statsward,oacode,oaind,casward,park,soa1,"
+            + "dzone1,soa2,urindew,urindsc,urindni,dzone2,soa1ni,oac,oldpct";
+
     protected String oacode;
     protected String oaind;
 
     public ONSPD_Record_2008_02Feb(UKP_Environment e, Data_RecordID i) {
-        super(e, i);
+        this(e, i, (UKP_CodeDictionary) null);
+    }
+
+    /**
+     * @param e UKP_Environment
+     * @param i Data_RecordID
+     * @param codes The dictionary to canonicalise the codes with, or
+     * {@code null} to leave them as they are.
+     */
+    public ONSPD_Record_2008_02Feb(UKP_Environment e, Data_RecordID i,
+            UKP_CodeDictionary codes) {
+        super(e, i, codes);
     }
 
     /**
@@ -55,7 +77,24 @@ public class ONSPD_Record_2008_02Feb extends ONSPD_Record2 {
      * @param line The record as a String.
      */
     public ONSPD_Record_2008_02Feb(UKP_Environment e, Data_RecordID i, String line) {
-        super(e, i);
+        this(e, i, line, null);
+    }
+
+    /**
+     * As
+     * {@link #ONSPD_Record_2008_02Feb(UKP_Environment, Data_RecordID, String)},
+     * but the codes are canonicalised with {@code codes} (see
+     * {@link ONSPD_Record0}).
+     *
+     * @param e UKP_Environment
+     * @param i Data_RecordID
+     * @param line The record as a String.
+     * @param codes The dictionary to canonicalise the codes with, or
+     * {@code null} to leave them as they are.
+     */
+    public ONSPD_Record_2008_02Feb(UKP_Environment e, Data_RecordID i,
+            String line, UKP_CodeDictionary codes) {
+        super(e, i, codes);
         String[] fields = line.split("\",\"");
         /*
          * 2008_FEB 11
@@ -68,26 +107,26 @@ public class ONSPD_Record_2008_02Feb extends ONSPD_Record2 {
         /* GENIND,pafind,gor,streg,
          * " "," ","X","0",
          */
-        genind = fields[n];
+        genind = code(fields[n]);
         n++;
-        pafind = fields[n];
+        pafind = code(fields[n]);
         n++;
-        gor = fields[n];
+        gor = code(fields[n]);
         n++;
-        streg = fields[n];
+        streg = code(fields[n]);
         n++;
         n = initPart3(n, fields);
         /*
          * ADDRCT,DPCT,MOCT,SMLBUSCT,
          * "3","2","1","SN9",
          */
-        addrct = fields[n];
+        addrct = code(fields[n]);
         n++;
-        dpct = fields[n];
+        dpct = code(fields[n]);
         n++;
-        moct = fields[n];
+        moct = code(fields[n]);
         n++;
-        smlbusct = fields[n];
+        smlbusct = code(fields[n]);
         n++;
         n = initPart4(n, fields);
         n = initPart5(n, fields);
@@ -96,33 +135,33 @@ public class ONSPD_Record_2008_02Feb extends ONSPD_Record2 {
     }
 
     protected final int initPart5(int n, String[] fields) {
-        oacode = fields[n];
+        oacode = code(fields[n]);
         n++;
-        oaind = fields[n];
+        oaind = code(fields[n]);
         n++;
         return n;
     }
 
     protected final int initPart7(int n, String[] fields) {
-        soa1 = fields[n];
+        soa1 = code(fields[n]);
         n++;
-        dzone1 = fields[n];
+        dzone1 = code(fields[n]);
         n++;
-        soa2 = fields[n];
+        soa2 = code(fields[n]);
         n++;
-        urindew = fields[n];
+        urindew = code(fields[n]);
         n++;
-        urindsc = fields[n];
+        urindsc = code(fields[n]);
         n++;
-        urindni = fields[n];
+        urindni = code(fields[n]);
         n++;
-        dzone2 = fields[n];
+        dzone2 = code(fields[n]);
         n++;
-        soa1ni = fields[n];
+        soa1ni = code(fields[n]);
         n++;
-        oac = fields[n];
+        oac = code(fields[n]);
         n++;
-        oldpct = fields[n];
+        oldpct = code(fields[n]);
         n++;
         return n;
     }
@@ -17,6 +17,7 @@ package uk.ac.leeds.ccg.data.ukp.data.onspd;
 
 import uk.ac.leeds.ccg.data.id.Data_RecordID;
 import uk.ac.leeds.ccg.data.ukp.core.UKP_Environment;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_CodeDictionary;
 
 /**
  *
@@ -25,15 +26,53 @@ import uk.ac.leeds.ccg.data.ukp.core.UKP_Environment;
  */
 public class ONSPD_Record_2011_05May extends ONSPD_Record_2008_02Feb {
 
-    public ONSPD_Record_2011_05May(UKP_Environment e, Data_RecordID i){
-        super(e, i);
+    /**
+     * The header of ONSPD files with this layout (e.g. ONSPD_MAY_2011_O.csv).
+     */
+    public static final String HEADER = "pcd,pcd2,pcds,dointr,doterm,oscty,"
+            + "oslaua,osward,usertype,oseast1m,osnrth1m,osgrdind,oshlthau,hro,"
+            + "ctry,pafind,gor,streg,pcon,eer,teclec,ttwa,pct,nuts,psed,cened,"
+            + "edind,oshaprev,lea,oldha,wardc91,wardo91,ward98,statsward,"
+            + "oacode,oaind,casward,park,soa1,dzone1,soa2,urindew,urindsc,"
+            + "urindni,dzone2,soa1ni,oac,oldpct";
+
+    public ONSPD_Record_2011_05May(UKP_Environment e, Data_RecordID i) {
+        this(e, i, (UKP_CodeDictionary) null);
+    }
+
+    /**
+     * @param e UKP_Environment
+     * @param i Data_RecordID
+     * @param codes The dictionary to canonicalise the codes with, or
+     * {@code null} to leave them as they are.
+     */
+    public ONSPD_Record_2011_05May(UKP_Environment e, Data_RecordID i,
+            UKP_CodeDictionary codes) {
+        super(e, i, codes);
     }
     /*
      * pcd,pcd2,pcds,dointr,doterm,oscty,oslaua,osward,usertype,oseast1m,osnrth1m,osgrdind,oshlthau,hro,ctry,pafind,gor,streg,pcon,eer,teclec,ttwa,pct,nuts,psed,cened,edind,oshaprev,lea,oldha,wardc91,wardo91,ward98,statsward,oacode,oaind,casward,park,soa1,dzone1,soa2,urindew,urindsc,urindni,dzone2,soa1ni,oac,oldpct
      * "AB1 0AB","AB1  0AB","AB1 0AB","198001","199606","S99999999","S12000033","S13002484","0","385177","0801314","1","S08000006","S99999999","S92000003","S99999999","0","S14000002","S15000001","S09000001","S22000001","S03000012","UKM5001031","99ZZ0099","ZZ0099","9","SN9","QA","SN9","72UB43","72UB43","00QA36","99ZZ00","S00001270","7","01C31","S99999999","S99999999","S01000011","S99999999","9","6","Z","S02000007","99ZZ99Z9","4B3","X98" 
      */
     public ONSPD_Record_2011_05May(UKP_Environment e, Data_RecordID i, String line) {
-        super(e, i);
+        this(e, i, line, null);
+    }
+
+    /**
+     * As
+     * {@link #ONSPD_Record_2011_05May(UKP_Environment, Data_RecordID, String)},
+     * but the codes are canonicalised with {@code codes} (see
+     * {@link ONSPD_Record0}).
+     *
+     * @param e UKP_Environment
+     * @param i Data_RecordID
+     * @param line The record as a String.
+     * @param codes The dictionary to canonicalise the codes with, or
+     * {@code null} to leave them as they are.
+     */
+    public ONSPD_Record_2011_05May(UKP_Environment e, Data_RecordID i,
+            String line, UKP_CodeDictionary codes) {
+        super(e, i, codes);
         //System.out.println(line);
         String[] fields = line.split("\",\"");
         int n;
@@ -46,9 +85,9 @@ public class ONSPD_Record_2011_05May extends ONSPD_Record_2008_02Feb {
          */
         //pafind = fields[n];
         //n++;
-        gor = fields[n];
+        gor = code(fields[n]);
         n++;
-        streg = fields[n];
+        streg = code(fields[n]);
         n++;
         n = initPart3(n, fields);
         n = initPart4(n, fields);
@@ -17,6 +17,7 @@ package uk.ac.leeds.ccg.data.ukp.data.onspd;
 
 import uk.ac.leeds.ccg.data.id.Data_RecordID;
 import uk.ac.leeds.ccg.data.ukp.core.UKP_Environment;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_CodeDictionary;
 
 /**
  *
@@ -25,6 +26,17 @@ import uk.ac.leeds.ccg.data.ukp.core.UKP_Environment;
  */
 public class ONSPD_Record_2012_08Nov extends ONSPD_Record_2011_05May {
 
+    /**
+     * The header of ONSPD files with this layout (e.g. ONSPD_AUG_2012_UK_O.csv).
+     */
+    public static final String HEADER = "pcd,pcd2,pcds,dointr,doterm,oscty,"
+            + "oslaua,osward,usertype,oseast1m,osnrth1m,osgrdind,oshlthau,hro,"
+            + "ctry,GENIND,PAFIND,gor,streg,pcon,eer,teclec,ttwa,pct,nuts,psed,"
+            + "cened,edind,ADDRCT,DPCT,MOCT,SMLBUSCT,oshaprev,lea,oldha,"
+            + "wardc91,wardo91,ward98,statsward,OACODE,OAIND,oa01,casward,park,"
+            + "soa1,dzone1,soa2,urindew,urindsc,urindni,dzone2,soa1ni,oac,"
+            + "oldpct";
+
     protected String oa01;
        
     /*
@@ -36,30 +48,47 @@ public class ONSPD_Record_2012_08Nov extends ONSPD_Record_2011_05May {
      * @param line The record as a String.
      */
     public ONSPD_Record_2012_08Nov(UKP_Environment e, Data_RecordID i, String line) {
-        super(e, i);
+        this(e, i, line, null);
+    }
+
+    /**
+     * As
+     * {@link #ONSPD_Record_2012_08Nov(UKP_Environment, Data_RecordID, String)},
+     * but the codes are canonicalised with {@code codes} (see
+     * {@link ONSPD_Record0}).
+     *
+     * @param e UKP_Environment
+     * @param i Data_RecordID
+     * @param line The record as a String.
+     * @param codes The dictionary to canonicalise the codes with, or
+     * {@code null} to leave them as they are.
+     */
+    public ONSPD_Record_2012_08Nov(UKP_Environment e, Data_RecordID i,
+            String line, UKP_CodeDictionary codes) {
+        super(e, i, codes);
         String[] fields = line.split("\",\"");
         int n;
         n = initPart1(fields);
         n = initPart2(n, fields);
-        genind = fields[n];
+        genind = code(fields[n]);
         n ++;
-        pafind = fields[n];
+        pafind = code(fields[n]);
         n ++;
-        gor = fields[n];
+        gor = code(fields[n]);
         n ++;
-        streg = fields[n];
+        streg = code(fields[n]);
         n ++;
         n = initPart3(n, fields);
-        addrct = fields[n];
+        addrct = code(fields[n]);
         n ++;
-        dpct = fields[n];
+        dpct = code(fields[n]);
         n ++;
-        moct = fields[n];
+        moct = code(fields[n]);
         n ++;
-        smlbusct = fields[n];
+        smlbusct = code(fields[n]);
         n ++;
         n = initPart4(n, fields);
-        oa01 = fields[n];
+        oa01 = code(fields[n]);
         n ++;
         initPart6(n, fields);
     }
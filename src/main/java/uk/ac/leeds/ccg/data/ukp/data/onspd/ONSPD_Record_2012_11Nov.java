@@ -17,6 +17,7 @@ package uk.ac.leeds.ccg.data.ukp.data.onspd;
 
 import uk.ac.leeds.ccg.data.id.Data_RecordID;
 import uk.ac.leeds.ccg.data.ukp.core.UKP_Environment;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_CodeDictionary;
 
 /**
  *
@@ -25,6 +26,16 @@ import uk.ac.leeds.ccg.data.ukp.core.UKP_Environment;
  */
 public class ONSPD_Record_2012_11Nov extends ONSPD_Record1 {
 
+    /**
+     * The header of ONSPD files with this layout (e.g. ONSPD_NOV_2012_UK_O.csv).
+     */
+    public static final String HEADER = "pcd,pcd2,pcds,dointr,doterm,oscty,"
+            + "oslaua,osward,usertype,oseast1m,osnrth1m,osgrdind,oshlthau,hro,"
+            + "ctry,gor,streg,pcon,eer,teclec,ttwa,pct,nuts,psed,cened,edind,"
+            + "oshaprev,lea,oldha,wardc91,wardo91,ward98,statsward,oa01,"
+            + "casward,park,lsoa01,msoa01,ur01ind,oac01,oldpct,oa11,lsoa11,"
+            + "msoa11";
+
     // 2012_NOV pcd,pcd2,pcds,dointr,doterm,oscty,oslaua,osward,usertype,oseast1m,osnrth1m,osgrdind,oshlthau,hro,ctry,gor,streg,pcon,eer,teclec,ttwa,pct,nuts,psed,cened,edind,oshaprev,lea,oldha,wardc91,wardo91,ward98,statsward,oa01,casward,park,lsoa01,msoa01,ur01ind,oac01,oldpct,oa11,lsoa11,msoa11
     // 2013_FEB pcd,pcd2,pcds,dointr,doterm,oscty,oslaua,osward,usertype,oseast1m,osnrth1m,osgrdind,oshlthau,hro,ctry,gor,streg,pcon,eer,teclec,ttwa,pct,nuts,psed,cened,edind,oshaprev,lea,oldha,wardc91,wardo91,ward98,statsward,oa01,casward,park,lsoa01,msoa01,ur01ind,oac01,oldpct,oa11,lsoa11,msoa11,parish,wz11
     // 2013_MAY pcd,pcd2,pcds,dointr,doterm,oscty,oslaua,osward,usertype,oseast1m,osnrth1m,osgrdind,oshlthau,hro,ctry,gor,streg,pcon,eer,teclec,ttwa,pct,nuts,psed,cened,edind,oshaprev,lea,oldha,wardc91,wardo91,ward98,statsward,oa01,casward,park,lsoa01,msoa01,ur01ind,oac01,oldpct,oa11,lsoa11,msoa11,parish,wz11,ccg
@@ -32,34 +43,51 @@ public class ONSPD_Record_2012_11Nov extends ONSPD_Record1 {
     // 2014_NOV pcd,pcd2,pcds,dointr,doterm,oscty,oslaua,osward,usertype,oseast1m,osnrth1m,osgrdind,oshlthau,hro,ctry,gor,streg,pcon,eer,teclec,ttwa,pct,nuts,psed,cened,edind,oshaprev,lea,oldha,wardc91,wardo91,ward98,statsward,oa01,casward,park,lsoa01,msoa01,ur01ind,oac01,oldpct,oa11,lsoa11,msoa11,parish,wz11,ccg,bua11,buasd11,ru11ind,oac11
     
     public ONSPD_Record_2012_11Nov(UKP_Environment e, Data_RecordID i, String line) {
-        super(e, i);
+        this(e, i, line, null);
+    }
+
+    /**
+     * As
+     * {@link #ONSPD_Record_2012_11Nov(UKP_Environment, Data_RecordID, String)},
+     * but the codes are canonicalised with {@code codes} (see
+     * {@link ONSPD_Record0}).
+     *
+     * @param e UKP_Environment
+     * @param i Data_RecordID
+     * @param line The record as a String.
+     * @param codes The dictionary to canonicalise the codes with, or
+     * {@code null} to leave them as they are.
+     */
+    public ONSPD_Record_2012_11Nov(UKP_Environment e, Data_RecordID i,
+            String line, UKP_CodeDictionary codes) {
+        super(e, i, codes);
         String[] fields = line.split("\",\"");
         int n;
         n = initPart1(fields);
         n = initPart2(n, fields);
-        gor = fields[n];
+        gor = code(fields[n]);
         n++;
-        streg = fields[16];
+        streg = code(fields[16]);
         n++;
         n = initPart3(n, fields);
         n = initPart4(n, fields);
-        oa01 = fields[n];
+        oa01 = code(fields[n]);
         n++;
         n = initPart6(n, fields);
-        lsoa01 = fields[n];
+        lsoa01 = code(fields[n]);
         n++;
-        msoa01 = fields[n];
+        msoa01 = code(fields[n]);
         n++;
-        ur01ind = fields[n];
+        ur01ind = code(fields[n]);
         n++;
-        oac01 = fields[n];
+        oac01 = code(fields[n]);
         n++;
-        oldpct = fields[n];
+        oldpct = code(fields[n]);
         n++;
-        oa11 = fields[n];
+        oa11 = code(fields[n]);
         n++;
-        lsoa11 = fields[n];
+        lsoa11 = code(fields[n]);
         n++;
-        msoa11 = fields[n];
+        msoa11 = code(fields[n]);
     }
 }
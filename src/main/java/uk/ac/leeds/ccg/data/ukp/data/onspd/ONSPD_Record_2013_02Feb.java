@@ -17,6 +17,7 @@ package uk.ac.leeds.ccg.data.ukp.data.onspd;
 
 import uk.ac.leeds.ccg.data.id.Data_RecordID;
 import uk.ac.leeds.ccg.data.ukp.core.UKP_Environment;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_CodeDictionary;
 
 /**
  *
@@ -25,14 +26,41 @@ import uk.ac.leeds.ccg.data.ukp.core.UKP_Environment;
  */
 public class ONSPD_Record_2013_02Feb extends ONSPD_Record_2012_11Nov {
 
+    /**
+     * The header of ONSPD files with this layout (e.g. ONSPD_FEB_2013_UK_O.csv).
+     */
+    public static final String HEADER = "pcd,pcd2,pcds,dointr,doterm,oscty,"
+            + "oslaua,osward,usertype,oseast1m,osnrth1m,osgrdind,oshlthau,hro,"
+            + "ctry,gor,streg,pcon,eer,teclec,ttwa,pct,nuts,psed,cened,edind,"
+            + "oshaprev,lea,oldha,wardc91,wardo91,ward98,statsward,oa01,"
+            + "casward,park,lsoa01,msoa01,ur01ind,oac01,oldpct,oa11,lsoa11,"
+            + "msoa11,parish,wz11";
+
     protected final String parish;
     protected final String wz11;
     
     public ONSPD_Record_2013_02Feb(UKP_Environment e, Data_RecordID i, String line) {
-        super(e, i, line);
+        this(e, i, line, null);
+    }
+
+    /**
+     * As
+     * {@link #ONSPD_Record_2013_02Feb(UKP_Environment, Data_RecordID, String)},
+     * but the codes are canonicalised with {@code codes} (see
+     * {@link ONSPD_Record0}).
+     *
+     * @param e UKP_Environment
+     * @param i Data_RecordID
+     * @param line The record as a String.
+     * @param codes The dictionary to canonicalise the codes with, or
+     * {@code null} to leave them as they are.
+     */
+    public ONSPD_Record_2013_02Feb(UKP_Environment e, Data_RecordID i,
+            String line, UKP_CodeDictionary codes) {
+        super(e, i, line, codes);
         String[] fields = line.split("\",\"");
-        parish = fields[fields.length - 2];
-        wz11 = fields[fields.length - 1];
+        parish = code(fields[fields.length - 2]);
+        wz11 = code(fields[fields.length - 1]);
     }
 
     public String getParish() {
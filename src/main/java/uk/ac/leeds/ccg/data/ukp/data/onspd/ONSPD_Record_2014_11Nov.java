@@ -17,6 +17,7 @@ package uk.ac.leeds.ccg.data.ukp.data.onspd;
 
 import uk.ac.leeds.ccg.data.id.Data_RecordID;
 import uk.ac.leeds.ccg.data.ukp.core.UKP_Environment;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_CodeDictionary;
 
 /**
  *
@@ -25,12 +26,39 @@ import uk.ac.leeds.ccg.data.ukp.core.UKP_Environment;
  */
 public class ONSPD_Record_2014_11Nov extends ONSPD_Record_2013_08Aug {
 
+    /**
+     * The header of ONSPD files with this layout (e.g. ONSPD_NOV_2014_UK.csv).
+     */
+    public static final String HEADER = "pcd,pcd2,pcds,dointr,doterm,oscty,"
+            + "oslaua,osward,usertype,oseast1m,osnrth1m,osgrdind,oshlthau,hro,"
+            + "ctry,gor,streg,pcon,eer,teclec,ttwa,pct,nuts,psed,cened,edind,"
+            + "oshaprev,lea,oldha,wardc91,wardo91,ward98,statsward,oa01,"
+            + "casward,park,lsoa01,msoa01,ur01ind,oac01,oldpct,oa11,lsoa11,"
+            + "msoa11,parish,wz11,ccg,bua11,buasd11,ru11ind,oac11";
+
     protected final String oac11;
     
     public ONSPD_Record_2014_11Nov(UKP_Environment e, Data_RecordID i, String line) {
-        super(e, i, line);
+        this(e, i, line, null);
+    }
+
+    /**
+     * As
+     * {@link #ONSPD_Record_2014_11Nov(UKP_Environment, Data_RecordID, String)},
+     * but the codes are canonicalised with {@code codes} (see
+     * {@link ONSPD_Record0}).
+     *
+     * @param e UKP_Environment
+     * @param i Data_RecordID
+     * @param line The record as a String.
+     * @param codes The dictionary to canonicalise the codes with, or
+     * {@code null} to leave them as they are.
+     */
+    public ONSPD_Record_2014_11Nov(UKP_Environment e, Data_RecordID i,
+            String line, UKP_CodeDictionary codes) {
+        super(e, i, line, codes);
         String[] fields = line.split("\",\"");
-        oac11 = fields[fields.length - 1];
+        oac11 = code(fields[fields.length - 1]);
     }
 
     public String getOac11() {
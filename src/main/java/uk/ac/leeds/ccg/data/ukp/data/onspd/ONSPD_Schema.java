@@ -0,0 +1,274 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.onspd;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_CSVScanner;
+
+/**
+ * A schema for the layout of an ONSPD or NSPL release. The schema is created
+ * from the header line of a release file and resolves column indexes by name,
+ * so any release can be parsed by looking up the indexes of the columns that
+ * are wanted once and then reading just those fields from each line.
+ *
+ * Some columns have been renamed between releases, e.g. "oslaua" in ONSPD is
+ * "laua" in NSPL and "oacode" in early ONSPD releases is "oa01" in later ones.
+ * Such columns are resolved via {@link #ALIASES}, so for example asking for
+ * "laua" in a release with an "oslaua" column gives the index of "oslaua".
+ * Some columns are only renamed in some layouts and are resolved via
+ * {@link #LAYOUT_ALIASES}.
+ *
+ * Schemas are registered by header, so there is only one instance for each
+ * distinct layout, see {@link #get(String)} and {@link #read(Path)}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class ONSPD_Schema implements Serializable {
+
+    /**
+     * Groups of column names which are for the same thing in different
+     * releases.
+     */
+    public static final String[][] ALIASES = {
+        {"pcd", "pcd7"},
+        {"pcd2", "pcd8"},
+        {"oa01", "oacode"},
+        {"lsoa01", "soa1"},
+        {"msoa01", "soa2"},
+        {"laua", "oslaua"},
+        {"cty", "oscty"},
+        {"ward", "osward"},
+        {"hlthau", "oshlthau"},
+        {"rgn", "gor"}};
+
+    /**
+     * Aliases that only apply to a layout and take precedence over
+     * {@link #ALIASES}. Each row is the header of the layout followed by pairs
+     * of a column name and the name of the column that holds it in that
+     * layout, or {@code null} if no column holds it. In the 2011_05May layout
+     * the 2011 census output areas are in the oacode column and there are no
+     * 2001 census output areas, lower or middle layer super output areas.
+     */
+    public static final String[][] LAYOUT_ALIASES = {
+        {ONSPD_Record_2011_05May.HEADER, "oa11", "oacode", "oa01", null,
+            "lsoa01", null, "msoa01", null}};
+
+    /**
+     * The names of columns that are not area codes: postcodes, dates, user
+     * type, coordinates and grid reference quality.
+     */
+    public static final String[] NON_CODES = {"pcd", "pcd7", "pcd2", "pcd8",
+        "pcds", "dointr", "doterm", "usertype", "oseast1m", "osnrth1m",
+        "osgrdind", "lat", "long"};
+
+    /**
+     * The registry of schemas with header keys.
+     */
+    private static final HashMap<String, ONSPD_Schema> SCHEMAS
+            = new HashMap<>();
+
+    /**
+     * The header line.
+     */
+    protected final String header;
+
+    /**
+     * The column names (in lower case).
+     */
+    protected final String[] columns;
+
+    /**
+     * For looking up the index of a column from its name (in lower case).
+     */
+    protected final HashMap<String, Integer> indexes;
+
+    /**
+     * For looking up the index of a column from a name that is an alias for
+     * it in this layout only (see {@link #LAYOUT_ALIASES}). The index is
+     * {@code -1} for names that no column holds in this layout.
+     */
+    protected final HashMap<String, Integer> layoutIndexes;
+
+    /**
+     * @param header The header line of a release file.
+     */
+    protected ONSPD_Schema(String header) {
+        this.header = header;
+        String[] h = header.split(",");
+        columns = new String[h.length];
+        indexes = new HashMap<>();
+        for (int c = 0; c < h.length; c++) {
+            String n = h[c].trim().replace("\"", "").toLowerCase();
+            columns[c] = n;
+            indexes.putIfAbsent(n, c);
+        }
+        layoutIndexes = new HashMap<>();
+        String l = String.join(",", columns);
+        for (String[] a : LAYOUT_ALIASES) {
+            if (a[0].toLowerCase().equals(l)) {
+                for (int i = 1; i < a.length; i += 2) {
+                    if (a[i + 1] == null) {
+                        layoutIndexes.put(a[i], -1);
+                    } else {
+                        Integer c = indexes.get(a[i + 1]);
+                        if (c != null) {
+                            layoutIndexes.put(a[i], c);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param header The header line of a release file.
+     * @return The schema for {@code header} which is created and registered if
+     * it has not been already.
+     */
+    public static synchronized ONSPD_Schema get(String header) {
+        ONSPD_Schema r = SCHEMAS.get(header);
+        if (r == null) {
+            r = new ONSPD_Schema(header);
+            SCHEMAS.put(header, r);
+        }
+        return r;
+    }
+
+    /**
+     * Reads the header line of {@code f} and returns the schema for it.
+     *
+     * @param f The release file.
+     * @return The schema for the header line of {@code f}.
+     * @throws IOException If encountered or if {@code f} is empty.
+     */
+    public static ONSPD_Schema read(Path f) throws IOException {
+        try (UKP_CSVScanner s = new UKP_CSVScanner(f)) {
+            return read(s, f);
+        }
+    }
+
+    /**
+     * Reads the header line using {@code s} which is expected to be at the
+     * start of {@code f} and returns the schema for it.
+     *
+     * @param s The scanner.
+     * @param f The release file (for error reporting).
+     * @return The schema for the header line.
+     * @throws IOException If encountered or if {@code f} is empty.
+     */
+    public static ONSPD_Schema read(UKP_CSVScanner s, Path f)
+            throws IOException {
+        if (!s.next()) {
+            throw new IOException("No header line in " + f);
+        }
+        return get(s.getLine());
+    }
+
+    /**
+     * @return The header line.
+     */
+    public String getHeader() {
+        return header;
+    }
+
+    /**
+     * @return The number of columns.
+     */
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * @param c The index of the column.
+     * @return The name of the column (in lower case).
+     */
+    public String getColumnName(int c) {
+        return columns[c];
+    }
+
+    /**
+     * @param name The column name.
+     * @return The index of the column with {@code name} (ignoring case) or of
+     * an alias for it or {@code -1} if there is no such column.
+     */
+    public int getIndex(String name) {
+        String n = name.toLowerCase();
+        Integer r = indexes.get(n);
+        if (r != null) {
+            return r;
+        }
+        r = layoutIndexes.get(n);
+        if (r != null) {
+            return r;
+        }
+        for (String[] a : ALIASES) {
+            for (String an : a) {
+                if (an.equals(n)) {
+                    for (String an2 : a) {
+                        r = indexes.get(an2);
+                        if (r != null) {
+                            return r;
+                        }
+                    }
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param name The column name.
+     * @return {@code true} if there is a column with {@code name} or with an
+     * alias for it.
+     */
+    public boolean hasColumn(String name) {
+        return getIndex(name) >= 0;
+    }
+
+    /**
+     * @return The names of the columns that are area codes, i.e. all those
+     * that are not in {@link #NON_CODES}, in order.
+     */
+    public String[] getAreaCodeColumns() {
+        ArrayList<String> r = new ArrayList<>();
+        for (String c : columns) {
+            if (!Arrays.asList(NON_CODES).contains(c)) {
+                r.add(c);
+            }
+        }
+        return r.toArray(new String[r.size()]);
+    }
+
+    /**
+     * @param names The names of the columns to project.
+     * @return A projection of the columns with {@code names}.
+     */
+    public ONSPD_Projection getProjection(String... names) {
+        return new ONSPD_Projection(this, names);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(" + header + ")";
+    }
+}
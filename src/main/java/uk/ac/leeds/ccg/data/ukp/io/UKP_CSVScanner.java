@@ -0,0 +1,646 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeNormaliser;
+
+/**
+ * For scanning comma separated value (CSV) files such as those of the ONSPD
+ * and NSPL. The file is memory mapped and each line is tokenised directly from
+ * the mapped bytes into field offsets. No String is created unless a field
+ * value is asked for via {@link #getString(int)} or the whole line is asked
+ * for via {@link #getLine()}, and numeric fields can be parsed without
+ * creating a String via {@link #getInt(int, int)}.
+ *
+ * Fields may be quoted or unquoted. Quoted fields may contain commas and
+ * doubled quotes (which are returned as a single quote). Line endings may be
+ * either "\n" or "\r\n" and blank lines are skipped.
+ *
+ * Large files are mapped a window at a time, so files bigger than 2GB can be
+ * scanned. An instance is not thread safe, but a file can be split into
+ * ranges that are scanned in parallel using separate instances.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_CSVScanner implements AutoCloseable {
+
+    /**
+     * The default maximum number of bytes mapped at any one time.
+     */
+    public static final int DEFAULT_WINDOW = 1 << 28;
+
+    /**
+     * The channel for the file being scanned.
+     */
+    protected final FileChannel fc;
+
+    /**
+     * The charset used to decode field values.
+     */
+    protected final Charset cs;
+
+    /**
+     * The maximum number of bytes mapped at any one time.
+     */
+    protected final int window;
+
+    /**
+     * The file offset at which scanning stops.
+     */
+    protected final long end;
+
+    /**
+     * The currently mapped window of the file.
+     */
+    protected MappedByteBuffer buf;
+
+    /**
+     * The file offset of the start of {@link #buf}.
+     */
+    protected long bufStart;
+
+    /**
+     * The number of usable bytes in {@link #buf}.
+     */
+    protected int lim;
+
+    /**
+     * The position in {@link #buf} of the next line to scan.
+     */
+    protected int pos;
+
+    /**
+     * The position in {@link #buf} of the start of the current line.
+     */
+    protected int lineStart;
+
+    /**
+     * The position in {@link #buf} of the end of the current line (excluding
+     * any line ending).
+     */
+    protected int lineEnd;
+
+    /**
+     * The number of fields in the current line.
+     */
+    protected int n;
+
+    /**
+     * The start positions in {@link #buf} of each field of the current line
+     * (excluding any opening quote).
+     */
+    protected int[] fs;
+
+    /**
+     * The end positions in {@link #buf} of each field of the current line
+     * (excluding any closing quote).
+     */
+    protected int[] fe;
+
+    /**
+     * For each field of the current line, {@code true} if the field contains
+     * doubled quotes that need unescaping.
+     */
+    protected boolean[] fq;
+
+    /**
+     * For copying bytes out of {@link #buf} to create Strings.
+     */
+    protected byte[] bytes;
+
+    /**
+     * The number of lines scanned.
+     */
+    protected long lineCount;
+
+    /**
+     * Reused for encoding postcode keys, see {@link #getPostcodeKey(int)}.
+     */
+    protected final Field field = new Field();
+
+    /**
+     * @param f The file to scan.
+     * @throws IOException If encountered.
+     */
+    public UKP_CSVScanner(Path f) throws IOException {
+        this(f, StandardCharsets.UTF_8, DEFAULT_WINDOW);
+    }
+
+    /**
+     * @param f The file to scan.
+     * @param cs The charset used to decode field values.
+     * @param window The maximum number of bytes to map at any one time. This
+     * must be larger than the longest line in the file.
+     * @throws IOException If encountered.
+     */
+    public UKP_CSVScanner(Path f, Charset cs, int window) throws IOException {
+        this(f, cs, window, 0L, -1L);
+    }
+
+    /**
+     * For scanning a range of a file. This is for scanning different parts of
+     * a file in parallel, see {@link #split(Path, long, int)}.
+     *
+     * @param f The file to scan.
+     * @param cs The charset used to decode field values.
+     * @param window The maximum number of bytes to map at any one time. This
+     * must be larger than the longest line in the file.
+     * @param start The file offset to start scanning from. This should be the
+     * start of a line.
+     * @param end The file offset at which to stop scanning. This should be the
+     * start of a line or the end of the file. If negative then scanning stops
+     * at the end of the file.
+     * @throws IOException If encountered.
+     */
+    public UKP_CSVScanner(Path f, Charset cs, int window, long start, long end)
+            throws IOException {
+        this.fc = FileChannel.open(f, StandardOpenOption.READ);
+        this.cs = cs;
+        this.window = window;
+        long size = fc.size();
+        this.end = (end < 0L || end > size) ? size : end;
+        fs = new int[64];
+        fe = new int[64];
+        fq = new boolean[64];
+        bytes = new byte[256];
+        map(Math.min(start, this.end));
+    }
+
+    /**
+     * Splits {@code f} from {@code start} into at most {@code n} ranges which
+     * each begin at the start of a line. Split points are found by looking
+     * for the next newline, so fields must not contain newlines (which is the
+     * case for ONSPD and NSPL files).
+     *
+     * @param f The file to split.
+     * @param start The file offset to start from. This should be the start of
+     * a line.
+     * @param n The number of ranges wanted.
+     * @return The offsets of the ranges. Range {@code i} is from
+     * {@code r[i]} to {@code r[i + 1]}, so there are {@code r.length - 1}
+     * ranges and the last element is the size of the file.
+     * @throws IOException If encountered.
+     */
+    public static long[] split(Path f, long start, int n) throws IOException {
+        try (FileChannel c = FileChannel.open(f, StandardOpenOption.READ)) {
+            long size = c.size();
+            long[] r = new long[n + 1];
+            r[0] = Math.min(start, size);
+            int k = 1;
+            long step = (size - r[0]) / Math.max(n, 1);
+            ByteBuffer b = ByteBuffer.allocate(8192);
+            for (int i = 1; i < n; i++) {
+                long o = Math.max(r[0] + step * i, r[k - 1]);
+                // Find the start of the next line.
+                boolean found = false;
+                while (!found && o < size) {
+                    b.clear();
+                    int l = c.read(b, o);
+                    if (l <= 0) {
+                        break;
+                    }
+                    for (int j = 0; j < l; j++) {
+                        if (b.get(j) == '\n') {
+                            o += j + 1;
+                            found = true;
+                            break;
+                        }
+                    }
+                    if (!found) {
+                        o += l;
+                    }
+                }
+                if (o >= size) {
+                    break;
+                }
+                if (o > r[k - 1]) {
+                    r[k] = o;
+                    k++;
+                }
+            }
+            r[k] = size;
+            return Arrays.copyOf(r, k + 1);
+        }
+    }
+
+    /**
+     * @return The file offset of the start of the next line to scan (which
+     * after a call to {@link #next()} is the end of the current line).
+     */
+    public long getPosition() {
+        return bufStart + pos;
+    }
+
+    /**
+     * Maps a window of the file starting at {@code from}.
+     *
+     * @param from The file offset to map from.
+     * @throws IOException If encountered.
+     */
+    protected final void map(long from) throws IOException {
+        long size = Math.min((long) window, end - from);
+        buf = fc.map(FileChannel.MapMode.READ_ONLY, from, size);
+        bufStart = from;
+        lim = (int) size;
+        pos = 0;
+    }
+
+    /**
+     * Advances to the next line.
+     *
+     * @return {@code true} if there is a next line and {@code false} if the
+     * end of the file has been reached.
+     * @throws IOException If encountered or if a line is longer than the
+     * mapping window.
+     */
+    public boolean next() throws IOException {
+        while (bufStart + pos < end) {
+            int r = tokenise(pos);
+            if (r < 0) {
+                // The line continues beyond the mapped window.
+                if (pos == 0) {
+                    throw new IOException("Line " + (lineCount + 1)
+                            + " is longer than the mapping window of "
+                            + window + " bytes.");
+                }
+                map(bufStart + pos);
+            } else {
+                pos = r;
+                if (!(n == 1 && fs[0] == fe[0] && lineEnd - lineStart == 0)) {
+                    lineCount++;
+                    return true;
+                }
+            }
+        }
+        n = 0;
+        return false;
+    }
+
+    /**
+     * Tokenises the line starting at {@code i}.
+     *
+     * @param i The position in {@link #buf} of the start of the line.
+     * @return The position of the start of the next line or {@code -1} if the
+     * line is not wholly within {@link #buf}.
+     */
+    protected int tokenise(int i) {
+        boolean last = bufStart + lim >= end;
+        n = 0;
+        lineStart = i;
+        while (true) {
+            int s;
+            int e;
+            boolean q = false;
+            byte b;
+            if (i < lim && buf.get(i) == '"') {
+                i++;
+                s = i;
+                while (true) {
+                    if (i >= lim) {
+                        if (!last) {
+                            return -1;
+                        }
+                        break;
+                    }
+                    if (buf.get(i) == '"') {
+                        if (i + 1 >= lim && !last) {
+                            return -1;
+                        }
+                        if (i + 1 < lim && buf.get(i + 1) == '"') {
+                            q = true;
+                            i += 2;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        i++;
+                    }
+                }
+                e = i;
+                if (i < lim) {
+                    i++;
+                }
+                // Skip anything between the closing quote and delimiter.
+                while (i < lim) {
+                    b = buf.get(i);
+                    if (b == ',' || b == '\n' || b == '\r') {
+                        break;
+                    }
+                    i++;
+                }
+            } else {
+                s = i;
+                while (i < lim) {
+                    b = buf.get(i);
+                    if (b == ',' || b == '\n' || b == '\r') {
+                        break;
+                    }
+                    i++;
+                }
+                e = i;
+            }
+            addField(s, e, q);
+            if (i >= lim) {
+                if (!last) {
+                    return -1;
+                }
+                lineEnd = i;
+                return i;
+            }
+            b = buf.get(i);
+            if (b == ',') {
+                i++;
+            } else {
+                lineEnd = i;
+                i++;
+                if (b == '\r') {
+                    if (i >= lim) {
+                        if (!last) {
+                            return -1;
+                        }
+                    } else if (buf.get(i) == '\n') {
+                        i++;
+                    }
+                }
+                return i;
+            }
+        }
+    }
+
+    /**
+     * Adds a field to the current line.
+     *
+     * @param s The start position.
+     * @param e The end position.
+     * @param q Whether the field contains doubled quotes.
+     */
+    private void addField(int s, int e, boolean q) {
+        if (n == fs.length) {
+            int l = n * 2;
+            fs = Arrays.copyOf(fs, l);
+            fe = Arrays.copyOf(fe, l);
+            fq = Arrays.copyOf(fq, l);
+        }
+        fs[n] = s;
+        fe[n] = e;
+        fq[n] = q;
+        n++;
+    }
+
+    /**
+     * @return The number of fields in the current line.
+     */
+    public int getFieldCount() {
+        return n;
+    }
+
+    /**
+     * @return The number of lines scanned so far (blank lines are not
+     * counted).
+     */
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * @param c The index of the field.
+     * @return The number of bytes in field {@code c} of the current line or
+     * {@code 0} if there is no such field.
+     */
+    public int getLength(int c) {
+        if (c >= n) {
+            return 0;
+        }
+        return fe[c] - fs[c];
+    }
+
+    /**
+     * @param c The index of the field.
+     * @return {@code true} if field {@code c} of the current line is empty or
+     * if there is no such field.
+     */
+    public boolean isEmpty(int c) {
+        return c >= n || fs[c] == fe[c];
+    }
+
+    /**
+     * For accessing bytes of a field without creating a String.
+     *
+     * @param c The index of the field.
+     * @param i The index of the byte in the field.
+     * @return The byte at index {@code i} of field {@code c}.
+     */
+    public byte getByte(int c, int i) {
+        return buf.get(fs[c] + i);
+    }
+
+    /**
+     * @param c The index of the field.
+     * @return The value of field {@code c} of the current line or {@code null}
+     * if there is no such field.
+     */
+    public String getString(int c) {
+        if (c >= n) {
+            return null;
+        }
+        int l = fe[c] - fs[c];
+        if (l == 0) {
+            return "";
+        }
+        if (bytes.length < l) {
+            bytes = new byte[Math.max(l, bytes.length * 2)];
+        }
+        int s = fs[c];
+        if (fq[c]) {
+            int j = 0;
+            for (int i = s; i < s + l; i++) {
+                byte b = buf.get(i);
+                bytes[j] = b;
+                j++;
+                if (b == '"') {
+                    i++;
+                }
+            }
+            l = j;
+        } else {
+            for (int i = 0; i < l; i++) {
+                bytes[i] = buf.get(s + i);
+            }
+        }
+        return new String(bytes, 0, l, cs);
+    }
+
+    /**
+     * Parses field {@code c} of the current line as an int without creating a
+     * String.
+     *
+     * @param c The index of the field.
+     * @param d The value to return if the field is empty or missing.
+     * @return The int value of field {@code c} or {@code d}.
+     * @throws NumberFormatException If the field is not an integer.
+     */
+    public int getInt(int c, int d) {
+        if (isEmpty(c)) {
+            return d;
+        }
+        int i = fs[c];
+        int e = fe[c];
+        boolean negative = false;
+        byte b = buf.get(i);
+        if (b == '-' || b == '+') {
+            negative = b == '-';
+            i++;
+            if (i == e) {
+                throw new NumberFormatException(getString(c));
+            }
+        }
+        long r = 0;
+        for (; i < e; i++) {
+            b = buf.get(i);
+            if (b < '0' || b > '9') {
+                throw new NumberFormatException(getString(c));
+            }
+            r = r * 10 + (b - '0');
+            if (r > 2147483648L) {
+                throw new NumberFormatException(getString(c));
+            }
+        }
+        if (negative) {
+            r = -r;
+        }
+        if (r > Integer.MAX_VALUE) {
+            throw new NumberFormatException(getString(c));
+        }
+        return (int) r;
+    }
+
+    /**
+     * Normalises and encodes field {@code c} of the current line as a postcode
+     * key using
+     * {@link uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeNormaliser#toKey(CharSequence)}
+     * on {@link #field} without creating a String.
+     *
+     * @param c The index of the field.
+     * @return The postcode key or {@link UKP_PostcodeKey#NONE} if there is no
+     * such field or it cannot be encoded.
+     */
+    public long getPostcodeKey(int c) {
+        if (isEmpty(c)) {
+            return UKP_PostcodeKey.NONE;
+        }
+        field.s = fs[c];
+        field.l = fe[c] - fs[c];
+        return UKP_PostcodeNormaliser.toKey(field);
+    }
+
+    /**
+     * A view of the bytes of a field of the current line as characters. The
+     * bytes are treated as ISO-8859-1, which is fine for postcodes as they are
+     * ASCII.
+     */
+    protected class Field implements CharSequence {
+
+        /**
+         * The position in {@link #buf} of the start of the field.
+         */
+        int s;
+
+        /**
+         * The length of the field.
+         */
+        int l;
+
+        @Override
+        public int length() {
+            return l;
+        }
+
+        @Override
+        public char charAt(int i) {
+            return (char) (buf.get(s + i) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            byte[] b = new byte[l];
+            for (int i = 0; i < l; i++) {
+                b[i] = buf.get(s + i);
+            }
+            return new String(b, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /**
+     * @param c The index of the field.
+     * @param d The value to return if the field is empty or missing.
+     * @return The double value of field {@code c} or {@code d}.
+     * @throws NumberFormatException If the field is not a number.
+     */
+    public double getDouble(int c, double d) {
+        if (isEmpty(c)) {
+            return d;
+        }
+        return Double.parseDouble(getString(c));
+    }
+
+    /**
+     * @return All the fields of the current line.
+     */
+    public String[] getStrings() {
+        String[] r = new String[n];
+        for (int c = 0; c < n; c++) {
+            r[c] = getString(c);
+        }
+        return r;
+    }
+
+    /**
+     * @return The current line as it is in the file (excluding any line
+     * ending).
+     */
+    public String getLine() {
+        int l = lineEnd - lineStart;
+        if (bytes.length < l) {
+            bytes = new byte[Math.max(l, bytes.length * 2)];
+        }
+        for (int i = 0; i < l; i++) {
+            bytes[i] = buf.get(lineStart + i);
+        }
+        return new String(bytes, 0, l, cs);
+    }
+
+    @Override
+    public void close() throws IOException {
+        buf = null;
+        fc.close();
+    }
+}
@@ -16,12 +16,16 @@
 package uk.ac.leeds.ccg.data.ukp.io;
 
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.TreeMap;
 import uk.ac.leeds.ccg.data.io.Data_Files;
 import uk.ac.leeds.ccg.data.ukp.core.UKP_Strings;
 import uk.ac.leeds.ccg.data.ukp.util.UKP_YM3;
+import uk.ac.leeds.ccg.generic.core.Generic_Environment;
 
 /**
  *
@@ -30,12 +34,27 @@ import uk.ac.leeds.ccg.data.ukp.util.UKP_YM3;
  */
 public class UKP_Files extends Data_Files {
 
+    /**
+     * For logging, may be {@code null}.
+     */
+    protected final transient Generic_Environment env;
+
     /**
      * @param dir The directory.
      * @throws java.io.IOException If encountered.
      */
     public UKP_Files(Path dir) throws IOException {
+        this(dir, null);
+    }
+
+    /**
+     * @param dir The directory.
+     * @param env For logging, may be {@code null}.
+     * @throws java.io.IOException If encountered.
+     */
+    public UKP_Files(Path dir, Generic_Environment env) throws IOException {
         super(dir);
+        this.env = env;
     }
 
     private Path inputPostcodeDir;
@@ -191,7 +210,121 @@ public class UKP_Files extends Data_Files {
                     inputONSPDFiles.put(new UKP_YM3(year, m), f);
                 }
             }
+            discoverInputONSPDFiles(d, inputONSPDFiles);
         }
         return inputONSPDFiles;
     }
+
+    /**
+     * {@link #inputONSPDFiles} is only initialised once, so releases unpacked
+     * into {@link #getInputONSPDDir()} after that are not in it. This looks
+     * for releases in {@link #getInputONSPDDir()} again and adds any that are
+     * not in {@link #inputONSPDFiles} to it.
+     *
+     * @return The releases found in {@link #getInputONSPDDir()} (see
+     * {@link #discoverInputONSPDFiles(Path, TreeMap)}).
+     * @throws java.io.IOException If encountered.
+     */
+    public TreeMap<UKP_YM3, Path> refreshInputONSPDFiles() throws IOException {
+        TreeMap<UKP_YM3, Path> r = new TreeMap<>();
+        discoverInputONSPDFiles(getInputONSPDDir(), r);
+        TreeMap<UKP_YM3, Path> m = getInputONSPDFiles();
+        r.forEach(m::putIfAbsent);
+        return r;
+    }
+
+    /**
+     * The month abbreviations used in the names of ONSPD release directories.
+     */
+    private static final String[] MONTHS = {"JAN", "FEB", "MAR", "APR", "MAY",
+        "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"};
+
+    /**
+     * Adds to {@code m} any releases in {@code dir} that are not already in
+     * it. Releases are expected to be in directories with names like
+     * "ONSPD_FEB_2020_UK" or "NSPL_NOV_2019_UK" containing a "Data" directory
+     * with the CSV file of the release in it (see
+     * {@link #findInputONSPDFile(Path, String)}). The layout of the file does
+     * not matter as this is resolved from the header line when it is read (see
+     * {@link uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Schema}), so releases
+     * can be used as soon as they are unpacked into {@code dir}.
+     *
+     * @param dir The directory to look in.
+     * @param m The map to add to.
+     * @throws java.io.IOException If encountered.
+     */
+    public void discoverInputONSPDFiles(Path dir, TreeMap<UKP_YM3, Path> m)
+            throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+            for (Path d : ds) {
+                String[] n = d.getFileName().toString().split("_");
+                if (n.length < 3 || !Files.isDirectory(d)) {
+                    continue;
+                }
+                int month = Arrays.asList(MONTHS).indexOf(n[1]) + 1;
+                if (month == 0) {
+                    continue;
+                }
+                int year;
+                try {
+                    year = Integer.parseInt(n[2]);
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                UKP_YM3 ym3 = new UKP_YM3(year, month);
+                if (m.containsKey(ym3)) {
+                    continue;
+                }
+                Path dd = Paths.get(d.toString(), UKP_Strings.s_Data);
+                if (!Files.isDirectory(dd)) {
+                    continue;
+                }
+                Path f = findInputONSPDFile(dd, n[0]);
+                if (f != null) {
+                    m.put(ym3, f);
+                }
+            }
+        }
+    }
+
+    /**
+     * Directories of releases may contain other CSV files as well as the
+     * release file, so the release file is looked for by name. This is the
+     * file named after the release directory if there is one, otherwise the
+     * only CSV file with a name starting with {@code np} and an underscore.
+     * If there is more than one such file then which is the release is
+     * ambiguous, so this is logged and the directory is skipped.
+     *
+     * @param dd The "Data" directory of a release.
+     * @param np The name prefix of the release (e.g. "ONSPD" or "NSPL").
+     * @return The release file or {@code null} if there is none or it is
+     * ambiguous.
+     * @throws java.io.IOException If encountered.
+     */
+    protected Path findInputONSPDFile(Path dd, String np) throws IOException {
+        Path f = Paths.get(dd.toString(),
+                dd.getParent().getFileName().toString() + ".csv");
+        if (Files.isRegularFile(f)) {
+            return f;
+        }
+        f = null;
+        try (DirectoryStream<Path> fs = Files.newDirectoryStream(dd,
+                np + "_*.csv")) {
+            for (Path f2 : fs) {
+                if (f != null) {
+                    if (env != null) {
+                        env.log("Skipping " + dd + " which has more than one "
+                                + "release file: " + f.getFileName() + " and "
+                                + f2.getFileName(), true);
+                    }
+                    return null;
+                }
+                f = f2;
+            }
+        }
+        return f;
+    }
 }
@@ -0,0 +1,441 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_CodeLookup;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_PointLookup;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeNormaliser;
+
+/**
+ * For geocoding delimited files of any size that have a postcode column. Each
+ * line of the input is written to the output with the point of its postcode
+ * (oseast1m and osnrth1m) and any requested area codes appended. Fields are
+ * left empty for postcodes that are not found.
+ *
+ * The work is a pipeline: a reader thread reads lines in batches of
+ * {@link #batch} and submits each batch as a task to a pool; the calling
+ * thread writes the results of the tasks in the order they were read. At
+ * most {@link #capacity} batches are queued between the reader and the
+ * writer, and the reader waits for the writer when the queue is full, so the
+ * memory needed does not depend on the size of the input.
+ *
+ * Postcodes are normalised (see {@link UKP_PostcodeNormaliser}), so any
+ * spaces, quotes or case in the postcode column are fine. Fields may be
+ * quoted and quoted fields may contain the delimiter.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_Geocoder {
+
+    /**
+     * The default number of lines in a batch.
+     */
+    public static final int DEFAULT_BATCH = 4096;
+
+    /**
+     * The default number of batches that can be queued.
+     */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * The points of postcodes.
+     */
+    protected final UKP_PointLookup points;
+
+    /**
+     * The area codes of postcodes or {@code null}.
+     */
+    protected final UKP_CodeLookup codes;
+
+    /**
+     * The names of the code columns to append.
+     */
+    protected final String[] names;
+
+    /**
+     * The indexes in {@link #codes} of the columns called {@link #names}.
+     */
+    protected final int[] columns;
+
+    /**
+     * The number of lines in a batch.
+     */
+    protected final int batch;
+
+    /**
+     * The number of batches that can be queued.
+     */
+    protected final int capacity;
+
+    /**
+     * @param points The points of postcodes.
+     * @param codes The area codes of postcodes (may be {@code null} if
+     * {@code names} is empty).
+     * @param names The names of the code columns in {@code codes} to append.
+     */
+    public UKP_Geocoder(UKP_PointLookup points, UKP_CodeLookup codes,
+            String... names) {
+        this(points, codes, DEFAULT_BATCH, DEFAULT_CAPACITY, names);
+    }
+
+    /**
+     * @param points The points of postcodes.
+     * @param codes The area codes of postcodes (may be {@code null} if
+     * {@code names} is empty).
+     * @param batch The number of lines in a batch.
+     * @param capacity The number of batches that can be queued.
+     * @param names The names of the code columns in {@code codes} to append.
+     * @throws IllegalArgumentException If {@code codes} has no column for one
+     * of {@code names}.
+     */
+    public UKP_Geocoder(UKP_PointLookup points, UKP_CodeLookup codes,
+            int batch, int capacity, String... names) {
+        if (batch < 1 || capacity < 1) {
+            throw new IllegalArgumentException("batch and capacity must be "
+                    + "positive");
+        }
+        this.points = points;
+        this.codes = codes;
+        this.names = names.clone();
+        this.batch = batch;
+        this.capacity = capacity;
+        columns = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            columns[i] = codes == null ? -1 : codes.getColumnIndex(names[i]);
+            if (columns[i] < 0) {
+                throw new IllegalArgumentException("No code column "
+                        + names[i]);
+            }
+        }
+    }
+
+    /**
+     * Geocodes {@code in} writing {@code out}. The first line of {@code in}
+     * is a header.
+     *
+     * @param in The input file.
+     * @param out The output file.
+     * @param d The delimiter, e.g. ',' or '\t'.
+     * @param column The name of the postcode column.
+     * @param pool The pool to geocode batches in.
+     * @return The numbers of lines geocoded.
+     * @throws IOException If encountered or if {@code in} has no header line
+     * or no column called {@code column}.
+     */
+    public Summary geocode(Path in, Path out, char d, String column,
+            ForkJoinPool pool) throws IOException {
+        try (BufferedReader br = Files.newBufferedReader(in,
+                StandardCharsets.UTF_8);
+                BufferedWriter bw = Files.newBufferedWriter(out,
+                        StandardCharsets.UTF_8)) {
+            String h = br.readLine();
+            if (h == null) {
+                throw new IOException("No header line in " + in);
+            }
+            int c = getColumnIndex(h, d, column);
+            if (c < 0) {
+                throw new IOException("No column " + column + " in " + in);
+            }
+            StringBuilder sb = new StringBuilder(h);
+            sb.append(d).append("oseast1m").append(d).append("osnrth1m");
+            for (String n : names) {
+                sb.append(d).append(n);
+            }
+            bw.write(sb.toString());
+            bw.newLine();
+            return run(br, bw, d, c, pool);
+        }
+    }
+
+    /**
+     * Runs the pipeline.
+     *
+     * @param br The reader positioned after the header.
+     * @param bw The writer.
+     * @param d The delimiter.
+     * @param c The index of the postcode column.
+     * @param pool The pool to geocode batches in.
+     * @return The numbers of lines geocoded.
+     * @throws IOException If encountered.
+     */
+    private Summary run(BufferedReader br, BufferedWriter bw, char d, int c,
+            ForkJoinPool pool) throws IOException {
+        ArrayBlockingQueue<ForkJoinTask<Batch>> q
+                = new ArrayBlockingQueue<>(capacity);
+        /**
+         * Queued by the reader after the last batch. It is never run.
+         */
+        ForkJoinTask<Batch> end = ForkJoinTask.adapt(() -> null);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                try {
+                    String[] ls = new String[batch];
+                    int n = 0;
+                    String l;
+                    while ((l = br.readLine()) != null) {
+                        ls[n] = l;
+                        n++;
+                        if (n == batch) {
+                            q.put(submit(pool, ls, n, d, c));
+                            ls = new String[batch];
+                            n = 0;
+                        }
+                    }
+                    if (n > 0) {
+                        q.put(submit(pool, ls, n, d, c));
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failure.set(e);
+                }
+                q.put(end);
+            } catch (InterruptedException e) {
+                /**
+                 * The writer has stopped.
+                 */
+            }
+        }, getClass().getSimpleName() + " reader");
+        reader.setDaemon(true);
+        reader.start();
+        Summary r = new Summary();
+        boolean done = false;
+        try {
+            while (true) {
+                ForkJoinTask<Batch> t = q.take();
+                if (t == end) {
+                    break;
+                }
+                Batch b = t.join();
+                for (int i = 0; i < b.n; i++) {
+                    bw.write(b.lines[i]);
+                    bw.newLine();
+                }
+                r.nRows += b.n;
+                r.nMatched += b.nMatched;
+            }
+            done = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } finally {
+            if (!done) {
+                reader.interrupt();
+            }
+            try {
+                reader.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Exception e = failure.get();
+        if (e != null) {
+            throw new IOException(e.getMessage(), e);
+        }
+        return r;
+    }
+
+    /**
+     * @param pool The pool.
+     * @param ls The lines which are replaced with the geocoded lines.
+     * @param n The number of lines.
+     * @param d The delimiter.
+     * @param c The index of the postcode column.
+     * @return The task submitted to geocode {@code ls}.
+     */
+    private ForkJoinTask<Batch> submit(ForkJoinPool pool, String[] ls, int n,
+            char d, int c) {
+        return pool.submit(ForkJoinTask.adapt(() -> geocode(ls, n, d, c)));
+    }
+
+    /**
+     * @param ls The lines which are replaced with the geocoded lines.
+     * @param n The number of lines.
+     * @param d The delimiter.
+     * @param c The index of the postcode column.
+     * @return The geocoded lines.
+     */
+    private Batch geocode(String[] ls, int n, char d, int c) {
+        Batch r = new Batch(ls, n);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            String l = ls[i];
+            sb.setLength(0);
+            sb.append(l);
+            int s = getFieldStart(l, d, c);
+            int j = -1;
+            long k = UKP_PostcodeKey.NONE;
+            if (s >= 0) {
+                k = UKP_PostcodeNormaliser.toKey(l.substring(s,
+                        getFieldEnd(l, d, s)));
+                j = points.indexOf(k);
+            }
+            if (j >= 0) {
+                sb.append(d).append(points.getX(j)).append(d)
+                        .append(points.getY(j));
+                for (int col : columns) {
+                    String code = codes.getCode(k, col);
+                    sb.append(d);
+                    if (code != null) {
+                        sb.append(code);
+                    }
+                }
+                r.nMatched++;
+            } else {
+                sb.append(d).append(d);
+                for (int m = 0; m < columns.length; m++) {
+                    sb.append(d);
+                }
+            }
+            ls[i] = sb.toString();
+        }
+        return r;
+    }
+
+    /**
+     * @param h The header line.
+     * @param d The delimiter.
+     * @param name The name of a column.
+     * @return The index of the column called {@code name} (ignoring case and
+     * quotes) or {@code -1} if there is none.
+     */
+    static int getColumnIndex(String h, char d, String name) {
+        int s = 0;
+        int c = 0;
+        while (s <= h.length()) {
+            int e = getFieldEnd(h, d, s);
+            String f = h.substring(s, e).trim();
+            if (f.length() > 1 && f.charAt(0) == '"'
+                    && f.charAt(f.length() - 1) == '"') {
+                f = f.substring(1, f.length() - 1);
+            }
+            if (f.equalsIgnoreCase(name)) {
+                return c;
+            }
+            s = e + 1;
+            c++;
+        }
+        return -1;
+    }
+
+    /**
+     * @param l The line.
+     * @param d The delimiter.
+     * @param c The index of the field.
+     * @return The index in {@code l} of the start of field {@code c} or
+     * {@code -1} if {@code l} has fewer fields.
+     */
+    static int getFieldStart(String l, char d, int c) {
+        int s = 0;
+        for (int i = 0; i < c; i++) {
+            s = getFieldEnd(l, d, s) + 1;
+            if (s > l.length()) {
+                return -1;
+            }
+        }
+        return s;
+    }
+
+    /**
+     * @param l The line.
+     * @param d The delimiter.
+     * @param s The index in {@code l} of the start of a field.
+     * @return The index in {@code l} of the delimiter after the field or the
+     * length of {@code l} if it is the last field. Delimiters in quotes are
+     * skipped.
+     */
+    static int getFieldEnd(String l, char d, int s) {
+        boolean quoted = false;
+        int i = s;
+        while (i < l.length()) {
+            char ch = l.charAt(i);
+            if (ch == '"') {
+                quoted = !quoted;
+            } else if (ch == d && !quoted) {
+                return i;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * The geocoded lines of a batch.
+     */
+    private static class Batch {
+
+        final String[] lines;
+
+        final int n;
+
+        int nMatched;
+
+        Batch(String[] lines, int n) {
+            this.lines = lines;
+            this.n = n;
+        }
+    }
+
+    /**
+     * The numbers of lines geocoded.
+     */
+    public static class Summary {
+
+        long nRows;
+
+        long nMatched;
+
+        Summary() {
+        }
+
+        /**
+         * @return The number of lines (excluding the header).
+         */
+        public long getRowCount() {
+            return nRows;
+        }
+
+        /**
+         * @return The number of lines with a postcode that was found.
+         */
+        public long getMatchedCount() {
+            return nMatched;
+        }
+
+        /**
+         * @return The number of lines with a postcode that was not found.
+         */
+        public long getUnmatchedCount() {
+            return nRows - nMatched;
+        }
+
+        @Override
+        public String toString() {
+            return "Geocoded " + nMatched + " of " + nRows + " lines";
+        }
+    }
+}
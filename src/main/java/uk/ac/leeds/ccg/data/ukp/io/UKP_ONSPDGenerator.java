@@ -0,0 +1,755 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.io;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeMap;
+import uk.ac.leeds.ccg.data.ukp.data.nspl.NSPL_Record_2019_11Nov;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2008_02Feb;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2011_05May;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2012_08Nov;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2012_11Nov;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2013_02Feb;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2013_05May;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2013_08Aug;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2014_11Nov;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2015_05May;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2015_08Aug;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2016_02Feb;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Schema;
+
+/**
+ * For generating synthetic ONSPD or NSPL data for any layout, so that loading
+ * and processing can be tested and benchmarked without the real files.
+ *
+ * Rows are spread over the postcode areas of the UK in proportion to an
+ * approximate number of postcode units in each. Each area is split into
+ * districts (around 900 units each, so the number of districts grows with the
+ * number of rows), districts into sectors and sectors into units as in real
+ * postcodes (e.g. "LS2 9JT"). Points are scattered around a centre for each
+ * area, district and sector. Rows are written in the order of the pcd column
+ * as in ONSPD files. Some postcodes are terminated (doterm is set) and some
+ * have no grid reference (oseast1m and osnrth1m are empty and osgrdind is 9)
+ * as in ONSPD files.
+ *
+ * Columns are identified by name from the header, so any layout can be
+ * generated. Columns that are not postcodes, dates, grid references or
+ * coordinates have a code for the country, column and district (e.g.
+ * "E05012003"). All fields are quoted.
+ *
+ * For a given seed and number of rows the same postcodes are generated for any
+ * layout.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_ONSPDGenerator {
+
+    /**
+     * The default proportion of postcodes that are terminated.
+     */
+    public static final double DEFAULT_TERMINATED_RATE = 0.3;
+
+    /**
+     * The default proportion of postcodes that have no grid reference.
+     */
+    public static final double DEFAULT_ORIGIN_RATE = 0.01;
+
+    /**
+     * A postcode area.
+     */
+    static class Area {
+
+        final String name;
+
+        /**
+         * Approximate easting of the centre in km.
+         */
+        final int x;
+
+        /**
+         * Approximate northing of the centre in km.
+         */
+        final int y;
+
+        /**
+         * Approximate number of postcode units in thousands.
+         */
+        final int weight;
+
+        /**
+         * E, N, S or W for England, Northern Ireland, Scotland or Wales.
+         */
+        final char country;
+
+        Area(String name, int x, int y, int weight, char country) {
+            this.name = name;
+            this.x = x;
+            this.y = y;
+            this.weight = weight;
+            this.country = country;
+        }
+    }
+
+    /**
+     * The postcode areas in alphabetical order.
+     */
+    static final Area[] AREAS = {new Area("AB", 390, 805, 16, 'S'),
+        new Area("AL", 515, 210, 5, 'E'), new Area("B", 407, 287, 42, 'E'),
+        new Area("BA", 370, 160, 12, 'E'), new Area("BB", 370, 430, 13, 'E'),
+        new Area("BD", 415, 433, 16, 'E'), new Area("BH", 405, 95, 14, 'E'),
+        new Area("BL", 370, 409, 9, 'E'), new Area("BN", 525, 110, 26, 'E'),
+        new Area("BR", 540, 168, 6, 'E'), new Area("BS", 360, 172, 28, 'E'),
+        new Area("BT", 333, 374, 50, 'N'), new Area("CA", 340, 555, 11, 'E'),
+        new Area("CB", 545, 258, 12, 'E'), new Area("CF", 318, 177, 24, 'W'),
+        new Area("CH", 340, 366, 21, 'E'), new Area("CM", 570, 207, 21, 'E'),
+        new Area("CO", 600, 225, 12, 'E'), new Area("CR", 532, 165, 6, 'E'),
+        new Area("CT", 615, 157, 14, 'E'), new Area("CV", 433, 279, 20, 'E'),
+        new Area("CW", 370, 355, 11, 'E'), new Area("DA", 550, 174, 9, 'E'),
+        new Area("DD", 340, 731, 10, 'S'), new Area("DE", 435, 336, 24, 'E'),
+        new Area("DG", 297, 576, 8, 'S'), new Area("DH", 427, 542, 10, 'E'),
+        new Area("DL", 429, 515, 12, 'E'), new Area("DN", 460, 403, 28, 'E'),
+        new Area("DT", 369, 90, 8, 'E'), new Area("DY", 393, 290, 13, 'E'),
+        new Area("E", 537, 183, 16, 'E'), new Area("EC", 532, 181, 6, 'E'),
+        new Area("EH", 325, 673, 27, 'S'), new Area("EN", 533, 197, 9, 'E'),
+        new Area("EX", 292, 93, 22, 'E'), new Area("FK", 288, 680, 10, 'S'),
+        new Area("FY", 331, 436, 9, 'E'), new Area("G", 259, 665, 36, 'S'),
+        new Area("GL", 383, 218, 20, 'E'), new Area("GU", 499, 150, 22, 'E'),
+        new Area("HA", 515, 188, 8, 'E'), new Area("HD", 414, 416, 9, 'E'),
+        new Area("HG", 430, 455, 5, 'E'), new Area("HP", 505, 207, 13, 'E'),
+        new Area("HR", 351, 240, 6, 'E'), new Area("HS", 140, 932, 2, 'S'),
+        new Area("HU", 509, 429, 14, 'E'), new Area("HX", 409, 425, 6, 'E'),
+        new Area("IG", 544, 187, 7, 'E'), new Area("IP", 616, 244, 19, 'E'),
+        new Area("IV", 266, 845, 11, 'S'), new Area("KA", 243, 637, 13, 'S'),
+        new Area("KT", 518, 168, 12, 'E'), new Area("KW", 345, 960, 3, 'S'),
+        new Area("KY", 327, 692, 12, 'S'), new Area("L", 335, 390, 24, 'E'),
+        new Area("LA", 347, 461, 12, 'E'), new Area("LD", 306, 261, 3, 'W'),
+        new Area("LE", 459, 304, 27, 'E'), new Area("LL", 278, 382, 21, 'W'),
+        new Area("LN", 497, 371, 12, 'E'), new Area("LS", 430, 434, 22, 'E'),
+        new Area("LU", 509, 221, 9, 'E'), new Area("M", 384, 398, 28, 'E'),
+        new Area("ME", 576, 168, 16, 'E'), new Area("MK", 485, 238, 15, 'E'),
+        new Area("ML", 275, 657, 10, 'S'), new Area("N", 530, 187, 13, 'E'),
+        new Area("NE", 425, 564, 33, 'E'), new Area("NG", 457, 340, 30, 'E'),
+        new Area("NN", 475, 260, 17, 'E'), new Area("NP", 331, 188, 14, 'W'),
+        new Area("NR", 623, 308, 20, 'E'), new Area("NW", 525, 185, 9, 'E'),
+        new Area("OL", 392, 405, 10, 'E'), new Area("OX", 451, 206, 16, 'E'),
+        new Area("PA", 248, 664, 13, 'S'), new Area("PE", 519, 298, 32, 'E'),
+        new Area("PH", 312, 723, 9, 'S'), new Area("PL", 248, 56, 17, 'E'),
+        new Area("PO", 464, 100, 23, 'E'), new Area("PR", 354, 429, 15, 'E'),
+        new Area("RG", 471, 173, 24, 'E'), new Area("RH", 528, 150, 17, 'E'),
+        new Area("RM", 551, 188, 11, 'E'), new Area("S", 435, 387, 40, 'E'),
+        new Area("SA", 265, 193, 28, 'W'), new Area("SE", 535, 175, 19, 'E'),
+        new Area("SG", 523, 225, 12, 'E'), new Area("SK", 390, 390, 20, 'E'),
+        new Area("SL", 497, 180, 11, 'E'), new Area("SM", 526, 164, 5, 'E'),
+        new Area("SN", 415, 185, 16, 'E'), new Area("SO", 442, 112, 17, 'E'),
+        new Area("SP", 414, 130, 10, 'E'), new Area("SR", 439, 556, 8, 'E'),
+        new Area("SS", 588, 186, 13, 'E'), new Area("ST", 388, 346, 21, 'E'),
+        new Area("SW", 527, 176, 20, 'E'), new Area("SY", 349, 312, 15, 'E'),
+        new Area("TA", 322, 124, 12, 'E'), new Area("TD", 349, 636, 5, 'S'),
+        new Area("TF", 370, 309, 7, 'E'), new Area("TN", 560, 145, 22, 'E'),
+        new Area("TQ", 291, 64, 10, 'E'), new Area("TR", 182, 44, 10, 'E'),
+        new Area("TS", 449, 519, 17, 'E'), new Area("TW", 514, 172, 10, 'E'),
+        new Area("UB", 510, 182, 6, 'E'), new Area("W", 525, 181, 14, 'E'),
+        new Area("WA", 360, 388, 18, 'E'), new Area("WC", 530, 181, 3, 'E'),
+        new Area("WD", 511, 196, 6, 'E'), new Area("WF", 433, 420, 14, 'E'),
+        new Area("WN", 358, 405, 9, 'E'), new Area("WR", 385, 254, 12, 'E'),
+        new Area("WS", 401, 298, 11, 'E'), new Area("WV", 391, 298, 11, 'E'),
+        new Area("YO", 460, 452, 21, 'E'), new Area("ZE", 446, 1141, 2, 'S')};
+
+    /**
+     * The letters used in the last two characters of postcodes.
+     */
+    static final String UNIT_LETTERS = "ABDEFGHJLNPQRSTUWXYZ";
+
+    /**
+     * The letters used at the end of districts (e.g. "W1A").
+     */
+    static final String DISTRICT_LETTERS = "ABCDEFGHJKMNPRSTUVWXY";
+
+    /**
+     * The maximum number of units in a sector.
+     */
+    static final int MAX_UNITS = UNIT_LETTERS.length() * UNIT_LETTERS.length();
+
+    /**
+     * The maximum number of districts in an area: 1 to 99 and 1 to 9 followed
+     * by one of {@link #DISTRICT_LETTERS}.
+     */
+    static final int MAX_DISTRICTS = 99 + 9 * DISTRICT_LETTERS.length();
+
+    /**
+     * The mean number of units in a district.
+     */
+    static final int DISTRICT_UNITS = 900;
+
+    /**
+     * The mean number of units in a sector.
+     */
+    static final int SECTOR_UNITS = 250;
+
+    static final int PCD = 0;
+    static final int PCD2 = 1;
+    static final int PCDS = 2;
+    static final int DOINTR = 3;
+    static final int DOTERM = 4;
+    static final int USERTYPE = 5;
+    static final int EAST = 6;
+    static final int NORTH = 7;
+    static final int GRDIND = 8;
+    static final int CTRY = 9;
+    static final int LAT = 10;
+    static final int LONG = 11;
+    static final int CODE = 12;
+
+    /**
+     * The layout.
+     */
+    protected final ONSPD_Schema schema;
+
+    /**
+     * What is generated for each column of {@link #schema}.
+     */
+    protected final int[] kinds;
+
+    /**
+     * The seed.
+     */
+    protected final long seed;
+
+    /**
+     * The proportion of postcodes that are terminated.
+     */
+    protected double terminatedRate;
+
+    /**
+     * The proportion of postcodes that have no grid reference.
+     */
+    protected double originRate;
+
+    /**
+     * @param header The header of the layout to generate.
+     * @param seed The seed.
+     */
+    public UKP_ONSPDGenerator(String header, long seed) {
+        this(ONSPD_Schema.get(header), seed);
+    }
+
+    /**
+     * @param schema The layout to generate.
+     * @param seed The seed.
+     */
+    public UKP_ONSPDGenerator(ONSPD_Schema schema, long seed) {
+        this.schema = schema;
+        this.seed = seed;
+        terminatedRate = DEFAULT_TERMINATED_RATE;
+        originRate = DEFAULT_ORIGIN_RATE;
+        kinds = new int[schema.getColumnCount()];
+        for (int c = 0; c < kinds.length; c++) {
+            kinds[c] = getKind(schema.getColumnName(c));
+        }
+    }
+
+    /**
+     * @param name The column name.
+     * @return What is generated for the column {@code name}.
+     */
+    static int getKind(String name) {
+        switch (name.toLowerCase()) {
+            case "pcd":
+            case "pcd7":
+                return PCD;
+            case "pcd2":
+            case "pcd8":
+                return PCD2;
+            case "pcds":
+                return PCDS;
+            case "dointr":
+                return DOINTR;
+            case "doterm":
+                return DOTERM;
+            case "usertype":
+                return USERTYPE;
+            case "oseast1m":
+                return EAST;
+            case "osnrth1m":
+                return NORTH;
+            case "osgrdind":
+                return GRDIND;
+            case "ctry":
+                return CTRY;
+            case "lat":
+                return LAT;
+            case "long":
+                return LONG;
+            default:
+                return CODE;
+        }
+    }
+
+    /**
+     * @return The headers of the layouts that are known keyed by a name such
+     * as "ONSPD_2016_02Feb" or "NSPL_2019_11Nov".
+     */
+    public static TreeMap<String, String> getLayouts() {
+        TreeMap<String, String> r = new TreeMap<>();
+        r.put("ONSPD_2008_02Feb", ONSPD_Record_2008_02Feb.HEADER);
+        r.put("ONSPD_2011_05May", ONSPD_Record_2011_05May.HEADER);
+        r.put("ONSPD_2012_08Nov", ONSPD_Record_2012_08Nov.HEADER);
+        r.put("ONSPD_2012_11Nov", ONSPD_Record_2012_11Nov.HEADER);
+        r.put("ONSPD_2013_02Feb", ONSPD_Record_2013_02Feb.HEADER);
+        r.put("ONSPD_2013_05May", ONSPD_Record_2013_05May.HEADER);
+        r.put("ONSPD_2013_08Aug", ONSPD_Record_2013_08Aug.HEADER);
+        r.put("ONSPD_2014_11Nov", ONSPD_Record_2014_11Nov.HEADER);
+        r.put("ONSPD_2015_05May", ONSPD_Record_2015_05May.HEADER);
+        r.put("ONSPD_2015_08Aug", ONSPD_Record_2015_08Aug.HEADER);
+        r.put("ONSPD_2016_02Feb", ONSPD_Record_2016_02Feb.HEADER);
+        r.put("NSPL_2019_11Nov", NSPL_Record_2019_11Nov.HEADER);
+        return r;
+    }
+
+    /**
+     * @return {@link #terminatedRate}
+     */
+    public double getTerminatedRate() {
+        return terminatedRate;
+    }
+
+    /**
+     * @param terminatedRate What {@link #terminatedRate} is set to.
+     */
+    public void setTerminatedRate(double terminatedRate) {
+        this.terminatedRate = terminatedRate;
+    }
+
+    /**
+     * @return {@link #originRate}
+     */
+    public double getOriginRate() {
+        return originRate;
+    }
+
+    /**
+     * @param originRate What {@link #originRate} is set to.
+     */
+    public void setOriginRate(double originRate) {
+        this.originRate = originRate;
+    }
+
+    /**
+     * For handling each postcode unit that is generated.
+     */
+    private interface UnitHandler {
+
+        /**
+         * @param a The area ordinal.
+         * @param d The district ordinal within the area.
+         * @param outward The outward code (e.g. "LS2").
+         * @param inward The inward code (e.g. "9JT").
+         * @param x The easting.
+         * @param y The northing.
+         * @throws IOException If encountered.
+         */
+        void unit(int a, int d, String outward, String inward, int x, int y)
+                throws IOException;
+    }
+
+    /**
+     * Generates {@code n} postcode units.
+     *
+     * @param n The number of postcode units.
+     * @param h The handler for each unit.
+     * @throws IOException If encountered.
+     */
+    private void generate(long n, UnitHandler h) throws IOException {
+        if (n < 0) {
+            throw new IllegalArgumentException("n < 0");
+        }
+        Random r = new Random(seed);
+        long w = 0;
+        for (Area a : AREAS) {
+            w += a.weight;
+        }
+        long cw = 0;
+        long done = 0;
+        for (int a = 0; a < AREAS.length; a++) {
+            cw += AREAS[a].weight;
+            long end = Math.round((double) n * cw / w);
+            generate(a, end - done, r, h);
+            done = end;
+        }
+    }
+
+    /**
+     * Generates {@code n} postcode units in area {@code a}.
+     *
+     * @param a The area ordinal.
+     * @param n The number of postcode units.
+     * @param r For random numbers.
+     * @param h The handler for each unit.
+     * @throws IOException If encountered.
+     */
+    private void generate(int a, long n, Random r, UnitHandler h)
+            throws IOException {
+        if (n == 0) {
+            return;
+        }
+        Area area = AREAS[a];
+        int nd = (int) Math.max(1, Math.min(MAX_DISTRICTS,
+                (n + DISTRICT_UNITS / 2) / DISTRICT_UNITS));
+        String[] outwards = getOutwards(area.name, nd);
+        if (n > (long) nd * 10 * MAX_UNITS) {
+            throw new IllegalArgumentException("Too many rows for area "
+                    + area.name);
+        }
+        long[] nus = split(n, nd, 10 * MAX_UNITS, r);
+        for (int d = 0; d < nd; d++) {
+            long nu = nus[d];
+            double dx = area.x * 1000 + r.nextGaussian() * 10000;
+            double dy = area.y * 1000 + r.nextGaussian() * 10000;
+            int ns = (int) Math.min(10, Math.max((nu + SECTOR_UNITS - 1)
+                    / SECTOR_UNITS, (nu + MAX_UNITS - 1) / MAX_UNITS));
+            ns = Math.max(ns, 1);
+            long[] nss = split(nu, ns, MAX_UNITS, r);
+            int s = 0;
+            for (int digit = 0; digit < 10 && s < ns; digit++) {
+                // Selection sampling so the sectors are in order.
+                if (r.nextInt(10 - digit) >= ns - s) {
+                    continue;
+                }
+                double sx = dx + r.nextGaussian() * 1500;
+                double sy = dy + r.nextGaussian() * 1500;
+                int k = (int) nss[s];
+                for (int u = 0; u < MAX_UNITS && k > 0; u++) {
+                    if (r.nextInt(MAX_UNITS - u) >= k) {
+                        continue;
+                    }
+                    k--;
+                    String inward = "" + digit
+                            + UNIT_LETTERS.charAt(u / UNIT_LETTERS.length())
+                            + UNIT_LETTERS.charAt(u % UNIT_LETTERS.length());
+                    int x = (int) Math.max(1, sx + r.nextGaussian() * 200);
+                    int y = (int) Math.max(1, sy + r.nextGaussian() * 200);
+                    h.unit(a, d, outwards[d], inward, x, y);
+                }
+                s++;
+            }
+        }
+    }
+
+    /**
+     * @param n The number to split.
+     * @param m The number of parts.
+     * @param max The maximum of any part.
+     * @param r For random numbers.
+     * @return {@code n} split randomly into {@code m} parts that are each
+     * between about a half and one and a half times {@code n / m} and no more
+     * than {@code max}.
+     */
+    private static long[] split(long n, int m, long max, Random r) {
+        if (n > m * max) {
+            throw new IllegalArgumentException(n + " > " + m + " * " + max);
+        }
+        double[] ws = new double[m];
+        double w = 0;
+        for (int i = 0; i < m; i++) {
+            ws[i] = 0.5 + r.nextDouble();
+            w += ws[i];
+        }
+        long[] res = new long[m];
+        double cw = 0;
+        long done = 0;
+        long excess = 0;
+        for (int i = 0; i < m; i++) {
+            cw += ws[i];
+            long end = i == m - 1 ? n : Math.round(n * cw / w);
+            res[i] = end - done;
+            done = end;
+            if (res[i] > max) {
+                excess += res[i] - max;
+                res[i] = max;
+            }
+        }
+        for (int i = 0; excess > 0; i++) {
+            long add = Math.min(excess, max - res[i]);
+            res[i] += add;
+            excess -= add;
+        }
+        return res;
+    }
+
+    /**
+     * @param area The area.
+     * @param n The number of districts.
+     * @return The outward codes of {@code n} districts in {@code area} in the
+     * order of the pcd column.
+     */
+    static String[] getOutwards(String area, int n) {
+        String[] r = new String[n];
+        for (int i = 0; i < n; i++) {
+            if (i < 99) {
+                r[i] = area + (i + 1);
+            } else {
+                int j = i - 99;
+                r[i] = area + (j % 9 + 1) + DISTRICT_LETTERS.charAt(j / 9);
+            }
+        }
+        Arrays.sort(r, (a, b) -> pad(a, 4).compareTo(pad(b, 4)));
+        return r;
+    }
+
+    /**
+     * @param s The String to pad.
+     * @param l The length to pad to.
+     * @return {@code s} padded with spaces to length {@code l}.
+     */
+    static String pad(String s, int l) {
+        StringBuilder sb = new StringBuilder(l);
+        sb.append(s);
+        while (sb.length() < l) {
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param n The number of postcodes.
+     * @return The postcodes (in pcds format e.g. "LS2 9JT") that are in the
+     * first column of the rows of {@link #write(Path, long)}.
+     * @throws IOException If encountered.
+     */
+    public String[] getPostcodes(int n) throws IOException {
+        String[] r = new String[n];
+        int[] i = new int[1];
+        generate(n, (a, d, outward, inward, x, y) -> {
+            r[i[0]++] = outward + " " + inward;
+        });
+        return r;
+    }
+
+    /**
+     * Writes the header and {@code n} rows to {@code f}.
+     *
+     * @param f The file to write.
+     * @param n The number of rows.
+     * @throws IOException If encountered.
+     */
+    public void write(Path f, long n) throws IOException {
+        try (BufferedWriter w = new BufferedWriter(Files.newBufferedWriter(f,
+                StandardCharsets.UTF_8), 1 << 16)) {
+            write(w, n);
+        }
+    }
+
+    /**
+     * Writes the header and {@code n} rows to {@code w}.
+     *
+     * @param w The writer.
+     * @param n The number of rows.
+     * @throws IOException If encountered.
+     */
+    public void write(Writer w, long n) throws IOException {
+        w.write(schema.getHeader());
+        w.write('\n');
+        Random r = new Random(seed + 1);
+        StringBuilder sb = new StringBuilder(1024);
+        generate(n, (a, d, outward, inward, x, y) -> {
+            sb.setLength(0);
+            appendRow(sb, r, a, d, outward, inward, x, y);
+            sb.append('\n');
+            w.append(sb);
+        });
+    }
+
+    /**
+     * Appends a row to {@code sb}.
+     *
+     * @param sb The buffer to append to.
+     * @param r For random numbers.
+     * @param a The area ordinal.
+     * @param d The district ordinal within the area.
+     * @param outward The outward code.
+     * @param inward The inward code.
+     * @param x The easting.
+     * @param y The northing.
+     */
+    void appendRow(StringBuilder sb, Random r, int a, int d, String outward,
+            String inward, int x, int y) {
+        Area area = AREAS[a];
+        int intr = r.nextInt(5) < 3 ? 1980 : 1981 + r.nextInt(35);
+        int term = 0;
+        if (r.nextDouble() < terminatedRate) {
+            term = Math.min(2016, intr + 1 + r.nextInt(20));
+        }
+        boolean origin = r.nextDouble() < originRate;
+        for (int c = 0; c < kinds.length; c++) {
+            sb.append(c == 0 ? "\"" : ",\"");
+            switch (kinds[c]) {
+                case PCD:
+                    sb.append(outward);
+                    for (int i = outward.length(); i < 4; i++) {
+                        sb.append(' ');
+                    }
+                    sb.append(inward);
+                    break;
+                case PCD2:
+                    sb.append(outward);
+                    for (int i = outward.length(); i < 5; i++) {
+                        sb.append(' ');
+                    }
+                    sb.append(inward);
+                    break;
+                case PCDS:
+                    sb.append(outward).append(' ').append(inward);
+                    break;
+                case DOINTR:
+                    sb.append(intr);
+                    appendDigits(sb, intr == 1980 ? 1 : 1 + (x + y) % 12, 2);
+                    break;
+                case DOTERM:
+                    if (term > 0) {
+                        sb.append(term);
+                        appendDigits(sb, 1 + x % 12, 2);
+                    }
+                    break;
+                case USERTYPE:
+                    sb.append(r.nextInt(10) == 0 ? '1' : '0');
+                    break;
+                case EAST:
+                    if (!origin) {
+                        sb.append(x);
+                    }
+                    break;
+                case NORTH:
+                    if (!origin) {
+                        appendDigits(sb, y, 7);
+                    }
+                    break;
+                case GRDIND:
+                    sb.append(origin ? '9' : '1');
+                    break;
+                case CTRY:
+                    sb.append(area.country).append("92000");
+                    appendDigits(sb, "ENSW".indexOf(area.country) + 1, 3);
+                    break;
+                case LAT:
+                    if (origin) {
+                        sb.append("99.999999");
+                    } else {
+                        appendDecimal(sb, getLatitude(y));
+                    }
+                    break;
+                case LONG:
+                    if (origin) {
+                        sb.append("0.000000");
+                    } else {
+                        appendDecimal(sb, getLongitude(x, y));
+                    }
+                    break;
+                default:
+                    sb.append(area.country);
+                    appendDigits(sb, c, 2);
+                    appendDigits(sb, a * 1000 + d, 6);
+            }
+            sb.append('"');
+        }
+    }
+
+    /**
+     * @param y The northing.
+     * @return An approximate latitude for {@code y}.
+     */
+    static double getLatitude(int y) {
+        return 49 + (y + 100000) / 111133d;
+    }
+
+    /**
+     * @param x The easting.
+     * @param y The northing.
+     * @return An approximate longitude for {@code x} and {@code y}.
+     */
+    static double getLongitude(int x, int y) {
+        return -2 + (x - 400000) / (111320d
+                * Math.cos(Math.toRadians(getLatitude(y))));
+    }
+
+    /**
+     * Appends {@code v} padded with leading zeros to {@code l} digits.
+     *
+     * @param sb The buffer to append to.
+     * @param v The non-negative value.
+     * @param l The number of digits.
+     */
+    static void appendDigits(StringBuilder sb, long v, int l) {
+        int s = sb.length();
+        sb.append(v);
+        while (sb.length() - s < l) {
+            sb.insert(s, '0');
+        }
+    }
+
+    /**
+     * Appends {@code v} with 6 decimal places.
+     *
+     * @param sb The buffer to append to.
+     * @param v The value.
+     */
+    static void appendDecimal(StringBuilder sb, double v) {
+        long m = Math.round(v * 1000000);
+        if (m < 0) {
+            sb.append('-');
+            m = -m;
+        }
+        sb.append(m / 1000000).append('.');
+        appendDigits(sb, m % 1000000, 6);
+    }
+
+    /**
+     * Writes a file of generated data.
+     *
+     * @param args The file to write, the number of rows, optionally the layout
+     * (one of {@link #getLayouts()}, default ONSPD_2016_02Feb) and optionally
+     * the seed (default 0).
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: UKP_ONSPDGenerator file rows "
+                    + "[layout [seed]]\nLayouts: " + getLayouts().keySet());
+            return;
+        }
+        try {
+            String layout = args.length > 2 ? args[2] : "ONSPD_2016_02Feb";
+            String header = getLayouts().get(layout);
+            if (header == null) {
+                System.err.println("Unknown layout " + layout + " not in "
+                        + getLayouts().keySet());
+                return;
+            }
+            long seed = args.length > 3 ? Long.parseLong(args[3]) : 0L;
+            new UKP_ONSPDGenerator(header, seed).write(Paths.get(args[0]),
+                    Long.parseLong(args[1]));
+        } catch (IOException ex) {
+            ex.printStackTrace(System.err);
+        }
+    }
+}
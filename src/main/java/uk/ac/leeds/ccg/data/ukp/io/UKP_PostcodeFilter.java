@@ -0,0 +1,402 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.io;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.TreeSet;
+import java.util.function.LongPredicate;
+import java.util.zip.CRC32;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+
+/**
+ * For selecting which postcodes to load. A filter has any of:
+ * <ul>
+ * <li>postcode areas, e.g. "LS";</li>
+ * <li>postcode districts, e.g. "LS2";</li>
+ * <li>prefixes, e.g. "W" which is any postcode starting with W such as
+ * "WA1 1AA" and "W1A 1AA";</li>
+ * <li>a bounding box;</li>
+ * <li>country codes, e.g. "E92000001" (the ctry column).</li>
+ * </ul>
+ * A postcode is selected if it is in any of the areas, districts or prefixes
+ * (or there are none of these), and is in the bounding box (if there is one),
+ * and has one of the country codes (if there are any).
+ *
+ * The tests are split so they can be done on the fields of a line as it is
+ * parsed: {@link #test(long)} is for the key from the pcd field, so lines with
+ * postcodes that are not selected can be skipped before any other field is
+ * parsed; {@link #test(int, int)} is for the point; and
+ * {@link #testCountry(UKP_CSVScanner, int)} compares the bytes of the ctry
+ * field without creating a String.
+ *
+ * {@link #getId()} is a short name for the filter that is used in the names
+ * of files of lookups made with it, so lookups made with different filters
+ * are not mixed up.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public final class UKP_PostcodeFilter implements LongPredicate, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * A filter that selects all postcodes.
+     */
+    public static final UKP_PostcodeFilter ALL = new Builder().build();
+
+    /**
+     * The postcode prefixes that were selected before there were filters.
+     */
+    public static final UKP_PostcodeFilter DEFAULT = new Builder()
+            .addPrefixes("LS", "BD", "HG", "CR", "W", "NP", "BL", "HX", "HD")
+            .build();
+
+    /**
+     * The maximum length of {@link #id} before it is shortened with a
+     * checksum.
+     */
+    static final int MAX_ID_LENGTH = 64;
+
+    /**
+     * The sorted keys of the areas.
+     */
+    private final long[] areas;
+
+    /**
+     * For each 12 bit area code, whether it is in {@link #areas}.
+     */
+    private final boolean[] areaSet;
+
+    /**
+     * The sorted keys of the districts.
+     */
+    private final long[] districts;
+
+    /**
+     * The keys of the prefixes.
+     */
+    private final long[] prefixes;
+
+    /**
+     * {@code {minx, miny, maxx, maxy}} or {@code null}.
+     */
+    private final int[] bounds;
+
+    /**
+     * The sorted country codes.
+     */
+    private final String[] countries;
+
+    /**
+     * The bytes of the country codes.
+     */
+    private final byte[][] countryBytes;
+
+    /**
+     * The short name of the filter.
+     */
+    private final String id;
+
+    private UKP_PostcodeFilter(Builder b) {
+        areas = toKeys(b.areas);
+        areaSet = new boolean[1 << (2 * UKP_PostcodeKey.BITS)];
+        for (long a : areas) {
+            areaSet[getAreaCode(a)] = true;
+        }
+        districts = toKeys(b.districts);
+        prefixes = toKeys(b.prefixes);
+        bounds = b.bounds;
+        countries = b.countries.toArray(new String[0]);
+        countryBytes = new byte[countries.length][];
+        for (int i = 0; i < countries.length; i++) {
+            countryBytes[i] = countries[i].getBytes(StandardCharsets.UTF_8);
+        }
+        id = createId(b);
+    }
+
+    /**
+     * @param s Postcodes.
+     * @return The sorted keys of {@code s}.
+     */
+    private static long[] toKeys(TreeSet<String> s) {
+        long[] r = new long[s.size()];
+        int i = 0;
+        for (String p : s) {
+            r[i] = UKP_PostcodeKey.encode(p);
+            i++;
+        }
+        Arrays.sort(r);
+        return r;
+    }
+
+    /**
+     * @param a The key of an area.
+     * @return The first 2 character codes of {@code a} as a 12 bit number.
+     */
+    private static int getAreaCode(long a) {
+        return (int) (a >>> (UKP_PostcodeKey.BITS
+                * (UKP_PostcodeKey.MAX_LENGTH - 2)));
+    }
+
+    private static String createId(Builder b) {
+        StringBuilder sb = new StringBuilder();
+        append(sb, "a", b.areas);
+        append(sb, "d", b.districts);
+        append(sb, "p", b.prefixes);
+        if (b.bounds != null) {
+            sb.append(sb.length() == 0 ? "" : "_").append("b");
+            for (int v : b.bounds) {
+                sb.append('-').append(v);
+            }
+        }
+        append(sb, "c", b.countries);
+        if (sb.length() == 0) {
+            return "all";
+        }
+        if (sb.length() > MAX_ID_LENGTH) {
+            CRC32 crc = new CRC32();
+            crc.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return "f" + Long.toHexString(crc.getValue());
+        }
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, String name,
+            TreeSet<String> s) {
+        if (s.isEmpty()) {
+            return;
+        }
+        if (sb.length() > 0) {
+            sb.append('_');
+        }
+        sb.append(name);
+        for (String v : s) {
+            sb.append('-').append(v);
+        }
+    }
+
+    /**
+     * @param k The key of a postcode.
+     * @return {@code true} if {@code k} is in any of the areas, districts or
+     * prefixes or there are none of these.
+     */
+    @Override
+    public boolean test(long k) {
+        if (k == UKP_PostcodeKey.NONE) {
+            return false;
+        }
+        if (areas.length == 0 && districts.length == 0
+                && prefixes.length == 0) {
+            return true;
+        }
+        if (areas.length > 0) {
+            long a = UKP_PostcodeKey.getArea(k);
+            if (a != UKP_PostcodeKey.NONE && areaSet[getAreaCode(a)]) {
+                return true;
+            }
+        }
+        if (districts.length > 0 && Arrays.binarySearch(districts,
+                UKP_PostcodeKey.getDistrict(k)) >= 0) {
+            return true;
+        }
+        for (long p : prefixes) {
+            if (UKP_PostcodeKey.startsWith(k, p)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @return {@code true} if there is no bounding box or ({@code x},
+     * {@code y}) is in it (including its edges).
+     */
+    public boolean test(int x, int y) {
+        return bounds == null || (x >= bounds[0] && y >= bounds[1]
+                && x <= bounds[2] && y <= bounds[3]);
+    }
+
+    /**
+     * @return {@code true} if there are country codes.
+     */
+    public boolean hasCountries() {
+        return countries.length > 0;
+    }
+
+    /**
+     * @param s The scanner positioned at a record.
+     * @param c The index of the ctry column.
+     * @return {@code true} if there are no country codes or the value of
+     * field {@code c} is one of them.
+     */
+    public boolean testCountry(UKP_CSVScanner s, int c) {
+        if (countries.length == 0) {
+            return true;
+        }
+        int n = s.getLength(c);
+        for (byte[] b : countryBytes) {
+            if (b.length == n) {
+                int i = 0;
+                while (i < n && s.getByte(c, i) == b[i]) {
+                    i++;
+                }
+                if (i == n) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return A short name for this filter, which is "all" for {@link #ALL}
+     * and otherwise lists what is selected, e.g. "a-BD-LS_c-E92000001", unless
+     * that is longer than {@link #MAX_ID_LENGTH} in which case it is "f"
+     * followed by a checksum.
+     */
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof UKP_PostcodeFilter) {
+            UKP_PostcodeFilter f = (UKP_PostcodeFilter) o;
+            return Arrays.equals(areas, f.areas)
+                    && Arrays.equals(districts, f.districts)
+                    && Arrays.equals(prefixes, f.prefixes)
+                    && Arrays.equals(bounds, f.bounds)
+                    && Arrays.equals(countries, f.countries);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(" + id + ")";
+    }
+
+    /**
+     * For building filters.
+     */
+    public static class Builder {
+
+        final TreeSet<String> areas = new TreeSet<>();
+
+        final TreeSet<String> districts = new TreeSet<>();
+
+        final TreeSet<String> prefixes = new TreeSet<>();
+
+        int[] bounds;
+
+        final TreeSet<String> countries = new TreeSet<>();
+
+        public Builder() {
+        }
+
+        /**
+         * @param s The postcode or part of it.
+         * @return {@code s} in upper case without spaces.
+         * @throws IllegalArgumentException If {@code s} cannot be encoded.
+         */
+        private static String normalise(String s) {
+            String r = s.replace(" ", "").toUpperCase();
+            if (UKP_PostcodeKey.encode(r) == UKP_PostcodeKey.NONE) {
+                throw new IllegalArgumentException("Invalid \"" + s + "\"");
+            }
+            return r;
+        }
+
+        /**
+         * @param as Postcode areas, e.g. "LS".
+         * @return This.
+         */
+        public Builder addAreas(String... as) {
+            for (String a : as) {
+                String n = normalise(a);
+                if (n.length() > 2) {
+                    throw new IllegalArgumentException("Invalid area \"" + a
+                            + "\"");
+                }
+                areas.add(n);
+            }
+            return this;
+        }
+
+        /**
+         * @param ds Postcode districts, e.g. "LS2".
+         * @return This.
+         */
+        public Builder addDistricts(String... ds) {
+            for (String d : ds) {
+                districts.add(normalise(d));
+            }
+            return this;
+        }
+
+        /**
+         * @param ps Postcode prefixes, e.g. "W".
+         * @return This.
+         */
+        public Builder addPrefixes(String... ps) {
+            for (String p : ps) {
+                prefixes.add(normalise(p));
+            }
+            return this;
+        }
+
+        /**
+         * @param minx The minimum x coordinate.
+         * @param miny The minimum y coordinate.
+         * @param maxx The maximum x coordinate.
+         * @param maxy The maximum y coordinate.
+         * @return This.
+         */
+        public Builder setBounds(int minx, int miny, int maxx, int maxy) {
+            bounds = new int[]{minx, miny, maxx, maxy};
+            return this;
+        }
+
+        /**
+         * @param cs Country codes, e.g. "E92000001".
+         * @return This.
+         */
+        public Builder addCountries(String... cs) {
+            countries.addAll(Arrays.asList(cs));
+            return this;
+        }
+
+        /**
+         * @return The filter.
+         */
+        public UKP_PostcodeFilter build() {
+            return new UKP_PostcodeFilter(this);
+        }
+    }
+}
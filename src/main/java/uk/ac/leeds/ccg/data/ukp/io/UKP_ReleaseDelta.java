@@ -0,0 +1,224 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.io;
+
+import java.util.Arrays;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_ArrayPointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_PointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_SegmentedPointLookup;
+
+/**
+ * A {@link UKP_ReleaseDiff.Listener} that collects the point changes between
+ * two releases so that they can be applied to a unit point lookup of the old
+ * release to get one of the new release without reading the new release
+ * again. Added and moved postcodes are held as upserts and removed postcodes
+ * as removals. Terminated and recoded postcodes are only counted.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_ReleaseDelta implements UKP_ReleaseDiff.Listener {
+
+    /**
+     * The added and moved postcodes with their new points.
+     */
+    protected final UKP_ArrayPointLookup.Builder upserts
+            = new UKP_ArrayPointLookup.Builder(1024);
+
+    /**
+     * The keys of the removed postcodes.
+     */
+    protected long[] removals = new long[1024];
+
+    /**
+     * The number of removals.
+     */
+    protected int nRemoved;
+
+    /**
+     * The number of added postcodes.
+     */
+    protected int nAdded;
+
+    /**
+     * The number of moved postcodes.
+     */
+    protected int nMoved;
+
+    /**
+     * The number of terminated postcodes.
+     */
+    protected int nTerminated;
+
+    /**
+     * The number of recoded postcode columns.
+     */
+    protected int nRecoded;
+
+    public UKP_ReleaseDelta() {
+    }
+
+    @Override
+    public void added(long k, int x, int y) {
+        upserts.add(k, x, y);
+        nAdded++;
+    }
+
+    @Override
+    public void removed(long k, int x, int y) {
+        if (nRemoved == removals.length) {
+            removals = Arrays.copyOf(removals, nRemoved * 2);
+        }
+        removals[nRemoved] = k;
+        nRemoved++;
+    }
+
+    @Override
+    public void moved(long k, int x0, int y0, int x1, int y1) {
+        upserts.add(k, x1, y1);
+        nMoved++;
+    }
+
+    @Override
+    public void terminated(long k, int doterm) {
+        nTerminated++;
+    }
+
+    @Override
+    public void recoded(long k, String column, String from, String to) {
+        nRecoded++;
+    }
+
+    /**
+     * @return The number of added postcodes.
+     */
+    public int getAddedCount() {
+        return nAdded;
+    }
+
+    /**
+     * @return The number of removed postcodes.
+     */
+    public int getRemovedCount() {
+        return nRemoved;
+    }
+
+    /**
+     * @return The number of moved postcodes.
+     */
+    public int getMovedCount() {
+        return nMoved;
+    }
+
+    /**
+     * @return The number of terminated postcodes.
+     */
+    public int getTerminatedCount() {
+        return nTerminated;
+    }
+
+    /**
+     * @return The number of recoded postcode columns.
+     */
+    public int getRecodedCount() {
+        return nRecoded;
+    }
+
+    /**
+     * Merges the changes with {@code l} which is not changed.
+     *
+     * @param l A unit point lookup of the old release.
+     * @return A unit point lookup of the new release.
+     */
+    public UKP_ArrayPointLookup apply(UKP_PointLookup l) {
+        UKP_ArrayPointLookup u = upserts.build();
+        long[] rs = getRemovals();
+        int ln = l.size();
+        int un = u.size();
+        long[] ks = new long[ln + un];
+        int[] xs = new int[ks.length];
+        int[] ys = new int[ks.length];
+        int i = 0;
+        int j = 0;
+        int r = 0;
+        int n = 0;
+        while (i < ln || j < un) {
+            long a = i < ln ? l.getKey(i) : Long.MAX_VALUE;
+            long b = j < un ? u.getKey(j) : Long.MAX_VALUE;
+            if (b <= a) {
+                ks[n] = b;
+                xs[n] = u.getX(j);
+                ys[n] = u.getY(j);
+                n++;
+                j++;
+                if (a == b) {
+                    i++;
+                }
+            } else {
+                while (r < rs.length && rs[r] < a) {
+                    r++;
+                }
+                if (r == rs.length || rs[r] != a) {
+                    ks[n] = a;
+                    xs[n] = l.getX(i);
+                    ys[n] = l.getY(i);
+                    n++;
+                }
+                i++;
+            }
+        }
+        return new UKP_ArrayPointLookup(Arrays.copyOf(ks, n),
+                Arrays.copyOf(xs, n), Arrays.copyOf(ys, n));
+    }
+
+    /**
+     * Merges the changes with {@code l} copy-on-write, so segments of
+     * {@code l} with no changes are shared with the result.
+     *
+     * @param l A unit point lookup of the old release.
+     * @return A unit point lookup of the new release.
+     */
+    public UKP_SegmentedPointLookup apply(UKP_SegmentedPointLookup l) {
+        UKP_ArrayPointLookup u = upserts.build();
+        int un = u.size();
+        long[] uks = new long[un];
+        int[] uxs = new int[un];
+        int[] uys = new int[un];
+        for (int i = 0; i < un; i++) {
+            uks[i] = u.getKey(i);
+            uxs[i] = u.getX(i);
+            uys[i] = u.getY(i);
+        }
+        long[] rs = getRemovals();
+        return l.apply(uks, uxs, uys, un, rs, rs.length);
+    }
+
+    /**
+     * @return The sorted keys of the removed postcodes.
+     */
+    private long[] getRemovals() {
+        long[] r = Arrays.copyOf(removals, nRemoved);
+        Arrays.sort(r);
+        return r;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(added=" + nAdded + ", removed="
+                + nRemoved + ", moved=" + nMoved + ", terminated="
+                + nTerminated + ", recoded=" + nRecoded + ")";
+    }
+}
@@ -0,0 +1,430 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.io;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.BitSet;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_PointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Projection;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Schema;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+
+/**
+ * For comparing two ONSPD releases without loading either of them. Releases
+ * are in the order of the pcd column, so the two files are read together in
+ * that order with a {@link UKP_CSVScanner} each and the differences are
+ * reported to a {@link Listener} as they are found:
+ * <ul>
+ * <li>added - a postcode with a point in the new release and not in the
+ * old;</li>
+ * <li>removed - a postcode with a point in the old release and not in the
+ * new;</li>
+ * <li>moved - a postcode with a point in both releases that is more than the
+ * threshold distance apart;</li>
+ * <li>terminated - a postcode with a doterm in the new release and not in
+ * the old;</li>
+ * <li>recoded - a postcode in both releases with a different value in one of
+ * the code columns compared, e.g. oslaua.</li>
+ * </ul>
+ * Points at the origin and points that are not selected by the
+ * {@link UKP_PostcodeFilter} are treated as no point, as for unit point
+ * lookups. Code values are compared byte for byte and Strings are only
+ * created for those that differ.
+ *
+ * With a threshold of {@code 0}, the added, removed and moved postcodes are
+ * exactly what is needed to update a unit point lookup of the old release to
+ * one of the new (see {@link UKP_ReleaseDelta}).
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_ReleaseDiff {
+
+    /**
+     * For receiving the differences between releases. Postcodes compared
+     * with {@link #diff(Path, Path, Listener)} are reported in the order of
+     * the pcd column which is not quite key order. All methods do nothing by
+     * default.
+     */
+    public interface Listener {
+
+        /**
+         * @param k The postcode key.
+         * @param x The x coordinate in the new release.
+         * @param y The y coordinate in the new release.
+         */
+        default void added(long k, int x, int y) {
+        }
+
+        /**
+         * @param k The postcode key.
+         * @param x The x coordinate in the old release.
+         * @param y The y coordinate in the old release.
+         */
+        default void removed(long k, int x, int y) {
+        }
+
+        /**
+         * @param k The postcode key.
+         * @param x0 The x coordinate in the old release.
+         * @param y0 The y coordinate in the old release.
+         * @param x1 The x coordinate in the new release.
+         * @param y1 The y coordinate in the new release.
+         */
+        default void moved(long k, int x0, int y0, int x1, int y1) {
+        }
+
+        /**
+         * @param k The postcode key.
+         * @param doterm The doterm in the new release (yyyymm).
+         */
+        default void terminated(long k, int doterm) {
+        }
+
+        /**
+         * @param k The postcode key.
+         * @param column The name of the code column.
+         * @param from The code in the old release.
+         * @param to The code in the new release.
+         */
+        default void recoded(long k, String column, String from, String to) {
+        }
+    }
+
+    /**
+     * The columns read from each release before the code columns.
+     */
+    static final String[] COLUMNS = {"pcd", "doterm", "oseast1m", "osnrth1m",
+        "ctry"};
+
+    /**
+     * If true then points at the origin are treated as no point.
+     */
+    protected final boolean ignorePointsAtOrigin;
+
+    /**
+     * The distance in metres a point has to move by to be reported as moved.
+     */
+    protected final double threshold;
+
+    /**
+     * For selecting which postcodes to compare.
+     */
+    protected final UKP_PostcodeFilter filter;
+
+    /**
+     * The names of the code columns to compare.
+     */
+    protected final String[] codes;
+
+    /**
+     * @param ignorePointsAtOrigin If true then points at the origin are
+     * treated as no point.
+     * @param threshold The distance in metres a point has to move by to be
+     * reported as moved.
+     * @param filter For selecting which postcodes to compare.
+     * @param codes The names of the code columns to compare, e.g. "oslaua",
+     * "osward", "pcon". Aliases are resolved as in
+     * {@link ONSPD_Schema#getIndex(java.lang.String)}.
+     */
+    public UKP_ReleaseDiff(boolean ignorePointsAtOrigin, double threshold,
+            UKP_PostcodeFilter filter, String... codes) {
+        this.ignorePointsAtOrigin = ignorePointsAtOrigin;
+        this.threshold = threshold;
+        this.filter = filter;
+        this.codes = codes.clone();
+    }
+
+    /**
+     * Reports the differences between {@code f0} and {@code f1} to {@code l}.
+     *
+     * @param f0 The old release.
+     * @param f1 The new release.
+     * @param l The listener.
+     * @throws IOException If encountered or if either release is not in the
+     * order of the pcd column.
+     */
+    public void diff(Path f0, Path f1, Listener l) throws IOException {
+        String[] names = new String[COLUMNS.length + codes.length];
+        System.arraycopy(COLUMNS, 0, names, 0, COLUMNS.length);
+        System.arraycopy(codes, 0, names, COLUMNS.length, codes.length);
+        double t2 = threshold * threshold;
+        try (UKP_CSVScanner s0 = new UKP_CSVScanner(f0);
+                UKP_CSVScanner s1 = new UKP_CSVScanner(f1)) {
+            Side a = new Side(s0, f0, names);
+            Side b = new Side(s1, f1, names);
+            a.next();
+            b.next();
+            while (a.o != Long.MAX_VALUE || b.o != Long.MAX_VALUE) {
+                if (a.o < b.o) {
+                    if (a.hasPoint) {
+                        l.removed(a.k, a.x, a.y);
+                    }
+                    a.next();
+                } else if (a.o > b.o) {
+                    if (b.hasPoint) {
+                        l.added(b.k, b.x, b.y);
+                    }
+                    if (b.doterm != 0) {
+                        l.terminated(b.k, b.doterm);
+                    }
+                    b.next();
+                } else {
+                    compare(a, b, t2, l);
+                    a.next();
+                    b.next();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports the point differences between {@code l0} and {@code f1} to
+     * {@code l}. This is for when there is a unit point lookup of the old
+     * release (e.g. from a snapshot) but not the old release itself. The
+     * postcodes of {@code f1} are looked up in {@code l0}, so {@code f1} need
+     * not be in any order, and those in {@code l0} that are not seen are
+     * reported as removed at the end in key order. Only added, removed and
+     * moved are reported as there are no old codes or doterms to compare
+     * with.
+     *
+     * @param l0 A unit point lookup of the old release made with the same
+     * filter and treatment of points at the origin.
+     * @param f1 The new release.
+     * @param l The listener.
+     * @throws IOException If encountered.
+     */
+    public void diff(UKP_PointLookup l0, Path f1, Listener l)
+            throws IOException {
+        double t2 = threshold * threshold;
+        BitSet seen = new BitSet(l0.size());
+        try (UKP_CSVScanner s = new UKP_CSVScanner(f1)) {
+            ONSPD_Projection p = getProjection(s, f1, COLUMNS);
+            while (s.next()) {
+                long k = p.getPostcodeKey(s, 0);
+                if (k == UKP_PostcodeKey.NONE || !filter.test(k)) {
+                    continue;
+                }
+                int x = p.getInt(s, 2, -1);
+                int y = p.getInt(s, 3, -1);
+                boolean hasPoint = hasPoint(x, y, s, p);
+                int i = l0.indexOf(k);
+                if (i < 0) {
+                    if (hasPoint) {
+                        l.added(k, x, y);
+                    }
+                } else if (!seen.get(i)) {
+                    seen.set(i);
+                    int x0 = l0.getX(i);
+                    int y0 = l0.getY(i);
+                    if (!hasPoint) {
+                        l.removed(k, x0, y0);
+                    } else if (x0 != x || y0 != y) {
+                        double dx = (double) x - x0;
+                        double dy = (double) y - y0;
+                        if (dx * dx + dy * dy > t2) {
+                            l.moved(k, x0, y0, x, y);
+                        }
+                    }
+                }
+            }
+        }
+        for (int i = seen.nextClearBit(0); i < l0.size();
+                i = seen.nextClearBit(i + 1)) {
+            l.removed(l0.getKey(i), l0.getX(i), l0.getY(i));
+        }
+    }
+
+    /**
+     * Reports the differences of a postcode that is in both releases.
+     *
+     * @param a The old release.
+     * @param b The new release.
+     * @param t2 The square of {@link #threshold}.
+     * @param l The listener.
+     */
+    private void compare(Side a, Side b, double t2, Listener l) {
+        long k = b.k;
+        if (a.hasPoint) {
+            if (b.hasPoint) {
+                if (a.x != b.x || a.y != b.y) {
+                    double dx = (double) b.x - a.x;
+                    double dy = (double) b.y - a.y;
+                    if (dx * dx + dy * dy > t2) {
+                        l.moved(k, a.x, a.y, b.x, b.y);
+                    }
+                }
+            } else {
+                l.removed(k, a.x, a.y);
+            }
+        } else if (b.hasPoint) {
+            l.added(k, b.x, b.y);
+        }
+        if (b.doterm != 0 && a.doterm == 0) {
+            l.terminated(k, b.doterm);
+        }
+        for (int i = COLUMNS.length; i < a.p.size(); i++) {
+            int c0 = a.p.getIndex(i);
+            int c1 = b.p.getIndex(i);
+            if (c0 >= 0 && c1 >= 0 && !equals(a.s, c0, b.s, c1)) {
+                l.recoded(k, a.p.getName(i), a.s.getString(c0),
+                        b.s.getString(c1));
+            }
+        }
+    }
+
+    /**
+     * @param s A scanner at the start of {@code f}.
+     * @param f The release (for error reporting).
+     * @param names The names of the columns starting with {@link #COLUMNS}.
+     * @return The projection of {@code names}.
+     * @throws IOException If encountered or if {@link #filter} has countries
+     * and there is no ctry column.
+     */
+    private ONSPD_Projection getProjection(UKP_CSVScanner s, Path f,
+            String[] names) throws IOException {
+        ONSPD_Projection r = ONSPD_Schema.read(s, f).getProjection(names);
+        if (filter.hasCountries() && !r.isAvailable(4)) {
+            throw new IOException("No ctry column to filter " + f + " with "
+                    + filter);
+        }
+        return r;
+    }
+
+    /**
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @param s The scanner positioned at the record.
+     * @param p The projection of {@link #COLUMNS}.
+     * @return {@code true} if the point would be in a unit point lookup.
+     */
+    private boolean hasPoint(int x, int y, UKP_CSVScanner s,
+            ONSPD_Projection p) {
+        return (!ignorePointsAtOrigin || (x > 0 && y > 0))
+                && filter.test(x, y) && filter.testCountry(s, p.getIndex(4));
+    }
+
+    /**
+     * @param s0 A scanner.
+     * @param c0 The index of a field of {@code s0}.
+     * @param s1 Another scanner.
+     * @param c1 The index of a field of {@code s1}.
+     * @return {@code true} if the fields have the same bytes.
+     */
+    private static boolean equals(UKP_CSVScanner s0, int c0, UKP_CSVScanner s1,
+            int c1) {
+        int n = s0.getLength(c0);
+        if (n != s1.getLength(c1)) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            if (s0.getByte(c0, i) != s1.getByte(c1, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The order of the pcd column is that of the outward code padded with
+     * spaces to four characters followed by the inward code. This returns a
+     * number in the same order by putting the inward code (the last three
+     * characters) of {@code k} four characters after the start.
+     *
+     * @param k A postcode key.
+     * @return A number that orders {@code k} as in the pcd column.
+     */
+    static long getOrder(long k) {
+        int n = UKP_PostcodeKey.getLength(k);
+        if (n < 4) {
+            return k;
+        }
+        int shift = UKP_PostcodeKey.BITS * (UKP_PostcodeKey.MAX_LENGTH - n);
+        long inward = (k >>> shift) & ((1L << (3 * UKP_PostcodeKey.BITS)) - 1);
+        long outward = UKP_PostcodeKey.truncate(k, n - 3);
+        return outward | inward << (UKP_PostcodeKey.BITS
+                * (UKP_PostcodeKey.MAX_LENGTH - 7));
+    }
+
+    /**
+     * One of the releases being compared.
+     */
+    private class Side {
+
+        final UKP_CSVScanner s;
+
+        final Path f;
+
+        final ONSPD_Projection p;
+
+        /**
+         * The key of the current postcode.
+         */
+        long k;
+
+        /**
+         * The order of the current postcode or {@code Long.MAX_VALUE} if there
+         * are no more.
+         */
+        long o = Long.MIN_VALUE;
+
+        boolean hasPoint;
+
+        int x;
+
+        int y;
+
+        int doterm;
+
+        Side(UKP_CSVScanner s, Path f, String[] names) throws IOException {
+            this.s = s;
+            this.f = f;
+            p = getProjection(s, f, names);
+        }
+
+        /**
+         * Moves on to the next selected postcode.
+         *
+         * @throws IOException If encountered or if the postcodes are out of
+         * order.
+         */
+        void next() throws IOException {
+            while (s.next()) {
+                long nk = p.getPostcodeKey(s, 0);
+                if (nk == UKP_PostcodeKey.NONE) {
+                    continue;
+                }
+                long no = getOrder(nk);
+                if (no <= o) {
+                    throw new IOException(UKP_PostcodeKey.decode(nk)
+                            + " is out of order at line " + s.getLineCount()
+                            + " of " + f);
+                }
+                o = no;
+                if (filter.test(nk)) {
+                    k = nk;
+                    x = p.getInt(s, 2, -1);
+                    y = p.getInt(s, 3, -1);
+                    hasPoint = hasPoint(x, y, s, p);
+                    doterm = p.getInt(s, 1, 0);
+                    return;
+                }
+            }
+            o = Long.MAX_VALUE;
+        }
+    }
+}
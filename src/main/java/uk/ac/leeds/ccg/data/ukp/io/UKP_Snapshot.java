@@ -0,0 +1,195 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_ArrayPointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_PointLookup;
+
+/**
+ * For writing and reading snapshots of postcode point lookups. A snapshot is
+ * a binary file with a {@link #HEADER_SIZE} byte header followed by three
+ * columns of data each with an element for each postcode in key order: the
+ * postcode keys (8 byte longs as encoded by
+ * {@link uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey}); the x coordinates
+ * (4 byte ints); and the y coordinates (4 byte ints). All values are big
+ * endian. The header is:
+ * <ul>
+ * <li>bytes 0-3: {@link #MAGIC}</li>
+ * <li>bytes 4-7: the format version, currently {@link #VERSION}</li>
+ * <li>bytes 8-15: the number of postcodes</li>
+ * <li>bytes 16-19: flags (reserved, currently 0)</li>
+ * <li>bytes 20-23: the CRC32 checksum of the data after the header</li>
+ * <li>bytes 24-31: reserved</li>
+ * </ul>
+ * As the columns are at fixed offsets, a snapshot can be used memory mapped
+ * or read into arrays with bulk copies.
+ *
+ * Snapshots are written to a temporary file which is then moved into place,
+ * so a partially written snapshot is never read.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_Snapshot {
+
+    /**
+     * The first four bytes of a snapshot: "UKPS".
+     */
+    public static final int MAGIC = 0x554B5053;
+
+    /**
+     * The current format version.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The size of the header in bytes.
+     */
+    public static final int HEADER_SIZE = 32;
+
+    /**
+     * The file name extension for snapshots.
+     */
+    public static final String EXTENSION = ".ukps";
+
+    private UKP_Snapshot() {
+    }
+
+    /**
+     * @param name A file name.
+     * @return {@code name} with any extension replaced by {@link #EXTENSION}.
+     */
+    public static String getName(String name) {
+        int i = name.lastIndexOf('.');
+        if (i > 0) {
+            name = name.substring(0, i);
+        }
+        return name + EXTENSION;
+    }
+
+    /**
+     * Writes {@code l} to {@code f}.
+     *
+     * @param l The lookup to write.
+     * @param f The file to write to.
+     * @throws IOException If encountered.
+     */
+    public static void write(UKP_PointLookup l, Path f) throws IOException {
+        int n = l.size();
+        ByteBuffer data = ByteBuffer.allocate(n * 16);
+        for (int i = 0; i < n; i++) {
+            data.putLong(l.getKey(i));
+        }
+        for (int i = 0; i < n; i++) {
+            data.putInt(l.getX(i));
+        }
+        for (int i = 0; i < n; i++) {
+            data.putInt(l.getY(i));
+        }
+        data.flip();
+        CRC32 crc = new CRC32();
+        crc.update(data.duplicate());
+        ByteBuffer h = ByteBuffer.allocate(HEADER_SIZE);
+        h.putInt(MAGIC);
+        h.putInt(VERSION);
+        h.putLong(n);
+        h.putInt(0);
+        h.putInt((int) crc.getValue());
+        h.putLong(0L);
+        h.flip();
+        Path t = Paths.get(f.toString() + ".tmp");
+        try (FileChannel fc = FileChannel.open(t, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            while (h.hasRemaining()) {
+                fc.write(h);
+            }
+            while (data.hasRemaining()) {
+                fc.write(data);
+            }
+        }
+        Files.move(t, f, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads a snapshot into arrays.
+     *
+     * @param f The file to read.
+     * @return The lookup.
+     * @throws IOException If encountered or if {@code f} is not a valid
+     * snapshot.
+     */
+    public static UKP_ArrayPointLookup read(Path f) throws IOException {
+        try (FileChannel fc = FileChannel.open(f, StandardOpenOption.READ)) {
+            MappedByteBuffer b = fc.map(FileChannel.MapMode.READ_ONLY, 0L,
+                    fc.size());
+            int n = checkHeader(b, f);
+            ByteBuffer data = b.duplicate();
+            data.position(HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            if ((int) crc.getValue() != b.getInt(20)) {
+                throw new IOException("Checksum mismatch in snapshot " + f);
+            }
+            long[] keys = new long[n];
+            int[] xs = new int[n];
+            int[] ys = new int[n];
+            b.position(HEADER_SIZE);
+            b.asLongBuffer().get(keys);
+            b.position(HEADER_SIZE + n * 8);
+            b.asIntBuffer().get(xs);
+            b.position(HEADER_SIZE + n * 12);
+            b.asIntBuffer().get(ys);
+            return new UKP_ArrayPointLookup(keys, xs, ys);
+        }
+    }
+
+    /**
+     * Checks the header of a snapshot.
+     *
+     * @param b The snapshot bytes.
+     * @param f The file (for error reporting).
+     * @return The number of postcodes.
+     * @throws IOException If the header is not valid.
+     */
+    public static int checkHeader(ByteBuffer b, Path f) throws IOException {
+        if (b.limit() < HEADER_SIZE || b.getInt(0) != MAGIC) {
+            throw new IOException("Not a snapshot " + f);
+        }
+        int v = b.getInt(4);
+        if (v != VERSION) {
+            throw new IOException("Unsupported snapshot version " + v
+                    + " in " + f);
+        }
+        long n = b.getLong(8);
+        if (n < 0 || n > Integer.MAX_VALUE / 16
+                || b.limit() != HEADER_SIZE + n * 16) {
+            throw new IOException("Snapshot " + f + " is truncated or has "
+                    + "an invalid size.");
+        }
+        return (int) n;
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.util;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_CSVScanner;
+
+/**
+ * A dictionary of codes such as ONS area codes, which repeat a lot: each
+ * distinct code is held once and has a small int id. Ids are allocated in the
+ * order codes are first seen starting with {@link #EMPTY} for the empty code.
+ *
+ * Codes are held as bytes (UTF-8) and in a hash table with open addressing,
+ * so {@link #getId(UKP_CSVScanner, int)} finds the id of a field of a line
+ * being scanned without creating a String unless the code is new. Fields with
+ * escaped quotes are not unescaped, which is fine for codes.
+ *
+ * A dictionary is not thread safe, so threads that add codes concurrently
+ * need a dictionary each.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_CodeDictionary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The id of the empty code.
+     */
+    public static final int EMPTY = 0;
+
+    /**
+     * The codes in id order.
+     */
+    protected String[] codes;
+
+    /**
+     * The bytes of the codes in id order.
+     */
+    protected byte[][] bytes;
+
+    /**
+     * The hashes of the codes in id order.
+     */
+    protected int[] hashes;
+
+    /**
+     * For each slot, the id of the code in it plus 1, or 0 if it is empty.
+     */
+    protected int[] table;
+
+    /**
+     * The number of codes.
+     */
+    protected int n;
+
+    /**
+     * Creates a dictionary with just the empty code.
+     */
+    public UKP_CodeDictionary() {
+        codes = new String[16];
+        bytes = new byte[16][];
+        hashes = new int[16];
+        table = new int[32];
+        codes[EMPTY] = "";
+        bytes[EMPTY] = new byte[0];
+        hashes[EMPTY] = hash(bytes[EMPTY]);
+        table[hashes[EMPTY] & (table.length - 1)] = EMPTY + 1;
+        n = 1;
+    }
+
+    /**
+     * @return The number of codes including the empty code.
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * @param id The id.
+     * @return The code with {@code id}.
+     */
+    public String get(int id) {
+        if (id < 0 || id >= n) {
+            throw new IndexOutOfBoundsException("No code with id " + id);
+        }
+        return codes[id];
+    }
+
+    /**
+     * @param code The code.
+     * @return The id of {@code code} which is added if it is not already in
+     * the dictionary. {@code null} is treated as the empty code. Codes are
+     * usually ASCII, for which nothing is created unless the code is new.
+     */
+    public int getId(String code) {
+        if (code == null || code.isEmpty()) {
+            return EMPTY;
+        }
+        int l = code.length();
+        int h = 0x811c9dc5;
+        for (int j = 0; j < l; j++) {
+            char c = code.charAt(j);
+            if (c >= 0x80) {
+                return getId(code, code.getBytes(StandardCharsets.UTF_8));
+            }
+            h = (h ^ c) * 0x01000193;
+        }
+        int m = table.length - 1;
+        int i = h & m;
+        while (table[i] != 0) {
+            int id = table[i] - 1;
+            if (hashes[id] == h && equals(bytes[id], code, l)) {
+                return id;
+            }
+            i = (i + 1) & m;
+        }
+        return add(code, code.getBytes(StandardCharsets.UTF_8), h, i);
+    }
+
+    /**
+     * @param code The code.
+     * @param b The bytes of {@code code}.
+     * @return The id of {@code code} which is added if it is not already in
+     * the dictionary.
+     */
+    private int getId(String code, byte[] b) {
+        int h = hash(b);
+        int m = table.length - 1;
+        int i = h & m;
+        while (table[i] != 0) {
+            int id = table[i] - 1;
+            if (hashes[id] == h && Arrays.equals(bytes[id], b)) {
+                return id;
+            }
+            i = (i + 1) & m;
+        }
+        return add(code, b, h, i);
+    }
+
+    /**
+     * @param s The scanner positioned at a line.
+     * @param c The index of the field.
+     * @return The id of the value of field {@code c} which is added if it is
+     * not already in the dictionary. A missing field is treated as the empty
+     * code.
+     */
+    public int getId(UKP_CSVScanner s, int c) {
+        int l = s.getLength(c);
+        if (l == 0) {
+            return EMPTY;
+        }
+        int h = 0x811c9dc5;
+        for (int j = 0; j < l; j++) {
+            h = (h ^ (s.getByte(c, j) & 0xFF)) * 0x01000193;
+        }
+        int m = table.length - 1;
+        int i = h & m;
+        while (table[i] != 0) {
+            int id = table[i] - 1;
+            if (hashes[id] == h && equals(bytes[id], s, c, l)) {
+                return id;
+            }
+            i = (i + 1) & m;
+        }
+        byte[] b = new byte[l];
+        for (int j = 0; j < l; j++) {
+            b[j] = s.getByte(c, j);
+        }
+        return add(new String(b, StandardCharsets.UTF_8), b, h, i);
+    }
+
+    /**
+     * @param code The code.
+     * @return The instance of {@code code} held in the dictionary which is
+     * added if it is not already there, or {@code null} if {@code code} is
+     * {@code null}.
+     */
+    public String intern(String code) {
+        if (code == null) {
+            return null;
+        }
+        /**
+         * getId may grow codes so get the id first.
+         */
+        int id = getId(code);
+        return codes[id];
+    }
+
+    /**
+     * @return The codes in id order (a copy).
+     */
+    public String[] toArray() {
+        return Arrays.copyOf(codes, n);
+    }
+
+    /**
+     * @param b The bytes.
+     * @return The FNV-1a hash of {@code b}.
+     */
+    private static int hash(byte[] b) {
+        int h = 0x811c9dc5;
+        for (byte x : b) {
+            h = (h ^ (x & 0xFF)) * 0x01000193;
+        }
+        return h;
+    }
+
+    /**
+     * @param b The bytes of a code.
+     * @param code An ASCII code.
+     * @param l The length of {@code code}.
+     * @return {@code true} if {@code b} are the bytes of {@code code}.
+     */
+    private static boolean equals(byte[] b, String code, int l) {
+        if (b.length != l) {
+            return false;
+        }
+        for (int j = 0; j < l; j++) {
+            if (b[j] != code.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equals(byte[] b, UKP_CSVScanner s, int c, int l) {
+        if (b.length != l) {
+            return false;
+        }
+        for (int j = 0; j < l; j++) {
+            if (b[j] != s.getByte(c, j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds a code that is not in the dictionary.
+     *
+     * @param code The code.
+     * @param b The bytes of {@code code}.
+     * @param h The hash of {@code b}.
+     * @param slot The empty slot of {@link #table} found for {@code code}.
+     * @return The id of {@code code}.
+     */
+    private int add(String code, byte[] b, int h, int slot) {
+        if (n == codes.length) {
+            int l = n * 2;
+            codes = Arrays.copyOf(codes, l);
+            bytes = Arrays.copyOf(bytes, l);
+            hashes = Arrays.copyOf(hashes, l);
+        }
+        int id = n;
+        codes[id] = code;
+        bytes[id] = b;
+        hashes[id] = h;
+        table[slot] = id + 1;
+        n++;
+        if (n * 2 > table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Doubles the size of {@link #table}.
+     */
+    private void rehash() {
+        table = new int[table.length * 2];
+        int m = table.length - 1;
+        for (int id = 0; id < n; id++) {
+            int i = hashes[id] & m;
+            while (table[i] != 0) {
+                i = (i + 1) & m;
+            }
+            table[i] = id + 1;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A map from long keys to int values held in two arrays using open addressing
+ * with linear probing, so no object is created per entry as it would be for a
+ * {@code HashMap<Long, Integer>}. The key {@link UKP_PostcodeKey#NONE} (-1)
+ * cannot be stored.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_LongIntMap implements Serializable {
+
+    /**
+     * The value returned by {@link #get(long)} for keys that are not in the
+     * map.
+     */
+    public static final int MISSING = -1;
+
+    /**
+     * The keys with {@link UKP_PostcodeKey#NONE} for empty slots.
+     */
+    protected long[] keys;
+
+    /**
+     * The values.
+     */
+    protected int[] values;
+
+    /**
+     * The number of entries.
+     */
+    protected int n;
+
+    /**
+     * @param capacity The expected number of entries.
+     */
+    public UKP_LongIntMap(int capacity) {
+        int l = 16;
+        while (l < capacity * 2) {
+            l <<= 1;
+        }
+        keys = new long[l];
+        Arrays.fill(keys, UKP_PostcodeKey.NONE);
+        values = new int[l];
+    }
+
+    /**
+     * @param k The key.
+     * @return The slot for {@code k} which is either where it is or the empty
+     * slot where it would go.
+     */
+    private int slot(long k) {
+        int m = keys.length - 1;
+        long h = k * 0x9E3779B97F4A7C15L;
+        int i = (int) (h ^ (h >>> 32)) & m;
+        while (keys[i] != k && keys[i] != UKP_PostcodeKey.NONE) {
+            i = (i + 1) & m;
+        }
+        return i;
+    }
+
+    /**
+     * @param k The key.
+     * @return The value for {@code k} or {@link #MISSING}.
+     */
+    public int get(long k) {
+        /**
+         * NONE marks empty slots, so would otherwise match one.
+         */
+        if (k == UKP_PostcodeKey.NONE) {
+            return MISSING;
+        }
+        int i = slot(k);
+        return keys[i] == k ? values[i] : MISSING;
+    }
+
+    /**
+     * @param k The key.
+     * @param v The value.
+     * @return The previous value for {@code k} or {@link #MISSING}.
+     */
+    public int put(long k, int v) {
+        if (k == UKP_PostcodeKey.NONE) {
+            throw new IllegalArgumentException("Key " + k + " cannot be put.");
+        }
+        int i = slot(k);
+        if (keys[i] == k) {
+            int r = values[i];
+            values[i] = v;
+            return r;
+        }
+        keys[i] = k;
+        values[i] = v;
+        n++;
+        if (n * 2 > keys.length) {
+            grow();
+        }
+        return MISSING;
+    }
+
+    /**
+     * Doubles the number of slots.
+     */
+    private void grow() {
+        long[] ks = keys;
+        int[] vs = values;
+        keys = new long[ks.length * 2];
+        Arrays.fill(keys, UKP_PostcodeKey.NONE);
+        values = new int[ks.length * 2];
+        for (int j = 0; j < ks.length; j++) {
+            if (ks[j] != UKP_PostcodeKey.NONE) {
+                int i = slot(ks[j]);
+                keys[i] = ks[j];
+                values[i] = vs[j];
+            }
+        }
+    }
+
+    /**
+     * @return The number of entries.
+     */
+    public int size() {
+        return n;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.util;
+
+/**
+ * For encoding postcodes (as formatted by
+ * {@link uk.ac.leeds.ccg.data.ukp.data.UKP_Data#formatPostcode(java.lang.String)})
+ * as long keys. Each character is encoded in 6 bits: 0 for no character; 1 to
+ * 10 for the digits 0 to 9; and 11 to 36 for the letters A to Z (lower case
+ * letters are encoded as upper case). Characters are packed from the most
+ * significant end of the lowest 60 bits down, so up to {@link #MAX_LENGTH}
+ * characters can be encoded, the top 4 bits are never set and the order of
+ * keys is the same as the order of the (upper case) postcodes as Strings.
+ *
+ * Encoding and decoding do not allocate other than for the String returned by
+ * {@link #decode(long)}, so keys can be used to look up postcodes without
+ * creating Strings.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_PostcodeKey {
+
+    /**
+     * The key returned for postcodes that cannot be encoded. This is not the
+     * key of any postcode.
+     */
+    public static final long NONE = -1L;
+
+    /**
+     * The maximum number of characters of a postcode that can be encoded.
+     */
+    public static final int MAX_LENGTH = 10;
+
+    /**
+     * The number of bits used to encode a character.
+     */
+    public static final int BITS = 6;
+
+    private UKP_PostcodeKey() {
+    }
+
+    /**
+     * @param c The character to encode.
+     * @return The code for {@code c} or {@code -1} if it cannot be encoded.
+     */
+    public static int encode(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 1;
+        } else if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 11;
+        } else if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 11;
+        }
+        return -1;
+    }
+
+    /**
+     * @param code The code of a character.
+     * @return The character for {@code code}.
+     */
+    public static char decode(int code) {
+        if (code <= 10) {
+            return (char) ('0' + code - 1);
+        }
+        return (char) ('A' + code - 11);
+    }
+
+    /**
+     * @param p The postcode to encode.
+     * @return The key for {@code p} or {@link #NONE} if {@code p} is
+     * {@code null}, empty, longer than {@link #MAX_LENGTH} or contains
+     * characters other than letters and digits.
+     */
+    public static long encode(CharSequence p) {
+        if (p == null) {
+            return NONE;
+        }
+        int l = p.length();
+        if (l == 0 || l > MAX_LENGTH) {
+            return NONE;
+        }
+        long r = 0L;
+        for (int i = 0; i < l; i++) {
+            int c = encode(p.charAt(i));
+            if (c < 0) {
+                return NONE;
+            }
+            r |= ((long) c) << (BITS * (MAX_LENGTH - 1 - i));
+        }
+        return r;
+    }
+
+    /**
+     * @param k The key.
+     * @return The number of characters in the postcode of {@code k}.
+     */
+    public static int getLength(long k) {
+        int l = 0;
+        while (l < MAX_LENGTH && getCode(k, l) != 0) {
+            l++;
+        }
+        return l;
+    }
+
+    /**
+     * @param k The key.
+     * @param i The index of the character.
+     * @return The code of the character at index {@code i} of the postcode of
+     * {@code k} or {@code 0} if there is no such character.
+     */
+    public static int getCode(long k, int i) {
+        return (int) ((k >>> (BITS * (MAX_LENGTH - 1 - i))) & 0x3F);
+    }
+
+    /**
+     * @param k The key to decode.
+     * @return The postcode for {@code k} or {@code null} if {@code k} is
+     * {@link #NONE}.
+     */
+    public static String decode(long k) {
+        if (k == NONE) {
+            return null;
+        }
+        int l = getLength(k);
+        char[] cs = new char[l];
+        for (int i = 0; i < l; i++) {
+            cs[i] = decode(getCode(k, i));
+        }
+        return new String(cs);
+    }
+
+    /**
+     * @param k The key.
+     * @param l The number of characters to keep.
+     * @return The key of the first {@code l} characters of the postcode of
+     * {@code k}.
+     */
+    public static long truncate(long k, int l) {
+        if (l <= 0) {
+            return 0L;
+        }
+        int shift = BITS * (MAX_LENGTH - l);
+        return (k >>> shift) << shift;
+    }
+
+    /**
+     * The inward code of a unit postcode is the last 3 characters, so the
+     * sector of "LS29JT" is "LS29" (for "LS2 9").
+     *
+     * @param k The key of a unit postcode.
+     * @return The key of the postcode sector of {@code k} or {@link #NONE} if
+     * the postcode is shorter than 5 characters.
+     */
+    public static long getSector(long k) {
+        int l = getLength(k);
+        if (k == NONE || l < 5) {
+            return NONE;
+        }
+        return truncate(k, l - 2);
+    }
+
+    /**
+     * @param k The key of a unit postcode.
+     * @return The key of the postcode district of {@code k} (the outward code)
+     * or {@link #NONE} if the postcode is shorter than 5 characters.
+     */
+    public static long getDistrict(long k) {
+        int l = getLength(k);
+        if (k == NONE || l < 5) {
+            return NONE;
+        }
+        return truncate(k, l - 3);
+    }
+
+    /**
+     * @param k The key of a postcode.
+     * @return The key of the postcode area of {@code k} (the letters before
+     * the first digit) or {@link #NONE} if the postcode does not start with a
+     * letter.
+     */
+    public static long getArea(long k) {
+        if (k == NONE) {
+            return NONE;
+        }
+        int l = 0;
+        while (l < MAX_LENGTH && getCode(k, l) > 10) {
+            l++;
+        }
+        if (l == 0) {
+            return NONE;
+        }
+        return truncate(k, l);
+    }
+
+    /**
+     * @param k The key.
+     * @param prefix The key of a prefix.
+     * @return {@code true} if the postcode of {@code k} starts with the
+     * postcode of {@code prefix}.
+     */
+    public static boolean startsWith(long k, long prefix) {
+        int l = getLength(prefix);
+        if (l == 0) {
+            return true;
+        }
+        int shift = BITS * (MAX_LENGTH - l);
+        return (k >>> shift) == (prefix >>> shift);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.util;
+
+/**
+ * For normalising postcodes: anything that is not a Roman letter (A-Z or a-z)
+ * or a digit (0-9) is removed and lower case letters are made upper case, so
+ * " ls2 9jt" becomes "LS29JT". This is done in a single pass over the
+ * characters without using regular expressions.
+ *
+ * {@link #normalise(String)} only creates a new String if the postcode is not
+ * already normalised. The other methods write into a buffer supplied by the
+ * caller or produce a key (see {@link UKP_PostcodeKey}) and do not allocate.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_PostcodeNormaliser {
+
+    private UKP_PostcodeNormaliser() {
+    }
+
+    /**
+     * @param c The character.
+     * @return The upper case of {@code c} if it is a letter, {@code c} if it is
+     * a digit and {@code 0} otherwise.
+     */
+    public static char normalise(char c) {
+        if ((c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z')) {
+            return c;
+        } else if (c >= 'a' && c <= 'z') {
+            return (char) (c - ('a' - 'A'));
+        }
+        return 0;
+    }
+
+    /**
+     * @param p The postcode.
+     * @return The normalised postcode, which is {@code p} if it is already
+     * normalised, or "" if {@code p} is {@code null}.
+     */
+    public static String normalise(String p) {
+        if (p == null) {
+            return "";
+        }
+        int l = p.length();
+        int i = 0;
+        while (i < l) {
+            char c = p.charAt(i);
+            if (normalise(c) != c) {
+                break;
+            }
+            i++;
+        }
+        if (i == l) {
+            return p;
+        }
+        char[] cs = new char[l];
+        p.getChars(0, i, cs, 0);
+        int n = normalise(p, i, cs, i);
+        return new String(cs, 0, Math.min(n, l));
+    }
+
+    /**
+     * Writes the normalised postcode into {@code buf}.
+     *
+     * @param p The postcode.
+     * @param buf The buffer to write into from the start.
+     * @return The length of the normalised postcode. If this is greater than
+     * the length of {@code buf} then only the first {@code buf.length}
+     * characters were written.
+     */
+    public static int normalise(CharSequence p, char[] buf) {
+        return normalise(p, 0, buf, 0);
+    }
+
+    /**
+     * @param p The postcode.
+     * @param from The index in {@code p} to start from.
+     * @param buf The buffer to write into.
+     * @param n The index in {@code buf} to start writing at.
+     * @return The index in {@code buf} after the last character of the
+     * normalised postcode (which may be beyond the end of {@code buf}).
+     */
+    private static int normalise(CharSequence p, int from, char[] buf, int n) {
+        int l = p.length();
+        for (int i = from; i < l; i++) {
+            char c = normalise(p.charAt(i));
+            if (c != 0) {
+                if (n < buf.length) {
+                    buf[n] = c;
+                }
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Appends the normalised postcode to {@code sb}.
+     *
+     * @param p The postcode.
+     * @param sb The buffer to append to.
+     * @return {@code sb}
+     */
+    public static StringBuilder normalise(CharSequence p, StringBuilder sb) {
+        int l = p.length();
+        for (int i = 0; i < l; i++) {
+            char c = normalise(p.charAt(i));
+            if (c != 0) {
+                sb.append(c);
+            }
+        }
+        return sb;
+    }
+
+    /**
+     * Normalises and encodes {@code p} in one pass.
+     *
+     * @param p The postcode.
+     * @return The key of the normalised postcode or
+     * {@link UKP_PostcodeKey#NONE} if {@code p} is {@code null} or the
+     * normalised postcode is empty or too long to encode.
+     */
+    public static long toKey(CharSequence p) {
+        if (p == null) {
+            return UKP_PostcodeKey.NONE;
+        }
+        int l = p.length();
+        long r = 0L;
+        int n = 0;
+        for (int i = 0; i < l; i++) {
+            int c = UKP_PostcodeKey.encode(p.charAt(i));
+            if (c >= 0) {
+                if (n == UKP_PostcodeKey.MAX_LENGTH) {
+                    return UKP_PostcodeKey.NONE;
+                }
+                r |= ((long) c) << (UKP_PostcodeKey.BITS
+                        * (UKP_PostcodeKey.MAX_LENGTH - 1 - n));
+                n++;
+            }
+        }
+        if (n == 0) {
+            return UKP_PostcodeKey.NONE;
+        }
+        return r;
+    }
+}
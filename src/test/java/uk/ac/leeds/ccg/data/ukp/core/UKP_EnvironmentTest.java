@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.core;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.TreeMap;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.leeds.ccg.data.core.Data_Environment;
+import uk.ac.leeds.ccg.data.ukp.data.UKP_Data;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_PointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_SegmentedPointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2016_02Feb;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_ONSPDGenerator;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_PostcodeFilter;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_YM3;
+import uk.ac.leeds.ccg.generic.core.Generic_Environment;
+import uk.ac.leeds.ccg.generic.io.Generic_Defaults;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class UKP_EnvironmentTest {
+
+    @TempDir
+    Path dir;
+
+    public UKP_EnvironmentTest() {
+    }
+
+    /**
+     * Test of updateONSPDLookups method, of class UKP_Environment.
+     *
+     * @throws java.lang.Exception If encountered.
+     */
+    @Test
+    public void testUpdateONSPDLookups() throws Exception {
+        System.out.println("updateONSPDLookups");
+        UKP_Environment instance = new UKP_Environment(new Data_Environment(
+                new Generic_Environment(new Generic_Defaults())), dir);
+        UKP_Data h = instance.getHandler();
+        h.setFilter(UKP_PostcodeFilter.ALL);
+        Path in = instance.files.getInputONSPDDir();
+        UKP_YM3 a = new UKP_YM3(2020, 2);
+        Path f0 = in.resolve("ONSPD_FEB_2020_UK").resolve("Data")
+                .resolve("ONSPD_FEB_2020_UK.csv");
+        Files.createDirectories(f0.getParent());
+        new UKP_ONSPDGenerator(ONSPD_Record_2016_02Feb.HEADER, 0).write(f0,
+                20000);
+        TreeMap<UKP_YM3, Path> fs = new TreeMap<>();
+        fs.put(a, f0);
+        UKP_SegmentedPointLookup l0 = UKP_SegmentedPointLookup.of(
+                h.getPostcodeUnitPointLookups(true, fs, h.getLookupFilename())
+                        .get(a));
+        TreeMap<Integer, TreeMap<UKP_YM3, UKP_PointLookup>> ls
+                = new TreeMap<>();
+        ls.put(UKP_Data.TYPE_UNIT, new TreeMap<>());
+        ls.get(UKP_Data.TYPE_UNIT).put(a, l0);
+        instance.setONSPDlookups(ls);
+        // Unpack a release with the last postcode removed.
+        UKP_YM3 b = new UKP_YM3(2020, 5);
+        Path f1 = in.resolve("ONSPD_MAY_2020_UK").resolve("Data")
+                .resolve("ONSPD_MAY_2020_UK.csv");
+        Files.createDirectories(f1.getParent());
+        List<String> lines = Files.readAllLines(f0);
+        lines.remove(lines.size() - 1);
+        Files.write(f1, lines);
+        instance.updateONSPDLookups();
+        UKP_LookupRegistry r = instance.getRegistry();
+        assertSame(l0, r.get(UKP_Data.TYPE_UNIT, a));
+        UKP_PointLookup l1 = r.get(UKP_Data.TYPE_UNIT, b);
+        assertNotNull(l1);
+        assertNotNull(r.get(UKP_Data.TYPE_SECTOR, b));
+        assertTrue(l1 instanceof UKP_SegmentedPointLookup);
+        assertTrue(((UKP_SegmentedPointLookup) l1).getSharedSegmentCount(l0)
+                > 0);
+    }
+}
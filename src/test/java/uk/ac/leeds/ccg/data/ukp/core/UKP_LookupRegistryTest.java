@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.core;
+
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import uk.ac.leeds.ccg.data.ukp.data.UKP_Data;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_ArrayPointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_GridIndex;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_PointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Point;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_YM3;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class UKP_LookupRegistryTest {
+
+    public UKP_LookupRegistryTest() {
+    }
+
+    /**
+     * Test of get and getGridIndex methods, of class UKP_LookupRegistry.
+     */
+    @Test
+    public void testGet() {
+        System.out.println("get");
+        UKP_YM3 a = new UKP_YM3(2016, 2);
+        UKP_YM3 b = new UKP_YM3(2016, 5);
+        TreeMap<String, ONSPD_Point> m = new TreeMap<>();
+        m.put("LS29JT", new ONSPD_Point(429857, 434771));
+        UKP_PointLookup l = UKP_ArrayPointLookup.of(m);
+        TreeMap<Integer, TreeMap<UKP_YM3, UKP_PointLookup>> ls
+                = new TreeMap<>();
+        ls.put(UKP_Data.TYPE_UNIT, new TreeMap<>());
+        ls.get(UKP_Data.TYPE_UNIT).put(a, l);
+        UKP_LookupRegistry instance = new UKP_LookupRegistry(ls);
+        // Changes to the map do not change the registry.
+        ls.get(UKP_Data.TYPE_UNIT).put(b, l);
+        assertSame(l, instance.get(UKP_Data.TYPE_UNIT, a));
+        assertNull(instance.get(UKP_Data.TYPE_UNIT, b));
+        assertNull(instance.get(UKP_Data.TYPE_SECTOR, a));
+        assertEquals(1, instance.getLookups().get(UKP_Data.TYPE_UNIT).size());
+        // Concurrent first requests all get the same index.
+        List<UKP_GridIndex> gs = IntStream.range(0, 64).parallel()
+                .mapToObj(i -> instance.getGridIndex(a))
+                .collect(Collectors.toList());
+        for (UKP_GridIndex g : gs) {
+            assertSame(gs.get(0), g);
+        }
+        assertEquals(0, gs.get(0).getNearest(0, 0));
+        assertNull(instance.getGridIndex(b));
+    }
+}
@@ -19,16 +19,24 @@ import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
 import uk.ac.leeds.ccg.data.core.Data_Environment;
 import uk.ac.leeds.ccg.data.id.Data_RecordID;
 import uk.ac.leeds.ccg.data.ukp.core.UKP_Environment;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_ArrayPointLookup;
 import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Point;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_CSVScanner;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_ONSPDGenerator;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_PostcodeFilter;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
 import uk.ac.leeds.ccg.data.ukp.util.UKP_YM3;
 import uk.ac.leeds.ccg.generic.core.Generic_Environment;
 import uk.ac.leeds.ccg.generic.io.Generic_Defaults;
@@ -38,6 +46,9 @@ import uk.ac.leeds.ccg.generic.io.Generic_Defaults;
  * @author geoagdt
  */
 public class UKP_DataTest {
+
+    @TempDir
+    Path dir;
     
     public UKP_DataTest() {
     }
@@ -114,4 +125,89 @@ public class UKP_DataTest {
         assertEquals(expResult, result);
     }
 
+    /**
+     * Test of initPostcodeUnitPointLookup method, of class UKP_Data.
+     *
+     * @throws java.lang.Exception If encountered.
+     */
+    @Test
+    public void testInitPostcodeUnitPointLookup() throws Exception {
+        System.out.println("initPostcodeUnitPointLookup");
+        testInitPostcodeUnitPointLookup(100000, 86000);
+    }
+
+    /**
+     * Test of initPostcodeUnitPointLookup method, of class UKP_Data, for a
+     * lookup of the whole UK. This is slow so only runs if the system property
+     * ukp.large is true, e.g. {@code mvn test -Dukp.large=true}.
+     *
+     * @throws java.lang.Exception If encountered.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "ukp.large", matches = "true")
+    public void testInitPostcodeUnitPointLookupLarge() throws Exception {
+        System.out.println("initPostcodeUnitPointLookupLarge");
+        testInitPostcodeUnitPointLookup(3000000, 2600000);
+    }
+
+    /**
+     * @param n The number of postcodes to generate.
+     * @param min The least number of these expected to have points.
+     * @throws java.lang.Exception If encountered.
+     */
+    private void testInitPostcodeUnitPointLookup(int n, int min)
+            throws Exception {
+        Path f = dir.resolve("ONSPD.csv");
+        new UKP_ONSPDGenerator("pcd,oseast1m,osnrth1m", 0).write(f, n);
+        UKP_Data instance = new UKP_Data(new UKP_Environment(
+                new Data_Environment(new Generic_Environment(
+                        new Generic_Defaults())), dir));
+        instance.setFilter(UKP_PostcodeFilter.ALL);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        UKP_ArrayPointLookup result;
+        long rangeBytes = 0;
+        try {
+            for (UKP_ArrayPointLookup.Builder b
+                    : instance.readPostcodeUnitPoints(f, true, pool, 8)) {
+                rangeBytes += b.getMemoryBytes();
+            }
+            result = instance.initPostcodeUnitPointLookup(f, true, pool, 8);
+        } finally {
+            pool.shutdown();
+        }
+        // Check against the file.
+        int count = 0;
+        try (UKP_CSVScanner s = new UKP_CSVScanner(f)) {
+            s.next();
+            while (s.next()) {
+                int x = s.getInt(1, -1);
+                int y = s.getInt(2, -1);
+                if (x > 0 && y > 0) {
+                    if (count % 1000 == 0) {
+                        int i = result.indexOf(UKP_PostcodeKey.encode(
+                                s.getString(0).replace(" ", "")));
+                        assertTrue(i >= 0);
+                        assertEquals(x, result.getX(i));
+                        assertEquals(y, result.getY(i));
+                    }
+                    count++;
+                }
+            }
+        }
+        assertTrue(count > min);
+        assertEquals(count, result.size());
+        for (int i = 1; i < result.size(); i++) {
+            assertTrue(result.getKey(i - 1) < result.getKey(i));
+        }
+        /**
+         * At most 48 bytes per postcode: while merging the range builders
+         * are held with the merged builder, then while building the merged
+         * builder is held with the sort order and the lookup.
+         */
+        long merged = (long) count * UKP_ArrayPointLookup.BYTES_PER_POSTCODE;
+        assertTrue(rangeBytes + merged <= 48L * count);
+        assertTrue(merged + 2L * count * Integer.BYTES
+                + result.getMemoryBytes() <= 48L * count);
+    }
+
 }
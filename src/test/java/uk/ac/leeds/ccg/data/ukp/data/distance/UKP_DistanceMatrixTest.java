@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.distance;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_ArrayPointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_PointTable;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Point;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class UKP_DistanceMatrixTest {
+
+    public UKP_DistanceMatrixTest() {
+    }
+
+    /**
+     * Test of getDistances method, of class UKP_DistanceMatrix.
+     */
+    @Test
+    public void testGetDistances() {
+        System.out.println("getDistances");
+        String[] ps = {"L18JQ", "LS29JT", "LS29JU", "W1A1AA"};
+        long[] keys = new long[ps.length];
+        int[] xs = {334000, 429900, 430100, 528900};
+        int[] ys = {390000, 433800, 433700, 181500};
+        for (int i = 0; i < ps.length; i++) {
+            keys[i] = UKP_PostcodeKey.encode(ps[i]);
+        }
+        UKP_ArrayPointLookup l = new UKP_ArrayPointLookup(keys, xs, ys);
+        UKP_PointTable a = UKP_DistanceMatrix.resolve(l,
+                new String[]{"ls2 9jt", "XX11XX", "W1A 1AA"});
+        assertEquals(1, UKP_DistanceMatrix.countMissing(a));
+        // Enough origins to be split into blocks.
+        Random r = new Random(0);
+        int nb = 500;
+        String[] bps = new String[nb];
+        for (int j = 0; j < nb; j++) {
+            bps[j] = j % 50 == 0 ? "" : ps[r.nextInt(ps.length)];
+        }
+        UKP_PointTable b = UKP_DistanceMatrix.resolve(l, bps);
+        int na = 100;
+        int[] axs = new int[na];
+        int[] ays = new int[na];
+        for (int i = 0; i < na; i++) {
+            axs[i] = 300000 + r.nextInt(200000);
+            ays[i] = 200000 + r.nextInt(300000);
+        }
+        axs[7] = UKP_DistanceMatrix.MISSING;
+        ays[7] = UKP_DistanceMatrix.MISSING;
+        UKP_PointTable a2 = new UKP_PointTable(axs, ays);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        double[] d = UKP_DistanceMatrix.getDistances(a2, b, pool);
+        assertArrayEquals(d, UKP_DistanceMatrix.getDistances(a2, b, null));
+        int[] is = new int[na * nb];
+        int[] js = new int[na * nb];
+        for (int i = 0; i < na; i++) {
+            for (int j = 0; j < nb; j++) {
+                int k = i * nb + j;
+                is[k] = i;
+                js[k] = j;
+                if (i == 7 || j % 50 == 0) {
+                    assertTrue(Double.isNaN(d[k]));
+                } else {
+                    assertEquals(new ONSPD_Point(axs[i], ays[i]).getDistance(
+                            new ONSPD_Point(b.getX(j), b.getY(j))), d[k]);
+                }
+            }
+        }
+        assertArrayEquals(d, UKP_DistanceMatrix.getDistances(a2, b, is, js,
+                pool));
+        // From a task in the pool.
+        assertArrayEquals(d, pool.submit(() -> UKP_DistanceMatrix.getDistances(
+                a2, b, is, js, pool)).join());
+        pool.shutdown();
+        d = UKP_DistanceMatrix.getDistances(a, a, null);
+        assertEquals(0d, d[0]);
+        assertTrue(Double.isNaN(d[1]));
+        assertEquals(new ONSPD_Point(xs[1], ys[1]).getDistance(
+                new ONSPD_Point(xs[3], ys[3])), d[2]);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.lookup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class UKP_ArrayPointLookupTest {
+
+    public UKP_ArrayPointLookupTest() {
+    }
+
+    /**
+     * Test of build method, of class UKP_ArrayPointLookup.Builder.
+     */
+    @Test
+    public void testBuild() {
+        System.out.println("build");
+        // Out of order with duplicates: the last added of a key is used.
+        UKP_ArrayPointLookup.Builder b = new UKP_ArrayPointLookup.Builder(2);
+        b.add(30L, 3, 3);
+        b.add(10L, 1, 1);
+        b.add(20L, 2, 2);
+        b.add(10L, 11, 11);
+        b.add(30L, 33, 33);
+        b.add(5L, 0, 0);
+        b.add(10L, 111, 111);
+        assertEquals(7, b.size());
+        UKP_ArrayPointLookup instance = b.build();
+        assertEquals(4, instance.size());
+        long[] keys = {5L, 10L, 20L, 30L};
+        int[] xs = {0, 111, 2, 33};
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(keys[i], instance.getKey(i));
+            assertEquals(i, instance.indexOf(keys[i]));
+            assertEquals(xs[i], instance.getX(i));
+            assertEquals(xs[i], instance.getY(i));
+        }
+        assertTrue(instance.indexOf(15L) < 0);
+        // Nothing added.
+        assertEquals(0, new UKP_ArrayPointLookup.Builder(0).build().size());
+        // Random order with duplicates and merged builders compared with a
+        // TreeMap.
+        Random r = new Random(0);
+        TreeMap<Long, int[]> m = new TreeMap<>();
+        List<UKP_ArrayPointLookup.Builder> bs = new ArrayList<>();
+        for (int j = 0; j < 4; j++) {
+            UKP_ArrayPointLookup.Builder bj = new UKP_ArrayPointLookup.Builder(
+                    1);
+            for (int i = 0; i < 10000; i++) {
+                long k = r.nextInt(20000);
+                int x = r.nextInt(700000);
+                int y = r.nextInt(1300000);
+                bj.add(k, x, y);
+                m.put(k, new int[]{x, y});
+            }
+            bs.add(bj);
+        }
+        instance = UKP_ArrayPointLookup.Builder.merge(bs).build();
+        assertEquals(m.size(), instance.size());
+        int i = 0;
+        for (Long k : m.keySet()) {
+            assertEquals(k.longValue(), instance.getKey(i));
+            assertEquals(m.get(k)[0], instance.getX(i));
+            assertEquals(m.get(k)[1], instance.getY(i));
+            i++;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.lookup;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import uk.ac.leeds.ccg.data.ukp.data.UKP_Data;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class UKP_CentroidAggregatorTest {
+
+    public UKP_CentroidAggregatorTest() {
+    }
+
+    /**
+     * Test of build method, of class UKP_CentroidAggregator.
+     */
+    @Test
+    public void testBuild() {
+        System.out.println("build");
+        UKP_CentroidAggregator instance = new UKP_CentroidAggregator(true);
+        instance.add(UKP_PostcodeKey.encode("LS29JT"), 100, 200);
+        instance.add(UKP_PostcodeKey.encode("LS29JU"), 300, 100);
+        instance.add(UKP_PostcodeKey.encode("LS29JX"), 0, 0);
+        instance.add(UKP_PostcodeKey.encode("LS21AB"), 500, 600);
+        instance.add(UKP_PostcodeKey.encode("LS110AA"), 700, 800);
+        instance.add(UKP_PostcodeKey.encode("L18JQ"), 10, 20);
+        UKP_CentroidLookup sectors = instance.build(UKP_Data.TYPE_SECTOR);
+        assertEquals(4, sectors.size());
+        int i = sectors.indexOf(UKP_PostcodeKey.encode("LS29"));
+        assertTrue(i >= 0);
+        assertEquals(2, sectors.getCount(i));
+        assertEquals(200, sectors.getX(i));
+        assertEquals(150, sectors.getY(i));
+        assertEquals(100, sectors.getMinX(i));
+        assertEquals(100, sectors.getMinY(i));
+        assertEquals(300, sectors.getMaxX(i));
+        assertEquals(200, sectors.getMaxY(i));
+        assertTrue(sectors.indexOf(UKP_PostcodeKey.encode("L18")) >= 0);
+        UKP_CentroidLookup districts = instance.build(UKP_Data.TYPE_DISTRICT);
+        assertEquals(3, districts.size());
+        i = districts.indexOf(UKP_PostcodeKey.encode("LS2"));
+        assertEquals(3, districts.getCount(i));
+        assertEquals(300, districts.getX(i));
+        assertEquals(300, districts.getY(i));
+        UKP_CentroidLookup areas = instance.build(UKP_Data.TYPE_AREA);
+        assertEquals(2, areas.size());
+        assertEquals(4, areas.getCount(areas.indexOf(
+                UKP_PostcodeKey.encode("LS"))));
+        for (int j = 1; j < areas.size(); j++) {
+            assertTrue(areas.getKey(j - 1) < areas.getKey(j));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.lookup;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2016_02Feb;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Schema;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_CSVScanner;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_ONSPDGenerator;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class UKP_CodeStoreTest {
+
+    @TempDir
+    Path dir;
+
+    public UKP_CodeStoreTest() {
+    }
+
+    /**
+     * Test of build method, of class UKP_CodeStore.Builder.
+     *
+     * @throws java.lang.Exception If encountered.
+     */
+    @Test
+    public void testBuild() throws Exception {
+        System.out.println("build");
+        int n = 20000;
+        Path f = dir.resolve("ONSPD.csv");
+        new UKP_ONSPDGenerator(ONSPD_Record_2016_02Feb.HEADER, 0).write(f, n);
+        ONSPD_Schema schema = ONSPD_Schema.get(ONSPD_Record_2016_02Feb.HEADER);
+        String[] names = schema.getAreaCodeColumns();
+        assertEquals("oscty", names[0]);
+        assertEquals(-1, Arrays.asList(names).indexOf("oseast1m"));
+        int[] fields = new int[names.length];
+        for (int c = 0; c < names.length; c++) {
+            fields[c] = schema.getIndex(names[c]);
+        }
+        int pcd = schema.getIndex("pcd");
+        UKP_CodeStore.Builder b = new UKP_CodeStore.Builder(names, 16);
+        HashMap<Long, String[]> m = new HashMap<>();
+        try (UKP_CSVScanner s = new UKP_CSVScanner(f)) {
+            s.next();
+            while (s.next()) {
+                long k = s.getPostcodeKey(pcd);
+                b.add(k, s, fields);
+                String[] cs = new String[names.length];
+                for (int c = 0; c < names.length; c++) {
+                    cs[c] = s.getString(fields[c]);
+                }
+                m.put(k, cs);
+            }
+        }
+        // Codes added later for the same postcode replace earlier ones.
+        long k0 = m.keySet().iterator().next();
+        String[] cs0 = new String[names.length];
+        cs0[0] = "E10000099";
+        b.add(k0, cs0);
+        m.put(k0, cs0);
+        UKP_CodeStore instance = b.build();
+        assertEquals(n, instance.size());
+        for (int i = 1; i < n; i++) {
+            assertTrue(instance.getKey(i - 1) < instance.getKey(i));
+        }
+        int ctry = instance.getColumnIndex("CTRY");
+        for (long k : m.keySet()) {
+            String[] cs = m.get(k);
+            int i = instance.indexOf(k);
+            for (int c = 0; c < names.length; c++) {
+                String e = cs[c] == null || cs[c].isEmpty() ? null : cs[c];
+                assertEquals(e, instance.getCode(k, c));
+            }
+            if (cs[ctry] != null) {
+                assertSame(instance.getCode(i, ctry), instance.getDictionary(
+                        ctry)[instance.getId(i, ctry)]);
+            }
+        }
+        assertNull(instance.getCode(UKP_PostcodeKey.encode("ZZ999ZZ"), 0));
+        // At most 2 bytes per code and 1 for ctry.
+        assertTrue(instance.getMemoryBytes()
+                < (long) n * (Long.BYTES + names.length * 2));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.lookup;
+
+import java.util.Arrays;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class UKP_GridIndexTest {
+
+    public UKP_GridIndexTest() {
+    }
+
+    /**
+     * Test of getNearest and forEachWithinDistance methods, of class
+     * UKP_GridIndex.
+     */
+    @Test
+    public void testGetNearest() {
+        System.out.println("getNearest");
+        Random r = new Random(0);
+        int n = 2000;
+        long[] keys = new long[n];
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = i;
+            // Clustered points and some at the origin.
+            if (i % 100 == 0) {
+                continue;
+            }
+            int c = r.nextInt(4);
+            xs[i] = 400000 + c * 20000 + (int) (r.nextGaussian() * 3000);
+            ys[i] = 300000 + c * 15000 + (int) (r.nextGaussian() * 3000);
+        }
+        UKP_ArrayPointLookup units = new UKP_ArrayPointLookup(keys, xs, ys);
+        UKP_GridIndex instance = new UKP_GridIndex(units, 500, true);
+        assertEquals(n - n / 100, instance.size());
+        int k = 5;
+        int[] nn = new int[k];
+        long[] d2s = new long[k];
+        for (int q = 0; q < 500; q++) {
+            int x = 380000 + r.nextInt(100000);
+            int y = 280000 + r.nextInt(90000);
+            assertEquals(k, instance.getNearest(x, y, nn, d2s));
+            // Brute force.
+            long[] bd = new long[k];
+            int[] bi = new int[k];
+            Arrays.fill(bd, Long.MAX_VALUE);
+            for (int i = 0; i < n; i++) {
+                if (i % 100 == 0) {
+                    continue;
+                }
+                long dx = xs[i] - x;
+                long dy = ys[i] - y;
+                long d2 = dx * dx + dy * dy;
+                int j = k;
+                while (j > 0 && bd[j - 1] > d2) {
+                    j--;
+                }
+                if (j < k) {
+                    System.arraycopy(bd, j, bd, j + 1, k - j - 1);
+                    System.arraycopy(bi, j, bi, j + 1, k - j - 1);
+                    bd[j] = d2;
+                    bi[j] = i;
+                }
+            }
+            assertArrayEquals(bd, d2s);
+            assertEquals(bi[0], instance.getNearest(x, y));
+            int d = 2000;
+            int[] count = new int[1];
+            int c = instance.forEachWithinDistance(x, y, d, i -> {
+                long dx = xs[i] - x;
+                long dy = ys[i] - y;
+                assertTrue(dx * dx + dy * dy <= (long) d * d);
+                count[0]++;
+            });
+            int bc = 0;
+            for (int i = 0; i < n; i++) {
+                long dx = xs[i] - x;
+                long dy = ys[i] - y;
+                if (i % 100 != 0 && dx * dx + dy * dy <= (long) d * d) {
+                    bc++;
+                }
+            }
+            assertEquals(bc, c);
+            assertEquals(bc, count[0]);
+        }
+        assertEquals(n - n / 100, instance.forEachWithinBounds(0, 0,
+                Integer.MAX_VALUE - 1, Integer.MAX_VALUE - 1, i -> {
+        }));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.lookup;
+
+import java.util.Arrays;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import uk.ac.leeds.ccg.data.ukp.data.UKP_Data;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class UKP_PostcodeIndexTest {
+
+    public UKP_PostcodeIndexTest() {
+    }
+
+    /**
+     * Test of indexOf, getStart and getEnd methods, of class
+     * UKP_PostcodeIndex.
+     */
+    @Test
+    public void testIndexOf() {
+        System.out.println("indexOf");
+        String[] ps = {"A1", "L18JQ", "LS210AA", "LS21AB", "LS21AD",
+            "LS291AA", "LS29JT", "LS29JU", "W1A1AA"};
+        long[] keys = new long[ps.length];
+        for (int i = 0; i < ps.length; i++) {
+            keys[i] = UKP_PostcodeKey.encode(ps[i]);
+        }
+        Arrays.sort(keys);
+        int[] xs = new int[ps.length];
+        UKP_PostcodeIndex instance = new UKP_PostcodeIndex(
+                new UKP_ArrayPointLookup(keys, xs, xs));
+        assertEquals(ps.length - 1, instance.getUnitCount());
+        assertEquals(3, instance.getAreaCount());
+        assertEquals(5, instance.getDistrictCount());
+        assertEquals(6, instance.getSectorCount());
+        assertEquals(-1, instance.getSector(0));
+        // All units in LS2 9.
+        int s = instance.indexOf(UKP_Data.TYPE_SECTOR,
+                UKP_PostcodeKey.encode("LS29"));
+        assertTrue(s >= 0);
+        assertEquals(2, instance.getEnd(UKP_Data.TYPE_SECTOR, s)
+                - instance.getStart(UKP_Data.TYPE_SECTOR, s));
+        for (int p = instance.getStart(UKP_Data.TYPE_SECTOR, s);
+                p < instance.getEnd(UKP_Data.TYPE_SECTOR, s); p++) {
+            String u = UKP_PostcodeKey.decode(keys[instance.getUnit(p)]);
+            assertTrue(u.equals("LS29JT") || u.equals("LS29JU"));
+        }
+        // Units in district LS2 are contiguous.
+        int d = instance.indexOf(UKP_Data.TYPE_DISTRICT,
+                UKP_PostcodeKey.encode("LS2"));
+        assertEquals(4, instance.getEnd(UKP_Data.TYPE_DISTRICT, d)
+                - instance.getStart(UKP_Data.TYPE_DISTRICT, d));
+        assertEquals(d, instance.getDistrictOfSector(s));
+        int a = instance.indexOf(UKP_Data.TYPE_AREA,
+                UKP_PostcodeKey.encode("LS"));
+        assertEquals(6, instance.getEnd(UKP_Data.TYPE_AREA, a)
+                - instance.getStart(UKP_Data.TYPE_AREA, a));
+        assertEquals(a, instance.getAreaOfDistrict(d));
+        // Going up from a unit.
+        int u = Arrays.binarySearch(keys, UKP_PostcodeKey.encode("LS291AA"));
+        assertEquals(UKP_PostcodeKey.encode("LS291"), instance.getKey(
+                UKP_Data.TYPE_SECTOR, instance.getSector(u)));
+        assertEquals(UKP_PostcodeKey.encode("LS29"), instance.getKey(
+                UKP_Data.TYPE_DISTRICT, instance.getDistrict(u)));
+        assertEquals(a, instance.getArea(u));
+        assertEquals(-1, instance.indexOf(UKP_Data.TYPE_SECTOR,
+                UKP_PostcodeKey.encode("LS28")));
+        assertEquals(-1, instance.indexOf(UKP_Data.TYPE_AREA,
+                UKP_PostcodeKey.encode("M")));
+    }
+}
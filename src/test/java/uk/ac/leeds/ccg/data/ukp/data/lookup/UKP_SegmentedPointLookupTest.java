@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.lookup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeMap;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class UKP_SegmentedPointLookupTest {
+
+    public UKP_SegmentedPointLookupTest() {
+    }
+
+    /**
+     * Test of apply method, of class UKP_SegmentedPointLookup.
+     */
+    @Test
+    public void testApply() {
+        System.out.println("apply");
+        Random r = new Random(0);
+        TreeMap<Long, int[]> m = new TreeMap<>();
+        while (m.size() < 50000) {
+            m.put((long) r.nextInt(1 << 30), new int[]{r.nextInt(700000),
+                r.nextInt(1300000)});
+        }
+        UKP_ArrayPointLookup a = toLookup(m);
+        UKP_SegmentedPointLookup instance = UKP_SegmentedPointLookup.of(a);
+        assertSame(a.keys, instance.segments[0].keys);
+        check(m, instance);
+        // Changes clustered in a small part of the key range.
+        TreeMap<Long, int[]> upserts = new TreeMap<>();
+        while (upserts.size() < 5000) {
+            upserts.put((long) r.nextInt(1 << 24), new int[]{1, 2});
+        }
+        upserts.put(Long.valueOf(Integer.MAX_VALUE), new int[]{3, 4});
+        long[] removals = new long[100];
+        for (int i = 0; i < removals.length; i++) {
+            removals[i] = a.getKey(r.nextInt(1000));
+            upserts.remove(removals[i]);
+        }
+        Arrays.sort(removals);
+        UKP_ArrayPointLookup u = toLookup(upserts);
+        UKP_SegmentedPointLookup result = instance.apply(u.keys, u.points.xs,
+                u.points.ys, u.size(), removals, removals.length);
+        m.putAll(upserts);
+        for (long k : removals) {
+            m.remove(k);
+        }
+        check(m, result);
+        check(toTreeMap(a), instance);
+        int shared = result.getSharedSegmentCount(instance);
+        assertTrue(shared > 0);
+        assertTrue(shared < instance.getSegmentCount());
+        // Applying to an empty lookup.
+        result = UKP_SegmentedPointLookup.of(toLookup(new TreeMap<>()))
+                .apply(u.keys, u.points.xs, u.points.ys, u.size(),
+                        new long[0], 0);
+        check(upserts, result);
+    }
+
+    private static UKP_ArrayPointLookup toLookup(TreeMap<Long, int[]> m) {
+        UKP_ArrayPointLookup.Builder b = new UKP_ArrayPointLookup.Builder(
+                m.size());
+        m.forEach((k, p) -> b.add(k, p[0], p[1]));
+        return b.build();
+    }
+
+    private static TreeMap<Long, int[]> toTreeMap(UKP_PointLookup l) {
+        TreeMap<Long, int[]> r = new TreeMap<>();
+        for (int i = 0; i < l.size(); i++) {
+            r.put(l.getKey(i), new int[]{l.getX(i), l.getY(i)});
+        }
+        return r;
+    }
+
+    private static void check(TreeMap<Long, int[]> m, UKP_PointLookup l) {
+        assertEquals(m.size(), l.size());
+        int i = 0;
+        for (long k : m.keySet()) {
+            assertEquals(k, l.getKey(i));
+            assertEquals(i, l.indexOf(k));
+            assertArrayEquals(m.get(k), new int[]{l.getX(i), l.getY(i)});
+            if (!m.containsKey(k - 1)) {
+                assertEquals(-i - 1, l.indexOf(k - 1));
+            }
+            i++;
+        }
+        assertEquals(-m.size() - 1, l.indexOf(Long.MAX_VALUE));
+    }
+}
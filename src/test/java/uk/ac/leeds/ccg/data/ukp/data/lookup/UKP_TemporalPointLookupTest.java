@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.lookup;
+
+import java.nio.file.Path;
+import java.util.TreeMap;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Point;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_Snapshot;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_YM3;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class UKP_TemporalPointLookupTest {
+
+    @TempDir
+    Path dir;
+
+    public UKP_TemporalPointLookupTest() {
+    }
+
+    /**
+     * Test of getPoint method, of class UKP_TemporalPointLookup.
+     *
+     * @throws java.lang.Exception If encountered.
+     */
+    @Test
+    public void testGetPoint() throws Exception {
+        System.out.println("getPoint");
+        TreeMap<UKP_YM3, UKP_PointLookup> ls = new TreeMap<>();
+        UKP_YM3 a = new UKP_YM3(2010, 2);
+        UKP_YM3 b = new UKP_YM3(2012, 5);
+        UKP_YM3 c = new UKP_YM3(2014, 11);
+        // LS29JT does not move, LS29JU moves, LS29JX is terminated and
+        // LS29JY is new then moves back.
+        TreeMap<String, ONSPD_Point> m = new TreeMap<>();
+        m.put("LS29JT", new ONSPD_Point(1, 2));
+        m.put("LS29JU", new ONSPD_Point(3, 4));
+        m.put("LS29JX", new ONSPD_Point(5, 6));
+        ls.put(a, UKP_ArrayPointLookup.of(m));
+        m = new TreeMap<>();
+        m.put("LS29JT", new ONSPD_Point(1, 2));
+        m.put("LS29JU", new ONSPD_Point(30, 40));
+        m.put("LS29JY", new ONSPD_Point(7, 8));
+        ls.put(b, UKP_ArrayPointLookup.of(m));
+        m = new TreeMap<>();
+        m.put("LS29JT", new ONSPD_Point(1, 2));
+        m.put("LS29JU", new ONSPD_Point(30, 40));
+        m.put("LS29JY", new ONSPD_Point(7, 9));
+        ls.put(c, UKP_ArrayPointLookup.of(m));
+        UKP_TemporalPointLookup instance = new UKP_TemporalPointLookup(ls);
+        assertEquals(4, instance.size());
+        assertEquals(7, instance.getVersionCount());
+        for (UKP_YM3 ym3 : ls.keySet()) {
+            for (String p : new String[]{"LS29JT", "LS29JU", "LS29JX",
+                "LS29JY"}) {
+                assertEquals(ls.get(ym3).getPoint(p),
+                        instance.getPoint(p, ym3));
+            }
+        }
+        // Between and after releases.
+        assertEquals(new ONSPD_Point(3, 4), instance.getPoint("LS29JU",
+                new UKP_YM3(2011, 8)));
+        assertNull(instance.getPoint("LS29JY", new UKP_YM3(2011, 8)));
+        assertEquals(new ONSPD_Point(7, 9), instance.getPoint("LS29JY",
+                new UKP_YM3(2020, 2)));
+        assertNull(instance.getPoint("LS29JX", new UKP_YM3(2020, 2)));
+        assertNull(instance.getPoint("LS29JT", new UKP_YM3(2008, 2)));
+        assertNull(instance.getPoint("LS29JZ", b));
+        // The same from memory mapped snapshots.
+        TreeMap<UKP_YM3, UKP_PointLookup> mls = new TreeMap<>();
+        for (UKP_YM3 ym3 : ls.keySet()) {
+            Path f = dir.resolve(ym3.toString() + UKP_Snapshot.EXTENSION);
+            UKP_Snapshot.write(ls.get(ym3), f);
+            mls.put(ym3, new UKP_MappedPointLookup(f));
+        }
+        UKP_TemporalPointLookup ml = new UKP_TemporalPointLookup(mls);
+        assertEquals(instance.getVersionCount(), ml.getVersionCount());
+        for (int i = 0; i < instance.size(); i++) {
+            assertEquals(instance.getKey(i), ml.getKey(i));
+            for (int r = 0; r < ls.size(); r++) {
+                assertEquals(instance.getVersion(i, r), ml.getVersion(i, r));
+            }
+        }
+    }
+}
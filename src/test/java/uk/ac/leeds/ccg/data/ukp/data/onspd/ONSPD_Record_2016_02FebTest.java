@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.onspd;
+
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.leeds.ccg.data.core.Data_Environment;
+import uk.ac.leeds.ccg.data.id.Data_RecordID;
+import uk.ac.leeds.ccg.data.ukp.core.UKP_Environment;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_CodeDictionary;
+import uk.ac.leeds.ccg.generic.core.Generic_Environment;
+import uk.ac.leeds.ccg.generic.io.Generic_Defaults;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class ONSPD_Record_2016_02FebTest {
+
+    @TempDir
+    Path dir;
+
+    public ONSPD_Record_2016_02FebTest() {
+    }
+
+    private static String getLine(String pcd) {
+        return "\"" + pcd + "\",\"AB1  0AA\",\"" + pcd + "\",\"198001\","
+                + "\"199606\",\"S99999999\",\"S12000033\",\"S13002484\",\"0\","
+                + "\"385386\",\"0801193\",\"1\",\"S08000020\",\"S99999999\","
+                + "\"S92000003\",\"S99999999\",\"0\",\"S14000002\","
+                + "\"S15000001\",\"S09000001\",\"S22000047\",\"S03000012\","
+                + "\"S31000935\",\"99ZZ0099\",\"ZZ0099\",\"9\",\"SN9\",\"QA\","
+                + "\"SN9\",\"72UB43\",\"72UB43\",\"00QA36\",\"99ZZ00\","
+                + "\"S00001364\",\"01C30\",\"S99999999\",\"S01000011\","
+                + "\"S02000007\",\"6\",\"3C2\",\"X98\",\"S00090303\","
+                + "\"S01006514\",\"S02001237\",\"S99999999\",\"S99999999\","
+                + "\"S03000012\",\"S99999999\",\"S99999999\",\"3\",\"1C3\","
+                + "\"57.101474\",\"-2.242851\",\"S99999999\",\"S99999999\","
+                + "\"S23000009\",\"6002\"";
+    }
+
+    /**
+     * Test of getCodeId method, of class ONSPD_Record_2016_02Feb.
+     *
+     * @throws java.lang.Exception If encountered.
+     */
+    @Test
+    public void testGetCodeId() throws Exception {
+        System.out.println("getCodeId");
+        UKP_Environment e = new UKP_Environment(new Data_Environment(
+                new Generic_Environment(new Generic_Defaults())), dir);
+        UKP_CodeDictionary d = new UKP_CodeDictionary();
+        ONSPD_Record_2016_02Feb r0 = new ONSPD_Record_2016_02Feb(e,
+                new Data_RecordID(0), getLine("AB1 0AA"), d);
+        ONSPD_Record_2016_02Feb r1 = new ONSPD_Record_2016_02Feb(e,
+                new Data_RecordID(1), getLine("AB1 0AB"), d);
+        assertEquals("S12000033", r1.getOslaua());
+        assertEquals("S92000003", r1.getCtry());
+        assertEquals("S14000002", r1.getPcon());
+        assertEquals("AB1 0AB", r1.getPcds());
+        // The codes of the records are the same instances.
+        assertSame(d, r0.getCodeDictionary());
+        assertSame(r0.getOslaua(), r1.getOslaua());
+        assertSame(r0.getCtry(), r1.getCtry());
+        assertSame(r0.getPfa(), r1.getPfa());
+        int id = r0.getCodeId(r0.getOslaua());
+        assertEquals(id, r1.getCodeId(r1.getOslaua()));
+        assertSame(r1.getOslaua(), d.get(id));
+        assertNotEquals(id, r0.getCodeId(r0.getCtry()));
+        assertEquals(UKP_CodeDictionary.EMPTY, r0.getCodeId(""));
+        int n = d.size();
+        new ONSPD_Record_2016_02Feb(e, new Data_RecordID(2),
+                getLine("AB1 0AD"), d);
+        assertEquals(n, d.size());
+        // A record parsed with another dictionary has its own codes.
+        UKP_CodeDictionary d2 = new UKP_CodeDictionary();
+        ONSPD_Record_2016_02Feb r2 = new ONSPD_Record_2016_02Feb(e,
+                new Data_RecordID(3), getLine("AB1 0AE"), d2);
+        assertSame(d2, r2.getCodeDictionary());
+        assertEquals(r0.getOslaua(), r2.getOslaua());
+        assertSame(d2.get(r2.getCodeId(r2.getOslaua())), r2.getOslaua());
+        assertEquals(n, d.size());
+        // Without a dictionary the codes are as parsed.
+        ONSPD_Record_2016_02Feb r3 = new ONSPD_Record_2016_02Feb(e,
+                new Data_RecordID(4), getLine("AB1 0AF"));
+        assertNull(r3.getCodeDictionary());
+        assertEquals(r0.getOslaua(), r3.getOslaua());
+        assertEquals(-1, r3.getCodeId(r3.getOslaua()));
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.onspd;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import uk.ac.leeds.ccg.data.ukp.data.UKP_Data;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class ONSPD_SchemaTest {
+
+    public ONSPD_SchemaTest() {
+    }
+
+    /**
+     * Test of getIndex method, of class ONSPD_Schema.
+     */
+    @Test
+    public void testGetIndex() {
+        System.out.println("getIndex");
+        String oa11 = UKP_Data.getColumnName(UKP_Data.TYPE_OA, 2011);
+        ONSPD_Schema instance = ONSPD_Schema.get(
+                ONSPD_Record_2011_05May.HEADER);
+        assertEquals(instance.getIndex("oacode"), instance.getIndex(oa11));
+        assertTrue(instance.getIndex(oa11) >= 0);
+        assertEquals(instance.getIndex("oslaua"), instance.getIndex("LAUA"));
+        assertEquals(-1, instance.getIndex("lsoa11"));
+        // The global aliases of oacode, soa1 and soa2 do not apply.
+        assertEquals(-1, instance.getIndex("oa01"));
+        assertEquals(-1, instance.getIndex(UKP_Data.getColumnName(
+                UKP_Data.TYPE_OA, 2001)));
+        assertEquals(-1, instance.getIndex("lsoa01"));
+        assertEquals(-1, instance.getIndex("msoa01"));
+        assertTrue(instance.getIndex("soa1") >= 0);
+        assertFalse(instance.hasColumn("oa01"));
+        // The same with quotes and upper case as in some release files.
+        instance = ONSPD_Schema.get(ONSPD_Record_2011_05May.HEADER
+                .toUpperCase().replace(",", "\",\""));
+        assertEquals(instance.getIndex("oacode"), instance.getIndex(oa11));
+        // The alias only applies to the 2011_05May layout.
+        instance = ONSPD_Schema.get(ONSPD_Record_2008_02Feb.HEADER);
+        assertTrue(instance.getIndex("oacode") >= 0);
+        assertEquals(-1, instance.getIndex(oa11));
+        assertEquals(instance.getIndex("oacode"), instance.getIndex("oa01"));
+        assertEquals(instance.getIndex("soa1"), instance.getIndex("lsoa01"));
+        instance = ONSPD_Schema.get(ONSPD_Record_2016_02Feb.HEADER);
+        assertEquals(41, instance.getIndex(oa11));
+    }
+}
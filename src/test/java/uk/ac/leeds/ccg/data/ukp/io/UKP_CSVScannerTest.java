@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.io;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeNormaliser;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class UKP_CSVScannerTest {
+
+    @TempDir
+    Path dir;
+
+    public UKP_CSVScannerTest() {
+    }
+
+    /**
+     * Test of next method, of class UKP_CSVScanner.
+     *
+     * @throws java.lang.Exception If encountered.
+     */
+    @Test
+    public void testNext() throws Exception {
+        System.out.println("next");
+        Path f = dir.resolve("test.csv");
+        String s = "pcd,pcd2,oseast1m,lat,name\r\n"
+                + "\"AB1 0AA\",\"AB1  0AA\",\"385386\",57.101474,"
+                + "\"Cults, Bieldside \"\"West\"\"\"\r\n"
+                + "\r\n"
+                + "\"LS2 9JT\",\"LS2  9JT\",\"\",,\"\"\n"
+                + "\"ZE3 9JZ\",\"ZE3  9JZ\",\"-1\",60.0,x";
+        Files.write(f, s.getBytes(StandardCharsets.UTF_8));
+        // A small window to test remapping.
+        try (UKP_CSVScanner instance = new UKP_CSVScanner(f,
+                StandardCharsets.UTF_8, 96)) {
+            assertTrue(instance.next());
+            assertEquals(5, instance.getFieldCount());
+            assertEquals("pcd", instance.getString(0));
+            assertTrue(instance.next());
+            assertEquals("AB1 0AA", instance.getString(0));
+            assertEquals(385386, instance.getInt(2, -1));
+            assertEquals(57.101474, instance.getDouble(3, 0), 0.0);
+            assertEquals("Cults, Bieldside \"West\"", instance.getString(4));
+            assertEquals('A', (char) instance.getByte(0, 0));
+            assertEquals(UKP_PostcodeNormaliser.toKey("AB1  0AA"),
+                    instance.getPostcodeKey(1));
+            assertEquals(UKP_PostcodeKey.NONE, instance.getPostcodeKey(5));
+            assertTrue(instance.next());
+            assertEquals("LS2 9JT", instance.getString(0));
+            assertTrue(instance.isEmpty(2));
+            assertEquals(-1, instance.getInt(2, -1));
+            assertEquals("", instance.getString(4));
+            assertNull(instance.getString(5));
+            assertEquals("\"LS2 9JT\",\"LS2  9JT\",\"\",,\"\"",
+                    instance.getLine());
+            assertTrue(instance.next());
+            assertEquals(-1, instance.getInt(2, 0));
+            assertEquals("x", instance.getString(4));
+            assertFalse(instance.next());
+            assertEquals(4, instance.getLineCount());
+        }
+    }
+
+    /**
+     * Test of split method, of class UKP_CSVScanner.
+     *
+     * @throws java.lang.Exception If encountered.
+     */
+    @Test
+    public void testSplit() throws Exception {
+        System.out.println("split");
+        Path f = dir.resolve("test.csv");
+        StringBuilder sb = new StringBuilder("pcd,oseast1m\n");
+        for (int i = 0; i < 1000; i++) {
+            sb.append("\"P").append(i).append("\",").append(i).append("\n");
+        }
+        Files.write(f, sb.toString().getBytes(StandardCharsets.UTF_8));
+        long start;
+        try (UKP_CSVScanner instance = new UKP_CSVScanner(f)) {
+            instance.next();
+            start = instance.getPosition();
+        }
+        long[] r = UKP_CSVScanner.split(f, start, 7);
+        assertEquals(8, r.length);
+        assertEquals(start, r[0]);
+        assertEquals(Files.size(f), r[r.length - 1]);
+        int expResult = 0;
+        for (int i = 0; i < r.length - 1; i++) {
+            try (UKP_CSVScanner instance = new UKP_CSVScanner(f,
+                    StandardCharsets.UTF_8, UKP_CSVScanner.DEFAULT_WINDOW,
+                    r[i], r[i + 1])) {
+                while (instance.next()) {
+                    assertEquals("P" + expResult, instance.getString(0));
+                    assertEquals(expResult, instance.getInt(1, -1));
+                    expResult++;
+                }
+            }
+        }
+        assertEquals(1000, expResult);
+    }
+}
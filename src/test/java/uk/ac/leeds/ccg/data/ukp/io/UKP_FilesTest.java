@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.TreeMap;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_YM3;
+import uk.ac.leeds.ccg.generic.core.Generic_Environment;
+import uk.ac.leeds.ccg.generic.io.Generic_Defaults;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class UKP_FilesTest {
+
+    @TempDir
+    Path dir;
+
+    public UKP_FilesTest() {
+    }
+
+    /**
+     * Test of discoverInputONSPDFiles method, of class UKP_Files.
+     *
+     * @throws java.lang.Exception If encountered.
+     */
+    @Test
+    public void testDiscoverInputONSPDFiles() throws Exception {
+        System.out.println("discoverInputONSPDFiles");
+        Path in = dir.resolve("input");
+        Path f0 = write(in, "ONSPD_FEB_2020_UK", "ONSPD_FEB_2020_UK.csv");
+        write(in, "ONSPD_FEB_2020_UK", "Changes.csv");
+        write(in, "ONSPD_FEB_2020_UK", "ONSPD_FEB_2020_UK_EN.csv");
+        Path f1 = write(in, "NSPL_NOV_2019_UK", "NSPL_NOV_2019_UK_LU.csv");
+        write(in, "NSPL_NOV_2019_UK", "Names.csv");
+        write(in, "ONSPD_MAY_2019_UK", "Notes.csv");
+        UKP_Files instance = new UKP_Files(dir.resolve("files"),
+                new Generic_Environment(new Generic_Defaults()));
+        TreeMap<UKP_YM3, Path> m = new TreeMap<>();
+        instance.discoverInputONSPDFiles(in, m);
+        assertEquals(2, m.size());
+        assertEquals(f0, m.get(new UKP_YM3(2020, 2)));
+        assertEquals(f1, m.get(new UKP_YM3(2019, 11)));
+        // Ambiguous releases are skipped.
+        write(in, "ONSPD_AUG_2019_UK", "ONSPD_AUG_2019_UK_EN.csv");
+        write(in, "ONSPD_AUG_2019_UK", "ONSPD_AUG_2019_UK_SC.csv");
+        Path f2 = write(in, "ONSPD_MAY_2020_UK", "ONSPD_MAY_2020_UK_EN.csv");
+        instance.discoverInputONSPDFiles(in, m);
+        assertEquals(3, m.size());
+        assertNull(m.get(new UKP_YM3(2019, 8)));
+        assertEquals(f2, m.get(new UKP_YM3(2020, 5)));
+    }
+
+    private Path write(Path in, String d, String name) throws IOException {
+        Path dd = in.resolve(d).resolve("Data");
+        Files.createDirectories(dd);
+        return Files.write(dd.resolve(name), "pcd\n".getBytes());
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.io;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_ArrayPointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_CodeLookup;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Point;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class UKP_GeocoderTest {
+
+    @TempDir
+    Path dir;
+
+    public UKP_GeocoderTest() {
+    }
+
+    /**
+     * Test of geocode method, of class UKP_Geocoder.
+     *
+     * @throws java.lang.Exception If encountered.
+     */
+    @Test
+    public void testGeocode() throws Exception {
+        System.out.println("geocode");
+        TreeMap<String, ONSPD_Point> m = new TreeMap<>();
+        TreeMap<String, String> la = new TreeMap<>();
+        for (int i = 0; i < 1000; i++) {
+            String p = "LS" + (i / 100) + (i % 10) + "A" + (char) ('A' + i % 26);
+            m.put(p, new ONSPD_Point(400000 + i, 430000 + i));
+            if (i % 3 > 0) {
+                la.put(p, "E0800003" + (i % 10));
+            }
+        }
+        TreeMap<String, TreeMap<String, String>> ms = new TreeMap<>();
+        ms.put("oslaua", la);
+        UKP_Geocoder instance = new UKP_Geocoder(UKP_ArrayPointLookup.of(m),
+                UKP_CodeLookup.of(ms), 7, 2, "OSLAUA");
+        int n = 10000;
+        Path in = dir.resolve("in.tsv");
+        try (BufferedWriter bw = Files.newBufferedWriter(in,
+                StandardCharsets.UTF_8)) {
+            bw.write("id\t\"note\"\t\"Post Code\"");
+            bw.newLine();
+            for (int i = 0; i < n; i++) {
+                int j = i % 1100;
+                String p = "ls" + (j / 100) + (j % 10) + " a"
+                        + (char) ('a' + j % 26);
+                bw.write(i + "\t\"a\tb\"\t\"" + p + "\"");
+                bw.newLine();
+            }
+        }
+        Path out = dir.resolve("out.tsv");
+        ForkJoinPool pool = new ForkJoinPool(3);
+        UKP_Geocoder.Summary result;
+        try {
+            result = instance.geocode(in, out, '\t', "post code", pool);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(n, result.getRowCount());
+        List<String> ls = Files.readAllLines(out, StandardCharsets.UTF_8);
+        assertEquals(n + 1, ls.size());
+        assertEquals("id\t\"note\"\t\"Post Code\"\toseast1m\tosnrth1m\tOSLAUA",
+                ls.get(0));
+        int matched = 0;
+        for (int i = 0; i < n; i++) {
+            int j = i % 1100;
+            String l = ls.get(i + 1);
+            assertTrue(l.startsWith(i + "\t\"a\tb\"\t"));
+            String[] fs = l.split("\t", -1);
+            assertEquals(7, fs.length);
+            if (j < 1000) {
+                assertEquals(String.valueOf(400000 + j), fs[4]);
+                assertEquals(String.valueOf(430000 + j), fs[5]);
+                assertEquals(j % 3 > 0 ? "E0800003" + (j % 10) : "", fs[6]);
+                matched++;
+            } else {
+                assertEquals("", fs[4]);
+                assertEquals("", fs[6]);
+            }
+        }
+        assertEquals(matched, result.getMatchedCount());
+        assertEquals(n - matched, result.getUnmatchedCount());
+        assertThrows(java.io.IOException.class, () -> instance.geocode(in, out,
+                '\t', "postcode", ForkJoinPool.commonPool()));
+        assertThrows(IllegalArgumentException.class, () -> new UKP_Geocoder(
+                UKP_ArrayPointLookup.of(m), null, "oslaua"));
+    }
+}
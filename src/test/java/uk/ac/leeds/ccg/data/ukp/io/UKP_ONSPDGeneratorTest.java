@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.io;
+
+import java.nio.file.Path;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Schema;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class UKP_ONSPDGeneratorTest {
+
+    @TempDir
+    Path dir;
+
+    public UKP_ONSPDGeneratorTest() {
+    }
+
+    /**
+     * Test of write method, of class UKP_ONSPDGenerator.
+     *
+     * @throws java.lang.Exception If encountered.
+     */
+    @Test
+    public void testWrite() throws Exception {
+        System.out.println("write");
+        int n = 10000;
+        String[] ps = null;
+        for (Map.Entry<String, String> e
+                : UKP_ONSPDGenerator.getLayouts().entrySet()) {
+            Path f = dir.resolve(e.getKey() + ".csv");
+            UKP_ONSPDGenerator instance = new UKP_ONSPDGenerator(e.getValue(),
+                    0);
+            instance.write(f, n);
+            if (ps == null) {
+                ps = instance.getPostcodes(n);
+            } else {
+                assertArrayEquals(ps, instance.getPostcodes(n));
+            }
+            ONSPD_Schema schema = ONSPD_Schema.get(e.getValue());
+            int pcds = schema.getIndex("pcds");
+            int pcd = schema.getIndex("pcd");
+            int doterm = schema.getIndex("doterm");
+            int east = schema.getIndex("oseast1m");
+            int grdind = schema.getIndex("osgrdind");
+            int terminated = 0;
+            int origin = 0;
+            String last = "";
+            try (UKP_CSVScanner s = new UKP_CSVScanner(f)) {
+                assertSame(schema, ONSPD_Schema.read(s, f));
+                for (int i = 0; i < n; i++) {
+                    assertTrue(s.next());
+                    assertEquals(schema.getColumnCount(), s.getFieldCount());
+                    assertEquals(ps[i], s.getString(pcds));
+                    String p = s.getString(pcd);
+                    assertEquals(7, p.length());
+                    assertTrue(p.compareTo(last) > 0);
+                    last = p;
+                    if (!s.isEmpty(doterm)) {
+                        terminated++;
+                    }
+                    if (s.isEmpty(east)) {
+                        assertEquals(9, s.getInt(grdind, -1));
+                        origin++;
+                    }
+                }
+                assertFalse(s.next());
+            }
+            assertTrue(terminated > n / 5 && terminated < n * 2 / 5);
+            assertTrue(origin > 0 && origin < n / 20);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.io;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2016_02Feb;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class UKP_PostcodeFilterTest {
+
+    @TempDir
+    Path dir;
+
+    public UKP_PostcodeFilterTest() {
+    }
+
+    /**
+     * Test of test methods, of class UKP_PostcodeFilter.
+     *
+     * @throws java.lang.Exception If encountered.
+     */
+    @Test
+    public void testTest() throws Exception {
+        System.out.println("test");
+        long ls29jt = UKP_PostcodeKey.encode("LS29JT");
+        long ls291ab = UKP_PostcodeKey.encode("LS291AB");
+        long wa11aa = UKP_PostcodeKey.encode("WA11AA");
+        long w1a1aa = UKP_PostcodeKey.encode("W1A1AA");
+        assertTrue(UKP_PostcodeFilter.ALL.test(ls29jt));
+        assertFalse(UKP_PostcodeFilter.ALL.test(UKP_PostcodeKey.NONE));
+        assertEquals("all", UKP_PostcodeFilter.ALL.getId());
+        // The prefix W is any postcode starting with W, but the area W is not.
+        assertTrue(UKP_PostcodeFilter.DEFAULT.test(wa11aa));
+        assertTrue(UKP_PostcodeFilter.DEFAULT.test(ls29jt));
+        assertFalse(UKP_PostcodeFilter.DEFAULT.test(
+                UKP_PostcodeKey.encode("AB101AA")));
+        UKP_PostcodeFilter areas = new UKP_PostcodeFilter.Builder()
+                .addAreas("w", "BD").build();
+        assertTrue(areas.test(w1a1aa));
+        assertFalse(areas.test(wa11aa));
+        assertFalse(areas.test(ls29jt));
+        assertEquals("a-BD-W", areas.getId());
+        // LS2 is not LS29.
+        UKP_PostcodeFilter districts = new UKP_PostcodeFilter.Builder()
+                .addDistricts("LS2").build();
+        assertTrue(districts.test(ls29jt));
+        assertFalse(districts.test(ls291ab));
+        UKP_PostcodeFilter f = new UKP_PostcodeFilter.Builder()
+                .addDistricts("LS29").setBounds(400000, 400000, 450000, 450000)
+                .addCountries("E92000001").build();
+        assertEquals("d-LS29_b-400000-400000-450000-450000_c-E92000001",
+                f.getId());
+        assertEquals(f, new UKP_PostcodeFilter.Builder()
+                .addCountries("E92000001").addDistricts("LS2 9")
+                .setBounds(400000, 400000, 450000, 450000).build());
+        assertTrue(f.test(ls291ab));
+        assertTrue(f.test(429857, 434771));
+        assertFalse(f.test(329857, 434771));
+        Path p = Files.write(dir.resolve("f.csv"), Arrays.asList(
+                ONSPD_Record_2016_02Feb.HEADER,
+                "\"LS291AB\",,,,,,,,,429857,434771,,,,E92000001",
+                "\"NP201AB\",,,,,,,,,329857,234771,,,,W92000004"));
+        try (UKP_CSVScanner s = new UKP_CSVScanner(p)) {
+            s.next();
+            s.next();
+            assertTrue(f.testCountry(s, 14));
+            assertTrue(UKP_PostcodeFilter.ALL.testCountry(s, 14));
+            s.next();
+            assertFalse(f.testCountry(s, 14));
+        }
+        // Long ids are shortened.
+        UKP_PostcodeFilter.Builder b = new UKP_PostcodeFilter.Builder();
+        for (int i = 1; i < 30; i++) {
+            b.addDistricts("LS" + i);
+        }
+        assertTrue(b.build().getId().length()
+                <= UKP_PostcodeFilter.MAX_ID_LENGTH);
+        assertNotEquals(b.build().getId(), new UKP_PostcodeFilter.Builder()
+                .addDistricts("LS1").build().getId());
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_ArrayPointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Point;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Record_2016_02Feb;
+import uk.ac.leeds.ccg.data.ukp.util.UKP_PostcodeKey;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class UKP_ReleaseDiffTest {
+
+    @TempDir
+    Path dir;
+
+    public UKP_ReleaseDiffTest() {
+    }
+
+    /**
+     * Test of diff method, of class UKP_ReleaseDiff.
+     *
+     * @throws java.lang.Exception If encountered.
+     */
+    @Test
+    public void testDiff() throws Exception {
+        System.out.println("diff");
+        // In pcd order LS2 9.. is before LS291.. which is not key order.
+        Path f0 = write("f0.csv",
+                "\"LS2 9JT\",,,,,,E08000035,E05001420,0,429857,434771",
+                "\"LS2 9JU\",,,,,,E08000035,E05001420,0,1,1",
+                "\"LS2 9JX\",,,,,,E08000035,E05001420,0,2,2",
+                "\"LS291AB\",,,,,,E08000035,E05001420,0,3,3",
+                "\"LS291AD\",,,,,,E08000035,E05001420,0,0,0");
+        Path f1 = write("f1.csv",
+                "\"LS2 9JT\",,,,,,E08000035,E05001420,0,429857,434771",
+                "\"LS2 9JU\",,,,,,E08000035,E05001420,0,5,5",
+                "\"LS2 9JY\",,,,,,E08000035,E05001420,0,6,6",
+                "\"LS291AB\",,,,201908,,E08000036,E05001420,1,3,3",
+                "\"LS291AD\",,,,,,E08000035,E05001420,0,100,100");
+        List<String> events = new ArrayList<>();
+        UKP_ReleaseDiff instance = new UKP_ReleaseDiff(true, 0d,
+                UKP_PostcodeFilter.ALL, "oslaua", "osward");
+        instance.diff(f0, f1, new UKP_ReleaseDiff.Listener() {
+            @Override
+            public void added(long k, int x, int y) {
+                events.add("added " + UKP_PostcodeKey.decode(k));
+            }
+
+            @Override
+            public void removed(long k, int x, int y) {
+                events.add("removed " + UKP_PostcodeKey.decode(k));
+            }
+
+            @Override
+            public void moved(long k, int x0, int y0, int x1, int y1) {
+                events.add("moved " + UKP_PostcodeKey.decode(k));
+            }
+
+            @Override
+            public void terminated(long k, int doterm) {
+                events.add("terminated " + UKP_PostcodeKey.decode(k) + " "
+                        + doterm);
+            }
+
+            @Override
+            public void recoded(long k, String column, String from,
+                    String to) {
+                events.add("recoded " + UKP_PostcodeKey.decode(k) + " "
+                        + column + " " + from + " " + to);
+            }
+        });
+        assertEquals(Arrays.asList("moved LS29JU", "removed LS29JX",
+                "added LS29JY", "terminated LS291AB 201908",
+                "recoded LS291AB oslaua E08000035 E08000036",
+                "added LS291AD"), events);
+        // Applying the delta gives the new release.
+        UKP_ReleaseDelta d = new UKP_ReleaseDelta();
+        instance.diff(f0, f1, d);
+        assertEquals(2, d.getAddedCount());
+        assertEquals(1, d.getRemovedCount());
+        assertEquals(1, d.getMovedCount());
+        TreeMap<String, ONSPD_Point> m0 = new TreeMap<>();
+        m0.put("LS29JT", new ONSPD_Point(429857, 434771));
+        m0.put("LS29JU", new ONSPD_Point(1, 1));
+        m0.put("LS29JX", new ONSPD_Point(2, 2));
+        m0.put("LS291AB", new ONSPD_Point(3, 3));
+        TreeMap<String, ONSPD_Point> m1 = new TreeMap<>();
+        m1.put("LS29JT", new ONSPD_Point(429857, 434771));
+        m1.put("LS29JU", new ONSPD_Point(5, 5));
+        m1.put("LS29JY", new ONSPD_Point(6, 6));
+        m1.put("LS291AB", new ONSPD_Point(3, 3));
+        m1.put("LS291AD", new ONSPD_Point(100, 100));
+        assertEquals(m1, d.apply(UKP_ArrayPointLookup.of(m0)).toTreeMap());
+        // From a lookup of the old release.
+        UKP_ReleaseDelta d1 = new UKP_ReleaseDelta();
+        instance.diff(UKP_ArrayPointLookup.of(m0), f1, d1);
+        assertEquals(2, d1.getAddedCount());
+        assertEquals(1, d1.getRemovedCount());
+        assertEquals(1, d1.getMovedCount());
+        assertEquals(m1, d1.apply(UKP_ArrayPointLookup.of(m0)).toTreeMap());
+        // A threshold.
+        UKP_ReleaseDelta d2 = new UKP_ReleaseDelta();
+        new UKP_ReleaseDiff(true, 10d, UKP_PostcodeFilter.ALL).diff(f0, f1,
+                d2);
+        assertEquals(0, d2.getMovedCount());
+        assertEquals(0, d2.getRecodedCount());
+        // Out of order.
+        Path f2 = write("f2.csv",
+                "\"LS291AB\",,,,,,E08000035,E05001420,0,3,3",
+                "\"LS2 9JT\",,,,,,E08000035,E05001420,0,429857,434771");
+        assertThrows(IOException.class, () -> instance.diff(f0, f2, d2));
+    }
+
+    private Path write(String name, String... lines) throws IOException {
+        List<String> l = new ArrayList<>();
+        l.add(ONSPD_Record_2016_02Feb.HEADER);
+        l.addAll(Arrays.asList(lines));
+        return Files.write(dir.resolve(name), l);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.TreeMap;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_ArrayPointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.lookup.UKP_MappedPointLookup;
+import uk.ac.leeds.ccg.data.ukp.data.onspd.ONSPD_Point;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class UKP_SnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    public UKP_SnapshotTest() {
+    }
+
+    /**
+     * Test of write and read methods, of class UKP_Snapshot.
+     *
+     * @throws java.lang.Exception If encountered.
+     */
+    @Test
+    public void testWriteRead() throws Exception {
+        System.out.println("writeRead");
+        TreeMap<String, ONSPD_Point> m = new TreeMap<>();
+        m.put("LS29JT", new ONSPD_Point(429857, 434771));
+        m.put("AB10AA", new ONSPD_Point(385386, 801193));
+        m.put("W1A1AA", new ONSPD_Point(528887, 181593));
+        m.put("ZE39JZ", new ONSPD_Point(0, 0));
+        Path f = dir.resolve(UKP_Snapshot.getName("test.dat"));
+        assertEquals("test" + UKP_Snapshot.EXTENSION,
+                f.getFileName().toString());
+        UKP_Snapshot.write(UKP_ArrayPointLookup.of(m), f);
+        assertEquals(UKP_Snapshot.HEADER_SIZE + 4 * 16, Files.size(f));
+        UKP_ArrayPointLookup l = UKP_Snapshot.read(f);
+        assertEquals(4, l.size());
+        assertEquals(new ONSPD_Point(429857, 434771), l.getPoint("LS29JT"));
+        assertNull(l.getPoint("LS29JU"));
+        assertEquals(m, l.toTreeMap());
+        UKP_MappedPointLookup ml = new UKP_MappedPointLookup(f, true);
+        assertEquals(4, ml.size());
+        for (String p : m.keySet()) {
+            assertEquals(m.get(p), ml.getPoint(p));
+        }
+        assertNull(ml.getPoint("AA11AA"));
+        assertNull(ml.getPoint("ZZ99ZZ"));
+        // Corrupt a byte of data.
+        byte[] b = Files.readAllBytes(f);
+        b[b.length - 1] ^= 1;
+        Files.write(f, b);
+        assertThrows(IOException.class, () -> UKP_Snapshot.read(f));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.util;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.leeds.ccg.data.ukp.io.UKP_CSVScanner;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class UKP_CodeDictionaryTest {
+
+    @TempDir
+    Path dir;
+
+    public UKP_CodeDictionaryTest() {
+    }
+
+    /**
+     * Test of intern method, of class UKP_CodeDictionary.
+     */
+    @Test
+    public void testIntern() {
+        System.out.println("intern");
+        UKP_CodeDictionary instance = new UKP_CodeDictionary();
+        int n = 1000;
+        String[] cs = new String[n];
+        for (int i = 0; i < n; i++) {
+            cs[i] = instance.intern(new String("E0" + (8000000 + i)));
+            assertEquals("E0" + (8000000 + i), cs[i]);
+        }
+        assertEquals(n + 1, instance.size());
+        for (int i = 0; i < n; i++) {
+            String c = new String("E0" + (8000000 + i));
+            assertSame(cs[i], instance.intern(c));
+            assertEquals(i + 1, instance.getId(c));
+            assertSame(cs[i], instance.get(i + 1));
+        }
+        assertEquals(n + 1, instance.size());
+        assertNull(instance.intern(null));
+        assertSame(instance.get(UKP_CodeDictionary.EMPTY), instance.intern(""));
+        assertEquals(UKP_CodeDictionary.EMPTY, instance.getId((String) null));
+        // Not ASCII.
+        String c = instance.intern(new String("Ynys M\u00f4n"));
+        assertEquals("Ynys M\u00f4n", c);
+        assertSame(c, instance.intern(new String("Ynys M\u00f4n")));
+        assertEquals(n + 1, instance.getId(c));
+        assertEquals(n + 2, instance.size());
+        assertEquals(n + 2, instance.toArray().length);
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> instance.get(n + 2));
+    }
+
+    /**
+     * Test of getId method, of class UKP_CodeDictionary.
+     *
+     * @throws java.lang.Exception If encountered.
+     */
+    @Test
+    public void testGetId() throws Exception {
+        System.out.println("getId");
+        Path f = dir.resolve("test.csv");
+        StringBuilder sb = new StringBuilder("pcd,oslaua\n");
+        for (int i = 0; i < 100; i++) {
+            sb.append("\"LS2 9JT\",\"E0").append(8000000 + i % 40)
+                    .append("\"\n");
+        }
+        sb.append("\"LS2 9JU\",\"\"\n");
+        Files.write(f, sb.toString().getBytes(StandardCharsets.UTF_8));
+        UKP_CodeDictionary instance = new UKP_CodeDictionary();
+        int id0 = instance.getId("E08000005");
+        try (UKP_CSVScanner s = new UKP_CSVScanner(f)) {
+            s.next();
+            for (int i = 0; i < 100; i++) {
+                assertTrue(s.next());
+                int id = instance.getId(s, 1);
+                assertEquals(instance.getId(s.getString(1)), id);
+                if (i % 40 == 5) {
+                    assertEquals(id0, id);
+                }
+            }
+            assertTrue(s.next());
+            assertEquals(UKP_CodeDictionary.EMPTY, instance.getId(s, 1));
+        }
+        assertEquals(41, instance.size());
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class UKP_PostcodeKeyTest {
+
+    public UKP_PostcodeKeyTest() {
+    }
+
+    /**
+     * Test of encode and decode methods, of class UKP_PostcodeKey.
+     */
+    @Test
+    public void testEncodeDecode() {
+        System.out.println("encodeDecode");
+        String[] ps = {"A", "AB10AA", "AB10AB", "AB1", "L18JQ", "LS29JT",
+            "SW1W0NY", "W1A1AA", "ZE39JZ", "ZZ99ZZ9999"};
+        for (String p : ps) {
+            long k = UKP_PostcodeKey.encode(p);
+            assertTrue(k >= 0);
+            assertEquals(p, UKP_PostcodeKey.decode(k));
+            assertEquals(p.length(), UKP_PostcodeKey.getLength(k));
+        }
+        // Order is preserved.
+        for (String p0 : ps) {
+            for (String p1 : ps) {
+                assertEquals(Integer.signum(p0.compareTo(p1)),
+                        Long.signum(Long.compare(UKP_PostcodeKey.encode(p0),
+                                UKP_PostcodeKey.encode(p1))));
+            }
+        }
+        assertEquals(UKP_PostcodeKey.encode("LS29JT"),
+                UKP_PostcodeKey.encode("ls29jt"));
+        assertEquals(UKP_PostcodeKey.NONE, UKP_PostcodeKey.encode("LS2 9JT"));
+        assertEquals(UKP_PostcodeKey.NONE, UKP_PostcodeKey.encode(""));
+        assertEquals(UKP_PostcodeKey.NONE, UKP_PostcodeKey.encode(null));
+        assertEquals(UKP_PostcodeKey.NONE,
+                UKP_PostcodeKey.encode("ABCDEFGHIJK"));
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class UKP_PostcodeNormaliserTest {
+
+    public UKP_PostcodeNormaliserTest() {
+    }
+
+    /**
+     * Test of normalise methods, of class UKP_PostcodeNormaliser.
+     */
+    @Test
+    public void testNormalise() {
+        System.out.println("normalise");
+        String p = "LS29JT";
+        assertSame(p, UKP_PostcodeNormaliser.normalise(p));
+        assertEquals("LS29JT", UKP_PostcodeNormaliser.normalise(" ls2 9jt"));
+        assertEquals("SW1W0NY", UKP_PostcodeNormaliser.normalise("SW1W-0NY."));
+        assertEquals("", UKP_PostcodeNormaliser.normalise((String) null));
+        assertEquals("", UKP_PostcodeNormaliser.normalise(" '_ "));
+        char[] buf = new char[4];
+        assertEquals(6, UKP_PostcodeNormaliser.normalise("ls2 9jt", buf));
+        assertArrayEquals("LS29".toCharArray(), buf);
+        assertEquals("XLS29JT", UKP_PostcodeNormaliser.normalise("ls2 9jt",
+                new StringBuilder("X")).toString());
+    }
+
+    /**
+     * Test of toKey method, of class UKP_PostcodeNormaliser.
+     */
+    @Test
+    public void testToKey() {
+        System.out.println("toKey");
+        assertEquals(UKP_PostcodeKey.encode("LS29JT"),
+                UKP_PostcodeNormaliser.toKey("ls2 9JT"));
+        assertEquals(UKP_PostcodeKey.NONE, UKP_PostcodeNormaliser.toKey(" "));
+        assertEquals(UKP_PostcodeKey.NONE,
+                UKP_PostcodeNormaliser.toKey("AB1 2CD 3EF 45"));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.distance;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A {@link UKP_DistanceKernel} using the JDK Vector API. Coordinates are
+ * loaded as ints and converted to doubles lane for lane, so the int species
+ * has half the bits of the preferred double species. Squares are multiplied
+ * and added rather than fused so results are the same as those of
+ * {@link UKP_ScalarDistanceKernel}. Tails shorter than a vector are done
+ * with scalar loops.
+ *
+ * This is loaded by {@link UKP_DistanceKernels} if it is on the class path
+ * and the jdk.incubator.vector module is available.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class UKP_VectorDistanceKernel implements UKP_DistanceKernel {
+
+    /**
+     * The double species.
+     */
+    static final VectorSpecies<Double> DS = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * The int species with the same number of lanes as {@link #DS}.
+     */
+    static final VectorSpecies<Integer> IS = VectorSpecies.of(int.class,
+            VectorShape.forBitSize(DS.vectorBitSize() / 2));
+
+    /**
+     * @param vs The int coordinates.
+     * @param j The index of the first lane.
+     * @return The coordinates at {@code j} as doubles.
+     */
+    private static DoubleVector load(int[] vs, int j) {
+        return (DoubleVector) IntVector.fromArray(IS, vs, j)
+                .convertShape(VectorOperators.I2D, DS, 0);
+    }
+
+    @Override
+    public void getDistances(int x, int y, int[] xs, int[] ys, int n,
+            double[] r, int o) {
+        DoubleVector vx = DoubleVector.broadcast(DS, x);
+        DoubleVector vy = DoubleVector.broadcast(DS, y);
+        int l = IS.length();
+        int ub = IS.loopBound(n);
+        int j = 0;
+        for (; j < ub; j += l) {
+            DoubleVector dx = load(xs, j).sub(vx);
+            DoubleVector dy = load(ys, j).sub(vy);
+            dx.mul(dx).add(dy.mul(dy)).sqrt().intoArray(r, o + j);
+        }
+        double px = x;
+        double py = y;
+        for (; j < n; j++) {
+            double dx = xs[j] - px;
+            double dy = ys[j] - py;
+            r[o + j] = Math.sqrt(dx * dx + dy * dy);
+        }
+    }
+
+    @Override
+    public int getNearest(int x, int y, int[] xs, int[] ys, int n) {
+        DoubleVector vx = DoubleVector.broadcast(DS, x);
+        DoubleVector vy = DoubleVector.broadcast(DS, y);
+        int l = IS.length();
+        int ub = IS.loopBound(n);
+        int r = -1;
+        double min = Double.POSITIVE_INFINITY;
+        int j = 0;
+        for (; j < ub; j += l) {
+            DoubleVector dx = load(xs, j).sub(vx);
+            DoubleVector dy = load(ys, j).sub(vy);
+            DoubleVector d2 = dx.mul(dx).add(dy.mul(dy));
+            double m = d2.reduceLanes(VectorOperators.MIN);
+            if (m < min) {
+                VectorMask<Double> eq = d2.eq(m);
+                min = m;
+                r = j + eq.firstTrue();
+            }
+        }
+        double px = x;
+        double py = y;
+        for (; j < n; j++) {
+            double dx = xs[j] - px;
+            double dy = ys[j] - py;
+            double d2 = dx * dx + dy * dy;
+            if (d2 < min) {
+                min = d2;
+                r = j;
+            }
+        }
+        return r;
+    }
+
+    @Override
+    public String toString() {
+        return "vector " + DS;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 Andy Turner, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.ukp.data.distance;
+
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Andy Turner
+ */
+public class UKP_VectorDistanceKernelTest {
+
+    public UKP_VectorDistanceKernelTest() {
+    }
+
+    /**
+     * Test of getDistances and getNearest methods, of class
+     * UKP_VectorDistanceKernel.
+     */
+    @Test
+    public void testGetDistances() {
+        System.out.println("getDistances");
+        assertTrue(UKP_DistanceKernels.get()
+                instanceof UKP_VectorDistanceKernel);
+        UKP_DistanceKernel instance = new UKP_VectorDistanceKernel();
+        UKP_DistanceKernel scalar = UKP_DistanceKernels.getScalar();
+        Random r = new Random(0);
+        // Lengths either side of multiples of the number of lanes.
+        for (int n = 0; n < 70; n++) {
+            int[] xs = new int[n];
+            int[] ys = new int[n];
+            for (int j = 0; j < n; j++) {
+                xs[j] = r.nextInt(700000);
+                ys[j] = r.nextInt(1300000);
+            }
+            if (n > 10) {
+                // A tie.
+                xs[9] = xs[3];
+                ys[9] = ys[3];
+            }
+            for (int q = 0; q < 20; q++) {
+                int x = r.nextInt(700000);
+                int y = r.nextInt(1300000);
+                double[] e = new double[n + 1];
+                double[] a = new double[n + 1];
+                scalar.getDistances(x, y, xs, ys, n, e, 1);
+                instance.getDistances(x, y, xs, ys, n, a, 1);
+                assertArrayEquals(e, a);
+                assertEquals(scalar.getNearest(x, y, xs, ys, n),
+                        instance.getNearest(x, y, xs, ys, n));
+            }
+            if (n > 10) {
+                assertEquals(3, instance.getNearest(xs[3], ys[3], xs, ys, n));
+            }
+        }
+    }
+}